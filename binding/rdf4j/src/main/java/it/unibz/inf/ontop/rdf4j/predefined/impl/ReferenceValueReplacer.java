@@ -142,13 +142,20 @@ public class ReferenceValueReplacer {
                         });
     }
 
+    /**
+     * The reference values may appear in the query string and in the parameters
+     */
     private IQTree transformNativeNode(NativeNode nativeNode, ImmutableMap<String, String> referenceToInputMap) {
         String newQueryString = replaceString(nativeNode.getNativeQueryString(), referenceToInputMap);
+        ImmutableList<DBConstant> newParameters = nativeNode.getParameters().stream()
+                .map(p -> (DBConstant) transformTerm(p, referenceToInputMap))
+                .collect(ImmutableCollectors.toList());
 
         return iqFactory.createNativeNode(nativeNode.getVariables(),
                 nativeNode.getTypeMap(),
                 nativeNode.getColumnNames(),
                 newQueryString,
+                newParameters,
                 nativeNode.getVariableNullability());
     }
 }
@@ -19,6 +19,7 @@ import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class OntopRDF4JBindingSet extends AbstractBindingSet implements BindingSet {
@@ -26,12 +27,20 @@ public class OntopRDF4JBindingSet extends AbstractBindingSet implements BindingS
     private static final long serialVersionUID = -8455466574395305166L;
 
     private OntopBindingSet ontopBindingSet;
-    private final byte[] salt;
+    private final Function<RDFConstant, Value> valueConverter;
 
     public OntopRDF4JBindingSet(OntopBindingSet ontopBindingSet,
                                 byte[] salt) {
+        this(ontopBindingSet, c -> RDF4JHelper.getValue(c, salt));
+    }
+
+    /**
+     * The value converter can be shared between the binding sets of a query (e.g. for caching the values)
+     */
+    public OntopRDF4JBindingSet(OntopBindingSet ontopBindingSet,
+                                Function<RDFConstant, Value> valueConverter) {
         this.ontopBindingSet = ontopBindingSet;
-        this.salt = salt;
+        this.valueConverter = valueConverter;
     }
 
     @Override
@@ -55,7 +64,7 @@ public class OntopRDF4JBindingSet extends AbstractBindingSet implements BindingS
             final RDFConstant constant = ontopBindingSet.getConstant(variableName);
             return constant == null?
                     null:
-                    RDF4JHelper.getValue(constant, salt);
+                    valueConverter.apply(constant);
         } catch (OntopResultConversionException e) {
             throw new RuntimeException(e);
         }
@@ -79,7 +88,7 @@ public class OntopRDF4JBindingSet extends AbstractBindingSet implements BindingS
 //        try {
             return new SimpleBinding(
                     ontopBinding.getName(),
-                    RDF4JHelper.getValue(ontopBinding.getValue(), salt)
+                    valueConverter.apply(ontopBinding.getValue())
             );
 //        } catch (OntopResultConversionException e) {
 //            throw new RuntimeException(e);
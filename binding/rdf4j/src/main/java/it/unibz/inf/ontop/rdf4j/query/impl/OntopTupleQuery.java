@@ -11,7 +11,6 @@ import it.unibz.inf.ontop.answering.connection.OntopStatement;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.query.TupleQuery;
-import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.TupleQueryResultHandler;
 import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
@@ -23,15 +22,17 @@ import java.util.List;
 public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
 
 	private final RDF4JInputQueryFactory factory;
+	private final int valueCacheSize;
 
 	public OntopTupleQuery(String queryString, ParsedQuery parsedQuery, String baseIRI, OntopConnection conn,
 						   ImmutableMultimap<String, String> httpHeaders, RDF4JInputQueryFactory factory, OntopSystemSettings settings) {
 		super(queryString, baseIRI, parsedQuery, conn, httpHeaders, settings);
+		this.valueCacheSize = settings.getResultValueCacheSize();
 		this.factory = factory;
 	}
 
     @Override
-	public TupleQueryResult evaluate() throws QueryEvaluationException {
+	public OntopTupleQueryResult evaluate() throws QueryEvaluationException {
 		TupleResultSet res;
 		OntopStatement stm;
 		long start = System.currentTimeMillis();
@@ -56,7 +57,7 @@ public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
 			}
 			
 			List<String> signature = res.getSignature();
-			return new OntopTupleQueryResult(res, signature, salt);
+			return new OntopTupleQueryResult(res, signature, salt, valueCacheSize);
 
 		} catch (QueryEvaluationException e) {
 			throw e;
@@ -69,11 +70,7 @@ public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
     @Override
 	public void evaluate(TupleQueryResultHandler handler) 
 			throws QueryEvaluationException, TupleQueryResultHandlerException {
-		TupleQueryResult result = evaluate();
-		handler.startQueryResult(result.getBindingNames());
-		while (result.hasNext()) {
-			handler.handleSolution(result.next());
-		}
-		handler.endQueryResult();
+		// Batch-based conversion (also closes the result)
+		evaluate().handle(handler);
 	}
 }
\ No newline at end of file
@@ -2,27 +2,47 @@ package it.unibz.inf.ontop.rdf4j.query.impl;
 
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultBatch;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.answering.resultset.impl.ResultValueCache;
 
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import it.unibz.inf.ontop.rdf4j.utils.RDF4JHelper;
+import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.query.Binding;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
 import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
+import org.eclipse.rdf4j.query.impl.ListBindingSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class OntopTupleQueryResult implements TupleQueryResult {
 
+	private static final int BATCH_SIZE = 1000;
+	private static final Logger log = LoggerFactory.getLogger(OntopTupleQueryResult.class);
+
 	private final byte[] salt;
 	TupleResultSet res;
 	List<String> signature;
 	Set<String> bindingNames;
+	// RDF4J values shared by the solutions (the blank nodes depend on the salt of the query)
+	private final ResultValueCache<RDFConstant, Value> valueCache;
 	
-	public OntopTupleQueryResult(TupleResultSet res, List<String> signature, byte[] salt){
+	public OntopTupleQueryResult(TupleResultSet res, List<String> signature, byte[] salt) {
+		this(res, signature, salt, 0);
+	}
+
+	public OntopTupleQueryResult(TupleResultSet res, List<String> signature, byte[] salt, int valueCacheSize){
 		this.salt = salt;
+		this.valueCache = new ResultValueCache<>("RDF4J value", valueCacheSize);
 		if(res == null)
 			throw new NullPointerException();
 		this.res = res;
@@ -34,6 +54,8 @@ public class OntopTupleQueryResult implements TupleQueryResult {
 	public void close() throws QueryEvaluationException {
 		try {
 			res.close();
+			if (valueCache.isEnabled())
+				log.debug(valueCache.toString());
 		} catch (Exception e) {
 			throw new QueryEvaluationException(e);
 		}
@@ -51,7 +73,7 @@ public class OntopTupleQueryResult implements TupleQueryResult {
 	@Override
 	public BindingSet next() throws QueryEvaluationException {
         try {
-            return new OntopRDF4JBindingSet(res.next(), salt);
+            return new OntopRDF4JBindingSet(res.next(), this::convert);
         } catch (OntopConnectionException | OntopResultConversionException e) {
             throw new QueryEvaluationException(e);
 		}
@@ -66,6 +88,48 @@ public class OntopTupleQueryResult implements TupleQueryResult {
 
 	}
 
+	/**
+	 * Pushes all the (remaining) solutions to the handler and closes the result.
+	 *
+	 * Reads the results by batches: the RDF4J values are created once per distinct value of a batch,
+	 * instead of once per row.
+	 */
+	public void handle(TupleQueryResultHandler handler)
+			throws QueryEvaluationException, TupleQueryResultHandlerException {
+		try {
+			handler.startQueryResult(signature);
+			int columnCount = signature.size();
+			TupleResultBatch batch;
+			while ((batch = res.nextBatch(BATCH_SIZE)).getRowCount() > 0) {
+				Value[][] dictionaries = new Value[columnCount][];
+				for (int j = 0; j < columnCount; j++) {
+					List<RDFConstant> dictionary = batch.getDictionary(j);
+					dictionaries[j] = new Value[dictionary.size()];
+					for (int k = 0; k < dictionaries[j].length; k++)
+						dictionaries[j][k] = convert(dictionary.get(k));
+				}
+				for (int i = 0; i < batch.getRowCount(); i++) {
+					Value[] values = new Value[columnCount];
+					for (int j = 0; j < columnCount; j++) {
+						int index = batch.getIndex(i, j);
+						if (index >= 0)
+							values[j] = dictionaries[j][index];
+					}
+					handler.handleSolution(new ListBindingSet(signature, values));
+				}
+			}
+			handler.endQueryResult();
+		} catch (OntopConnectionException | OntopResultConversionException e) {
+			throw new QueryEvaluationException(e);
+		} finally {
+			close();
+		}
+	}
+
+	private Value convert(RDFConstant constant) {
+		return valueCache.get(constant, c -> RDF4JHelper.getValue(c, salt));
+	}
+
 	@Override
 	public void remove() throws QueryEvaluationException {
 		throw new QueryEvaluationException("The query result is read-only. Elements cannot be removed");
@@ -4,6 +4,8 @@ import it.unibz.inf.ontop.answering.cache.HTTPCacheHeaders;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
 
+import java.util.function.Supplier;
+
 /**
  * Ontop RDF4J repository
  */
@@ -14,4 +16,13 @@ public interface OntopRepository extends org.eclipse.rdf4j.repository.Repository
     static OntopVirtualRepository defaultRepository(OntopSystemConfiguration configuration) {
         return new OntopVirtualRepository(configuration);
     }
+
+    /**
+     * Repository whose OBDA specification can be reloaded: the configuration supplier is called
+     * for each reload (see OntopVirtualRepository.reload()).
+     */
+    static OntopVirtualRepository reloadableRepository(OntopSystemConfiguration initialConfiguration,
+                                                       Supplier<? extends OntopSystemConfiguration> configurationSupplier) {
+        return new OntopVirtualRepository(initialConfiguration, configurationSupplier);
+    }
 }
@@ -18,7 +18,6 @@ import org.eclipse.rdf4j.model.impl.NamespaceImpl;
 import org.eclipse.rdf4j.model.impl.ValueFactoryImpl;
 import org.eclipse.rdf4j.query.*;
 import org.eclipse.rdf4j.query.parser.*;
-import org.eclipse.rdf4j.queryrender.RenderUtils;
 import org.eclipse.rdf4j.repository.Repository;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.repository.RepositoryResult;
@@ -26,6 +25,7 @@ import org.eclipse.rdf4j.rio.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -45,10 +45,20 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
     private boolean isActive;
     private RDFParser rdfParser;
     private Map<String, String> namespaces;
+    // Called once, when closing
+    @Nullable
+    private Runnable closingCallback;
 
 
     OntopRepositoryConnection(OntopRepository rep, OntopConnection connection,
                               RDF4JInputQueryFactory inputQueryFactory, OntopSystemSettings settings) {
+        this(rep, connection, inputQueryFactory, settings, null);
+    }
+
+    OntopRepositoryConnection(OntopRepository rep, OntopConnection connection,
+                              RDF4JInputQueryFactory inputQueryFactory, OntopSystemSettings settings,
+                              @Nullable Runnable closingCallback) {
+        this.closingCallback = closingCallback;
         this.repository = rep;
         this.ontopConnection = connection;
         this.inputQueryFactory = inputQueryFactory;
@@ -128,6 +138,11 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
             ontopConnection.close();
         } catch (Exception e) {
             throw new RepositoryException(e);
+        } finally {
+            Runnable callback = closingCallback;
+            closingCallback = null;
+            if (callback != null)
+                callback.run();
         }
     }
 
@@ -229,31 +244,28 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
         //predicate and/or object from the repository.
         //The result is optionally restricted to the specified set of named contexts.
 
-        //construct query for it
-        StringBuilder queryString = new StringBuilder("CONSTRUCT {");
-
-        StringBuilder spo = subj == null ? new StringBuilder("?s ") : RenderUtils.toSPARQL(subj, new StringBuilder());
+        if (!isDefaultGraph(contexts))
+            return new RepositoryResult<>(new CloseableIteratorIteration<>(Collections.emptyIterator()));
 
-        spo = pred == null ? spo.append(" ?p ") : RenderUtils.toSPARQL(pred, spo);
-
-        spo = obj == null ? spo.append(" ?o ") : RenderUtils.toSPARQL(obj, spo);
-
-        queryString.append(spo).append("} WHERE {").append(spo).append("}");
-
-        //execute construct query
+        // Builds the query directly (no SPARQL parsing)
+        ParsedGraphQuery parsedQuery = TriplePatternQueries.getConstructQuery(subj, pred, obj);
         try {
-            if (contexts.length == 0 || (contexts.length > 0 && contexts[0] == null)) {
-                GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL,
-                        queryString.toString());
-                GraphQueryResult result = query.evaluate();
-                return new RepositoryResult<>(new CloseableIteratorIteration<>(result.iterator()));
-            }
-            return new RepositoryResult<>(new CloseableIteratorIteration<>());
-        } catch (MalformedQueryException | QueryEvaluationException e) {
+            GraphQuery query = new OntopGraphQuery(parsedQuery.getSourceString(), parsedQuery, null,
+                    ontopConnection, ImmutableMultimap.of(), inputQueryFactory, settings);
+            GraphQueryResult result = query.evaluate();
+            return new RepositoryResult<>(new CloseableIteratorIteration<>(result.iterator()));
+        } catch (QueryEvaluationException e) {
             throw new RepositoryException(e);
         }
     }
 
+    /**
+     * Only the default graph is supported
+     */
+    private static boolean isDefaultGraph(Resource... contexts) {
+        return contexts.length == 0 || contexts[0] == null;
+    }
+
     @Override
     public ValueFactory getValueFactory() {
         //Gets a ValueFactory for this OntopRepositoryConnection.
@@ -274,12 +286,17 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
                                 boolean includeInferred, Resource... contexts) throws RepositoryException {
         //Checks whether the repository contains statements with a specific subject,
         //predicate and/or object, optionally in the specified contexts.
-        RepositoryResult<Statement> stIter = getStatements(subj, pred,
-                obj, includeInferred, contexts);
+        if (!isDefaultGraph(contexts))
+            return false;
+
+        // ASK query: only needs one row (LIMIT 1)
+        ParsedBooleanQuery parsedQuery = TriplePatternQueries.getAskQuery(subj, pred, obj);
         try {
-            return stIter.hasNext();
-        } finally {
-            stIter.close();
+            BooleanQuery query = new OntopBooleanQuery(parsedQuery.getSourceString(), parsedQuery, null,
+                    ontopConnection, ImmutableMultimap.of(), inputQueryFactory, settings);
+            return query.evaluate();
+        } catch (QueryEvaluationException e) {
+            throw new RepositoryException(e);
         }
     }
 
@@ -297,7 +314,7 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
     @Override
     public boolean isEmpty() throws RepositoryException {
         //Returns true if this repository does not contain any (explicit) statements.
-        return size() == 0;
+        return !hasStatement(null, null, null, true);
     }
 
     @Override
@@ -545,10 +562,29 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
         rdfParser.setParserConfig(config);
     }
 
+    /**
+     * Counts the distinct triples of the whole virtual graph (COUNT over SELECT DISTINCT ?s ?p ?o).
+     *
+     * Expensive: the query is evaluated by the DB over all the mappings (a union of all of them, followed
+     * by a duplicate elimination), so it may take long on large data sources. Not cached.
+     */
     @Override
     public long size(Resource... contexts) throws RepositoryException {
         //Returns the number of (explicit) statements that are in the specified contexts in this repository.
-        return 0;
+        if (!isDefaultGraph(contexts))
+            return 0;
+
+        // The distinct triples are counted by the DB
+        ParsedTupleQuery parsedQuery = TriplePatternQueries.getCountQuery();
+        TupleQuery query = new OntopTupleQuery(parsedQuery.getSourceString(), parsedQuery, null, ontopConnection,
+                ImmutableMultimap.of(), inputQueryFactory, settings);
+        try (TupleQueryResult result = query.evaluate()) {
+            return result.hasNext()
+                    ? ((Literal) result.next().getValue(TriplePatternQueries.COUNT_VARIABLE)).longValue()
+                    : 0;
+        } catch (QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
     }
 
 
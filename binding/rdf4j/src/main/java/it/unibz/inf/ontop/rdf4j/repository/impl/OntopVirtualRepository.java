@@ -3,7 +3,6 @@ package it.unibz.inf.ontop.rdf4j.repository.impl;
 import com.google.inject.Injector;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.cache.HTTPCacheHeaders;
-import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
@@ -17,27 +16,55 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+/**
+ * When created with a configuration supplier, the OBDA specification can be reloaded without interruption
+ * (see reload()).
+ */
 public class OntopVirtualRepository extends AbstractRepository implements OntopRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(OntopVirtualRepository.class);
     private final OntopSystemSettings settings;
 
-    // Temporary (dropped after initialization)
-    @Nullable
-    private OntopSystemConfiguration configuration;
+    // Initial configuration
+    private final OntopSystemConfiguration configuration;
 
+    // Null if the repository cannot be reloaded
     @Nullable
-    private OntopQueryEngine queryEngine;
+    private final Supplier<? extends OntopSystemConfiguration> configurationSupplier;
+
+    // Set at initialization, replaced when reloading
+    private final AtomicReference<QueryEngineGeneration> currentGeneration;
+    // Replaced generations still used by some connections
+    private final Set<QueryEngineGeneration> retiredGenerations;
+
     private final RDF4JInputQueryFactory inputQueryFactory;
-    private final HTTPCacheHeaders cacheHeaders;
+    private volatile HTTPCacheHeaders cacheHeaders;
 
     public OntopVirtualRepository(OntopSystemConfiguration configuration) {
+        this(configuration, null);
+    }
+
+    /**
+     * The configuration supplier is expected to build a new configuration (reading again the mapping,
+     * ontology and property files) each time the repository is reloaded.
+     */
+    public OntopVirtualRepository(OntopSystemConfiguration configuration,
+                                  @Nullable Supplier<? extends OntopSystemConfiguration> configurationSupplier) {
         this.configuration = configuration;
+        this.configurationSupplier = configurationSupplier;
         Injector injector = configuration.getInjector();
         inputQueryFactory = injector.getInstance(RDF4JInputQueryFactory.class);
         cacheHeaders = injector.getInstance(HTTPCacheHeaders.class);
         settings = configuration.getSettings();
+        currentGeneration = new AtomicReference<>();
+        retiredGenerations = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -52,14 +79,30 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
             init();
         }
 
+        QueryEngineGeneration generation = acquireCurrentGeneration();
         try {
-            return new OntopRepositoryConnection(this, getOntopConnection(), inputQueryFactory, settings);
+            return new OntopRepositoryConnection(this, generation.queryEngine.getConnection(),
+                    generation.inputQueryFactory, generation.settings, generation::release);
         } catch (Exception e) {
+            generation.release();
             logger.error("Error creating repo connection: " + e.getMessage());
             throw new RepositoryException(e);
         }
     }
 
+    /**
+     * The generation may have been replaced and closed in the meantime: tries again with the new current one
+     */
+    private QueryEngineGeneration acquireCurrentGeneration() {
+        while (true) {
+            QueryEngineGeneration generation = currentGeneration.get();
+            if (generation == null)
+                throw new RepositoryException("The repository has been shut down");
+            if (generation.acquire())
+                return generation;
+        }
+    }
+
 
     /**
      * This method leads to the reasoner being initialized (connecting to the database,
@@ -67,25 +110,75 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
      */
     @Override
     protected void initializeInternal() throws RepositoryException {
+        OntopQueryEngine queryEngine = null;
         try {
             queryEngine = configuration.loadQueryEngine();
             queryEngine.connect();
+            currentGeneration.set(new QueryEngineGeneration(queryEngine, configuration, inputQueryFactory, settings));
             logger.info("Ontop virtual repository initialized successfully!");
         } catch (Exception e) {
+            closeQuietly(queryEngine);
             throw new RepositoryException(e);
         }
     }
 
     /**
-     * Returns a connection which can be used to run queries over the repository
-     * Before this method can be used, initialize() must be called once.
+     * Builds a new query engine from a new configuration (provided by the configuration supplier) and switches
+     * to it once it is ready. Meanwhile, the queries keep being answered by the current engine.
+     *
+     * The new connections then use the new query engine, while the connections already open keep using
+     * the previous one. The latter is closed (together with its DB connection pool) once all these connections
+     * and the leases of the previous query engine (see acquireQueryEngine()) are closed.
+     *
+     * If the new specification cannot be loaded, the current query engine stays in use.
      */
-    private OntopConnection getOntopConnection() throws RepositoryException {
+    public synchronized void reload() throws RepositoryException {
+        if (configurationSupplier == null)
+            throw new RepositoryException("This repository has been created without a configuration supplier " +
+                    "and therefore cannot be reloaded");
+        if (!isInitialized()) {
+            init();
+        }
+
+        long start = System.currentTimeMillis();
+        OntopSystemConfiguration newConfiguration;
+        OntopQueryEngine newQueryEngine = null;
         try {
-            return queryEngine.getConnection();
+            newConfiguration = configurationSupplier.get();
+            newQueryEngine = newConfiguration.loadQueryEngine();
+            newQueryEngine.connect();
         } catch (Exception e) {
+            logger.error("Reload failed, the current OBDA specification remains in use: " + e.getMessage());
+            // The half-built query engine may already hold a DB connection pool
+            closeQuietly(newQueryEngine);
             throw new RepositoryException(e);
         }
+
+        Injector injector = newConfiguration.getInjector();
+        QueryEngineGeneration newGeneration = new QueryEngineGeneration(newQueryEngine, newConfiguration,
+                injector.getInstance(RDF4JInputQueryFactory.class), newConfiguration.getSettings());
+        cacheHeaders = injector.getInstance(HTTPCacheHeaders.class);
+
+        QueryEngineGeneration previousGeneration = currentGeneration.getAndSet(newGeneration);
+        if (previousGeneration != null) {
+            retiredGenerations.add(previousGeneration);
+            previousGeneration.release();
+        }
+        logger.info("Ontop virtual repository reloaded in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private static void closeQuietly(@Nullable OntopQueryEngine queryEngine) {
+        if (queryEngine == null)
+            return;
+        try {
+            queryEngine.close();
+        } catch (Exception e) {
+            logger.error("Error while closing the query engine: " + e.getMessage());
+        }
+    }
+
+    public boolean isReloadable() {
+        return configurationSupplier != null;
     }
 
     @Override
@@ -95,8 +188,14 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
 
     @Override
     protected void shutDownInternal() throws RepositoryException {
+        QueryEngineGeneration generation = currentGeneration.getAndSet(null);
         try {
-            queryEngine.close();
+            if (generation != null)
+                generation.close();
+            for (QueryEngineGeneration retiredGeneration : retiredGenerations) {
+                retiredGeneration.close();
+            }
+            retiredGenerations.clear();
         } catch (Exception e) {
             throw new RepositoryException(e);
         }
@@ -129,12 +228,103 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
     }
 
     /**
-     * Useful for the endpoints: allows to share the same query engine for the SPARQL and the predefined query endpoints
+     * Useful for the endpoints: allows to share the same query engine for the SPARQL and the predefined query endpoints.
+     *
+     * The query engine is not closed (e.g. after a reload) before the lease is closed, like for the connections.
      */
-    public OntopQueryEngine getOntopEngine() {
+    public QueryEngineLease acquireQueryEngine() {
         if (!isInitialized()) {
             init();
         }
-        return queryEngine;
+        return new QueryEngineLease(acquireCurrentGeneration());
+    }
+
+    /**
+     * Query engine of a generation, together with its configuration
+     */
+    public static class QueryEngineLease implements AutoCloseable {
+        private final QueryEngineGeneration generation;
+        private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+        private QueryEngineLease(QueryEngineGeneration generation) {
+            this.generation = generation;
+        }
+
+        public OntopQueryEngine getQueryEngine() {
+            return generation.queryEngine;
+        }
+
+        public OntopSystemConfiguration getConfiguration() {
+            return generation.configuration;
+        }
+
+        @Override
+        public void close() {
+            if (isClosed.compareAndSet(false, true))
+                generation.release();
+        }
+    }
+
+    /**
+     * Query engine with the components depending on its configuration
+     */
+    private class QueryEngineGeneration {
+        private final OntopQueryEngine queryEngine;
+        private final OntopSystemConfiguration configuration;
+        private final RDF4JInputQueryFactory inputQueryFactory;
+        private final OntopSystemSettings settings;
+        // Open connections and leases, plus one as long as it is the current generation
+        private final AtomicInteger usageCount;
+        private final AtomicBoolean isClosed;
+
+        private QueryEngineGeneration(OntopQueryEngine queryEngine, OntopSystemConfiguration configuration,
+                                      RDF4JInputQueryFactory inputQueryFactory, OntopSystemSettings settings) {
+            this.queryEngine = queryEngine;
+            this.configuration = configuration;
+            this.inputQueryFactory = inputQueryFactory;
+            this.settings = settings;
+            this.usageCount = new AtomicInteger(1);
+            this.isClosed = new AtomicBoolean(false);
+        }
+
+        /**
+         * Returns false if the generation has already been closed
+         */
+        boolean acquire() {
+            while (true) {
+                int count = usageCount.get();
+                // Negative after a shutdown, when connections are released after the generation has been closed
+                if (count <= 0)
+                    return false;
+                if (usageCount.compareAndSet(count, count + 1))
+                    return true;
+            }
+        }
+
+        void release() {
+            if (usageCount.decrementAndGet() == 0) {
+                retiredGenerations.remove(this);
+                try {
+                    if (close())
+                        logger.info("Previous query engine closed after reload");
+                } catch (Exception e) {
+                    logger.error("Error while closing the previous query engine: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Closes the query engine, even if it is still in use (shutdown). Only the first call closes it:
+         * the generation may be closed by the shutdown and then released by its remaining connections.
+         *
+         * Returns false if it was already closed.
+         */
+        boolean close() throws Exception {
+            usageCount.set(0);
+            if (!isClosed.compareAndSet(false, true))
+                return false;
+            queryEngine.close();
+            return true;
+        }
     }
 }
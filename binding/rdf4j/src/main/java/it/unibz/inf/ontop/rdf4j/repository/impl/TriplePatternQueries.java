@@ -0,0 +1,242 @@
+package it.unibz.inf.ontop.rdf4j.repository.impl;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.*;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
+import org.eclipse.rdf4j.query.parser.ParsedBooleanQuery;
+import org.eclipse.rdf4j.query.parser.ParsedGraphQuery;
+import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
+import org.eclipse.rdf4j.queryrender.RenderUtils;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Queries for a single triple pattern, as used by the statement-level methods of the connection
+ * (getStatements, hasStatement and size).
+ *
+ * The RDF4J algebra is built once per shape (which positions are bound) and copied with the constants,
+ * instead of rendering and parsing a SPARQL query. The same algebra as the one produced by the parser
+ * for the rendered query string is built.
+ *
+ * The parsed queries are cached by shape and constants. The query string (source string of the parsed query)
+ * is only rendered on a cache miss. As it identifies the query in the query cache of the engine, a repeated
+ * pattern is neither rendered nor translated again.
+ *
+ * The cached parsed queries are shared, as they are only read by the engine.
+ */
+class TriplePatternQueries {
+
+    static final String COUNT_VARIABLE = "c";
+
+    private static final ImmutableList<String> VARIABLES = ImmutableList.of("s", "p", "o");
+    private static final ImmutableList<String> CONSTANTS = ImmutableList.of(
+            "_const_subject", "_const_predicate", "_const_object");
+    private static final ImmutableList<String> CONSTRUCT_NAMES = ImmutableList.of("subject", "predicate", "object");
+
+    // Indexed by shape
+    private static final ImmutableList<TupleExpr> CONSTRUCT_TEMPLATES = IntStream.range(0, 8)
+            .mapToObj(TriplePatternQueries::createConstructTemplate)
+            .collect(ImmutableCollectors.toList());
+    private static final ImmutableList<TupleExpr> ASK_TEMPLATES = IntStream.range(0, 8)
+            .mapToObj(TriplePatternQueries::createAskTemplate)
+            .collect(ImmutableCollectors.toList());
+
+    private static final int MAX_CACHED_PATTERNS = 10000;
+
+    // Keyed by the values (Optional.empty() for an unbound position)
+    private static final LoadingCache<ImmutableList<Optional<Value>>, ParsedGraphQuery> CONSTRUCT_QUERY_CACHE =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_CACHED_PATTERNS)
+                    .build(CacheLoader.from(v -> new TriplePatternQueries(v).createConstructQuery()));
+    private static final LoadingCache<ImmutableList<Optional<Value>>, ParsedBooleanQuery> ASK_QUERY_CACHE =
+            CacheBuilder.newBuilder()
+                    .maximumSize(MAX_CACHED_PATTERNS)
+                    .build(CacheLoader.from(v -> new TriplePatternQueries(v).createAskQuery()));
+
+    private static final ParsedTupleQuery COUNT_QUERY = new ParsedTupleQuery(getCountString(), createCountTree());
+
+    private final ImmutableList<Optional<Value>> values;
+    private final int shape;
+
+    private TriplePatternQueries(ImmutableList<Optional<Value>> values) {
+        this.values = values;
+        this.shape = IntStream.range(0, 3)
+                .filter(i -> values.get(i).isPresent())
+                .map(i -> 1 << i)
+                .sum();
+    }
+
+    /**
+     * Null values are unbound positions
+     */
+    static ParsedGraphQuery getConstructQuery(@Nullable Value subject, @Nullable Value predicate,
+                                              @Nullable Value object) {
+        return CONSTRUCT_QUERY_CACHE.getUnchecked(toKey(subject, predicate, object));
+    }
+
+    /**
+     * Null values are unbound positions
+     */
+    static ParsedBooleanQuery getAskQuery(@Nullable Value subject, @Nullable Value predicate,
+                                          @Nullable Value object) {
+        return ASK_QUERY_CACHE.getUnchecked(toKey(subject, predicate, object));
+    }
+
+    /**
+     * Counts the distinct triples (no constant)
+     */
+    static ParsedTupleQuery getCountQuery() {
+        return COUNT_QUERY;
+    }
+
+    private static ImmutableList<Optional<Value>> toKey(@Nullable Value subject, @Nullable Value predicate,
+                                                        @Nullable Value object) {
+        return ImmutableList.of(Optional.ofNullable(subject), Optional.ofNullable(predicate),
+                Optional.ofNullable(object));
+    }
+
+    private ParsedGraphQuery createConstructQuery() {
+        return new ParsedGraphQuery(getConstructString(), instantiate(CONSTRUCT_TEMPLATES.get(shape)));
+    }
+
+    private ParsedBooleanQuery createAskQuery() {
+        return new ParsedBooleanQuery(getAskString(), instantiate(ASK_TEMPLATES.get(shape)));
+    }
+
+    private String getConstructString() {
+        String pattern = renderPattern();
+        return "CONSTRUCT {" + pattern + "} WHERE {" + pattern + "}";
+    }
+
+    private String getAskString() {
+        return "ASK {" + renderPattern() + "}";
+    }
+
+    private static String getCountString() {
+        return "SELECT (COUNT(*) AS ?" + COUNT_VARIABLE + ") WHERE { SELECT DISTINCT ?s ?p ?o WHERE {?s ?p ?o} }";
+    }
+
+    private String renderPattern() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            Optional<Value> value = values.get(i);
+            if (value.isPresent())
+                RenderUtils.toSPARQL(value.get(), sb);
+            else
+                sb.append(" ?").append(VARIABLES.get(i)).append(" ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Copies the template and sets the values of the constants
+     */
+    private TupleExpr instantiate(TupleExpr template) {
+        ImmutableMap<String, Value> constantMap = IntStream.range(0, 3)
+                .filter(i -> values.get(i).isPresent())
+                .boxed()
+                .collect(ImmutableCollectors.toMap(CONSTANTS::get, i -> values.get(i).get()));
+
+        TupleExpr tree = template.clone();
+        tree.visit(new ConstantSetter(constantMap));
+        return tree;
+    }
+
+    private static boolean isBound(int shape, int position) {
+        return (shape & (1 << position)) != 0;
+    }
+
+    private static StatementPattern createStatementPattern(int shape) {
+        Var[] vars = IntStream.range(0, 3)
+                .mapToObj(i -> isBound(shape, i)
+                        ? createConstantVar(CONSTANTS.get(i))
+                        : new Var(VARIABLES.get(i)))
+                .toArray(Var[]::new);
+        return new StatementPattern(vars[0], vars[1], vars[2]);
+    }
+
+    private static Var createConstantVar(String name) {
+        Var var = new Var(name);
+        var.setAnonymous(true);
+        var.setConstant(true);
+        return var;
+    }
+
+    private static TupleExpr createAskTemplate(int shape) {
+        Slice slice = new Slice(createStatementPattern(shape));
+        slice.setLimit(1);
+        return slice;
+    }
+
+    /**
+     * Same structure as the one of a parsed CONSTRUCT query: the constants of the template are provided
+     * by an extension.
+     */
+    private static TupleExpr createConstructTemplate(int shape) {
+        ProjectionElemList projectionElemList = new ProjectionElemList();
+        Extension extension = new Extension();
+        for (int i = 0; i < 3; i++) {
+            String name = isBound(shape, i) ? CONSTANTS.get(i) : VARIABLES.get(i);
+            projectionElemList.addElement(new ProjectionElem(name, CONSTRUCT_NAMES.get(i)));
+            if (isBound(shape, i))
+                extension.addElement(new ExtensionElem(new ValueConstant(), name));
+        }
+
+        StatementPattern statementPattern = createStatementPattern(shape);
+        TupleExpr body;
+        if (extension.getElements().isEmpty())
+            body = statementPattern;
+        else {
+            extension.setArg(statementPattern);
+            body = extension;
+        }
+        return new Reduced(new Projection(body, projectionElemList));
+    }
+
+    private static TupleExpr createCountTree() {
+        Projection tripleProjection = new Projection(createStatementPattern(0),
+                new ProjectionElemList(VARIABLES.stream()
+                        .map(ProjectionElem::new)
+                        .toArray(ProjectionElem[]::new)));
+
+        Group group = new Group(new Distinct(tripleProjection));
+        group.addGroupElement(new GroupElem(COUNT_VARIABLE, new Count(null)));
+
+        Extension extension = new Extension(group, new ExtensionElem(new Count(null), COUNT_VARIABLE));
+        return new Projection(extension, new ProjectionElemList(new ProjectionElem(COUNT_VARIABLE)));
+    }
+
+
+    private static class ConstantSetter extends AbstractQueryModelVisitor<RuntimeException> {
+        private final Map<String, Value> constantMap;
+
+        ConstantSetter(Map<String, Value> constantMap) {
+            this.constantMap = constantMap;
+        }
+
+        @Override
+        public void meet(Var var) {
+            Value value = constantMap.get(var.getName());
+            if (value != null)
+                var.setValue(value);
+        }
+
+        @Override
+        public void meet(ExtensionElem extensionElem) {
+            Value value = constantMap.get(extensionElem.getName());
+            if (value != null)
+                extensionElem.setExpr(new ValueConstant(value));
+            else
+                super.meet(extensionElem);
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class AbstractRDF4JTest {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractRDF4JTest.class);
     private static Connection SQL_CONNECTION;
     private static RepositoryConnection REPO_CONNECTION;
+    private static OntopSQLOWLAPIConfiguration CONFIGURATION;
 
     protected static void initOBDA(String dbScriptRelativePath, String obdaRelativePath) throws SQLException, IOException {
         initOBDA(dbScriptRelativePath, obdaRelativePath, null);
@@ -94,6 +95,7 @@ public class AbstractRDF4JTest {
             builder.dbMetadataFile(AbstractRDF4JTest.class.getResource(dbMetadataFile).getPath());
 
         OntopSQLOWLAPIConfiguration config = builder.build();
+        CONFIGURATION = config;
 
         OntopRepository repo = OntopRepository.defaultRepository(config);
         repo.init();
@@ -148,6 +150,7 @@ public class AbstractRDF4JTest {
             builder.propertyFile(AbstractRDF4JTest.class.getResource(propertyFile).getPath());
 
         OntopSQLOWLAPIConfiguration config = builder.build();
+        CONFIGURATION = config;
 
         OntopRepository repo = OntopRepository.defaultRepository(config);
         repo.init();
@@ -261,4 +264,12 @@ public class AbstractRDF4JTest {
         GraphQuery query = REPO_CONNECTION.prepareGraphQuery(QueryLanguage.SPARQL, queryString);
         return query.evaluate();
     }
+
+    protected RepositoryConnection getRepositoryConnection() {
+        return REPO_CONNECTION;
+    }
+
+    protected static OntopSQLOWLAPIConfiguration getConfiguration() {
+        return CONFIGURATION;
+    }
 }
@@ -0,0 +1,154 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.unfolding.impl.BasicQueryUnfolder;
+import it.unibz.inf.ontop.exception.OBDASpecificationException;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.TranslationFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Triple patterns with an unknown property (or class) and a constant IRI as subject or object:
+ * only the mapping branches whose IRI templates are compatible are unfolded.
+ */
+public class ConstantIRIStarPatternTest extends AbstractRDF4JTest {
+
+    private static final String OBDA_FILE = "/prof/prof.obda";
+    private static final String SQL_SCRIPT = "/prof/prof.sql";
+    private static final String PREFIX = "http://www.semanticweb.org/user/ontologies/2016/8/untitled-ontology-84#";
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        initOBDA(SQL_SCRIPT, OBDA_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testConstantSubject() {
+        String query = "SELECT ?v WHERE {\n" +
+                "  <" + PREFIX + "course/LinearAlgebra> ?v ?o\n" +
+                "}\n" +
+                "ORDER BY ?v";
+
+        runQueryAndCompare(query, ImmutableList.of(
+                PREFIX + "duration",
+                PREFIX + "nbStudents",
+                "http://www.w3.org/1999/02/22-rdf-syntax-ns#type"));
+    }
+
+    @Test
+    public void testConstantObject() {
+        String query = "SELECT ?v WHERE {\n" +
+                "  ?v ?p <" + PREFIX + "course/AdvancedDatabases>\n" +
+                "}";
+
+        runQueryAndCompare(query, ImmutableList.of(PREFIX + "professor/30"));
+    }
+
+    @Test
+    public void testConstantIRIObject() {
+        String query = "SELECT DISTINCT ?v WHERE {\n" +
+                "  ?v ?p <" + PREFIX + "university/Bolzano>\n" +
+                "}\n" +
+                "ORDER BY ?v";
+
+        runQueryAndCompare(query, ImmutableList.of(
+                PREFIX + "professor/10",
+                PREFIX + "professor/30",
+                PREFIX + "professor/80"));
+    }
+
+    @Test
+    public void testConstantSubjectAndObject() {
+        String query = "SELECT ?v WHERE {\n" +
+                "  <" + PREFIX + "professor/10> ?v <" + PREFIX + "course/LinearAlgebra>\n" +
+                "}";
+
+        runQueryAndCompare(query, ImmutableList.of(PREFIX + "teaches"));
+    }
+
+    @Test
+    public void testClassOfConstantSubject() {
+        String query = "SELECT ?v WHERE {\n" +
+                "  <" + PREFIX + "professor/10> a ?v\n" +
+                "}";
+
+        runQueryAndCompare(query, ImmutableList.of(PREFIX + "Professor"));
+    }
+
+    /**
+     * Different queries sharing the same star pattern (the unfolded fragment is reused), also for another IRI
+     * built from the same template
+     */
+    @Test
+    public void testSharedStarPattern() throws OBDASpecificationException {
+        String query1 = "SELECT DISTINCT ?v WHERE {\n" +
+                "  <" + PREFIX + "course/LinearAlgebra> ?v ?o\n" +
+                "  FILTER (?v != <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>)\n" +
+                "}\n" +
+                "ORDER BY ?v";
+
+        runQueryAndCompare(query1, ImmutableList.of(
+                PREFIX + "duration",
+                PREFIX + "nbStudents"));
+
+        String query2 = "SELECT ?v WHERE {\n" +
+                "  <" + PREFIX + "course/LinearAlgebra> ?p ?v\n" +
+                "  FILTER (?p = <" + PREFIX + "nbStudents>)\n" +
+                "}";
+
+        runQueryAndCompare(query2, ImmutableList.of("10"));
+
+        BasicQueryUnfolder unfolder = (BasicQueryUnfolder) getConfiguration().getInjector()
+                .getInstance(TranslationFactory.class)
+                .create(getConfiguration().loadSpecification().getSaturatedMapping());
+
+        unfolder.optimize(createStarPatternQuery(PREFIX + "course/LinearAlgebra"));
+        unfolder.optimize(createStarPatternQuery(PREFIX + "course/AdvancedDatabases"));
+
+        CacheStats stats = unfolder.getFragmentCacheStats();
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.hitCount());
+    }
+
+    @Test
+    public void testIncompatibleSubject() {
+        String query = "SELECT ?v WHERE {\n" +
+                "  <http://example.org/professor/10> ?v ?o\n" +
+                "}";
+
+        runQueryAndCompare(query, ImmutableList.of());
+    }
+
+    /**
+     * ans(?p, ?o) :- triple(<subject>, ?p, ?o)
+     */
+    private static IQ createStarPatternQuery(String subjectIRI) {
+        CoreSingletons coreSingletons = getConfiguration().getInjector().getInstance(CoreSingletons.class);
+        AtomFactory atomFactory = coreSingletons.getAtomFactory();
+        TermFactory termFactory = coreSingletons.getTermFactory();
+        Variable p = termFactory.getVariable("p");
+        Variable o = termFactory.getVariable("o");
+
+        return coreSingletons.getIQFactory().createIQ(
+                atomFactory.getDistinctVariableOnlyDataAtom(atomFactory.getRDFAnswerPredicate(2), p, o),
+                coreSingletons.getIQFactory().createIntensionalDataNode(
+                        atomFactory.getIntensionalTripleAtom(termFactory.getConstantIRI(subjectIRI), p, o)));
+    }
+}
@@ -0,0 +1,162 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+public class RDF4JReloadTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:reload";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private Connection sqlConnection;
+    private Path mappingFile;
+    private OntopVirtualRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        sqlConnection = DriverManager.getConnection(JDBC_URL, USER, PASSWORD);
+        try (Statement st = sqlConnection.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"person\" (\"id\" INT PRIMARY KEY, \"name\" VARCHAR(100));" +
+                    "INSERT INTO \"person\" VALUES (1, 'Roger'), (2, 'Anna');");
+        }
+        sqlConnection.commit();
+
+        mappingFile = Files.createTempFile("reload", ".obda");
+        writeMapping("Person");
+        repository = OntopRepository.reloadableRepository(createConfiguration(), this::createConfiguration);
+        repository.init();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.shutDown();
+        sqlConnection.close();
+        Files.deleteIfExists(mappingFile);
+    }
+
+    @Test
+    public void testReload() throws Exception {
+        RepositoryConnection oldConnection = repository.getConnection();
+        assertEquals(2, count(oldConnection, "Person"));
+
+        writeMapping("Human");
+        repository.reload();
+
+        try (RepositoryConnection newConnection = repository.getConnection()) {
+            assertEquals(2, count(newConnection, "Human"));
+            assertEquals(0, count(newConnection, "Person"));
+        }
+
+        // Still uses the previous specification
+        assertEquals(2, count(oldConnection, "Person"));
+        oldConnection.close();
+    }
+
+    /**
+     * The leased query engine is not closed by the reload before the lease is closed
+     */
+    @Test
+    public void testQueryEngineLease() throws Exception {
+        OntopVirtualRepository.QueryEngineLease lease = repository.acquireQueryEngine();
+        OntopQueryEngine previousQueryEngine = lease.getQueryEngine();
+
+        writeMapping("Human");
+        repository.reload();
+
+        try (OntopConnection connection = previousQueryEngine.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(
+                    "PREFIX : <http://person.example.org/>\nSELECT ?p WHERE { ?p a :Person }"));
+            int count = 0;
+            while (resultSet.hasNext()) {
+                resultSet.next();
+                count++;
+            }
+            resultSet.close();
+            assertEquals(2, count);
+        }
+        lease.close();
+
+        try (OntopVirtualRepository.QueryEngineLease newLease = repository.acquireQueryEngine()) {
+            assertNotSame(previousQueryEngine, newLease.getQueryEngine());
+        }
+    }
+
+    @Test
+    public void testFailedReload() throws Exception {
+        Files.write(mappingFile, "not a mapping".getBytes(StandardCharsets.UTF_8));
+        try {
+            repository.reload();
+            fail("The reload was expected to fail");
+        } catch (RepositoryException e) {
+            // Expected
+        }
+
+        try (RepositoryConnection connection = repository.getConnection()) {
+            assertEquals(2, count(connection, "Person"));
+        }
+    }
+
+    @Test(expected = RepositoryException.class)
+    public void testNotReloadable() throws Exception {
+        OntopVirtualRepository nonReloadableRepository = OntopRepository.defaultRepository(createConfiguration());
+        assertFalse(nonReloadableRepository.isReloadable());
+        nonReloadableRepository.reload();
+    }
+
+    private OntopSystemConfiguration createConfiguration() {
+        return OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(mappingFile.toString())
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .enableTestMode()
+                .build();
+    }
+
+    private void writeMapping(String className) throws Exception {
+        String mapping = "[PrefixDeclaration]\n" +
+                ":\t\thttp://person.example.org/\n" +
+                "\n" +
+                "[MappingDeclaration] @collection [[\n" +
+                "mappingId\tperson\n" +
+                "target\t\t:person/{id} a :" + className + " .\n" +
+                "source\t\tSELECT \"id\" FROM \"person\"\n" +
+                "]]\n";
+        Files.write(mappingFile, mapping.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int count(RepositoryConnection connection, String className) {
+        String query = "PREFIX : <http://person.example.org/>\n" +
+                "SELECT ?p WHERE { ?p a :" + className + " }";
+        int count = 0;
+        try (TupleQueryResult result = connection.prepareTupleQuery(query).evaluate()) {
+            while (result.hasNext()) {
+                result.next();
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,99 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Statement-level methods of the repository connection (getStatements, hasStatement, size)
+ */
+public class RepositoryConnectionStatementTest extends AbstractRDF4JTest {
+
+    private static final String OBDA_FILE = "/prof/prof.obda";
+    private static final String SQL_SCRIPT = "/prof/prof.sql";
+    private static final String PREFIX = "http://www.semanticweb.org/user/ontologies/2016/8/untitled-ontology-84#";
+    private static final ValueFactory VALUE_FACTORY = SimpleValueFactory.getInstance();
+
+    private static final IRI PROFESSOR_10 = VALUE_FACTORY.createIRI(PREFIX + "professor/10");
+    private static final IRI TEACHES = VALUE_FACTORY.createIRI(PREFIX + "teaches");
+    private static final IRI LINEAR_ALGEBRA = VALUE_FACTORY.createIRI(PREFIX + "course/LinearAlgebra");
+    private static final IRI FIRST_NAME = VALUE_FACTORY.createIRI(PREFIX + "firstName");
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        initOBDA(SQL_SCRIPT, OBDA_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testGetStatementsSubjectPredicate() {
+        assertEquals(2, count(getRepositoryConnection().getStatements(PROFESSOR_10, TEACHES, null)));
+    }
+
+    @Test
+    public void testGetStatementsSubject() {
+        // class, first name, last name, nickname, 2 courses, university and teacher ID
+        assertEquals(8, count(getRepositoryConnection().getStatements(PROFESSOR_10, null, null)));
+    }
+
+    @Test
+    public void testGetStatementsObject() {
+        try (RepositoryResult<Statement> result = getRepositoryConnection().getStatements(null, null,
+                VALUE_FACTORY.createLiteral("Roger"))) {
+            assertTrue(result.hasNext());
+            Statement statement = result.next();
+            assertEquals(PROFESSOR_10, statement.getSubject());
+            assertEquals(FIRST_NAME, statement.getPredicate());
+            assertFalse(result.hasNext());
+        }
+    }
+
+    @Test
+    public void testGetStatementsNamedGraph() {
+        assertEquals(0, count(getRepositoryConnection().getStatements(PROFESSOR_10, null, null,
+                VALUE_FACTORY.createIRI("http://example.org/graph"))));
+    }
+
+    @Test
+    public void testHasStatement() {
+        assertTrue(getRepositoryConnection().hasStatement(PROFESSOR_10, TEACHES, LINEAR_ALGEBRA, false));
+        assertTrue(getRepositoryConnection().hasStatement(null, RDF.TYPE,
+                VALUE_FACTORY.createIRI(PREFIX + "Course"), false));
+        assertFalse(getRepositoryConnection().hasStatement(
+                VALUE_FACTORY.createIRI(PREFIX + "professor/20"), TEACHES, null, false));
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(50, getRepositoryConnection().size());
+        assertFalse(getRepositoryConnection().isEmpty());
+    }
+
+    private static int count(RepositoryResult<Statement> result) {
+        int count = 0;
+        try {
+            while (result.hasNext()) {
+                result.next();
+                count++;
+            }
+        } finally {
+            result.close();
+        }
+        return count;
+    }
+}
@@ -21,14 +21,72 @@ package it.unibz.inf.ontop.cli;
  */
 
 import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.BashCompletion;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.help.cli.bash.CompletionBehaviour;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+
+import java.io.File;
 
 @Command(name = "compile",
-        description = "compile the ontology axioms into  mappings",
-        hidden = true)
-public class OntopCompile implements OntopCommand {
+        description = "Compile the OBDA specification into a snapshot loaded at startup " +
+                "(--compiled-specification option of the endpoint) instead of accessing the DB metadata")
+public class OntopCompile extends OntopMappingOntologyRelatedCommand {
+
+    @Option(type = OptionType.COMMAND, name = {"-o", "--output"},
+            title = "output", description = "output file of the compiled specification")
+    @Required
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    private String outputFile;
+
+    @Option(type = OptionType.COMMAND, name = {"-x", "--xml-catalog"}, title = "xml catalog file",
+            description = "XML Catalog file (e.g. catalog-v001.xml generated by Protege) for redirecting ontologies imported by owl:imports")
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    private String xmlCatalogFile;
 
     @Override
     public void run() {
+        OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder> builder =
+                OntopSQLOWLAPIConfiguration.defaultBuilder()
+                        .propertyFile(propertiesFile);
+
+        if (owlFile != null)
+            builder.ontologyFile(owlFile);
+
+        if (xmlCatalogFile != null)
+            builder.xmlCatalogFile(xmlCatalogFile);
+
+        if (isR2rmlFile(mappingFile))
+            builder.r2rmlMappingFile(mappingFile);
+        else
+            builder.nativeOntopMappingFile(mappingFile);
+
+        if (constraintFile != null)
+            builder.basicImplicitConstraintFile(constraintFile);
+
+        if (dbMetadataFile != null)
+            builder.dbMetadataFile(dbMetadataFile);
+
+        if (ontopViewFile != null)
+            builder.ontopViewFile(ontopViewFile);
+
+        if (dbPassword != null)
+            builder.jdbcPassword(dbPassword);
+
+        if (dbUrl != null)
+            builder.jdbcUrl(dbUrl);
+
+        if (dbUser != null)
+            builder.jdbcUser(dbUser);
 
+        try {
+            builder.build().writeCompiledSpecification(new File(outputFile));
+        } catch (Exception e) {
+            System.err.println("Error occurred during the compilation: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
     }
 }
@@ -37,6 +37,29 @@ public class OntopEndpoint extends OntopReasoningCommandBase {
             description = "development mode")
     private boolean dev = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--enable-reload"}, title = "enable reload",
+            description = "enables the admin endpoint /ontop/reload for reloading the mapping, ontology and properties " +
+                    "without restarting")
+    private boolean enableReload = false;
+
+    @Option(type = OptionType.COMMAND, name = {"--query-timeout"}, title = "seconds",
+            description = "timeout of the evaluation of the SPARQL queries, not applied to the streaming of their results (no timeout by default)")
+    private int queryTimeout = 0;
+
+    @Option(type = OptionType.COMMAND, name = {"--max-results"}, title = "number",
+            description = "maximum number of results returned per SPARQL query, signaled by the X-SPARQL-MaxRows header (no limit by default)")
+    private long maxResults = 0;
+
+    @Option(type = OptionType.COMMAND, name = {"--query-threads"}, title = "number",
+            description = "maximum number of SPARQL queries evaluated concurrently (by default, the maximum number " +
+                    "of threads of the servlet container, 200)")
+    private Integer queryThreads;
+
+    @Option(type = OptionType.COMMAND, name = {"--query-queue-size"}, title = "number",
+            description = "maximum number of SPARQL queries waiting for evaluation, beyond which queries are " +
+                    "rejected (by default, the maximum number of connections of the servlet container, 8192)")
+    private Integer queryQueueSize;
+
     @Option(type = OptionType.COMMAND, name = {"--predefined-config"}, title = "predefined query JSON config file",
             description = "predefined query config file")
     @RequiredOnlyIf(names = {"--predefined-queries"})
@@ -49,6 +72,12 @@ public class OntopEndpoint extends OntopReasoningCommandBase {
     @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
     String predefinedQueries;
 
+    @Option(type = OptionType.COMMAND, name = {"--compiled-specification"}, title = "compiled specification file",
+            description = "file written by the compile command, avoids extracting the DB metadata at startup " +
+                    "(ignored if stale)")
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    String compiledSpecificationFile;
+
     @Option(type = OptionType.COMMAND, name = {"--contexts"}, title = "JSON-LD context file for predefined queries",
             description = "File containing JSON-LD contexts for predefined queries")
     @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
@@ -62,7 +91,16 @@ public class OntopEndpoint extends OntopReasoningCommandBase {
                 "--properties=" + this.propertiesFile,
                 "--port=" + this.port,
                 "--lazy=" + this.lazy,
-                "--dev=" + this.dev);
+                "--dev=" + this.dev,
+                "--enable-reload=" + this.enableReload,
+                "--query-timeout=" + this.queryTimeout,
+                "--max-results=" + this.maxResults);
+
+        if (this.queryThreads != null)
+            argList.add("--query-threads=" + this.queryThreads);
+
+        if (this.queryQueueSize != null)
+            argList.add("--query-queue-size=" + this.queryQueueSize);
 
         if (this.corsAllowedOrigins != null)
             argList.add("--cors-allowed-origins=" + this.corsAllowedOrigins);
@@ -82,6 +120,9 @@ public class OntopEndpoint extends OntopReasoningCommandBase {
         if (this.ontopViewFile != null)
             argList.add("--ontop-views=" + this.ontopViewFile);
 
+        if (this.compiledSpecificationFile != null)
+            argList.add("--compiled-specification=" + this.compiledSpecificationFile);
+
         if (this.portalFile != null)
             argList.add("--portal=" + this.portalFile);
 
@@ -34,8 +34,14 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static it.unibz.inf.ontop.injection.OntopSQLCoreSettings.JDBC_URL;
@@ -93,13 +99,19 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             description = "All the SQL results of one big query will be stored in memory. Not recommended. Default: false.")
     private boolean noStream = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--threads"}, title = "number of threads",
+            description = "Number of classes/properties materialized concurrently, each over its own DB connection. " +
+                    "Default: 1.")
+    private int threads = 1;
+
     public OntopMaterialize() {
     }
 
     @Override
     public void run() {
 
-        RDF4JMaterializer materializer = createMaterializer();
+        // With separate files, the classes/properties are already materialized concurrently (one per thread)
+        RDF4JMaterializer materializer = createMaterializer(separate ? 1 : threads);
         OutputSpec outputSpec = (outputFile == null) ?
                 new OutputSpec(format) :
                 new OutputSpec(outputFile, format);
@@ -110,7 +122,7 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         }
     }
 
-    private RDF4JMaterializer createMaterializer() {
+    private RDF4JMaterializer createMaterializer(int degreeOfParallelism) {
 
         RDF4JMaterializer materializer;
         try {
@@ -121,6 +133,7 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             materializer = RDF4JMaterializer.defaultMaterializer(
                     materializerConfiguration,
                     MaterializationParams.defaultBuilder()
+                            .degreeOfParallelism(degreeOfParallelism)
                             .build()
             );
         } catch (OBDASpecificationException | OWLOntologyCreationException e) {
@@ -145,9 +158,7 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
 
         final long startTime = System.currentTimeMillis();
 
-        GraphQueryResult result = materializer.materialize().evaluate();
-
-        try {
+        try (GraphQueryResult result = materializer.materialize().evaluate()) {
             BufferedWriter writer = outputSpec.createWriter(Optional.empty());
             tripleCount += serializeTripleBatch(
                     result,
@@ -167,30 +178,46 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
     }
 
     private void runWithSeparateFiles(RDF4JMaterializer materializer, OutputSpec outputSpec) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
         try {
-            materializeClassesByFile(materializer, outputSpec);
-            materializePropertiesByFile(materializer, outputSpec);
+            List<Future<?>> futures = new ArrayList<>();
+            materializeClassesByFile(materializer, outputSpec, executor, futures);
+            materializePropertiesByFile(materializer, outputSpec, executor, futures);
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-    private void materializeClassesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec) throws Exception {
+    private void materializeClassesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec,
+                                          ExecutorService executor, List<Future<?>> futures) {
         ImmutableSet<IRI> classes = materializer.getClasses();
         int total = classes.size();
         AtomicInteger i = new AtomicInteger();
         for (IRI c : classes) {
-            serializePredicate(materializer, c, PredicateType.CLASS, i.incrementAndGet(), total, outputSpec);
+            futures.add(executor.submit(() -> {
+                serializePredicate(materializer, c, PredicateType.CLASS, i.incrementAndGet(), total, outputSpec);
+                return null;
+            }));
         }
     }
 
-    private void materializePropertiesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec) throws Exception {
+    private void materializePropertiesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec,
+                                             ExecutorService executor, List<Future<?>> futures) {
         ImmutableSet<IRI> properties = materializer.getProperties();
 
         int total = properties.size();
         AtomicInteger i = new AtomicInteger();
         for (IRI p : properties) {
-            serializePredicate(materializer, p, PredicateType.PROPERTY, i.incrementAndGet(), total, outputSpec);
+            futures.add(executor.submit(() -> {
+                serializePredicate(materializer, p, PredicateType.PROPERTY, i.incrementAndGet(), total, outputSpec);
+                return null;
+            }));
         }
     }
 
@@ -212,17 +239,17 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         String fileSubstring = predicateIRI.toString().replaceAll("[^a-zA-Z0-9]", "_")
                 + predicateType.getCode() + "_";
 
-        GraphQueryResult result = materializer.materialize(ImmutableSet.of(predicateIRI)).evaluate();
-
-        while (result.hasNext()) {
-            BufferedWriter writer = outputSpec.createWriter(Optional.of(fileSubstring + fileCount));
-            tripleCount += serializeTripleBatch(
-                    result,
-                    Optional.of(TRIPLE_LIMIT_PER_FILE),
-                    writer,
-                    outputSpec.createRDFHandler(writer)
-            );
-            fileCount++;
+        try (GraphQueryResult result = materializer.materialize(ImmutableSet.of(predicateIRI)).evaluate()) {
+            while (result.hasNext()) {
+                BufferedWriter writer = outputSpec.createWriter(Optional.of(fileSubstring + fileCount));
+                tripleCount += serializeTripleBatch(
+                        result,
+                        Optional.of(TRIPLE_LIMIT_PER_FILE),
+                        writer,
+                        outputSpec.createRDFHandler(writer)
+                );
+                fileCount++;
+            }
         }
 
         System.out.println("NR of TRIPLES: " + tripleCount);
@@ -8,6 +8,8 @@ import org.springframework.boot.web.server.WebServerFactoryCustomizer;
 import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -40,6 +42,43 @@ public class OntopEndpointApplication {
         };
     }
 
+    /**
+     * Executor of the SPARQL queries, whose results are streamed asynchronously (outside the thread pool
+     * of the servlet container).
+     *
+     * Bounded: the queries are rejected (503) when all the threads are busy and the queue is full.
+     * By default, it accepts as many queries as the servlet container (its maximum numbers of threads
+     * and of connections), which used to evaluate them.
+     * The time spent in the queue counts toward the timeout of the query (see SparqlQueryController).
+     */
+    @Bean
+    public ThreadPoolTaskExecutor queryExecutor(
+            @Value("${query-threads:${server.tomcat.threads.max:200}}") int queryThreads,
+            @Value("${query-queue-size:${server.tomcat.max-connections:8192}}") int queryQueueSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(queryThreads);
+        executor.setMaxPoolSize(queryThreads);
+        executor.setQueueCapacity(queryQueueSize);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ontop-query-");
+        return executor;
+    }
+
+    /**
+     * No request timeout, so that large results can be streamed completely: the query timeout only applies
+     * to the evaluation (cancelled through the statement, without interrupting the streaming thread).
+     */
+    @Bean
+    public WebMvcConfigurer asyncConfigurer(ThreadPoolTaskExecutor queryExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(queryExecutor);
+                configurer.setDefaultTimeout(-1);
+            }
+        };
+    }
+
     public static void restart() {
         ApplicationArguments args = context.getBean(ApplicationArguments.class);
 
@@ -9,20 +9,39 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 @Component
 public class OntopVirtualRepositoryBean {
 
+    /**
+     * Builds a new configuration each time (the files are read again): used for reloading
+     */
     @Bean
-    private OntopSystemConfiguration setupOntopConfiguration(@Value("${mapping}") String mappings,
+    private Supplier<OntopSystemConfiguration> setupOntopConfigurationSupplier(@Value("${mapping}") String mappings,
                                                              @Value("${ontology:#{null}}") String ontology,
                                                              @Value("${xml-catalog:#{null}}") String xmlCatalog,
                                                              @Value("${properties}") String properties,
                                                              @Value("${constraint:#{null}}") String constraint,
                                                              @Value("${db-metadata:#{null}}") String dbMetadata,
                                                              @Value("${ontop-views:#{null}}") String ontopViews,
+                                                             @Value("${compiled-specification:#{null}}") String compiledSpecification,
                                                              @Value("${db-user:#{null}}") String dbUser,
                                                              @Value("${db-password:#{null}}") String dbPassword,
-                                                             @Value("${db-url:#{null}}") String dbUrl) throws RepositoryException {
+                                                             @Value("${db-url:#{null}}") String dbUrl) {
+        return () -> buildConfiguration(mappings, ontology, xmlCatalog, properties, constraint, dbMetadata, ontopViews,
+                compiledSpecification, dbUser, dbPassword, dbUrl);
+    }
+
+    @Bean
+    private OntopSystemConfiguration setupOntopConfiguration(Supplier<OntopSystemConfiguration> configurationSupplier) {
+        return configurationSupplier.get();
+    }
+
+    private static OntopSystemConfiguration buildConfiguration(String mappings, String ontology, String xmlCatalog,
+                                                               String properties, String constraint, String dbMetadata,
+                                                               String ontopViews, String compiledSpecification,
+                                                               String dbUser, String dbPassword, String dbUrl) {
         OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder> builder = OntopSQLOWLAPIConfiguration.defaultBuilder()
                 .propertyFile(properties);
 
@@ -46,6 +65,9 @@ public class OntopVirtualRepositoryBean {
         if (ontopViews !=null && !ontopViews.isEmpty())
             builder.ontopViewFile(ontopViews);
 
+        if (compiledSpecification != null && !compiledSpecification.isEmpty())
+            builder.compiledSpecificationFile(compiledSpecification);
+
         if (dbUser != null && !dbUser.isEmpty())
             builder.jdbcUser(dbUser);
 
@@ -61,8 +83,9 @@ public class OntopVirtualRepositoryBean {
 
     @Bean
     private OntopVirtualRepository setupVirtualRepository(@Value("${lazy:false}") boolean lazy,
-                                                          OntopSystemConfiguration configuration) throws RepositoryException {
-        OntopVirtualRepository repository = OntopRepository.defaultRepository(configuration);
+                                                          OntopSystemConfiguration configuration,
+                                                          Supplier<OntopSystemConfiguration> configurationSupplier) throws RepositoryException {
+        OntopVirtualRepository repository = OntopRepository.reloadableRepository(configuration, configurationSupplier);
 
         if (!lazy) {
             repository.init();
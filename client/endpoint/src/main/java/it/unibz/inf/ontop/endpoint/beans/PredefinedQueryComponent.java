@@ -4,7 +4,6 @@ import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.rdf4j.predefined.OntopRDF4JPredefinedQueryEngine;
 import it.unibz.inf.ontop.rdf4j.predefined.PredefinedQueries;
 import it.unibz.inf.ontop.rdf4j.predefined.impl.FakeOntopRDF4JPredefinedQueryEngine;
-import it.unibz.inf.ontop.rdf4j.predefined.impl.OntopRDF4JPredefinedQueryEngineImpl;
 import it.unibz.inf.ontop.rdf4j.predefined.parsing.PredefinedQueryParser;
 import it.unibz.inf.ontop.rdf4j.predefined.parsing.impl.PredefinedQueryParserImpl;
 import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
@@ -36,7 +35,7 @@ public class PredefinedQueryComponent {
                     ? parser.parse(configReader, queryReader)
                     : parser.parse(configReader, queryReader, new FileReader(contextFile));
 
-            return new OntopRDF4JPredefinedQueryEngineImpl(repository.getOntopEngine(), predefinedQueries, configuration);
+            return new ReloadablePredefinedQueryEngine(repository, predefinedQueries);
         }
         else
             return new FakeOntopRDF4JPredefinedQueryEngine();
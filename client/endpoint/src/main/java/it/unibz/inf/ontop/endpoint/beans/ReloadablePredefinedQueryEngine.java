@@ -0,0 +1,91 @@
+package it.unibz.inf.ontop.endpoint.beans;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.rdf4j.predefined.LateEvaluationOrConversionException;
+import it.unibz.inf.ontop.rdf4j.predefined.OntopRDF4JPredefinedQueryEngine;
+import it.unibz.inf.ontop.rdf4j.predefined.PredefinedQueries;
+import it.unibz.inf.ontop.rdf4j.predefined.impl.OntopRDF4JPredefinedQueryEngineImpl;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository.QueryEngineLease;
+import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+import javax.annotation.Nullable;
+import java.io.OutputStream;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Delegates to the predefined query engine built on top of the current query engine of the repository
+ * (replaced when the repository is reloaded).
+ *
+ * The query engine is acquired for the duration of each evaluation, so that it cannot be closed by a reload
+ * in the meantime.
+ */
+public class ReloadablePredefinedQueryEngine implements OntopRDF4JPredefinedQueryEngine {
+
+    private final OntopVirtualRepository repository;
+    private final PredefinedQueries predefinedQueries;
+
+    // Built on top of the query engine of the last lease
+    @Nullable
+    private OntopQueryEngine queryEngine;
+    @Nullable
+    private OntopRDF4JPredefinedQueryEngine delegate;
+
+    public ReloadablePredefinedQueryEngine(OntopVirtualRepository repository, PredefinedQueries predefinedQueries) {
+        this.repository = repository;
+        this.predefinedQueries = predefinedQueries;
+    }
+
+    private synchronized OntopRDF4JPredefinedQueryEngine getDelegate(QueryEngineLease lease) {
+        if (delegate == null || queryEngine != lease.getQueryEngine()) {
+            queryEngine = lease.getQueryEngine();
+            delegate = new OntopRDF4JPredefinedQueryEngineImpl(queryEngine, predefinedQueries,
+                    lease.getConfiguration());
+        }
+        return delegate;
+    }
+
+    @Override
+    public void evaluate(String queryId, ImmutableMap<String, String> bindings, ImmutableList<String> acceptMediaTypes,
+                         ImmutableMultimap<String, String> httpHeaders, Consumer<Integer> httpStatusSetter,
+                         BiConsumer<String, String> httpHeaderSetter, OutputStream outputStream)
+            throws LateEvaluationOrConversionException {
+        try (QueryEngineLease lease = repository.acquireQueryEngine()) {
+            getDelegate(lease).evaluate(queryId, bindings, acceptMediaTypes, httpHeaders, httpStatusSetter,
+                    httpHeaderSetter, outputStream);
+        }
+    }
+
+    @Override
+    public String evaluate(String queryId, ImmutableMap<String, String> bindings, ImmutableList<String> acceptMediaTypes,
+                           ImmutableMultimap<String, String> httpHeaders, Consumer<Integer> httpStatusSetter,
+                           BiConsumer<String, String> httpHeaderSetter) {
+        try (QueryEngineLease lease = repository.acquireQueryEngine()) {
+            return getDelegate(lease).evaluate(queryId, bindings, acceptMediaTypes, httpHeaders, httpStatusSetter,
+                    httpHeaderSetter);
+        }
+    }
+
+    @Override
+    public boolean shouldStream(String queryId) {
+        try (QueryEngineLease lease = repository.acquireQueryEngine()) {
+            return getDelegate(lease).shouldStream(queryId);
+        }
+    }
+
+    /**
+     * The results are materialized by the delegate before the query engine is released
+     */
+    @Override
+    public GraphQueryResult evaluateGraph(String queryId, ImmutableMap<String, String> bindings)
+            throws QueryEvaluationException {
+        try (QueryEngineLease lease = repository.acquireQueryEngine()) {
+            return getDelegate(lease).evaluateGraph(queryId, bindings);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package it.unibz.inf.ontop.endpoint.controllers;
+
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * Reloads the mapping, ontology and properties without interrupting the running queries
+ */
+@RestController
+@ConditionalOnExpression("${enable-reload:false}")
+public class ReloadController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReloadController.class);
+
+    private final OntopVirtualRepository repository;
+
+    @Autowired
+    public ReloadController(OntopVirtualRepository repository) {
+        this.repository = repository;
+    }
+
+    @PostMapping("/ontop/reload")
+    public ResponseEntity<String> reload() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CONTENT_TYPE, "text/plain; charset=UTF-8");
+
+        try {
+            repository.reload();
+            return new ResponseEntity<>("Reloaded", headers, HttpStatus.OK);
+        } catch (RepositoryException e) {
+            log.error("Reload failed", e);
+            String message = e.getCause() == null ? e.getMessage() : e.getCause().getMessage();
+            return new ResponseEntity<>("Reload failed (the previous specification remains in use): " + message,
+                    headers, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -9,11 +9,15 @@ import it.unibz.inf.ontop.utils.VersionInfo;
 
 import org.eclipse.rdf4j.query.BooleanQuery;
 import org.eclipse.rdf4j.query.GraphQuery;
+import org.eclipse.rdf4j.query.GraphQueryResult;
 import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.eclipse.rdf4j.query.Query;
 import org.eclipse.rdf4j.query.QueryLanguage;
 import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
 import org.eclipse.rdf4j.query.Update;
+import org.eclipse.rdf4j.query.QueryResultHandlerException;
 import org.eclipse.rdf4j.query.resultio.BooleanQueryResultWriter;
 import org.eclipse.rdf4j.query.resultio.TupleQueryResultWriter;
 import org.eclipse.rdf4j.query.resultio.sparqljson.SPARQLBooleanJSONWriter;
@@ -25,6 +29,7 @@ import org.eclipse.rdf4j.query.resultio.text.csv.SPARQLResultsCSVWriter;
 import org.eclipse.rdf4j.query.resultio.text.tsv.SPARQLResultsTSVWriter;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.eclipse.rdf4j.rio.RDFWriter;
 import org.eclipse.rdf4j.rio.jsonld.JSONLDWriter;
 import org.eclipse.rdf4j.rio.rdfjson.RDFJSONWriter;
@@ -33,19 +38,24 @@ import org.eclipse.rdf4j.rio.turtle.TurtleWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.http.HttpHeaders.*;
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
@@ -55,11 +65,26 @@ public class SparqlQueryController {
 
     private static final Logger log = LoggerFactory.getLogger(SparqlQueryController.class);
 
+    // Number of results after which the response is flushed
+    private static final int FLUSH_INTERVAL = 1000;
+    // Request attribute: connection of a query not evaluated yet
+    private static final String CONNECTION_ATTRIBUTE = SparqlQueryController.class.getName() + ".connection";
+    // Set (to the maximum number of results) when the results have been truncated
+    private static final String MAX_ROWS_HEADER = "X-SPARQL-MaxRows";
+
     private final OntopVirtualRepository repository;
+    // In seconds (no timeout if <= 0)
+    private final int queryTimeout;
+    // No limit if <= 0
+    private final long maxResults;
 
     @Autowired
-    public SparqlQueryController(OntopVirtualRepository repository) {
+    public SparqlQueryController(OntopVirtualRepository repository,
+                                 @Value("${query-timeout:0}") int queryTimeout,
+                                 @Value("${max-results:0}") long maxResults) {
         this.repository = repository;
+        this.queryTimeout = queryTimeout;
+        this.maxResults = maxResults;
     }
 
     @GetMapping(value = "/")
@@ -72,134 +97,286 @@ public class SparqlQueryController {
     @RequestMapping(value = "/sparql",
             method = {RequestMethod.GET}
     )
-    public void query_get(
+    public StreamingResponseBody query_get(
             @RequestHeader(ACCEPT) String accept,
             @RequestParam(value = "query") String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
             @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri,
             HttpServletRequest request, HttpServletResponse response) {
-        execQuery(request, accept, query, defaultGraphUri, namedGraphUri, response);
+        return execQuery(request, accept, query, defaultGraphUri, namedGraphUri, response);
     }
 
     @RequestMapping(value = "/sparql",
             method = RequestMethod.POST,
             consumes = APPLICATION_FORM_URLENCODED_VALUE)
-    public void query_post_URL_encoded(
+    public StreamingResponseBody query_post_URL_encoded(
             @RequestHeader(ACCEPT) String accept,
             @RequestParam(value = "query") String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
             @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri,
             HttpServletRequest request, HttpServletResponse response) {
-        execQuery(request, accept, query, defaultGraphUri, namedGraphUri, response);
+        return execQuery(request, accept, query, defaultGraphUri, namedGraphUri, response);
     }
 
     @RequestMapping(value = "/sparql",
             method = RequestMethod.POST,
             consumes = "application/sparql-query")
-    public void query_post_directly(
+    public StreamingResponseBody query_post_directly(
             @RequestHeader(ACCEPT) String accept,
             @RequestBody String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
             @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri,
             HttpServletRequest request, HttpServletResponse response) {
-        execQuery(request, accept, query, defaultGraphUri, namedGraphUri, response);
+        return execQuery(request, accept, query, defaultGraphUri, namedGraphUri, response);
     }
 
-    private void execQuery(HttpServletRequest request, String accept, String query, String[] defaultGraphUri, String[] namedGraphUri,
-                           HttpServletResponse response) {
+    /**
+     * The query is parsed in the request thread (so that malformed queries are reported with a proper status),
+     * while its evaluation and the serialization of its results are done asynchronously, outside the thread pool
+     * of the servlet container.
+     *
+     * The results are pulled one by one and the response is flushed regularly, so that slow clients slow down
+     * the evaluation instead of having the results buffered. When the client disconnects (detected when flushing),
+     * the evaluation is stopped and the query result is closed, which closes the underlying SQL statement.
+     *
+     * The query timeout is enforced by cancelling the query evaluation (max execution time), not by the request:
+     * once started, the streaming of a large result is not cut off. It starts when the evaluation is submitted
+     * to the query executor, so the time spent waiting for a thread counts toward it.
+     */
+    private StreamingResponseBody execQuery(HttpServletRequest request, String accept, String query,
+                                            String[] defaultGraphUri, String[] namedGraphUri,
+                                            HttpServletResponse response) {
 
         ImmutableMultimap<String, String> httpHeaders = Collections.list(request.getHeaderNames()).stream()
                 .flatMap(k -> Collections.list(request.getHeaders(k)).stream()
                         .map(v -> Maps.immutableEntry(k, v)))
                 .collect(ImmutableCollectors.toMultimap());
 
-        try (OntopRepositoryConnection connection = repository.getConnection()) {
+        OntopRepositoryConnection connection = repository.getConnection();
+        try {
             Query q = connection.prepareQuery(QueryLanguage.SPARQL, query, httpHeaders);
-            OutputStream bao = response.getOutputStream();
-
-            if (q instanceof TupleQuery) {
-                TupleQuery selectQuery = (TupleQuery) q;
-                response.setCharacterEncoding("UTF-8");
-
-                if ("*/*".equals(accept) || accept.contains("json")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json;charset=UTF-8");
-                    evaluateSelectQuery(selectQuery, new SPARQLResultsJSONWriter(bao), response);
-                } else if (accept.contains("xml")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml;charset=UTF-8");
-                    evaluateSelectQuery(selectQuery, new SPARQLResultsXMLWriter(bao), response);
-                } else if (accept.contains("csv")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "text/sparql-results+csv;charset=UTF-8");
-                    evaluateSelectQuery(selectQuery, new SPARQLResultsCSVWriter(bao), response);
-                } else if (accept.contains("tsv") || accept.contains("text/tab-separated-values")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "text/sparql-results+tsv;charset=UTF-8");
-                    evaluateSelectQuery(selectQuery, new SPARQLResultsTSVWriter(bao), response);
-                } else {
-                    response.setStatus(HttpStatus.NOT_ACCEPTABLE.value());
-                }
 
-            } else if (q instanceof BooleanQuery) {
-                BooleanQuery askQuery = (BooleanQuery) q;
-                boolean b = askQuery.evaluate();
-
-                if ("*/*".equals(accept) || accept.contains("json")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json");
-                    addCacheHeaders(response);
-                    BooleanQueryResultWriter writer = new SPARQLBooleanJSONWriter(bao);
-                    writer.handleBoolean(b);
-                } else if (accept.contains("xml")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml");
-                    addCacheHeaders(response);
-                    BooleanQueryResultWriter writer = new SPARQLBooleanXMLWriter(bao);
-                    writer.handleBoolean(b);
-                } else if (accept.contains("text")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "text/boolean");
-                    addCacheHeaders(response);
-                    BooleanQueryResultWriter writer = new BooleanTextWriter(bao);
-                    writer.handleBoolean(b);
-                } else {
-                    response.setStatus(HttpStatus.NOT_ACCEPTABLE.value());
+            Evaluation evaluation = prepareEvaluation(q, accept, response, new ResultLimit(response));
+            // Closed by the exception handler if the query executor rejects the evaluation
+            request.setAttribute(CONNECTION_ATTRIBUTE, connection);
+            long submissionTime = System.nanoTime();
+            return out -> {
+                try (OntopRepositoryConnection c = connection) {
+                    if (!setRemainingTimeout(q, submissionTime, response, out))
+                        return;
+                    evaluation.evaluate(out);
+                    out.flush();
+                } catch (IOException e) {
+                    // The query result has already been closed
+                    log.debug("The client has disconnected, the query evaluation has been stopped");
                 }
-            } else if (q instanceof GraphQuery) {
-                GraphQuery graphQuery = (GraphQuery) q;
-                response.setCharacterEncoding("UTF-8");
-
-                if ("*/*".equals(accept) || accept.contains("turtle")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "text/turtle;charset=UTF-8");
-                    evaluateGraphQuery(graphQuery, new TurtleWriter(bao), response);
-                } else if (accept.contains("rdf+json")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/rdf+json;charset=UTF-8");
-                    evaluateGraphQuery(graphQuery, new RDFJSONWriter(bao, RDFFormat.RDFJSON), response);
-                } else if (accept.contains("json")) {
-                    // specification of rdf/json, recommend the use of json-ld (we use it as default)
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/ld+json;charset=UTF-8");
-                    evaluateGraphQuery(graphQuery, new JSONLDWriter(bao), response);
-                }
-                else if (accept.contains("xml")) {
-                    response.setHeader(HttpHeaders.CONTENT_TYPE, "application/rdf+xml;charset=UTF-8");
-                    evaluateGraphQuery(graphQuery, new RDFXMLWriter(bao), response);
-                } else {
-                    response.setStatus(HttpStatus.NOT_ACCEPTABLE.value());
-                }
-            } else if (q instanceof Update) {
-                response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
-            } else {
-                response.setStatus(HttpStatus.BAD_REQUEST.value());
+            };
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the max execution time of the query to what remains of the query timeout after waiting in the queue
+     * of the query executor.
+     * Returns false, after having sent a 503 response, if the timeout has expired before the evaluation could start.
+     */
+    private boolean setRemainingTimeout(Query q, long submissionTime, HttpServletResponse response, OutputStream out)
+            throws IOException {
+        if (queryTimeout <= 0)
+            return true;
+
+        long remainingMillis = TimeUnit.SECONDS.toMillis(queryTimeout)
+                - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submissionTime);
+        if (remainingMillis > 0) {
+            // In seconds, rounded up
+            q.setMaxExecutionTime((int) TimeUnit.MILLISECONDS.toSeconds(remainingMillis + 999));
+            return true;
+        }
+
+        log.warn("SPARQL query timed out while waiting for evaluation");
+        // Nothing has been written yet: discards the headers of the results
+        response.reset();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(CONTENT_TYPE, "text/plain; charset=UTF-8");
+        response.setHeader(CACHE_CONTROL, "no-store");
+        out.write("The query timed out while waiting for evaluation, retry later".getBytes(StandardCharsets.UTF_8));
+        return false;
+    }
+
+    /**
+     * Sets the status and the headers of the response
+     */
+    private Evaluation prepareEvaluation(Query q, String accept, HttpServletResponse response, ResultLimit limit) {
+        if (q instanceof TupleQuery) {
+            TupleQuery selectQuery = (TupleQuery) q;
+            response.setCharacterEncoding("UTF-8");
+
+            if ("*/*".equals(accept) || accept.contains("json")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateSelectQuery(selectQuery, new SPARQLResultsJSONWriter(out), out, limit);
+            } else if (accept.contains("xml")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateSelectQuery(selectQuery, new SPARQLResultsXMLWriter(out), out, limit);
+            } else if (accept.contains("csv")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "text/sparql-results+csv;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateSelectQuery(selectQuery, new SPARQLResultsCSVWriter(out), out, limit);
+            } else if (accept.contains("tsv") || accept.contains("text/tab-separated-values")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "text/sparql-results+tsv;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateSelectQuery(selectQuery, new SPARQLResultsTSVWriter(out), out, limit);
+            }
+
+        } else if (q instanceof BooleanQuery) {
+            BooleanQuery askQuery = (BooleanQuery) q;
+
+            if ("*/*".equals(accept) || accept.contains("json")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json");
+                addCacheHeaders(response);
+                return out -> evaluateAskQuery(askQuery, new SPARQLBooleanJSONWriter(out));
+            } else if (accept.contains("xml")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml");
+                addCacheHeaders(response);
+                return out -> evaluateAskQuery(askQuery, new SPARQLBooleanXMLWriter(out));
+            } else if (accept.contains("text")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "text/boolean");
+                addCacheHeaders(response);
+                return out -> evaluateAskQuery(askQuery, new BooleanTextWriter(out));
+            }
+        } else if (q instanceof GraphQuery) {
+            GraphQuery graphQuery = (GraphQuery) q;
+            response.setCharacterEncoding("UTF-8");
+
+            if ("*/*".equals(accept) || accept.contains("turtle")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "text/turtle;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateGraphQuery(graphQuery, new TurtleWriter(out), out, limit);
+            } else if (accept.contains("rdf+json")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/rdf+json;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateGraphQuery(graphQuery, new RDFJSONWriter(out, RDFFormat.RDFJSON), out, limit);
+            } else if (accept.contains("json")) {
+                // specification of rdf/json, recommend the use of json-ld (we use it as default)
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/ld+json;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateGraphQuery(graphQuery, new JSONLDWriter(out), out, limit);
+            }
+            else if (accept.contains("xml")) {
+                response.setHeader(HttpHeaders.CONTENT_TYPE, "application/rdf+xml;charset=UTF-8");
+                addCacheHeaders(response);
+                return out -> evaluateGraphQuery(graphQuery, new RDFXMLWriter(out), out, limit);
+            }
+        } else if (q instanceof Update) {
+            response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
+            return out -> {};
+        } else {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return out -> {};
+        }
+        response.setStatus(HttpStatus.NOT_ACCEPTABLE.value());
+        return out -> {};
+    }
+
+    private void evaluateSelectQuery(TupleQuery selectQuery, TupleQueryResultWriter writer, OutputStream out,
+                                     ResultLimit limit) throws IOException {
+        try (TupleQueryResult result = selectQuery.evaluate()) {
+            writer.startQueryResult(result.getBindingNames());
+            long count = 0;
+            while (result.hasNext()) {
+                if (limit.isReached(count))
+                    break;
+                writer.handleSolution(result.next());
+                count++;
+                flushRegularly(count, out);
             }
-            bao.flush();
+            writer.endQueryResult();
+        } catch (TupleQueryResultHandlerException e) {
+            handleWritingException(e);
         }
-        catch (IOException ex) {
-            throw new Error(ex);
+    }
+
+    private void evaluateGraphQuery(GraphQuery graphQuery, RDFWriter writer, OutputStream out, ResultLimit limit)
+            throws IOException {
+        try (GraphQueryResult result = graphQuery.evaluate()) {
+            writer.startRDF();
+            long count = 0;
+            while (result.hasNext()) {
+                if (limit.isReached(count))
+                    break;
+                writer.handleStatement(result.next());
+                count++;
+                flushRegularly(count, out);
+            }
+            writer.endRDF();
+        } catch (RDFHandlerException e) {
+            handleWritingException(e);
         }
     }
 
-    private void evaluateSelectQuery(TupleQuery selectQuery, TupleQueryResultWriter writer, HttpServletResponse response) {
-        addCacheHeaders(response);
-        selectQuery.evaluate(writer);
+    private void evaluateAskQuery(BooleanQuery askQuery, BooleanQueryResultWriter writer) throws IOException {
+        try {
+            writer.handleBoolean(askQuery.evaluate());
+        } catch (QueryResultHandlerException e) {
+            handleWritingException(e);
+        }
+    }
 
+    private static void flushRegularly(long count, OutputStream out) throws IOException {
+        if (count % FLUSH_INTERVAL == 0)
+            out.flush();
     }
-    private void evaluateGraphQuery(GraphQuery graphQuery, RDFWriter writer, HttpServletResponse response) {
-        addCacheHeaders(response);
-        graphQuery.evaluate(writer);
+
+    /**
+     * The writers wrap the I/O exceptions (typically due to the client having disconnected)
+     */
+    private static void handleWritingException(RuntimeException e) throws IOException {
+        if (e.getCause() instanceof IOException)
+            throw (IOException) e.getCause();
+        throw e;
+    }
+
+    /**
+     * Maximum number of results of a response (max-results).
+     *
+     * The truncation is signaled by the X-SPARQL-MaxRows header. If the response has already been committed
+     * when the limit is reached, it is sent as a trailer field instead (when supported, e.g. chunked HTTP/1.1).
+     */
+    private class ResultLimit {
+        private final HttpServletResponse response;
+        private volatile boolean isTruncated = false;
+
+        ResultLimit(HttpServletResponse response) {
+            this.response = response;
+            if (maxResults > 0) {
+                try {
+                    response.setTrailerFields(() -> isTruncated
+                            ? Collections.singletonMap(MAX_ROWS_HEADER, String.valueOf(maxResults))
+                            : Collections.emptyMap());
+                } catch (IllegalStateException e) {
+                    // Trailer fields not supported (e.g. HTTP/1.0)
+                }
+            }
+        }
+
+        boolean isReached(long count) {
+            if (maxResults <= 0 || count < maxResults)
+                return false;
+
+            isTruncated = true;
+            if (!response.isCommitted())
+                response.setHeader(MAX_ROWS_HEADER, String.valueOf(maxResults));
+            log.info("The results have been truncated after {} results", maxResults);
+            return true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Evaluation {
+        void evaluate(OutputStream out) throws IOException;
     }
 
     /**
@@ -221,6 +398,24 @@ public class SparqlQueryController {
         return new ResponseEntity<>(message, headers, status);
     }
 
+    /**
+     * All the threads of the query executor are busy and its queue is full
+     */
+    @ExceptionHandler({RejectedExecutionException.class})
+    public ResponseEntity<String> handleRejectedExecutionException(Exception ex, HttpServletRequest request) {
+        Object connection = request.getAttribute(CONNECTION_ATTRIBUTE);
+        if (connection != null) {
+            request.removeAttribute(CONNECTION_ATTRIBUTE);
+            ((OntopRepositoryConnection) connection).close();
+        }
+        log.warn("SPARQL query rejected: too many concurrent queries");
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CONTENT_TYPE, "text/plain; charset=UTF-8");
+        headers.set(CACHE_CONTROL, "no-store");
+        return new ResponseEntity<>("Too many concurrent queries, retry later", headers,
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler({RepositoryException.class, Exception.class})
     public ResponseEntity<String> handleRepositoryException(Exception ex) {
         ex.printStackTrace();
@@ -6,10 +6,15 @@ import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.atom.DataAtom;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Thread-safe: the chase results are cached and shared by all the threads.
+ * The chase itself is sequential because the dependencies may generate fresh variables.
+ */
 public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> implements ImmutableCQContainmentCheck<P> {
 
-    private final Map<ImmutableList<DataAtom<P>>, ImmutableSet<DataAtom<P>>> chaseCache = new HashMap<>();
+    private final Map<ImmutableList<DataAtom<P>>, ImmutableSet<DataAtom<P>>> chaseCache = new ConcurrentHashMap<>();
 
     private final BasicLinearInclusionDependenciesImpl<P> dependencies;
 
@@ -27,7 +32,7 @@ public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> imple
             ImmutableHomomorphismIterator<P> iterator = new ImmutableHomomorphismIterator<>(
                     builder.build(),
                     cq2.getAtoms(),
-                    chaseCache.computeIfAbsent(cq1.getAtoms(), dependencies::chaseAllAtoms));
+                    chase(cq1.getAtoms()));
             return iterator.hasNext();
         }
         return false;
@@ -37,6 +42,16 @@ public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> imple
          return new ImmutableHomomorphismIterator<>(
                 base,
                 from,
-                chaseCache.computeIfAbsent(to, dependencies::chaseAllAtoms));
+                chase(to));
+    }
+
+    private ImmutableSet<DataAtom<P>> chase(ImmutableList<DataAtom<P>> atoms) {
+        ImmutableSet<DataAtom<P>> chased = chaseCache.get(atoms);
+        if (chased != null)
+            return chased;
+
+        synchronized (dependencies) {
+            return chaseCache.computeIfAbsent(atoms, dependencies::chaseAllAtoms);
+        }
     }
 }
@@ -0,0 +1,37 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Optional;
+
+/**
+ * Number of rows of a relation and numbers of distinct values of (some of) its attributes.
+ *
+ * These are estimates: they may come from the statistics catalog of the DB or be outdated.
+ */
+public class RelationStatistics {
+
+    private final long rowCount;
+    private final ImmutableMap<QuotedID, Long> distinctValueCounts;
+
+    public RelationStatistics(long rowCount, ImmutableMap<QuotedID, Long> distinctValueCounts) {
+        this.rowCount = rowCount;
+        this.distinctValueCounts = distinctValueCounts;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Empty if unknown
+     */
+    public Optional<Long> getDistinctValueCount(QuotedID attributeId) {
+        return Optional.ofNullable(distinctValueCounts.get(attributeId));
+    }
+
+    @Override
+    public String toString() {
+        return "rows=" + rowCount + ", distinct=" + distinctValueCounts;
+    }
+}
@@ -7,6 +7,13 @@ import it.unibz.inf.ontop.exception.MetadataExtractionException;
 
 import java.util.*;
 
+/**
+ * Thread-safe: the relations can be looked up concurrently, provided the provider supports it
+ * (see {@link PooledMetadataProvider}).
+ *
+ * The provider is called outside of the lock. When the same relation is retrieved twice concurrently
+ * (possibly under different IDs), the first registered definition is returned to both callers.
+ */
 public class CachingMetadataLookup implements MetadataLookup {
 
     private final MetadataProvider provider;
@@ -16,19 +23,37 @@ public class CachingMetadataLookup implements MetadataLookup {
 
     @Override
     public NamedRelationDefinition getRelation(RelationID relationId) throws MetadataExtractionException {
-        NamedRelationDefinition relation = map.get(relationId);
-        if (relation != null)
-            return relation;
+        synchronized (map) {
+            NamedRelationDefinition relation = map.get(relationId);
+            if (relation != null)
+                return relation;
+        }
 
         NamedRelationDefinition retrievedRelation = provider.getRelation(relationId);
-        for (RelationID retrievedId : retrievedRelation.getAllIDs()) {
-            NamedRelationDefinition prev = map.put(retrievedId, retrievedRelation);
-            if (prev != null)
-                throw new MetadataExtractionException("Clashing relation IDs: " + retrievedId + " and " + relationId);
+        synchronized (map) {
+            Optional<NamedRelationDefinition> registered = getRegisteredDefinition(retrievedRelation);
+            if (registered.isPresent())
+                return registered.get();
+
+            for (RelationID retrievedId : retrievedRelation.getAllIDs()) {
+                NamedRelationDefinition prev = map.put(retrievedId, retrievedRelation);
+                if (prev != null)
+                    throw new MetadataExtractionException("Clashing relation IDs: " + retrievedId + " and " + relationId);
+            }
         }
         return retrievedRelation;
     }
 
+    /**
+     * Definition of the same relation registered by a concurrent lookup
+     */
+    private Optional<NamedRelationDefinition> getRegisteredDefinition(NamedRelationDefinition retrievedRelation) {
+        NamedRelationDefinition prev = map.get(retrievedRelation.getID());
+        return (prev != null && prev.getAllIDs().equals(retrievedRelation.getAllIDs()))
+                ? Optional.of(prev)
+                : Optional.empty();
+    }
+
     @Override
     public QuotedIDFactory getQuotedIDFactory() {
         return provider.getQuotedIDFactory();
@@ -37,7 +62,10 @@ public class CachingMetadataLookup implements MetadataLookup {
 
     public ImmutableMetadata extractImmutableMetadata() throws MetadataExtractionException {
 
-        ImmutableMetadataLookup lookup = new ImmutableMetadataLookup(getQuotedIDFactory(), ImmutableMap.copyOf(map));
+        ImmutableMetadataLookup lookup;
+        synchronized (map) {
+            lookup = new ImmutableMetadataLookup(getQuotedIDFactory(), ImmutableMap.copyOf(map));
+        }
         ImmutableList<NamedRelationDefinition> list = lookup.getRelations();
 
         for (NamedRelationDefinition relation : list)
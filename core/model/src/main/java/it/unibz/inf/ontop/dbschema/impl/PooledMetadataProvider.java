@@ -0,0 +1,81 @@
+package it.unibz.inf.ontop.dbschema.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Dispatches the calls over a pool of equivalent providers (typically, one per JDBC connection),
+ * each of them being used by at most one thread at a time.
+ *
+ * With a single provider, the calls are simply serialized.
+ */
+public class PooledMetadataProvider implements MetadataProvider {
+
+    private final ImmutableList<MetadataProvider> providers;
+    private final BlockingQueue<MetadataProvider> availableProviders;
+
+    @FunctionalInterface
+    private interface ProviderCall<T> {
+        T apply(MetadataProvider provider) throws MetadataExtractionException;
+    }
+
+    public PooledMetadataProvider(ImmutableList<MetadataProvider> providers) {
+        if (providers.isEmpty())
+            throw new IllegalArgumentException("At least one provider is expected");
+        this.providers = providers;
+        this.availableProviders = new ArrayBlockingQueue<>(providers.size(), false, providers);
+    }
+
+    public int getPoolSize() {
+        return providers.size();
+    }
+
+    private <T> T call(ProviderCall<T> call) throws MetadataExtractionException {
+        MetadataProvider provider;
+        try {
+            provider = availableProviders.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetadataExtractionException(e);
+        }
+        try {
+            return call.apply(provider);
+        }
+        finally {
+            availableProviders.add(provider);
+        }
+    }
+
+    @Override
+    public NamedRelationDefinition getRelation(RelationID relationId) throws MetadataExtractionException {
+        return call(p -> p.getRelation(relationId));
+    }
+
+    @Override
+    public ImmutableList<RelationID> getRelationIDs() throws MetadataExtractionException {
+        return call(MetadataProvider::getRelationIDs);
+    }
+
+    @Override
+    public void insertIntegrityConstraints(NamedRelationDefinition relation, MetadataLookup metadataLookup) throws MetadataExtractionException {
+        call(p -> {
+            p.insertIntegrityConstraints(relation, metadataLookup);
+            return null;
+        });
+    }
+
+    @Override
+    public QuotedIDFactory getQuotedIDFactory() {
+        return providers.get(0).getQuotedIDFactory();
+    }
+
+    @Override
+    public DBParameters getDBParameters() {
+        return providers.get(0).getDBParameters();
+    }
+}
@@ -69,6 +69,15 @@ public interface IntermediateQueryFactory {
                                 @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
                                 String nativeQueryString, VariableNullability variableNullability);
 
+    /**
+     * The native query string contains placeholders ("?") for the parameters
+     */
+    NativeNode createNativeNode(ImmutableSortedSet<Variable> variables,
+                                @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                                @Assisted("columnNames") ImmutableMap<Variable, QuotedID> columnNames,
+                                String nativeQueryString, @Assisted("parameters") ImmutableList<DBConstant> parameters,
+                                VariableNullability variableNullability);
+
     TrueNode createTrueNode();
 
     DistinctNode createDistinctNode();
@@ -1,5 +1,7 @@
 package it.unibz.inf.ontop.injection;
 
+import com.google.common.collect.ImmutableMap;
+
 import java.util.Optional;
 
 /**
@@ -21,6 +23,13 @@ public interface OntopModelSettings {
 
     boolean contains(Object key);
 
+    /**
+     * All the properties, including the default ones.
+     *
+     * Not for end-users!
+     */
+    ImmutableMap<String, String> getPropertyMap();
+
     enum CardinalityPreservationMode {
         /**
          * Cardinality is not important and may not be respected
@@ -1,7 +1,9 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopModelSettings;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -179,6 +181,12 @@ public class OntopModelSettingsImpl implements OntopModelSettings {
         return properties.containsKey(key);
     }
 
+    @Override
+    public ImmutableMap<String, String> getPropertyMap() {
+        return properties.stringPropertyNames().stream()
+                .collect(ImmutableCollectors.toMap(k -> k, properties::getProperty));
+    }
+
     protected Properties copyProperties() {
         Properties p = new Properties();
         p.putAll(properties);
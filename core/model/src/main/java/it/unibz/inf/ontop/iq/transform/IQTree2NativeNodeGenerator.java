@@ -15,4 +15,10 @@ public interface IQTree2NativeNodeGenerator {
      */
     NativeNode generate(IQTree iqTree, DBParameters dbParameters, boolean tolerateUnknownTypes);
 
+    /**
+     * Same as generate(iqTree, dbParameters, false), except that the constants used in the conditions
+     * are passed as parameters of the native query (see {@link NativeNode#getParameters()}).
+     */
+    NativeNode generateWithParameters(IQTree iqTree, DBParameters dbParameters);
+
 }
@@ -137,4 +137,17 @@ public abstract class DefaultRecursiveIQTreeVisitingTransformer implements IQTre
                 ? tree
                 : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
     }
+
+    /**
+     * Cheap alternative to equals(): only detects whether some child has been replaced by the transformation
+     */
+    public static boolean areSameInstances(ImmutableList<IQTree> newChildren, ImmutableList<IQTree> children) {
+        if (newChildren.size() != children.size())
+            return false;
+        for (int i = 0; i < children.size(); i++) {
+            if (newChildren.get(i) != children.get(i))
+                return false;
+        }
+        return true;
+    }
 }
@@ -47,4 +47,17 @@ public interface Mapping {
     ImmutableSet<IRI> getRDFClasses(RDFAtomPredicate rdfAtomPredicate);
 
     ImmutableCollection<IQ> getQueries(RDFAtomPredicate rdfAtomPredicate);
+
+    /**
+     * Branches of the definitions (properties and classes) that may produce the given subject and/or object IRIs.
+     *
+     * Selected according to the IRI templates of the definitions: some returned branches may still be incompatible.
+     */
+    ImmutableCollection<IQ> getCompatibleDefinitions(RDFAtomPredicate rdfAtomPredicate, Optional<IRI> subject,
+                                                     Optional<IRI> object);
+
+    /**
+     * Same as getCompatibleDefinitions, but for the classes only
+     */
+    ImmutableCollection<IQ> getCompatibleClassDefinitions(RDFAtomPredicate rdfAtomPredicate, IRI subject);
 }
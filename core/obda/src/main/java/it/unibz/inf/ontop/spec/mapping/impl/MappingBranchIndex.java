@@ -0,0 +1,201 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.*;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.ObjectStringTemplateFunctionSymbol;
+import it.unibz.inf.ontop.model.type.ObjectRDFType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Indexes the branches of the definitions of an RDF atom predicate (triple, quad, etc.) by the IRIs they may produce
+ * in the subject and object positions.
+ *
+ * The definitions are split into their union branches. A branch is indexed by the prefix of its IRI template
+ * (first string component) or by its IRI when it is a constant. Branches producing something else than IRIs
+ * (blank nodes, literals) are never compatible with an IRI, while the others (e.g. IRIs built from a column)
+ * are always compatible.
+ *
+ * Used for selecting the mapping branches that may match a constant IRI before merging them
+ * (instead of relying on the optimizer for eliminating them afterwards).
+ *
+ * Immutable
+ */
+class MappingBranchIndex {
+
+    private final ImmutableList<Branch> branches;
+    private final PositionIndex subjectIndex;
+    private final PositionIndex objectIndex;
+
+    MappingBranchIndex(RDFAtomPredicate rdfAtomPredicate, ImmutableCollection<IQ> classDefinitions,
+                       ImmutableCollection<IQ> propertyDefinitions, IntermediateQueryFactory iqFactory) {
+        this.branches = Stream.concat(
+                    classDefinitions.stream()
+                            .flatMap(d -> splitIntoBranches(d, iqFactory))
+                            .map(b -> new Branch(b, true)),
+                    propertyDefinitions.stream()
+                            .flatMap(d -> splitIntoBranches(d, iqFactory))
+                            .map(b -> new Branch(b, false)))
+                .collect(ImmutableCollectors.toList());
+
+        this.subjectIndex = new PositionIndex(branches, b -> getTerm(b.query, rdfAtomPredicate::getSubject));
+        this.objectIndex = new PositionIndex(branches, b -> getTerm(b.query, rdfAtomPredicate::getObject));
+    }
+
+    /**
+     * Preserves the order of the definitions
+     */
+    ImmutableList<IQ> getCompatibleBranches(Optional<IRI> subject, Optional<IRI> object, boolean classesOnly) {
+        Optional<ImmutableSet<Branch>> subjectBranches = subject.map(subjectIndex::getCompatibleBranches);
+        Optional<ImmutableSet<Branch>> objectBranches = object.map(objectIndex::getCompatibleBranches);
+
+        return branches.stream()
+                .filter(b -> !classesOnly || b.isClass)
+                .filter(b -> subjectBranches.map(s -> s.contains(b)).orElse(true))
+                .filter(b -> objectBranches.map(s -> s.contains(b)).orElse(true))
+                .map(b -> b.query)
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * Only splits the unions at the top (possibly under a construction node)
+     */
+    private static Stream<IQ> splitIntoBranches(IQ definition, IntermediateQueryFactory iqFactory) {
+        IQTree tree = definition.getTree();
+        QueryNode rootNode = tree.getRootNode();
+
+        if (rootNode instanceof UnionNode)
+            return tree.getChildren().stream()
+                    .map(c -> iqFactory.createIQ(definition.getProjectionAtom(), c));
+
+        if ((rootNode instanceof ConstructionNode)
+                && (tree.getChildren().get(0).getRootNode() instanceof UnionNode))
+            return tree.getChildren().get(0).getChildren().stream()
+                    .map(c -> iqFactory.createIQ(definition.getProjectionAtom(),
+                            iqFactory.createUnaryIQTree((ConstructionNode) rootNode, c)));
+
+        return Stream.of(definition);
+    }
+
+    private static ImmutableTerm getTerm(IQ branch,
+                                         Function<ImmutableList<Variable>, Variable> positionExtractor) {
+        return resolve(positionExtractor.apply(branch.getProjectionAtom().getArguments()), branch.getTree());
+    }
+
+    /**
+     * Applies the substitutions of the construction nodes, from the top until reaching a node
+     * that may define some variables differently in its children (e.g. a union).
+     */
+    private static ImmutableTerm resolve(ImmutableTerm term, IQTree tree) {
+        QueryNode rootNode = tree.getRootNode();
+        if (rootNode instanceof ConstructionNode)
+            return resolve(((ConstructionNode) rootNode).getSubstitution().apply(term), tree.getChildren().get(0));
+        if ((rootNode instanceof DistinctNode) || (rootNode instanceof FilterNode))
+            return resolve(term, tree.getChildren().get(0));
+        return term;
+    }
+
+
+    private static class Branch {
+        private final IQ query;
+        private final boolean isClass;
+
+        private Branch(IQ query, boolean isClass) {
+            this.query = query;
+            this.isClass = isClass;
+        }
+    }
+
+    private static class PositionIndex {
+        private final ImmutableMultimap<String, Branch> iriMap;
+        private final ImmutableMultimap<String, Branch> prefixMap;
+        private final ImmutableSortedSet<Integer> prefixLengths;
+        private final ImmutableSet<Branch> unconstrainedBranches;
+
+        PositionIndex(ImmutableList<Branch> branches, Function<Branch, ImmutableTerm> termExtractor) {
+            ImmutableMultimap.Builder<String, Branch> iriMapBuilder = ImmutableMultimap.builder();
+            ImmutableMultimap.Builder<String, Branch> prefixMapBuilder = ImmutableMultimap.builder();
+            ImmutableSet.Builder<Branch> unconstrainedBuilder = ImmutableSet.builder();
+
+            for (Branch branch : branches) {
+                ImmutableTerm term = termExtractor.apply(branch);
+                if (term instanceof IRIConstant)
+                    iriMapBuilder.put(((IRIConstant) term).getIRI().getIRIString(), branch);
+                else if (!isRDFTerm(term))
+                    unconstrainedBuilder.add(branch);
+                else {
+                    ImmutableFunctionalTerm rdfTerm = (ImmutableFunctionalTerm) term;
+                    ImmutableTerm lexicalTerm = rdfTerm.getTerm(0);
+                    ImmutableTerm typeTerm = rdfTerm.getTerm(1);
+
+                    if (!(typeTerm instanceof RDFTermTypeConstant))
+                        unconstrainedBuilder.add(branch);
+                    // Blank nodes and literals are never compatible
+                    else if (isIRIType(((RDFTermTypeConstant) typeTerm).getRDFTermType())) {
+                        Optional<String> prefix = extractTemplatePrefix(lexicalTerm);
+                        if (lexicalTerm instanceof DBConstant)
+                            iriMapBuilder.put(((DBConstant) lexicalTerm).getValue(), branch);
+                        else if (prefix.isPresent())
+                            prefixMapBuilder.put(prefix.get(), branch);
+                        else
+                            unconstrainedBuilder.add(branch);
+                    }
+                }
+            }
+            this.iriMap = iriMapBuilder.build();
+            this.prefixMap = prefixMapBuilder.build();
+            this.prefixLengths = ImmutableSortedSet.copyOf(prefixMap.keySet().stream()
+                    .map(String::length)
+                    .iterator());
+            this.unconstrainedBranches = unconstrainedBuilder.build();
+        }
+
+        /**
+         * Looks up the prefixes of the IRI (one per distinct prefix length)
+         */
+        ImmutableSet<Branch> getCompatibleBranches(IRI iri) {
+            String iriString = iri.getIRIString();
+            return Stream.concat(
+                    Stream.concat(
+                            unconstrainedBranches.stream(),
+                            iriMap.get(iriString).stream()),
+                    prefixLengths.headSet(iriString.length(), true).stream()
+                            .flatMap(l -> prefixMap.get(iriString.substring(0, l)).stream()))
+                    .collect(ImmutableCollectors.toSet());
+        }
+
+        private static boolean isRDFTerm(ImmutableTerm term) {
+            return (term instanceof ImmutableFunctionalTerm)
+                    && (((ImmutableFunctionalTerm) term).getFunctionSymbol() instanceof RDFTermFunctionSymbol);
+        }
+
+        private static boolean isIRIType(RDFTermType rdfType) {
+            return (rdfType instanceof ObjectRDFType) && !((ObjectRDFType) rdfType).isBlankNode();
+        }
+
+        /**
+         * Empty if the template does not start with a string
+         */
+        private static Optional<String> extractTemplatePrefix(ImmutableTerm lexicalTerm) {
+            return Optional.of(lexicalTerm)
+                    .filter(t -> t instanceof ImmutableFunctionalTerm)
+                    .map(t -> ((ImmutableFunctionalTerm) t).getFunctionSymbol())
+                    .filter(f -> f instanceof ObjectStringTemplateFunctionSymbol)
+                    .map(f -> ((ObjectStringTemplateFunctionSymbol) f).getTemplateComponents().get(0))
+                    .filter(c -> !c.isColumnNameReference())
+                    .map(Template.Component::getComponent);
+        }
+    }
+}
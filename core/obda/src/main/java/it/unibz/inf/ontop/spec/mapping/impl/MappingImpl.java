@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.spec.mapping.impl;
 
 import com.google.common.collect.*;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
 import it.unibz.inf.ontop.spec.mapping.Mapping;
@@ -15,12 +16,19 @@ public class MappingImpl implements Mapping {
 
     private final ImmutableTable<RDFAtomPredicate, IRI, IQ> propertyDefinitions;
     private final ImmutableTable<RDFAtomPredicate, IRI, IQ> classDefinitions;
+    private final ImmutableMap<RDFAtomPredicate, MappingBranchIndex> branchIndexes;
 
     public MappingImpl(ImmutableTable<RDFAtomPredicate, IRI, IQ> propertyTable,
-                        ImmutableTable<RDFAtomPredicate, IRI, IQ> classTable) {
+                       ImmutableTable<RDFAtomPredicate, IRI, IQ> classTable,
+                       IntermediateQueryFactory iqFactory) {
 
         this.propertyDefinitions = propertyTable;
         this.classDefinitions = classTable;
+        this.branchIndexes = getRDFAtomPredicates().stream()
+                .collect(ImmutableCollectors.toMap(
+                        p -> p,
+                        p -> new MappingBranchIndex(p, classTable.row(p).values(), propertyTable.row(p).values(),
+                                iqFactory)));
     }
 
     @Override
@@ -54,6 +62,21 @@ public class MappingImpl implements Mapping {
                 .collect(ImmutableCollectors.toList());
     }
 
+    @Override
+    public ImmutableCollection<IQ> getCompatibleDefinitions(RDFAtomPredicate rdfAtomPredicate, Optional<IRI> subject,
+                                                            Optional<IRI> object) {
+        return Optional.ofNullable(branchIndexes.get(rdfAtomPredicate))
+                .map(i -> i.getCompatibleBranches(subject, object, false))
+                .orElseGet(ImmutableList::of);
+    }
+
+    @Override
+    public ImmutableCollection<IQ> getCompatibleClassDefinitions(RDFAtomPredicate rdfAtomPredicate, IRI subject) {
+        return Optional.ofNullable(branchIndexes.get(rdfAtomPredicate))
+                .map(i -> i.getCompatibleBranches(Optional.of(subject), Optional.empty(), true))
+                .orElseGet(ImmutableList::of);
+    }
+
     @Override
     public ImmutableSet<RDFAtomPredicate> getRDFAtomPredicates() {
         return Sets.union(propertyDefinitions.rowKeySet(), classDefinitions.rowKeySet())
@@ -23,6 +23,7 @@ package it.unibz.inf.ontop.spec.ontology.impl;
 
 import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.Collections;
 import java.util.Comparator;
@@ -111,6 +112,50 @@ public class ClassifiedTBoxImpl implements ClassifiedTBox {
 		return r;
 	}
 
+	/**
+	 * reconstructs a TBox reasoner from previously classified DAGs
+	 * (for instance, from a compiled specification), without classifying the ontology again
+	 */
+
+	public static ClassifiedTBox create(OntologyVocabularyCategory<OClass> classes,
+										OntologyVocabularyCategory<ObjectPropertyExpression> objectProperties,
+										OntologyVocabularyCategory<DataPropertyExpression> dataProperties,
+										OntologyVocabularyCategory<AnnotationProperty> annotationProperties,
+										EquivalencesDAGImpl<ClassExpression> classDAG,
+										EquivalencesDAGImpl<ObjectPropertyExpression> objectPropertyDAG,
+										EquivalencesDAGImpl<DataPropertyExpression> dataPropertyDAG,
+										EquivalencesDAGImpl<DataRangeExpression> dataRangeDAG,
+										ImmutableList<ImmutableList<ClassExpression>> classDisjointness,
+										ImmutableList<ImmutableList<ObjectPropertyExpression>> objectPropertyDisjointness,
+										ImmutableList<ImmutableList<DataPropertyExpression>> dataPropertyDisjointness,
+										ImmutableSet<ObjectPropertyExpression> reflexiveObjectProperties,
+										ImmutableSet<ObjectPropertyExpression> irreflexiveObjectProperties,
+										ImmutableSet<ObjectPropertyExpression> functionalObjectProperties,
+										ImmutableSet<DataPropertyExpression> functionalDataProperties) {
+		return new ClassifiedTBoxImpl(
+				classes,
+				objectProperties,
+				dataProperties,
+				annotationProperties,
+				classDAG,
+				objectPropertyDAG,
+				dataPropertyDAG,
+				dataRangeDAG,
+				toNaryAxioms(classDisjointness),
+				toNaryAxioms(objectPropertyDisjointness),
+				toNaryAxioms(dataPropertyDisjointness),
+				reflexiveObjectProperties,
+				irreflexiveObjectProperties,
+				functionalObjectProperties,
+				functionalDataProperties);
+	}
+
+	private static <T> ImmutableList<NaryAxiom<T>> toNaryAxioms(ImmutableList<ImmutableList<T>> list) {
+		return list.stream()
+				.map(c -> new NaryAxiomImpl<>(c))
+				.collect(ImmutableCollectors.toList());
+	}
+
 	/**
 	 * constructs from DAGs
 	 * @param classDAG
@@ -21,7 +21,9 @@ package it.unibz.inf.ontop.spec.ontology.impl;
  */
 
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.spec.ontology.Equivalences;
 import it.unibz.inf.ontop.spec.ontology.EquivalencesDAG;
@@ -281,7 +283,35 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 		return new EquivalencesDAGImpl<>(graph, dag, vertexIndex, vertexIndex);
 	}
 
-	
+	/**
+	 * reconstructs a DAG from its vertices and its (transitively reduced) edges,
+	 * which map each vertex to its direct super-vertices
+	 *
+	 * (the vertices are not classified again)
+	 */
+
+	public static <TT> EquivalencesDAGImpl<TT> create(ImmutableList<Equivalences<TT>> vertices,
+													  ImmutableMultimap<Equivalences<TT>, Equivalences<TT>> directSuper) {
+
+		SimpleDirectedGraph<Equivalences<TT>,DefaultEdge> dag = new SimpleDirectedGraph<>(DefaultEdge.class);
+		for (Equivalences<TT> equivalenceSet : vertices)
+			dag.addVertex(equivalenceSet);
+
+		for (Map.Entry<Equivalences<TT>, Equivalences<TT>> edge : directSuper.entries())
+			dag.addEdge(edge.getKey(), edge.getValue());
+
+		ImmutableMap.Builder<TT, Equivalences<TT>> vertexIndexBuilder = new ImmutableMap.Builder<>();
+		for (Equivalences<TT> equivalenceSet : vertices) {
+			for (TT node : equivalenceSet)
+				vertexIndexBuilder.put(node, equivalenceSet);
+		}
+		ImmutableMap<TT, Equivalences<TT>> vertexIndex = vertexIndexBuilder.build();
+
+		// the graph is computed on demand
+		return new EquivalencesDAGImpl<>(null, dag, vertexIndex, vertexIndex);
+	}
+
+
 	public static <T> EquivalencesDAGImpl<T> reduce(EquivalencesDAGImpl<T> source, SimpleDirectedGraph <Equivalences<T>,DefaultEdge> target) {
 		
 		ImmutableMap.Builder<T, Equivalences<T>> vertexIndexBuilder = new ImmutableMap.Builder<>();
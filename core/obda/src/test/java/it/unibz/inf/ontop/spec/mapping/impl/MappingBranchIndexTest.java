@@ -0,0 +1,213 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableTable;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.simple.SimpleRDF;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappingBranchIndexTest {
+
+    private static final SimpleRDF RDF_FACTORY = new SimpleRDF();
+    private static final IntermediateQueryFactory IQ_FACTORY;
+    private static final TermFactory TERM_FACTORY;
+    private static final SubstitutionFactory SUBSTITUTION_FACTORY;
+
+    private static final Variable S, P, O, A, B;
+    private static final DistinctVariableOnlyDataAtom PROJECTION_ATOM;
+    private static final RDFAtomPredicate TRIPLE;
+    private static final RelationDefinition TABLE;
+
+    private static final IRI PERSON = RDF_FACTORY.createIRI("http://example.org/voc#Person");
+    private static final IRI COMPANY = RDF_FACTORY.createIRI("http://example.org/voc#Company");
+    private static final IRI NAME = RDF_FACTORY.createIRI("http://example.org/voc#name");
+    private static final IRI KNOWS = RDF_FACTORY.createIRI("http://example.org/voc#knows");
+    private static final IRI HOMEPAGE = RDF_FACTORY.createIRI("http://example.org/voc#homepage");
+    private static final IRI SAME_AS = RDF_FACTORY.createIRI("http://example.org/voc#sameAs");
+
+    private static final ImmutableList<Template.Component> PERSON_TEMPLATE = Template.of("http://example.org/person/", 0);
+    private static final ImmutableList<Template.Component> COMPANY_TEMPLATE = Template.of("http://example.org/company/", 0);
+    private static final IRI ALICE = RDF_FACTORY.createIRI("http://example.org/alice");
+
+    private static final IQ PERSON_DEFINITION, COMPANY_DEFINITION, NAME_DEFINITION, KNOWS_PERSON_BRANCH,
+            KNOWS_BNODE_BRANCH, HOMEPAGE_DEFINITION, SAME_AS_DEFINITION;
+    private static final Mapping MAPPING;
+
+    static {
+        CoreSingletons coreSingletons = OntopModelConfiguration.defaultBuilder()
+                .enableTestMode()
+                .build()
+                .getInjector()
+                .getInstance(CoreSingletons.class);
+        IQ_FACTORY = coreSingletons.getIQFactory();
+        TERM_FACTORY = coreSingletons.getTermFactory();
+        SUBSTITUTION_FACTORY = coreSingletons.getSubstitutionFactory();
+
+        S = TERM_FACTORY.getVariable("s");
+        P = TERM_FACTORY.getVariable("p");
+        O = TERM_FACTORY.getVariable("o");
+        A = TERM_FACTORY.getVariable("a");
+        B = TERM_FACTORY.getVariable("b");
+        PROJECTION_ATOM = coreSingletons.getAtomFactory().getDistinctTripleAtom(S, P, O);
+        TRIPLE = (RDFAtomPredicate) PROJECTION_ATOM.getPredicate();
+
+        OfflineMetadataProviderBuilder builder = new OfflineMetadataProviderBuilder(coreSingletons);
+        DBTermType stringDBType = builder.getDBTypeFactory().getDBStringType();
+        TABLE = builder.createDatabaseRelation("table",
+                "a", stringDBType, false,
+                "b", stringDBType, false);
+
+        ImmutableTerm personA = TERM_FACTORY.getIRIFunctionalTerm(PERSON_TEMPLATE, ImmutableList.of(A));
+        ImmutableTerm personB = TERM_FACTORY.getIRIFunctionalTerm(PERSON_TEMPLATE, ImmutableList.of(B));
+        ImmutableTerm companyA = TERM_FACTORY.getIRIFunctionalTerm(COMPANY_TEMPLATE, ImmutableList.of(A));
+
+        PERSON_DEFINITION = createIQ(createClassTree(personA, PERSON));
+        COMPANY_DEFINITION = createIQ(createClassTree(companyA, COMPANY));
+        NAME_DEFINITION = createIQ(createPropertyTree(personA, NAME,
+                TERM_FACTORY.getRDFLiteralFunctionalTerm(B, XSD.STRING)));
+
+        IQTree knowsPersonTree = createPropertyTree(personA, KNOWS, personB);
+        IQTree knowsBnodeTree = createPropertyTree(TERM_FACTORY.getBnodeFunctionalTerm(A), KNOWS, personB);
+        KNOWS_PERSON_BRANCH = createIQ(knowsPersonTree);
+        KNOWS_BNODE_BRANCH = createIQ(knowsBnodeTree);
+        IQ knowsDefinition = createIQ(IQ_FACTORY.createNaryIQTree(
+                IQ_FACTORY.createUnionNode(ImmutableSet.of(S, P, O)),
+                ImmutableList.of(knowsPersonTree, knowsBnodeTree)));
+
+        HOMEPAGE_DEFINITION = createIQ(createPropertyTree(TERM_FACTORY.getConstantIRI(ALICE), HOMEPAGE,
+                TERM_FACTORY.getIRIFunctionalTerm(B)));
+        SAME_AS_DEFINITION = createIQ(createPropertyTree(TERM_FACTORY.getIRIFunctionalTerm(A), SAME_AS,
+                TERM_FACTORY.getIRIFunctionalTerm(B)));
+
+        MAPPING = new MappingImpl(
+                ImmutableTable.<RDFAtomPredicate, IRI, IQ>builder()
+                        .put(TRIPLE, NAME, NAME_DEFINITION)
+                        .put(TRIPLE, KNOWS, knowsDefinition)
+                        .put(TRIPLE, HOMEPAGE, HOMEPAGE_DEFINITION)
+                        .put(TRIPLE, SAME_AS, SAME_AS_DEFINITION)
+                        .build(),
+                ImmutableTable.<RDFAtomPredicate, IRI, IQ>builder()
+                        .put(TRIPLE, PERSON, PERSON_DEFINITION)
+                        .put(TRIPLE, COMPANY, COMPANY_DEFINITION)
+                        .build(),
+                IQ_FACTORY);
+    }
+
+    @Test
+    public void testTemplatePrefix() {
+        assertEquals(ImmutableSet.of(PERSON_DEFINITION, NAME_DEFINITION, KNOWS_PERSON_BRANCH, SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.of(person(1)), Optional.empty()));
+
+        assertEquals(ImmutableSet.of(COMPANY_DEFINITION, SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.of(company(1)), Optional.empty()));
+    }
+
+    @Test
+    public void testConstantIRI() {
+        assertEquals(ImmutableSet.of(HOMEPAGE_DEFINITION, SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.of(ALICE), Optional.empty()));
+
+        // Not a prefix match
+        assertEquals(ImmutableSet.of(SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.of(RDF_FACTORY.createIRI(ALICE.getIRIString() + "2")),
+                        Optional.empty()));
+    }
+
+    /**
+     * The blank-node subject of the second KNOWS branch and the literal object of NAME never match an IRI
+     */
+    @Test
+    public void testBlankNodesAndLiteralsExcluded() {
+        assertEquals(ImmutableSet.of(KNOWS_PERSON_BRANCH, KNOWS_BNODE_BRANCH, HOMEPAGE_DEFINITION, SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.empty(), Optional.of(person(2))));
+
+        assertEquals(ImmutableSet.of(KNOWS_PERSON_BRANCH, SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.of(person(1)), Optional.of(person(2))));
+    }
+
+    /**
+     * IRIs built from a column (e.g. SAME_AS) are compatible with any IRI
+     */
+    @Test
+    public void testVariableIRIsKept() {
+        IRI other = RDF_FACTORY.createIRI("http://other.org/1");
+        assertEquals(ImmutableSet.of(SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.of(other), Optional.empty()));
+        assertEquals(ImmutableSet.of(HOMEPAGE_DEFINITION, SAME_AS_DEFINITION),
+                getCompatibleDefinitions(Optional.empty(), Optional.of(other)));
+    }
+
+    @Test
+    public void testClassDefinitions() {
+        assertEquals(ImmutableList.of(PERSON_DEFINITION),
+                ImmutableList.copyOf(MAPPING.getCompatibleClassDefinitions(TRIPLE, person(1))));
+        assertEquals(ImmutableList.of(COMPANY_DEFINITION),
+                ImmutableList.copyOf(MAPPING.getCompatibleClassDefinitions(TRIPLE, company(1))));
+        assertEquals(ImmutableList.of(),
+                ImmutableList.copyOf(MAPPING.getCompatibleClassDefinitions(TRIPLE, ALICE)));
+    }
+
+    /**
+     * All the definitions when no IRI is given, with the unions split into their branches
+     */
+    @Test
+    public void testNoConstant() {
+        assertEquals(ImmutableList.of(PERSON_DEFINITION, COMPANY_DEFINITION, NAME_DEFINITION, KNOWS_PERSON_BRANCH,
+                        KNOWS_BNODE_BRANCH, HOMEPAGE_DEFINITION, SAME_AS_DEFINITION),
+                ImmutableList.copyOf(MAPPING.getCompatibleDefinitions(TRIPLE, Optional.empty(), Optional.empty())));
+    }
+
+    private static ImmutableSet<IQ> getCompatibleDefinitions(Optional<IRI> subject, Optional<IRI> object) {
+        return ImmutableSet.copyOf(MAPPING.getCompatibleDefinitions(TRIPLE, subject, object));
+    }
+
+    private static IRI person(int id) {
+        return RDF_FACTORY.createIRI("http://example.org/person/" + id);
+    }
+
+    private static IRI company(int id) {
+        return RDF_FACTORY.createIRI("http://example.org/company/" + id);
+    }
+
+    private static IQTree createClassTree(ImmutableTerm subject, IRI classIRI) {
+        return createPropertyTree(subject, RDF.TYPE,
+                TERM_FACTORY.getConstantIRI(classIRI));
+    }
+
+    private static IQTree createPropertyTree(ImmutableTerm subject, IRI property, ImmutableTerm object) {
+        return IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(S, P, O),
+                        SUBSTITUTION_FACTORY.getSubstitution(S, subject,
+                                P, TERM_FACTORY.getConstantIRI(property),
+                                O, object)),
+                IQ_FACTORY.createExtensionalDataNode(TABLE, ImmutableMap.of(0, A, 1, B)));
+    }
+
+    private static IQ createIQ(IQTree tree) {
+        return IQ_FACTORY.createIQ(PROJECTION_ATOM, tree);
+    }
+}
@@ -9,15 +9,12 @@ import it.unibz.inf.ontop.injection.OntopOptimizationSettings;
 import it.unibz.inf.ontop.injection.OptimizationSingletons;
 import it.unibz.inf.ontop.injection.OptimizerFactory;
 import it.unibz.inf.ontop.iq.executor.construction.ConstructionNodeCleaningExecutor;
-import it.unibz.inf.ontop.iq.executor.join.InnerJoinExecutor;
-import it.unibz.inf.ontop.iq.executor.leftjoin.LeftJoinExecutor;
 import it.unibz.inf.ontop.iq.executor.leftjoin.LeftJoinRightChildNormalizationAnalyzer;
 import it.unibz.inf.ontop.iq.executor.projection.ProjectionShrinkingExecutor;
 import it.unibz.inf.ontop.iq.executor.substitution.SubstitutionPropagationExecutor;
 import it.unibz.inf.ontop.iq.executor.union.FlattenUnionExecutor;
 import it.unibz.inf.ontop.iq.executor.union.UnionLiftExecutor;
 import it.unibz.inf.ontop.iq.optimizer.*;
-import it.unibz.inf.ontop.iq.planner.QueryPlanner;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transformer.BooleanExpressionPushDownTransformer;
 import it.unibz.inf.ontop.iq.transformer.DefinitionPushDownTransformer;
@@ -42,17 +39,13 @@ public class OntopOptimizationModule extends OntopAbstractModule {
         bind(OntopOptimizationSettings.class).toInstance(configuration.getSettings());
 
         // Executors
-        bindFromSettings(InnerJoinExecutor.class);
         bindFromSettings(SubstitutionPropagationExecutor.class);
         bindFromSettings(UnionBasedQueryMerger.class);
         bindFromSettings(UnionLiftExecutor.class);
-        bindFromSettings(LeftJoinExecutor.class);
         bindFromSettings(ProjectionShrinkingExecutor.class);
         bindFromSettings(FlattenUnionExecutor.class);
         bindFromSettings(ConstructionNodeCleaningExecutor.class);
-        bindFromSettings(InnerJoinMutableOptimizer.class);
         bindFromSettings(JoinLikeOptimizer.class);
-        bindFromSettings(LeftJoinMutableOptimizer.class);
         bindFromSettings(BindingLiftOptimizer.class);
         bindFromSettings(LeftJoinRightChildNormalizationAnalyzer.class);
         bindFromSettings(UnionAndBindingLiftOptimizer.class);
@@ -65,7 +58,6 @@ public class OntopOptimizationModule extends OntopAbstractModule {
         bindFromSettings(LeftJoinIQOptimizer.class);
         bindFromSettings(BooleanExpressionPushDownTransformer.class);
         bindFromSettings(GeneralStructuralAndSemanticIQOptimizer.class);
-        bindFromSettings(QueryPlanner.class);
         bindFromSettings(SelfJoinSameTermIQOptimizer.class);
         bindFromSettings(RequiredExtensionalDataNodeExtractor.class);
         bindFromSettings(SelfJoinUCIQOptimizer.class);
@@ -1,9 +0,0 @@
-package it.unibz.inf.ontop.iq.executor.leftjoin;
-
-
-import it.unibz.inf.ontop.iq.executor.SimpleNodeCentricExecutor;
-import it.unibz.inf.ontop.iq.node.LeftJoinNode;
-import it.unibz.inf.ontop.iq.proposal.LeftJoinOptimizationProposal;
-
-public interface LeftJoinExecutor extends SimpleNodeCentricExecutor<LeftJoinNode, LeftJoinOptimizationProposal> {
-}
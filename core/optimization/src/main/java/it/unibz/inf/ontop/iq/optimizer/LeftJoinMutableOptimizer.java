@@ -1,4 +0,0 @@
-package it.unibz.inf.ontop.iq.optimizer;
-
-public interface LeftJoinMutableOptimizer extends IntermediateQueryOptimizer {
-}
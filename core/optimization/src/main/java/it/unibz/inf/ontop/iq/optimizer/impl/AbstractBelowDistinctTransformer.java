@@ -11,6 +11,8 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.Optional;
 
+import static it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer.areSameInstances;
+
 /**
  * Transformer where the cardinality does matter for the current tree
  *
@@ -36,7 +38,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
         return furtherSimplifyInnerJoinChildren(
                     rootNode.getOptionalFilterCondition(),
                     transformedChildren)
-                .orElseGet(() -> transformedChildren.equals(children)
+                .orElseGet(() -> areSameInstances(transformedChildren, children)
                         ? tree
                         : coreSingletons.getIQFactory().createNaryIQTree(rootNode, transformedChildren));
     }
@@ -54,7 +56,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
     public IQTree transformConstruction(IQTree tree, ConstructionNode rootNode, IQTree child) {
         IQTree newChild = transform(child);
 
-        return (newChild.equals(child))
+        return (newChild == child)
                 ? tree
                 : coreSingletons.getIQFactory().createUnaryIQTree(rootNode, newChild);
     }
@@ -63,7 +65,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
     @Override
     public IQTree transformSlice(IQTree tree, SliceNode sliceNode, IQTree child) {
         IQTree newChild = transform(child);
-        return (newChild.equals(child))
+        return (newChild == child)
                 ? tree
                 : coreSingletons.getIQFactory().createUnaryIQTree(sliceNode, newChild);
     }
@@ -71,7 +73,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
     @Override
     public IQTree transformOrderBy(IQTree tree, OrderByNode rootNode, IQTree child) {
         IQTree newChild = transform(child);
-        return (newChild.equals(child))
+        return (newChild == child)
                 ? tree
                 : coreSingletons.getIQFactory().createUnaryIQTree(rootNode, newChild);
     }
@@ -80,7 +82,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
     public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
         IQTree newChild = transform(child);
 
-        return (newChild.equals(child))
+        return (newChild == child)
                 ? tree
                 : coreSingletons.getIQFactory().createUnaryIQTree(rootNode, newChild);
     }
@@ -91,7 +93,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
                 .map(this::transform)
                 .collect(ImmutableCollectors.toList());
 
-        return newChildren.equals(children)
+        return areSameInstances(newChildren, children)
                 ? tree
                 : coreSingletons.getIQFactory().createNaryIQTree(rootNode, newChildren);
     }
@@ -101,7 +103,7 @@ public abstract class AbstractBelowDistinctTransformer extends DefaultNonRecursi
         IQTree newLeftChild = transform(leftChild);
         IQTree newRightChild = transform(rightChild);
 
-        return (newLeftChild.equals(leftChild) && newRightChild.equals(rightChild))
+        return (newLeftChild == leftChild && newRightChild == rightChild)
                 ? tree
                 : coreSingletons.getIQFactory().createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
     }
@@ -98,6 +98,13 @@ public abstract class AbstractSelfJoinSimplifier<C extends FunctionalDependency>
             return Optional.empty();
         }
 
+        // Nothing transferred: the co-occurrence conditions are already enforced by the join itself
+        if (unifier.isEmpty()
+                && ImmutableMultiset.copyOf(optimizedExtensionalDataNodes).equals(
+                        ImmutableMultiset.copyOf(extensionalChildrenWithConstraint.orElseGet(ImmutableList::of)))) {
+            return Optional.empty();
+        }
+
         Optional<ImmutableList<IQTree>> nonExtensionalChildrenWithConstraint = Optional.ofNullable(childPartitions.get(false));
 
         ImmutableList<IQTree> newChildren = nonExtensionalChildrenWithConstraint
@@ -18,12 +18,14 @@ public class DefaultCompositeInnerJoinIQOptimizer implements InnerJoinIQOptimize
     private DefaultCompositeInnerJoinIQOptimizer(
             SelfJoinUCIQOptimizer selfJoinUCIQOptimizer,
             SelfJoinSameTermIQOptimizer selfJoinSameTermIQOptimizer,
-            ArgumentTransferInnerJoinFDIQOptimizer fdIQOptimizer) {
+            ArgumentTransferInnerJoinFDIQOptimizer fdIQOptimizer,
+            RedundantJoinFKIQOptimizer redundantJoinFKIQOptimizer) {
         // TODO: enrich
         this.optimizers = ImmutableList.of(
                 selfJoinUCIQOptimizer,
                 fdIQOptimizer,
-                selfJoinSameTermIQOptimizer);
+                selfJoinSameTermIQOptimizer,
+                redundantJoinFKIQOptimizer);
     }
 
     @Override
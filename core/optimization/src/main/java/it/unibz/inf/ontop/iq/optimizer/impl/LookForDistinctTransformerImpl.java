@@ -45,7 +45,7 @@ public class LookForDistinctTransformerImpl extends DefaultRecursiveIQTreeVisiti
     @Override
     public IQTree transformDistinct(IQTree tree, DistinctNode rootNode, IQTree child) {
         IQTree newChild = getSubTransformer(child).transform(child);
-        return (newChild.equals(child))
+        return (newChild == child)
                 ? tree
                 : iqFactory.createUnaryIQTree(rootNode, newChild);
     }
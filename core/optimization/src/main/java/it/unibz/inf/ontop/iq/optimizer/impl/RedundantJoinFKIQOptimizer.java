@@ -0,0 +1,324 @@
+package it.unibz.inf.ontop.iq.optimizer.impl;
+
+import com.google.common.collect.*;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.dbschema.ForeignKeyConstraint;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.optimizer.InnerJoinIQOptimizer;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Uses foreign keys to remove some redundant inner joins: a data node referenced by a foreign key from a sibling
+ * can be removed if its other columns are not used (neither by its siblings, nor by the join condition,
+ * nor by the ancestors).
+ *
+ * The variables required by the ancestors are propagated top-down.
+ *
+ * Normalization assumption: variables are reused between data nodes (no explicit equality between variables)
+ */
+@Singleton
+public class RedundantJoinFKIQOptimizer implements InnerJoinIQOptimizer {
+
+    private final IntermediateQueryFactory iqFactory;
+    private final TermFactory termFactory;
+
+    @Inject
+    protected RedundantJoinFKIQOptimizer(IntermediateQueryFactory iqFactory, TermFactory termFactory) {
+        this.iqFactory = iqFactory;
+        this.termFactory = termFactory;
+    }
+
+    @Override
+    public IQ optimize(IQ query) {
+        IQTree initialTree = query.getTree();
+        IQTree newTree = initialTree.acceptTransformer(new RedundantJoinFKTransformer(initialTree.getVariables()));
+        return newTree == initialTree
+                ? query
+                : iqFactory.createIQ(query.getProjectionAtom(), newTree)
+                .normalizeForOptimization();
+    }
+
+
+    protected class RedundantJoinFKTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        private final ImmutableSet<Variable> variablesRequiredAbove;
+
+        protected RedundantJoinFKTransformer(ImmutableSet<Variable> variablesRequiredAbove) {
+            super(RedundantJoinFKIQOptimizer.this.iqFactory);
+            this.variablesRequiredAbove = variablesRequiredAbove;
+        }
+
+        @Override
+        public IQTree transformConstruction(IQTree tree, ConstructionNode rootNode, IQTree child) {
+            return transformUnaryNode(tree, rootNode, child, rootNode.getChildVariables());
+        }
+
+        @Override
+        public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+            return transformUnaryNode(tree, rootNode, child, rootNode.getChildVariables());
+        }
+
+        @Override
+        public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
+            return transformUnaryNode(tree, rootNode, child,
+                    Sets.union(variablesRequiredAbove, rootNode.getLocallyRequiredVariables()).immutableCopy());
+        }
+
+        @Override
+        public IQTree transformOrderBy(IQTree tree, OrderByNode rootNode, IQTree child) {
+            return transformUnaryNode(tree, rootNode, child,
+                    Sets.union(variablesRequiredAbove, rootNode.getLocallyRequiredVariables()).immutableCopy());
+        }
+
+        /**
+         * Removing a data node referenced by a foreign key does not change the cardinality
+         */
+        @Override
+        public IQTree transformDistinct(IQTree tree, DistinctNode rootNode, IQTree child) {
+            return transformUnaryNode(tree, rootNode, child, variablesRequiredAbove);
+        }
+
+        @Override
+        public IQTree transformSlice(IQTree tree, SliceNode sliceNode, IQTree child) {
+            return transformUnaryNode(tree, sliceNode, child, variablesRequiredAbove);
+        }
+
+        @Override
+        public IQTree transformLeftJoin(IQTree tree, LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+            ImmutableSet<Variable> requiredVariables = Sets.union(
+                    Sets.union(variablesRequiredAbove, rootNode.getLocallyRequiredVariables()),
+                    Sets.intersection(leftChild.getVariables(), rightChild.getVariables())).immutableCopy();
+
+            IQTree newLeftChild = transformChild(leftChild, requiredVariables);
+            IQTree newRightChild = transformChild(rightChild, requiredVariables);
+            return (newLeftChild == leftChild) && (newRightChild == rightChild)
+                    ? tree
+                    : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
+        }
+
+        @Override
+        public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> initialChildren) {
+            ImmutableList<IQTree> children = IntStream.range(0, initialChildren.size())
+                    .mapToObj(i -> transformChild(initialChildren.get(i),
+                            computeVariablesUsedOutside(rootNode, initialChildren, i)))
+                    .collect(ImmutableCollectors.toList());
+
+            ImmutableMultimap<RelationDefinition, ExtensionalDataNode> dataNodeMap = children.stream()
+                    .filter(c -> c instanceof ExtensionalDataNode)
+                    .map(c -> (ExtensionalDataNode) c)
+                    .collect(ImmutableCollectors.toMultimap(ExtensionalDataNode::getRelationDefinition, c -> c));
+
+            ImmutableList<Redundancy> redundancies = dataNodeMap.keySet().stream()
+                    .flatMap(r -> r.getForeignKeys().stream()
+                            .flatMap(c -> selectRedundantNodesForConstraint(r, c, rootNode, children, dataNodeMap)))
+                    .collect(ImmutableCollectors.toList());
+
+            if (redundancies.isEmpty())
+                return areSameInstances(children, initialChildren)
+                        ? tree
+                        : iqFactory.createNaryIQTree(rootNode, children);
+
+            ImmutableSet<ExtensionalDataNode> nodesToRemove = redundancies.stream()
+                    .map(r -> r.dataNode)
+                    .collect(ImmutableCollectors.toSet());
+
+            ImmutableList<IQTree> newChildren = children.stream()
+                    .filter(c -> !nodesToRemove.contains(c))
+                    .collect(ImmutableCollectors.toList());
+
+            Optional<ImmutableExpression> newCondition = termFactory.getConjunction(Stream.concat(
+                    rootNode.getOptionalFilterCondition()
+                            .map(ImmutableExpression::flattenAND)
+                            .orElseGet(Stream::empty),
+                    redundancies.stream()
+                            .flatMap(r -> r.fkVariables.stream())
+                            .distinct()
+                            .map(termFactory::getDBIsNotNull)));
+
+            switch (newChildren.size()) {
+                case 0:
+                    throw new IllegalStateException("Redundant join elimination should not eliminate all the children");
+                case 1:
+                    return newCondition
+                            .map(c -> (IQTree) iqFactory.createUnaryIQTree(iqFactory.createFilterNode(c),
+                                    newChildren.get(0)))
+                            .orElseGet(() -> newChildren.get(0));
+                default:
+                    return iqFactory.createNaryIQTree(iqFactory.createInnerJoinNode(newCondition), newChildren);
+            }
+        }
+
+        /**
+         * The children of the unions must keep projecting the same variables
+         */
+        @Override
+        protected IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
+            return transformUnaryNode(tree, rootNode, child, child.getVariables());
+        }
+
+        @Override
+        protected IQTree transformNaryCommutativeNode(IQTree tree, NaryOperatorNode rootNode,
+                                                      ImmutableList<IQTree> children) {
+            ImmutableList<IQTree> newChildren = children.stream()
+                    .map(c -> transformChild(c, c.getVariables()))
+                    .collect(ImmutableCollectors.toList());
+
+            return areSameInstances(newChildren, children)
+                    ? tree
+                    : iqFactory.createNaryIQTree(rootNode, newChildren);
+        }
+
+        @Override
+        protected IQTree transformBinaryNonCommutativeNode(IQTree tree, BinaryNonCommutativeOperatorNode rootNode,
+                                                           IQTree leftChild, IQTree rightChild) {
+            IQTree newLeftChild = transformChild(leftChild, leftChild.getVariables());
+            IQTree newRightChild = transformChild(rightChild, rightChild.getVariables());
+            return (newLeftChild == leftChild) && (newRightChild == rightChild)
+                    ? tree
+                    : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
+        }
+
+        private IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child,
+                                          ImmutableSet<Variable> variablesRequiredByRootNode) {
+            IQTree newChild = transformChild(child, variablesRequiredByRootNode);
+            return newChild == child
+                    ? tree
+                    : iqFactory.createUnaryIQTree(rootNode, newChild);
+        }
+
+        private IQTree transformChild(IQTree child, ImmutableSet<Variable> variablesRequiredAbove) {
+            return child.acceptTransformer(new RedundantJoinFKTransformer(
+                    Sets.intersection(variablesRequiredAbove, child.getVariables()).immutableCopy()));
+        }
+
+        /**
+         * Variables used by the ancestors, the join condition or the siblings of the i-th child
+         */
+        private ImmutableSet<Variable> computeVariablesUsedOutside(InnerJoinNode rootNode, ImmutableList<IQTree> children,
+                                                                   int index) {
+            return Stream.concat(
+                    Stream.concat(variablesRequiredAbove.stream(), rootNode.getLocallyRequiredVariables().stream()),
+                    IntStream.range(0, children.size())
+                            .filter(i -> i != index)
+                            .boxed()
+                            .flatMap(i -> children.get(i).getVariables().stream()))
+                    .collect(ImmutableCollectors.toSet());
+        }
+
+        private Stream<Redundancy> selectRedundantNodesForConstraint(RelationDefinition sourceRelation,
+                                                                     ForeignKeyConstraint constraint,
+                                                                     InnerJoinNode rootNode,
+                                                                     ImmutableList<IQTree> children,
+                                                                     ImmutableMultimap<RelationDefinition, ExtensionalDataNode> dataNodeMap) {
+            /*
+             * "Target" data nodes === "referenced" data nodes
+             */
+            ImmutableCollection<ExtensionalDataNode> targetDataNodes = dataNodeMap.get(constraint.getReferencedRelation());
+
+            /*
+             * No optimization possible
+             */
+            if (targetDataNodes.isEmpty()) {
+                return Stream.empty();
+            }
+
+            return dataNodeMap.get(sourceRelation).stream()
+                    .flatMap(s -> targetDataNodes.stream()
+                            .filter(t -> (t != s) && areMatching(s, t, constraint)))
+                    .distinct()
+                    .filter(t -> areNonFKColumnsUnused(t, rootNode, children, constraint))
+                    .map(t -> new Redundancy(t, extractJoiningVariables(t, constraint)));
+        }
+
+        private boolean areMatching(ExtensionalDataNode sourceDataNode, ExtensionalDataNode targetDataNode,
+                                    ForeignKeyConstraint constraint) {
+
+            ImmutableMap<Integer, ? extends VariableOrGroundTerm> sourceArgumentMap = sourceDataNode.getArgumentMap();
+            ImmutableMap<Integer, ? extends VariableOrGroundTerm> targetArgumentMap = targetDataNode.getArgumentMap();
+
+            return constraint.getComponents().stream()
+                    .allMatch(c -> {
+                        Optional<? extends VariableOrGroundTerm> source = Optional.ofNullable(
+                                sourceArgumentMap.get(c.getAttribute().getIndex() - 1));
+                        return source.isPresent()
+                                && source.equals(Optional.ofNullable(targetArgumentMap.get(c.getReferencedAttribute().getIndex() - 1)));
+                    });
+        }
+
+        private boolean areNonFKColumnsUnused(ExtensionalDataNode targetDataNode, InnerJoinNode rootNode,
+                                              ImmutableList<IQTree> children, ForeignKeyConstraint constraint) {
+
+            ImmutableMap<Integer, ? extends VariableOrGroundTerm> targetArguments = targetDataNode.getArgumentMap();
+
+            ImmutableSet<Integer> fkTargetIndexes = constraint.getComponents().stream()
+                    .map(c -> c.getReferencedAttribute().getIndex() - 1)
+                    .collect(ImmutableCollectors.toSet());
+
+            /*
+             * Terms appearing in non-FK positions
+             */
+            ImmutableList<VariableOrGroundTerm> remainingTerms = targetArguments.entrySet().stream()
+                    .filter(e -> !fkTargetIndexes.contains(e.getKey()))
+                    .map(Map.Entry::getValue)
+                    .collect(ImmutableCollectors.toList());
+
+            /*
+             * Check usage in the data atom.
+             *
+             * 1 - They should all variables
+             * 2 - They should be no duplicate
+             * 3 - They must be distinct from the FK target terms
+             */
+            if ((!remainingTerms.stream().allMatch(t -> t instanceof Variable))
+                    || (ImmutableSet.copyOf(remainingTerms).size() < remainingTerms.size())
+                    || fkTargetIndexes.stream()
+                    .map(targetArguments::get)
+                    .anyMatch(remainingTerms::contains))
+                return false;
+
+            /*
+             * Check that the remaining variables are not used anywhere else
+             */
+            ImmutableSet<Variable> variablesUsedOutside = computeVariablesUsedOutside(rootNode, children,
+                    children.indexOf(targetDataNode));
+
+            return remainingTerms.stream()
+                    .noneMatch(variablesUsedOutside::contains);
+        }
+
+        private ImmutableSet<Variable> extractJoiningVariables(ExtensionalDataNode node, ForeignKeyConstraint constraint) {
+            ImmutableMap<Integer, ? extends VariableOrGroundTerm> targetArgumentMap = node.getArgumentMap();
+
+            return constraint.getComponents().stream()
+                    .map(c -> targetArgumentMap.get(c.getReferencedAttribute().getIndex() - 1))
+                    .filter(t -> t instanceof Variable)
+                    .map(t -> (Variable) t)
+                    .collect(ImmutableCollectors.toSet());
+        }
+    }
+
+    private static class Redundancy {
+        private final ExtensionalDataNode dataNode;
+        private final ImmutableSet<Variable> fkVariables;
+
+        private Redundancy(ExtensionalDataNode dataNode, ImmutableSet<Variable> fkVariables) {
+            this.dataNode = dataNode;
+            this.fkVariables = fkVariables;
+        }
+    }
+}
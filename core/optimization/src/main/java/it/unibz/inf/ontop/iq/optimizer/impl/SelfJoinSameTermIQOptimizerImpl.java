@@ -44,7 +44,7 @@ public class SelfJoinSameTermIQOptimizerImpl implements SelfJoinSameTermIQOptimi
     public IQ optimize(IQ query) {
         IQTree initialTree = query.getTree();
         IQTree newTree = lookForDistinctTransformer.transform(initialTree);
-        return (newTree.equals(initialTree))
+        return (newTree == initialTree)
                 ? query
                 : iqFactory.createIQ(query.getProjectionAtom(), newTree)
                     .normalizeForOptimization();
@@ -89,6 +89,11 @@ public class SelfJoinSameTermIQOptimizerImpl implements SelfJoinSameTermIQOptimi
                     // SIDE-EFFECT
                     .forEach(i -> currentChildren.set(i, iqFactory.createTrueNode()));
 
+            // No redundant child
+            if (IntStream.range(0, partiallySimplifiedChildren.size())
+                    .allMatch(i -> currentChildren.get(i) == partiallySimplifiedChildren.get(i)))
+                return Optional.empty();
+
             ImmutableSet<Variable> variablesToFilterNulls = IntStream.range(0, partiallySimplifiedChildren.size())
                     .filter(i -> currentChildren.get(i).getRootNode() instanceof TrueNode)
                     .boxed()
@@ -40,7 +40,7 @@ public class SelfJoinUCIQOptimizerImpl implements SelfJoinUCIQOptimizer {
     public IQ optimize(IQ query) {
         IQTree initialTree = query.getTree();
         IQTree newTree = selfJoinUCTransformer.transform(initialTree);
-        return (newTree.equals(initialTree))
+        return (newTree == initialTree)
                 ? query
                 : iqFactory.createIQ(query.getProjectionAtom(), newTree)
                 .normalizeForOptimization();
@@ -67,7 +67,9 @@ public class SelfJoinUCIQOptimizerImpl implements SelfJoinUCIQOptimizer {
                     .collect(ImmutableCollectors.toList());
 
             return simplifier.transformInnerJoin(rootNode, liftedChildren, tree.getVariables())
-                    .orElse(tree);
+                    .orElseGet(() -> areSameInstances(liftedChildren, children)
+                            ? tree
+                            : iqFactory.createNaryIQTree(rootNode, liftedChildren));
         }
     }
 
@@ -28,6 +28,8 @@ import java.util.function.Supplier;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer.areSameInstances;
+
 public abstract class AbstractJoinTransferLJTransformer extends DefaultNonRecursiveIQTreeTransformer {
 
     private final Supplier<VariableNullability> variableNullabilitySupplier;
@@ -66,11 +68,10 @@ public abstract class AbstractJoinTransferLJTransformer extends DefaultNonRecurs
         IQTree transformedRightChild = preTransformLJRightChild(rightChild);
 
         return furtherTransformLeftJoin(rootNode, transformedLeftChild, transformedRightChild)
-                .orElseGet(() -> transformedLeftChild.equals(leftChild)
-                        && transformedRightChild.equals(rightChild)
-                                ? tree
-                                : iqFactory.createBinaryNonCommutativeIQTree(rootNode, transformedLeftChild, transformedRightChild))
-                                        .normalizeForOptimization(variableGenerator);
+                .orElseGet(() -> transformedLeftChild == leftChild && transformedRightChild == rightChild
+                        ? tree
+                        : iqFactory.createBinaryNonCommutativeIQTree(rootNode, transformedLeftChild, transformedRightChild)
+                                .normalizeForOptimization(variableGenerator));
     }
 
     /**
@@ -356,7 +357,7 @@ public abstract class AbstractJoinTransferLJTransformer extends DefaultNonRecurs
     protected IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child,
                                         Function<IQTree, IQTree> childTransformation) {
         IQTree newChild = childTransformation.apply(child);
-        return newChild.equals(child)
+        return newChild == child
                 ? tree
                 : iqFactory.createUnaryIQTree(rootNode, newChild)
                     .normalizeForOptimization(variableGenerator);
@@ -372,7 +373,7 @@ public abstract class AbstractJoinTransferLJTransformer extends DefaultNonRecurs
         ImmutableList<IQTree> newChildren = children.stream()
                 .map(childTransformation)
                 .collect(ImmutableCollectors.toList());
-        return newChildren.equals(children)
+        return areSameInstances(newChildren, children)
                 ? tree
                 : iqFactory.createNaryIQTree(rootNode, newChildren)
                     .normalizeForOptimization(variableGenerator);
@@ -390,7 +391,7 @@ public abstract class AbstractJoinTransferLJTransformer extends DefaultNonRecurs
                                                        Function<IQTree, IQTree> childTransformation) {
         IQTree newLeftChild = childTransformation.apply(leftChild);
         IQTree newRightChild = childTransformation.apply(rightChild);
-        return newLeftChild.equals(leftChild) && newRightChild.equals(rightChild)
+        return newLeftChild == leftChild && newRightChild == rightChild
                 ? tree
                 : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild)
                     .normalizeForOptimization(variableGenerator);
@@ -64,7 +64,7 @@ public class CardinalityInsensitiveJoinTransferLJOptimizer implements LeftJoinIQ
 
         IQTree newTree = initialTree.acceptTransformer(transformer);
 
-        return newTree.equals(initialTree)
+        return newTree == initialTree
                 ? query
                 : iqFactory.createIQ(query.getProjectionAtom(), newTree);
     }
@@ -55,7 +55,7 @@ public class CardinalitySensitiveJoinTransferLJOptimizer implements LeftJoinIQOp
 
         IQTree newTree = initialTree.acceptTransformer(transformer);
 
-        return newTree.equals(initialTree)
+        return newTree == initialTree
                 ? query
                 : iqFactory.createIQ(query.getProjectionAtom(), newTree);
     }
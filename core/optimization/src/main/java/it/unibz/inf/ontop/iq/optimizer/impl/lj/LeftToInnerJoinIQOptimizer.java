@@ -0,0 +1,422 @@
+package it.unibz.inf.ontop.iq.optimizer.impl.lj;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.BinaryNonCommutativeIQTree;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.executor.leftjoin.LeftJoinRightChildNormalizationAnalyzer;
+import it.unibz.inf.ontop.iq.executor.leftjoin.LeftJoinRightChildNormalizationAnalyzer.LeftJoinRightChildNormalizationAnalysis;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.optimizer.LeftJoinIQOptimizer;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBFunctionSymbolFactory;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Transforms a left join into an inner join when the right child is a data node (possibly under a filter
+ * and a construction node) matching a non-nullable unique constraint or a foreign key of the left data nodes:
+ * each left tuple then matches exactly one right tuple.
+ *
+ * The LJ condition (if any) is enforced by the right-specific variables, which are made conditional
+ * (IF_ELSE_NULL) in a construction node above the inner join.
+ *
+ * Only when the left can be reduced to a set of joined data nodes ("well-designed" left joins on the left are
+ * also accepted).
+ *
+ * TODO: support more cases (like joins or unions on the right)
+ */
+@Singleton
+public class LeftToInnerJoinIQOptimizer implements LeftJoinIQOptimizer {
+
+    private final LeftJoinRightChildNormalizationAnalyzer normalizer;
+    private final IntermediateQueryFactory iqFactory;
+    private final TermFactory termFactory;
+    private final SubstitutionFactory substitutionFactory;
+    private final DBFunctionSymbolFactory dbFunctionSymbolFactory;
+    private final CoreSingletons coreSingletons;
+
+    @Inject
+    protected LeftToInnerJoinIQOptimizer(LeftJoinRightChildNormalizationAnalyzer normalizer,
+                                         CoreSingletons coreSingletons) {
+        this.normalizer = normalizer;
+        this.coreSingletons = coreSingletons;
+        this.iqFactory = coreSingletons.getIQFactory();
+        this.termFactory = coreSingletons.getTermFactory();
+        this.substitutionFactory = coreSingletons.getSubstitutionFactory();
+        this.dbFunctionSymbolFactory = coreSingletons.getDBFunctionsymbolFactory();
+    }
+
+    @Override
+    public IQ optimize(IQ query) {
+        IQTree initialTree = query.getTree();
+        IQTree newTree = initialTree.acceptTransformer(new LeftToInnerJoinTransformer(Optional.empty(),
+                query.getVariableGenerator()));
+        return newTree == initialTree
+                ? query
+                : iqFactory.createIQ(query.getProjectionAtom(), newTree)
+                .normalizeForOptimization();
+    }
+
+
+    /**
+     * The variable nullability of the closest filter or inner join ancestor (possibly through the left children
+     * of left joins) is propagated top-down, as it may make some left variables non-nullable.
+     */
+    protected class LeftToInnerJoinTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        private final Optional<VariableNullability> ancestorVariableNullability;
+        private final VariableGenerator variableGenerator;
+
+        protected LeftToInnerJoinTransformer(Optional<VariableNullability> ancestorVariableNullability,
+                                             VariableGenerator variableGenerator) {
+            super(coreSingletons);
+            this.ancestorVariableNullability = ancestorVariableNullability;
+            this.variableGenerator = variableGenerator;
+        }
+
+        @Override
+        public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
+            IQTree newChild = child.acceptTransformer(createTransformer(Optional.of(tree.getVariableNullability())));
+            return newChild == child
+                    ? tree
+                    : iqFactory.createUnaryIQTree(rootNode, newChild);
+        }
+
+        @Override
+        public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            LeftToInnerJoinTransformer childTransformer = createTransformer(Optional.of(tree.getVariableNullability()));
+            ImmutableList<IQTree> newChildren = children.stream()
+                    .map(c -> c.acceptTransformer(childTransformer))
+                    .collect(ImmutableCollectors.toList());
+            return areSameInstances(newChildren, children)
+                    ? tree
+                    : iqFactory.createNaryIQTree(rootNode, newChildren);
+        }
+
+        @Override
+        public IQTree transformLeftJoin(IQTree tree, LeftJoinNode rootNode, IQTree initialLeftChild,
+                                        IQTree initialRightChild) {
+            IQTree leftChild = initialLeftChild.acceptTransformer(this);
+            IQTree rightChild = initialRightChild.acceptTransformer(createTransformer(Optional.empty()));
+
+            IQTree newTree = (leftChild == initialLeftChild) && (rightChild == initialRightChild)
+                    ? tree
+                    : iqFactory.createBinaryNonCommutativeIQTree(rootNode, leftChild, rightChild);
+
+            Optional<ImmutableList<ExtensionalDataNode>> leftDataNodes = extractLeftDataNodes(leftChild,
+                    getConditionAndRightVariables(rightChild, rootNode.getOptionalFilterCondition()));
+            if (!leftDataNodes.isPresent())
+                return newTree;
+
+            return DataNodeAndSubstitution.extract(rightChild)
+                    .flatMap(r -> optimizeRightDataNode(newTree, rootNode, leftChild, leftDataNodes.get(), r))
+                    .orElse(newTree);
+        }
+
+        private Optional<IQTree> optimizeRightDataNode(IQTree tree, LeftJoinNode rootNode, IQTree leftChild,
+                                                       ImmutableList<ExtensionalDataNode> leftDataNodes,
+                                                       DataNodeAndSubstitution rightComponent) {
+            ImmutableSet<Variable> leftVariables = leftChild.getVariables();
+
+            LeftJoinRightChildNormalizationAnalysis analysis = normalizer.analyze(leftVariables, leftDataNodes,
+                    rightComponent.dataNode, variableGenerator,
+                    ancestorVariableNullability.orElseGet(tree::getVariableNullability));
+
+            if (!analysis.isMatchingAConstraint())
+                return Optional.empty();
+
+            /*
+             * All the conditions that could be assigned to the LJ put together
+             */
+            Optional<ImmutableExpression> newLJCondition = termFactory.getConjunction(Stream.concat(
+                    // Former condition
+                    Stream.of(rootNode.getOptionalFilterCondition(),
+                            // New condition proposed by the analyser
+                            analysis.getAdditionalExpression(),
+                            // Former additional filter condition on the right
+                            rightComponent.filterNode.map(FilterNode::getFilterCondition))
+                            .filter(Optional::isPresent)
+                            .map(Optional::get),
+                    // Equalities extracted from the right substitution
+                    rightComponent.constructionNode
+                            .map(n -> extractEqualities(n.getSubstitution(), leftVariables))
+                            .orElseGet(Stream::empty)));
+
+            ImmutableSubstitution<ImmutableTerm> remainingRightSubstitution = substitutionFactory.getSubstitution(
+                    rightComponent.constructionNode
+                            .map(n -> n.getSubstitution().getImmutableMap().entrySet().stream()
+                                    .filter(e -> !leftVariables.contains(e.getKey()))
+                                    .collect(ImmutableCollectors.toMap()))
+                            .orElseGet(ImmutableMap::of));
+
+            ExtensionalDataNode newRightChild = analysis.getProposedRightDataNode()
+                    .orElse(rightComponent.dataNode);
+
+            ImmutableSet<Variable> projectedVariables = tree.getVariables();
+
+            if (!newLJCondition.isPresent()) {
+                IQTree newJoinTree = iqFactory.createNaryIQTree(iqFactory.createInnerJoinNode(),
+                        ImmutableList.of(leftChild, newRightChild));
+                return Optional.of(remainingRightSubstitution.isEmpty()
+                        && newJoinTree.getVariables().equals(projectedVariables)
+                        ? newJoinTree
+                        : iqFactory.createUnaryIQTree(
+                                iqFactory.createConstructionNode(projectedVariables, remainingRightSubstitution),
+                                newJoinTree));
+            }
+            return Optional.of(liftCondition(newLJCondition.get(), leftChild, newRightChild, leftVariables,
+                    projectedVariables, remainingRightSubstitution));
+        }
+
+        /**
+         * The ancestor variable nullability is not propagated through the other nodes
+         */
+        @Override
+        protected IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
+            IQTree newChild = child.acceptTransformer(createTransformer(Optional.empty()));
+            return newChild == child
+                    ? tree
+                    : iqFactory.createUnaryIQTree(rootNode, newChild);
+        }
+
+        @Override
+        protected IQTree transformNaryCommutativeNode(IQTree tree, NaryOperatorNode rootNode,
+                                                      ImmutableList<IQTree> children) {
+            LeftToInnerJoinTransformer childTransformer = createTransformer(Optional.empty());
+            ImmutableList<IQTree> newChildren = children.stream()
+                    .map(c -> c.acceptTransformer(childTransformer))
+                    .collect(ImmutableCollectors.toList());
+            return areSameInstances(newChildren, children)
+                    ? tree
+                    : iqFactory.createNaryIQTree(rootNode, newChildren);
+        }
+
+        @Override
+        protected IQTree transformBinaryNonCommutativeNode(IQTree tree, BinaryNonCommutativeOperatorNode rootNode,
+                                                           IQTree leftChild, IQTree rightChild) {
+            LeftToInnerJoinTransformer childTransformer = createTransformer(Optional.empty());
+            IQTree newLeftChild = leftChild.acceptTransformer(childTransformer);
+            IQTree newRightChild = rightChild.acceptTransformer(childTransformer);
+            return (newLeftChild == leftChild) && (newRightChild == rightChild)
+                    ? tree
+                    : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
+        }
+
+        private LeftToInnerJoinTransformer createTransformer(Optional<VariableNullability> ancestorVariableNullability) {
+            return ancestorVariableNullability.orElse(null) == this.ancestorVariableNullability.orElse(null)
+                    ? this
+                    : new LeftToInnerJoinTransformer(ancestorVariableNullability, variableGenerator);
+        }
+
+        /**
+         * The right-specific variables are renamed in the right child and made conditional above the inner join
+         */
+        private IQTree liftCondition(ImmutableExpression ljCondition, IQTree leftChild,
+                                     ExtensionalDataNode rightChild, ImmutableSet<Variable> leftVariables,
+                                     ImmutableSet<Variable> projectedVariables,
+                                     ImmutableSubstitution<ImmutableTerm> remainingRightSubstitution) {
+
+            // Special case: ljCondition = IS_NOT_NULL(x) and x is a specific right variable of the data node
+            // --> x will not be affected by the condition
+            Optional<Variable> specialVariable = Optional.of(ljCondition)
+                    .filter(c -> c.getFunctionSymbol().equals(dbFunctionSymbolFactory.getDBIsNotNull()))
+                    .map(c -> c.getTerms().get(0))
+                    .filter(t -> t instanceof Variable)
+                    .map(v -> (Variable) v)
+                    .filter(v -> rightChild.getVariables().contains(v)
+                            && !remainingRightSubstitution.isDefining(v));
+
+            // Only the projected variables are redefined above
+            InjectiveVar2VarSubstitution renaming = substitutionFactory.getInjectiveVar2VarSubstitution(
+                    rightChild.getVariables().stream()
+                            .filter(projectedVariables::contains)
+                            .filter(v -> !leftVariables.contains(v))
+                            .filter(v -> !specialVariable.filter(v::equals).isPresent())
+                            .collect(ImmutableCollectors.toMap(
+                                    v -> v,
+                                    variableGenerator::generateNewVariableFromVar)));
+
+            ExtensionalDataNode newRightChild = iqFactory.createExtensionalDataNode(rightChild.getRelationDefinition(),
+                    renaming.applyToArgumentMap(rightChild.getArgumentMap()));
+
+            ImmutableExpression newCondition = renaming.applyToBooleanExpression(
+                    remainingRightSubstitution.applyToBooleanExpression(ljCondition));
+
+            ImmutableSubstitution<ImmutableTerm> conditionalSubstitution = substitutionFactory.getSubstitution(
+                    projectedVariables.stream()
+                            .filter(v -> !leftVariables.contains(v))
+                            .filter(v -> !specialVariable.filter(v::equals).isPresent())
+                            .collect(ImmutableCollectors.toMap(
+                                    v -> v,
+                                    v -> termFactory.getIfElseNull(newCondition,
+                                            renaming.apply(remainingRightSubstitution.apply(v))))));
+
+            IQTree newJoinTree = iqFactory.createNaryIQTree(iqFactory.createInnerJoinNode(),
+                    ImmutableList.of(leftChild, newRightChild));
+
+            return iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(projectedVariables, conditionalSubstitution),
+                    newJoinTree);
+        }
+
+        /**
+         * Extracts equalities involving a left variable from the substitution
+         */
+        private Stream<ImmutableExpression> extractEqualities(ImmutableSubstitution<ImmutableTerm> substitution,
+                                                              ImmutableSet<Variable> leftVariables) {
+            return substitution.getImmutableMap().entrySet().stream()
+                    .filter(e -> leftVariables.contains(e.getKey()) || leftVariables.contains(e.getValue()))
+                    .map(e -> termFactory.getStrictEquality(e.getKey(), e.getValue()));
+        }
+
+        private ImmutableSet<Variable> getConditionAndRightVariables(IQTree rightChild,
+                                                                     Optional<ImmutableExpression> optionalFilterCondition) {
+            ImmutableSet<Variable> rightVariables = rightChild.getVariables();
+            return optionalFilterCondition
+                    .map(c -> Sets.union(c.getVariables(), rightVariables).immutableCopy())
+                    .orElse(rightVariables);
+        }
+
+        private Optional<ImmutableList<ExtensionalDataNode>> extractLeftDataNodes(
+                IQTree leftChild, ImmutableSet<Variable> topMostConditionAndRightVariables) {
+            if (leftChild instanceof ExtensionalDataNode)
+                return Optional.of(ImmutableList.of((ExtensionalDataNode) leftChild));
+
+            QueryNode rootNode = leftChild.getRootNode();
+            if (rootNode instanceof InnerJoinNode)
+                return extractInnerJoinChildrenOnTheLeft(leftChild.getChildren(),
+                        () -> topMostConditionAndRightVariables);
+
+            /*
+             * In case of "well-designed" LJs
+             */
+            if (rootNode instanceof LeftJoinNode)
+                return findLeftDataNodeWithNonConflictingRight((BinaryNonCommutativeIQTree) leftChild,
+                        topMostConditionAndRightVariables);
+
+            return Optional.empty();
+        }
+
+        private Optional<ImmutableList<ExtensionalDataNode>> extractInnerJoinChildrenOnTheLeft(
+                ImmutableList<IQTree> children, Supplier<ImmutableSet<Variable>> topMostConditionAndRightVariablesSupplier) {
+            /*
+             * Only extensional data nodes
+             */
+            if (children.stream().allMatch(c -> c instanceof ExtensionalDataNode))
+                return Optional.of(children.stream()
+                        .map(c -> (ExtensionalDataNode) c)
+                        .collect(ImmutableCollectors.toList()));
+
+            /*
+             * Extensional data nodes and left joins
+             * NB: inner joins would have been expected to be already merged
+             */
+            if (children.stream().allMatch(c -> (c instanceof ExtensionalDataNode)
+                    || (c.getRootNode() instanceof LeftJoinNode))) {
+
+                ImmutableSet<Variable> topMostConditionAndRightVariables = topMostConditionAndRightVariablesSupplier.get();
+                ImmutableList<Optional<ImmutableList<ExtensionalDataNode>>> extractions = children.stream()
+                        .map(c -> (c instanceof ExtensionalDataNode)
+                                ? Optional.of(ImmutableList.of((ExtensionalDataNode) c))
+                                : findLeftDataNodeWithNonConflictingRight((BinaryNonCommutativeIQTree) c,
+                                        topMostConditionAndRightVariables))
+                        .collect(ImmutableCollectors.toList());
+
+                if (extractions.stream().anyMatch(o -> !o.isPresent()))
+                    return Optional.empty();
+
+                return Optional.of(extractions.stream()
+                        .map(Optional::get)
+                        .flatMap(Collection::stream)
+                        .collect(ImmutableCollectors.toList()));
+            }
+            return Optional.empty();
+        }
+
+        private Optional<ImmutableList<ExtensionalDataNode>> findLeftDataNodeWithNonConflictingRight(
+                BinaryNonCommutativeIQTree leftJoinTree, ImmutableSet<Variable> topMostConditionAndRightVariables) {
+            IQTree leftChild = leftJoinTree.getLeftChild();
+            IQTree rightChild = leftJoinTree.getRightChild();
+
+            Sets.SetView<Variable> possiblyConflictingVariables = Sets.intersection(topMostConditionAndRightVariables,
+                    rightChild.getVariables());
+
+            if ((!possiblyConflictingVariables.isEmpty())
+                    && (!leftChild.getVariables().containsAll(possiblyConflictingVariables)))
+                // Not well-designed fragment, no optimization
+                return Optional.empty();
+
+            if (leftChild instanceof ExtensionalDataNode)
+                return Optional.of(ImmutableList.of((ExtensionalDataNode) leftChild));
+
+            QueryNode rootNode = leftChild.getRootNode();
+            if (rootNode instanceof LeftJoinNode)
+                return findLeftDataNodeWithNonConflictingRight((BinaryNonCommutativeIQTree) leftChild,
+                        topMostConditionAndRightVariables);
+            if (rootNode instanceof InnerJoinNode)
+                return extractInnerJoinChildrenOnTheLeft(leftChild.getChildren(),
+                        () -> topMostConditionAndRightVariables);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * May represent the right part of a LJ
+     */
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private static class DataNodeAndSubstitution {
+
+        private final ExtensionalDataNode dataNode;
+        private final Optional<FilterNode> filterNode;
+        private final Optional<ConstructionNode> constructionNode;
+
+        private DataNodeAndSubstitution(ExtensionalDataNode dataNode, Optional<FilterNode> filterNode,
+                                        Optional<ConstructionNode> constructionNode) {
+            this.dataNode = dataNode;
+            this.filterNode = filterNode;
+            this.constructionNode = constructionNode;
+        }
+
+        static Optional<DataNodeAndSubstitution> extract(IQTree rightChild) {
+            if (rightChild instanceof ExtensionalDataNode)
+                return Optional.of(new DataNodeAndSubstitution((ExtensionalDataNode) rightChild, Optional.empty(),
+                        Optional.empty()));
+
+            if (!(rightChild.getRootNode() instanceof ConstructionNode))
+                return Optional.empty();
+
+            ConstructionNode constructionNode = (ConstructionNode) rightChild.getRootNode();
+            IQTree grandChild = ((UnaryIQTree) rightChild).getChild();
+
+            if (grandChild instanceof ExtensionalDataNode)
+                return Optional.of(new DataNodeAndSubstitution((ExtensionalDataNode) grandChild, Optional.empty(),
+                        Optional.of(constructionNode)));
+
+            if (grandChild.getRootNode() instanceof FilterNode) {
+                IQTree grandGrandChild = ((UnaryIQTree) grandChild).getChild();
+                if (grandGrandChild instanceof ExtensionalDataNode)
+                    return Optional.of(new DataNodeAndSubstitution((ExtensionalDataNode) grandGrandChild,
+                            Optional.of((FilterNode) grandChild.getRootNode()), Optional.of(constructionNode)));
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package it.unibz.inf.ontop.iq.planner;
+
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+
+import java.util.Optional;
+
+/**
+ * Statistical information about the data source, for the query planner.
+ *
+ * Must not block the query planning: implementations collecting statistics from the DB
+ * are expected to return empty while the statistics of the relation are not available yet.
+ */
+public interface RelationStatisticsProvider {
+
+    Optional<RelationStatistics> getStatistics(RelationDefinition relation);
+
+    /**
+     * Releases the resources used for collecting the statistics (e.g. threads).
+     * Called when the query engine is closed.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,313 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.Attribute;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+import it.unibz.inf.ontop.dbschema.UniqueConstraint;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.LeafIQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.planner.RelationStatisticsProvider;
+import it.unibz.inf.ontop.iq.visit.IQVisitor;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Estimates the number of rows returned by an IQ tree and the cost of evaluating it.
+ *
+ * Textbook estimation: the attributes are assumed to be independent and uniformly distributed.
+ * The cost is the sum of the estimated sizes of all the intermediate results (including the scanned relations).
+ *
+ * When no statistics are available for a relation, it is assumed to have DEFAULT_ROW_COUNT rows.
+ */
+@Singleton
+public class CardinalityEstimator {
+
+    protected static final double DEFAULT_ROW_COUNT = 1000;
+    // Fraction of the rows of the relation, for attributes of unknown number of distinct values
+    protected static final double DEFAULT_DISTINCT_RATIO = 0.1;
+    protected static final double FILTER_SELECTIVITY = 0.33;
+
+    private final RelationStatisticsProvider statisticsProvider;
+
+    @Inject
+    protected CardinalityEstimator(RelationStatisticsProvider statisticsProvider) {
+        this.statisticsProvider = statisticsProvider;
+    }
+
+    public Estimate estimate(IQTree tree) {
+        return tree.acceptVisitor(new EstimationVisitor());
+    }
+
+
+    public static class Estimate {
+        private final double rowCount;
+        private final ImmutableMap<Variable, Double> distinctValueCounts;
+        private final double cost;
+
+        protected Estimate(double rowCount, ImmutableMap<Variable, Double> distinctValueCounts, double cost) {
+            this.rowCount = rowCount;
+            this.distinctValueCounts = distinctValueCounts;
+            this.cost = cost;
+        }
+
+        public double getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Never greater than the row count
+         */
+        public double getDistinctValueCount(Variable variable) {
+            return Math.max(1, Math.min(rowCount, distinctValueCounts.getOrDefault(variable, rowCount)));
+        }
+
+        public double getCost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rows=%.0f, cost=%.0f", rowCount, cost);
+        }
+    }
+
+
+    protected class EstimationVisitor implements IQVisitor<Estimate> {
+
+        @Override
+        public Estimate visitExtensionalData(ExtensionalDataNode dataNode) {
+            RelationDefinition relation = dataNode.getRelationDefinition();
+            Optional<RelationStatistics> statistics = statisticsProvider.getStatistics(relation);
+            double relationRowCount = statistics
+                    .map(s -> (double) Math.max(1, s.getRowCount()))
+                    .orElse(DEFAULT_ROW_COUNT);
+
+            double rowCount = relationRowCount;
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            for (Map.Entry<Integer, ? extends VariableOrGroundTerm> e : dataNode.getArgumentMap().entrySet()) {
+                Attribute attribute = relation.getAttribute(e.getKey() + 1);
+                double ndv = getDistinctValueCount(relation, attribute, statistics, relationRowCount);
+                VariableOrGroundTerm argument = e.getValue();
+                if (argument instanceof Variable) {
+                    Variable variable = (Variable) argument;
+                    Double previous = distinctValueCounts.get(variable);
+                    if (previous == null)
+                        distinctValueCounts.put(variable, ndv);
+                    else {
+                        // Repeated variable: equality between the two attributes
+                        rowCount /= Math.max(previous, ndv);
+                        distinctValueCounts.put(variable, Math.min(previous, ndv));
+                    }
+                }
+                // Ground term: equality with a constant
+                else
+                    rowCount /= ndv;
+            }
+            return leaf(Math.max(rowCount, 1), distinctValueCounts);
+        }
+
+        private double getDistinctValueCount(RelationDefinition relation, Attribute attribute,
+                                             Optional<RelationStatistics> statistics, double rowCount) {
+            Optional<Long> ndv = statistics.flatMap(s -> s.getDistinctValueCount(attribute.getID()));
+            if (ndv.isPresent())
+                return Math.max(1, ndv.get());
+
+            boolean isUnique = relation.getUniqueConstraints().stream()
+                    .map(UniqueConstraint::getAttributes)
+                    .anyMatch(as -> as.size() == 1 && as.get(0).equals(attribute));
+            return isUnique
+                    ? rowCount
+                    : Math.max(1, rowCount * DEFAULT_DISTINCT_RATIO);
+        }
+
+        @Override
+        public Estimate visitIntensionalData(IntensionalDataNode dataNode) {
+            return leaf(DEFAULT_ROW_COUNT, ImmutableMap.of());
+        }
+
+        @Override
+        public Estimate visitEmpty(EmptyNode node) {
+            return new Estimate(0, ImmutableMap.of(), 0);
+        }
+
+        @Override
+        public Estimate visitTrue(TrueNode node) {
+            return leaf(1, ImmutableMap.of());
+        }
+
+        @Override
+        public Estimate visitNative(NativeNode nativeNode) {
+            return leaf(DEFAULT_ROW_COUNT, ImmutableMap.of());
+        }
+
+        @Override
+        public Estimate visitNonStandardLeafNode(LeafIQTree leafNode) {
+            return leaf(DEFAULT_ROW_COUNT, ImmutableMap.of());
+        }
+
+        @Override
+        public Estimate visitConstruction(ConstructionNode rootNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            ImmutableMap<Variable, ImmutableTerm> definitions = rootNode.getSubstitution().getImmutableMap();
+            ImmutableMap<Variable, Double> distinctValueCounts = rootNode.getVariables().stream()
+                    .collect(ImmutableCollectors.toMap(
+                            v -> v,
+                            // A variable defined from other variables (e.g. an IRI template)
+                            // has as many distinct values as the most diverse of them
+                            v -> Optional.ofNullable(definitions.get(v))
+                                    .map(t -> t.getVariableStream()
+                                            .mapToDouble(childEstimate::getDistinctValueCount)
+                                            .max()
+                                            .orElse(1))
+                                    .orElseGet(() -> childEstimate.getDistinctValueCount(v))));
+            return new Estimate(childEstimate.getRowCount(), distinctValueCounts, childEstimate.getCost());
+        }
+
+        @Override
+        public Estimate visitAggregation(AggregationNode aggregationNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            double rowCount = Math.min(childEstimate.getRowCount(),
+                    product(aggregationNode.getGroupingVariables(), childEstimate));
+            return unary(childEstimate, rowCount);
+        }
+
+        @Override
+        public Estimate visitFilter(FilterNode rootNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            return unary(childEstimate, childEstimate.getRowCount() * FILTER_SELECTIVITY);
+        }
+
+        @Override
+        public Estimate visitDistinct(DistinctNode rootNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            double rowCount = Math.min(childEstimate.getRowCount(), product(child.getVariables(), childEstimate));
+            return unary(childEstimate, rowCount);
+        }
+
+        @Override
+        public Estimate visitSlice(SliceNode sliceNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            double rowCount = Math.max(0, childEstimate.getRowCount() - sliceNode.getOffset());
+            if (sliceNode.getLimit().isPresent())
+                rowCount = Math.min(rowCount, sliceNode.getLimit().get());
+            return unary(childEstimate, rowCount);
+        }
+
+        @Override
+        public Estimate visitOrderBy(OrderByNode rootNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            return unary(childEstimate, childEstimate.getRowCount());
+        }
+
+        @Override
+        public Estimate visitNonStandardUnaryNode(UnaryOperatorNode rootNode, IQTree child) {
+            Estimate childEstimate = child.acceptVisitor(this);
+            return unary(childEstimate, childEstimate.getRowCount());
+        }
+
+        @Override
+        public Estimate visitLeftJoin(LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+            Estimate leftEstimate = leftChild.acceptVisitor(this);
+            Estimate joinEstimate = join(leftEstimate, rightChild.acceptVisitor(this),
+                    rootNode.getOptionalFilterCondition().isPresent());
+            // All the rows of the left are preserved
+            double rowCount = Math.max(leftEstimate.getRowCount(), joinEstimate.getRowCount());
+            return new Estimate(rowCount, joinEstimate.distinctValueCounts, joinEstimate.getCost()
+                    - joinEstimate.getRowCount() + rowCount);
+        }
+
+        @Override
+        public Estimate visitNonStandardBinaryNonCommutativeNode(BinaryNonCommutativeOperatorNode rootNode,
+                                                                 IQTree leftChild, IQTree rightChild) {
+            Estimate leftEstimate = leftChild.acceptVisitor(this);
+            Estimate rightEstimate = rightChild.acceptVisitor(this);
+            double rowCount = leftEstimate.getRowCount() * rightEstimate.getRowCount();
+            return new Estimate(rowCount, ImmutableMap.of(), leftEstimate.getCost() + rightEstimate.getCost()
+                    + rowCount);
+        }
+
+        @Override
+        public Estimate visitInnerJoin(InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            Estimate estimate = children.get(0).acceptVisitor(this);
+            for (int i = 1; i < children.size(); i++)
+                estimate = join(estimate, children.get(i).acceptVisitor(this), false);
+
+            return rootNode.getOptionalFilterCondition().isPresent()
+                    ? unary(estimate, estimate.getRowCount() * FILTER_SELECTIVITY)
+                    : estimate;
+        }
+
+        @Override
+        public Estimate visitUnion(UnionNode rootNode, ImmutableList<IQTree> children) {
+            double rowCount = 0, cost = 0;
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            for (IQTree child : children) {
+                Estimate childEstimate = child.acceptVisitor(this);
+                rowCount += childEstimate.getRowCount();
+                cost += childEstimate.getCost();
+                for (Variable v : rootNode.getVariables())
+                    distinctValueCounts.merge(v, childEstimate.getDistinctValueCount(v), Double::sum);
+            }
+            return new Estimate(rowCount, ImmutableMap.copyOf(distinctValueCounts), cost + rowCount);
+        }
+
+        @Override
+        public Estimate visitNonStandardNaryNode(NaryOperatorNode rootNode, ImmutableList<IQTree> children) {
+            double rowCount = 0, cost = 0;
+            for (IQTree child : children) {
+                Estimate childEstimate = child.acceptVisitor(this);
+                rowCount += childEstimate.getRowCount();
+                cost += childEstimate.getCost();
+            }
+            return new Estimate(rowCount, ImmutableMap.of(), cost + rowCount);
+        }
+
+        /**
+         * Natural join on the shared variables: |A| * |B| / max(ndv_A(v), ndv_B(v)) for each shared variable v
+         */
+        private Estimate join(Estimate left, Estimate right, boolean hasCondition) {
+            double rowCount = left.getRowCount() * right.getRowCount();
+            Map<Variable, Double> distinctValueCounts = new HashMap<>(right.distinctValueCounts);
+            for (Variable v : left.distinctValueCounts.keySet()) {
+                if (right.distinctValueCounts.containsKey(v)) {
+                    double leftNdv = left.getDistinctValueCount(v), rightNdv = right.getDistinctValueCount(v);
+                    rowCount /= Math.max(leftNdv, rightNdv);
+                    distinctValueCounts.put(v, Math.min(leftNdv, rightNdv));
+                }
+                else
+                    distinctValueCounts.put(v, left.getDistinctValueCount(v));
+            }
+            if (hasCondition)
+                rowCount *= FILTER_SELECTIVITY;
+
+            return new Estimate(rowCount, ImmutableMap.copyOf(distinctValueCounts),
+                    left.getCost() + right.getCost() + rowCount);
+        }
+
+        private Estimate leaf(double rowCount, Map<Variable, Double> distinctValueCounts) {
+            return new Estimate(rowCount, ImmutableMap.copyOf(distinctValueCounts), rowCount);
+        }
+
+        private Estimate unary(Estimate childEstimate, double rowCount) {
+            return new Estimate(rowCount, childEstimate.distinctValueCounts, childEstimate.getCost() + rowCount);
+        }
+
+        private double product(ImmutableSet<Variable> variables, Estimate estimate) {
+            return variables.stream()
+                    .mapToDouble(estimate::getDistinctValueCount)
+                    .reduce(1, (a, b) -> a * b);
+        }
+    }
+}
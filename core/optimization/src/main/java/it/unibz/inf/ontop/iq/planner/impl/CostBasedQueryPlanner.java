@@ -0,0 +1,55 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.optimizer.GeneralStructuralAndSemanticIQOptimizer;
+import it.unibz.inf.ontop.iq.planner.impl.CardinalityEstimator.Estimate;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Only pushes the inner joins under the unions (see AvoidJoinAboveUnionPlanner) when it is estimated to be cheaper
+ * than keeping the union, according to the statistics of the relations (see RelationStatisticsProvider).
+ *
+ * Both alternatives are compared after the structural and semantic optimizations have been re-applied
+ * to the pushed one, so the joins eliminated in the union branches are taken into account.
+ *
+ * For instance, pushing a large relation into every branch of a union requires scanning it once per branch,
+ * which is only worth it if these joins can be simplified or are very selective.
+ */
+@Singleton
+public class CostBasedQueryPlanner extends AvoidJoinAboveUnionPlanner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CostBasedQueryPlanner.class);
+    private final CardinalityEstimator estimator;
+
+    @Inject
+    protected CostBasedQueryPlanner(GeneralStructuralAndSemanticIQOptimizer generalOptimizer,
+                                    AvoidJoinAboveUnionTransformer transformer,
+                                    IntermediateQueryFactory iqFactory,
+                                    CardinalityEstimator estimator) {
+        super(generalOptimizer, transformer, iqFactory);
+        this.estimator = estimator;
+    }
+
+    @Override
+    public IQ optimize(IQ query, ExecutorRegistry executorRegistry) {
+        IQ pushedQuery = super.optimize(query, executorRegistry);
+        if (pushedQuery.equals(query))
+            return query;
+
+        Estimate estimate = estimator.estimate(query.getTree());
+        Estimate pushedEstimate = estimator.estimate(pushedQuery.getTree());
+        boolean isPushing = pushedEstimate.getCost() <= estimate.getCost();
+
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug(String.format("Joins above unions: %s\nJoins pushed under unions: %s\nChoice: %s\n",
+                    estimate, pushedEstimate, isPushing ? "pushing" : "keeping the unions"));
+
+        return isPushing ? pushedQuery : query;
+    }
+}
@@ -0,0 +1,17 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+import it.unibz.inf.ontop.iq.planner.RelationStatisticsProvider;
+
+import javax.inject.Singleton;
+import java.util.Optional;
+
+@Singleton
+public class NoRelationStatisticsProvider implements RelationStatisticsProvider {
+
+    @Override
+    public Optional<RelationStatistics> getStatistics(RelationDefinition relation) {
+        return Optional.empty();
+    }
+}
@@ -1,11 +0,0 @@
-package it.unibz.inf.ontop.iq.proposal;
-
-
-import it.unibz.inf.ontop.iq.node.LeftJoinNode;
-
-/**
- * TODO: explain
- *
- */
-public interface LeftJoinOptimizationProposal extends SimpleNodeCentricOptimizationProposal<LeftJoinNode> {
-}
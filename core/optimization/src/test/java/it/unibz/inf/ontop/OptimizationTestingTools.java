@@ -9,6 +9,8 @@ import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
 import it.unibz.inf.ontop.injection.*;
 import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
 import it.unibz.inf.ontop.iq.optimizer.*;
+import it.unibz.inf.ontop.iq.optimizer.impl.RedundantJoinFKIQOptimizer;
+import it.unibz.inf.ontop.iq.optimizer.impl.lj.LeftToInnerJoinIQOptimizer;
 import it.unibz.inf.ontop.iq.tools.IQConverter;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transformer.BooleanExpressionPushDownTransformer;
@@ -50,6 +52,9 @@ public class OptimizationTestingTools {
     public static final Constant NULL;
     public static final UnionAndBindingLiftOptimizer UNION_AND_BINDING_LIFT_OPTIMIZER;
     public static final UnionBasedQueryMerger UNION_BASED_QUERY_MERGER;
+    public static final GeneralStructuralAndSemanticIQOptimizer GENERAL_OPTIMIZER;
+    public static final RedundantJoinFKIQOptimizer REDUNDANT_JOIN_FK_OPTIMIZER;
+    public static final LeftToInnerJoinIQOptimizer LEFT_TO_INNER_JOIN_OPTIMIZER;
     public static final RDF RDF_FACTORY;
     public static final CoreSingletons CORE_SINGLETONS;
 
@@ -125,6 +130,9 @@ public class OptimizationTestingTools {
         CORE_SINGLETONS = injector.getInstance(CoreSingletons.class);
 
         UNION_BASED_QUERY_MERGER = injector.getInstance(UnionBasedQueryMerger.class);
+        GENERAL_OPTIMIZER = injector.getInstance(GeneralStructuralAndSemanticIQOptimizer.class);
+        REDUNDANT_JOIN_FK_OPTIMIZER = injector.getInstance(RedundantJoinFKIQOptimizer.class);
+        LEFT_TO_INNER_JOIN_OPTIMIZER = injector.getInstance(LeftToInnerJoinIQOptimizer.class);
 
         NULL = TERM_FACTORY.getNullConstant();
         TRUE = TERM_FACTORY.getDBBooleanConstant(true);
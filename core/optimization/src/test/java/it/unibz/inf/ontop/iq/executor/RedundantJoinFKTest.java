@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.iq.executor;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
@@ -11,7 +12,6 @@ import it.unibz.inf.ontop.iq.node.InnerJoinNode;
 import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.iq.equivalence.IQSyntacticEquivalenceChecker;
-import it.unibz.inf.ontop.iq.proposal.impl.InnerJoinOptimizationProposalImpl;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.type.DBTermType;
@@ -97,15 +97,13 @@ public class RedundantJoinFKTest {
         IntermediateQuery query = queryBuilder.build();
         System.out.println("\nBefore optimization: \n" +  query);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
         IntermediateQueryBuilder expectedQueryBuilder = createQueryBuilder();
-        expectedQueryBuilder.init(projectionAtom, constructionNode);
-        FilterNode filterNode = IQ_FACTORY.createFilterNode(TERM_FACTORY.getDBIsNotNull(A));
-        expectedQueryBuilder.addChild(constructionNode, filterNode);
-        expectedQueryBuilder.addChild(filterNode, dataNode2);
+        expectedQueryBuilder.init(projectionAtom,
+                IQ_FACTORY.createExtensionalDataNode(TABLE2, ImmutableMap.of(1, A)));
 
         IntermediateQuery expectedQuery = expectedQueryBuilder.build();
 
@@ -137,7 +135,7 @@ public class RedundantJoinFKTest {
         IntermediateQuery expectedQuery = query.createSnapshot();
         System.out.println("\n Expected query: \n" +  expectedQuery);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
@@ -167,7 +165,7 @@ public class RedundantJoinFKTest {
         IntermediateQuery expectedQuery = query.createSnapshot();
         System.out.println("\n Expected query: \n" +  expectedQuery);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
@@ -199,7 +197,7 @@ public class RedundantJoinFKTest {
         IntermediateQuery expectedQuery = query.createSnapshot();
         System.out.println("\n Expected query: \n" +  expectedQuery);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
@@ -228,7 +226,7 @@ public class RedundantJoinFKTest {
         IntermediateQuery expectedQuery = query.createSnapshot();
         System.out.println("\n Expected query: \n" +  expectedQuery);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
@@ -266,23 +264,20 @@ public class RedundantJoinFKTest {
         IntermediateQuery query = queryBuilder.build();
         System.out.println("\nBefore optimization: \n" +  query);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
         IntermediateQueryBuilder expectedQueryBuilder = createQueryBuilder();
         DistinctVariableOnlyDataAtom projectionAtom1 = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE_1, A);
         expectedQueryBuilder.init(projectionAtom1, constructionNode);
-        InnerJoinNode joinNode1 = IQ_FACTORY.createInnerJoinNode(TERM_FACTORY.getConjunction(
-                TERM_FACTORY.getDBIsNotNull(A),
-                TERM_FACTORY.getDBIsNotNull(C)));
-        expectedQueryBuilder.addChild(constructionNode, joinNode1);
-        expectedQueryBuilder.addChild(joinNode1, dataNode1_1);
-        expectedQueryBuilder.addChild(joinNode1, dataNode1_2);
-        expectedQueryBuilder.addChild(joinNode1, dataNode2_1);
-        expectedQueryBuilder.addChild(joinNode1, dataNode2_2);
-        expectedQueryBuilder.addChild(joinNode1, dataNode2_3);
-        expectedQueryBuilder.addChild(joinNode1, dataNode2_4);
+        expectedQueryBuilder.addChild(constructionNode, joinNode);
+        expectedQueryBuilder.addChild(joinNode, dataNode1_1);
+        expectedQueryBuilder.addChild(joinNode, dataNode1_2);
+        expectedQueryBuilder.addChild(joinNode, dataNode2_1);
+        expectedQueryBuilder.addChild(joinNode, dataNode2_2);
+        expectedQueryBuilder.addChild(joinNode, dataNode2_3);
+        expectedQueryBuilder.addChild(joinNode, IQ_FACTORY.createExtensionalDataNode(TABLE2, ImmutableMap.of(0, D)));
 
         IntermediateQuery expectedQuery = expectedQueryBuilder.build();
 
@@ -310,17 +305,13 @@ public class RedundantJoinFKTest {
         IntermediateQuery query = queryBuilder.build();
         System.out.println("\nBefore optimization: \n" +  query);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
         IntermediateQueryBuilder expectedQueryBuilder = createQueryBuilder();
-        expectedQueryBuilder.init(projectionAtom, constructionNode);
-        FilterNode filterNode = IQ_FACTORY.createFilterNode(TERM_FACTORY.getConjunction(
-                TERM_FACTORY.getDBIsNotNull(A),
-                TERM_FACTORY.getDBIsNotNull(B)));
-        expectedQueryBuilder.addChild(constructionNode, filterNode);
-        expectedQueryBuilder.addChild(filterNode, dataNode2);
+        expectedQueryBuilder.init(projectionAtom,
+                IQ_FACTORY.createExtensionalDataNode(TABLE4, ImmutableMap.of(1, A)));
 
         IntermediateQuery expectedQuery = expectedQueryBuilder.build();
 
@@ -351,7 +342,7 @@ public class RedundantJoinFKTest {
         IntermediateQuery expectedQuery = query.createSnapshot();
         System.out.println("\n Expected query: \n" +  expectedQuery);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
@@ -380,10 +371,15 @@ public class RedundantJoinFKTest {
         IntermediateQuery expectedQuery = query.createSnapshot();
         System.out.println("\n Expected query: \n" +  expectedQuery);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
+        query = optimize(query);
 
         System.out.println("\n After optimization: \n" +  query);
 
         assertTrue(IQSyntacticEquivalenceChecker.areEquivalent(query, expectedQuery));
     }
+
+    private static IntermediateQuery optimize(IntermediateQuery query) throws EmptyQueryException {
+        IQ optimizedIQ = REDUNDANT_JOIN_FK_OPTIMIZER.optimize(IQ_CONVERTER.convert(query));
+        return IQ_CONVERTER.convert(optimizedIQ, EXECUTOR_REGISTRY);
+    }
 }
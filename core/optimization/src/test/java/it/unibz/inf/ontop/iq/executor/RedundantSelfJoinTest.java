@@ -12,9 +12,7 @@ import it.unibz.inf.ontop.iq.exception.IntermediateQueryBuilderException;
 import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
 import it.unibz.inf.ontop.iq.*;
-import it.unibz.inf.ontop.iq.equivalence.IQSyntacticEquivalenceChecker;
 import it.unibz.inf.ontop.iq.exception.InvalidQueryOptimizationProposalException;
-import it.unibz.inf.ontop.iq.proposal.impl.InnerJoinOptimizationProposalImpl;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.type.DBTermType;
@@ -22,14 +20,12 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.Optional;
-import java.util.UUID;
 
 import static it.unibz.inf.ontop.OptimizationTestingTools.*;
 import static it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition.LEFT;
 import static it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition.RIGHT;
 import static it.unibz.inf.ontop.model.term.functionsymbol.InequalityLabel.LT;
 import static junit.framework.TestCase.assertEquals;
-import static junit.framework.TestCase.assertTrue;
 
 /**
  * Optimizations for inner joins based on unique constraints (like PKs).
@@ -698,20 +694,6 @@ public class RedundantSelfJoinTest {
         expectedQueryBuilder.addChild(newRootNode, dataNode1);
 
         optimizeAndCompare(query, expectedQueryBuilder.build());
-
-//        IntermediateQuery expectedQuery = expectedQueryBuilder.build();
-//        System.out.println("\n Expected query : \n" +  expectedQuery);
-//
-//        NodeCentricOptimizationResults<InnerJoinNode> results = query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
-//
-//        System.out.println("\n Optimized query: \n" +  query);
-//
-//        assertTrue(IQSyntacticEquivalenceChecker.areEquivalent(query, expectedQuery));
-//
-//        Optional<QueryNode> optionalClosestAncestor = results.getOptionalClosestAncestor();
-//        assertTrue(optionalClosestAncestor.isPresent());
-//        assertTrue(optionalClosestAncestor.get().isSyntacticallyEquivalentTo(newRootNode));
-//        assertFalse(results.getOptionalNextSibling().isPresent());
     }
 
     @Test
@@ -746,20 +728,6 @@ public class RedundantSelfJoinTest {
         expectedQueryBuilder.addChild(constructionNode1, dataNode5);
 
         optimizeAndCompare(query, expectedQueryBuilder.build());
-
-//        IntermediateQuery expectedQuery = expectedQueryBuilder.build();
-//
-//        System.out.println("\n Expected query : \n" +  expectedQuery);
-//
-//        NodeCentricOptimizationResults<InnerJoinNode> results = query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
-//
-//        System.out.println("\n After optimization: \n" +  query);
-//
-//        assertTrue(IQSyntacticEquivalenceChecker.areEquivalent(query, expectedQuery));
-//
-//        assertFalse(results.getOptionalNewNode().isPresent());
-//        assertTrue(results.getOptionalReplacingChild().isPresent());
-//        assertTrue(results.getOptionalReplacingChild().get().isSyntacticallyEquivalentTo(dataNode5));
     }
 
     @Test(expected = EmptyQueryException.class)
@@ -808,19 +776,13 @@ public class RedundantSelfJoinTest {
         queryBuilder.addChild(joinNode, dataNode1);
         queryBuilder.addChild(joinNode, dataNode2);
 
-        IntermediateQuery query = queryBuilder.build();
-        java.util.UUID initialVersion = query.getVersionNumber();
-
-        IntermediateQuery expectedQuery = query.createSnapshot();
-
+        IQ query = IQ_CONVERTER.convert(queryBuilder.build());
         System.out.println("\nBefore optimization: \n" +  query);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
-        System.out.println("\nAfter optimization: \n" +  query);
-
+        IQ optimizedQuery = JOIN_LIKE_OPTIMIZER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("\nAfter optimization: \n" +  optimizedQuery);
 
-        assertTrue(IQSyntacticEquivalenceChecker.areEquivalent(query, expectedQuery));
-        assertEquals("The version number has changed", initialVersion, query.getVersionNumber());
+        assertEquals("The query has changed", query, optimizedQuery);
     }
 
     @Test
@@ -839,20 +801,13 @@ public class RedundantSelfJoinTest {
         queryBuilder.addChild(joinNode, dataNode1);
         queryBuilder.addChild(joinNode, dataNode2);
 
-        IntermediateQuery query = queryBuilder.build();
-        UUID initialVersion = query.getVersionNumber();
-
-        IntermediateQuery expectedQuery = query.createSnapshot();
-
+        IQ query = IQ_CONVERTER.convert(queryBuilder.build());
         System.out.println("\nBefore optimization: \n" +  query);
 
-        query.applyProposal(new InnerJoinOptimizationProposalImpl(joinNode));
-
-        System.out.println("\nAfter optimization: \n" +  query);
-
+        IQ optimizedQuery = JOIN_LIKE_OPTIMIZER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("\nAfter optimization: \n" +  optimizedQuery);
 
-        assertTrue(IQSyntacticEquivalenceChecker.areEquivalent(query, expectedQuery));
-        assertEquals("The version number has changed", initialVersion, query.getVersionNumber());
+        assertEquals("The query has changed", query, optimizedQuery);
     }
 
     @Test
@@ -0,0 +1,119 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.ForeignKeyConstraint;
+import it.unibz.inf.ontop.dbschema.NamedRelationDefinition;
+import it.unibz.inf.ontop.dbschema.UniqueConstraint;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LeftToInnerJoinIQOptimizerTest {
+
+    private static final NamedRelationDefinition TABLE1;
+    private static final NamedRelationDefinition TABLE2;
+    private static final NamedRelationDefinition TABLE3;
+
+    static {
+        OfflineMetadataProviderBuilder3 builder = createMetadataProviderBuilder();
+        DBTermType integerDBType = builder.getDBTypeFactory().getDBLargeIntegerType();
+
+        TABLE1 = builder.createRelation("TABLE1", 2, integerDBType, false);
+        UniqueConstraint.primaryKeyOf(TABLE1.getAttribute(1));
+
+        TABLE2 = builder.createRelation("TABLE2", 2, integerDBType, false);
+        UniqueConstraint.primaryKeyOf(TABLE2.getAttribute(1));
+        ForeignKeyConstraint.of("fk2-1", TABLE2.getAttribute(2), TABLE1.getAttribute(1));
+
+        /*
+         * No foreign key
+         */
+        TABLE3 = builder.createRelation("TABLE3", 2, integerDBType, false);
+        UniqueConstraint.primaryKeyOf(TABLE3.getAttribute(1));
+    }
+
+    /**
+     * The non-nullable FK of the left guarantees a match on the right
+     */
+    @Test
+    public void testForeignKey() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, A, B, C);
+
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom,
+                IQ_FACTORY.createBinaryNonCommutativeIQTree(
+                        IQ_FACTORY.createLeftJoinNode(),
+                        createExtensionalDataNode(TABLE2, ImmutableList.of(A, B)),
+                        createExtensionalDataNode(TABLE1, ImmutableList.of(B, C))));
+
+        IQ expectedIQ = IQ_FACTORY.createIQ(projectionAtom,
+                IQ_FACTORY.createNaryIQTree(
+                        IQ_FACTORY.createInnerJoinNode(),
+                        ImmutableList.of(
+                                createExtensionalDataNode(TABLE2, ImmutableList.of(A, B)),
+                                createExtensionalDataNode(TABLE1, ImmutableList.of(B, C)))));
+
+        assertEquals(expectedIQ, LEFT_TO_INNER_JOIN_OPTIMIZER.optimize(initialIQ));
+    }
+
+    /**
+     * Without any constraint, the very same IQ is returned
+     */
+    @Test
+    public void testNoConstraint() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, A, B, C);
+
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom,
+                IQ_FACTORY.createBinaryNonCommutativeIQTree(
+                        IQ_FACTORY.createLeftJoinNode(),
+                        createExtensionalDataNode(TABLE2, ImmutableList.of(A, B)),
+                        createExtensionalDataNode(TABLE3, ImmutableList.of(B, C))));
+
+        assertSame(initialIQ, LEFT_TO_INNER_JOIN_OPTIMIZER.optimize(initialIQ));
+    }
+
+    /**
+     * Only the union branch with a foreign key is optimized
+     */
+    @Test
+    public void testUnion() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, A, B, C);
+
+        IQTree unchangedBranch = IQ_FACTORY.createBinaryNonCommutativeIQTree(
+                IQ_FACTORY.createLeftJoinNode(),
+                createExtensionalDataNode(TABLE2, ImmutableList.of(A, B)),
+                createExtensionalDataNode(TABLE3, ImmutableList.of(B, C)));
+
+        IQ initialIQ = IQ_FACTORY.createIQ(projectionAtom,
+                IQ_FACTORY.createNaryIQTree(
+                        IQ_FACTORY.createUnionNode(ImmutableSet.of(A, B, C)),
+                        ImmutableList.of(
+                                IQ_FACTORY.createBinaryNonCommutativeIQTree(
+                                        IQ_FACTORY.createLeftJoinNode(),
+                                        createExtensionalDataNode(TABLE2, ImmutableList.of(A, B)),
+                                        createExtensionalDataNode(TABLE1, ImmutableList.of(B, C))),
+                                unchangedBranch)));
+
+        IQ expectedIQ = IQ_FACTORY.createIQ(projectionAtom,
+                IQ_FACTORY.createNaryIQTree(
+                        IQ_FACTORY.createUnionNode(ImmutableSet.of(A, B, C)),
+                        ImmutableList.of(
+                                IQ_FACTORY.createNaryIQTree(
+                                        IQ_FACTORY.createInnerJoinNode(),
+                                        ImmutableList.of(
+                                                createExtensionalDataNode(TABLE2, ImmutableList.of(A, B)),
+                                                createExtensionalDataNode(TABLE1, ImmutableList.of(B, C)))),
+                                unchangedBranch)));
+
+        assertEquals(expectedIQ, LEFT_TO_INNER_JOIN_OPTIMIZER.optimize(initialIQ));
+    }
+}
@@ -0,0 +1,98 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.InnerJoinNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.iq.planner.impl.AvoidJoinAboveUnionPlanner.AvoidJoinAboveUnionTransformer;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static it.unibz.inf.ontop.NoDependencyTestDBMetadata.*;
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.*;
+
+public class CostBasedQueryPlannerTest {
+
+    /**
+     * Small relation joined with a large union on a selective attribute:
+     * each branch is joined with the small relation instead of joining the whole union
+     */
+    @Test
+    public void testPushSmallRelation() {
+        CostBasedQueryPlanner planner = createPlanner(ImmutableMap.of(
+                TABLE1_AR2, createStatistics(10, 10),
+                TABLE2_AR2, createStatistics(1_000_000, 1_000_000),
+                TABLE3_AR2, createStatistics(1_000_000, 1_000_000)));
+
+        IQ query = createQuery();
+        IQ newQuery = planner.optimize(query, EXECUTOR_REGISTRY);
+        assertNotEquals(query, newQuery);
+        assertFalse(hasJoinAboveUnion(newQuery.getTree()));
+    }
+
+    /**
+     * Large relation joined with a small union: pushing would scan the large relation once per branch
+     */
+    @Test
+    public void testKeepUnionWithLargeRelation() {
+        CostBasedQueryPlanner planner = createPlanner(ImmutableMap.of(
+                TABLE1_AR2, createStatistics(1_000_000, 1_000_000),
+                TABLE2_AR2, createStatistics(10, 10),
+                TABLE3_AR2, createStatistics(10, 10)));
+
+        IQ query = createQuery();
+        assertSame(query, planner.optimize(query, EXECUTOR_REGISTRY));
+        assertTrue(hasJoinAboveUnion(query.getTree()));
+    }
+
+    /**
+     * ans(x, y, z) :- JOIN(T1(x, y), UNION(T2(x, z), T3(x, z)))
+     */
+    private static IQ createQuery() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, X, Y, Z);
+
+        IQTree unionTree = IQ_FACTORY.createNaryIQTree(
+                IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Z)),
+                ImmutableList.of(
+                        createExtensionalDataNode(TABLE2_AR2, ImmutableList.of(X, Z)),
+                        createExtensionalDataNode(TABLE3_AR2, ImmutableList.of(X, Z))));
+
+        IQTree joinTree = IQ_FACTORY.createNaryIQTree(
+                IQ_FACTORY.createInnerJoinNode(),
+                ImmutableList.of(
+                        createExtensionalDataNode(TABLE1_AR2, ImmutableList.of(X, Y)),
+                        unionTree));
+
+        return IQ_FACTORY.createIQ(projectionAtom, joinTree);
+    }
+
+    /**
+     * Row count and number of distinct values of the first attribute
+     */
+    private static RelationStatistics createStatistics(long rowCount, long distinctValueCount) {
+        return new RelationStatistics(rowCount, ImmutableMap.of(
+                TABLE1_AR2.getAttribute(1).getID(), distinctValueCount));
+    }
+
+    private static CostBasedQueryPlanner createPlanner(ImmutableMap<RelationDefinition, RelationStatistics> statistics) {
+        return new CostBasedQueryPlanner(GENERAL_OPTIMIZER,
+                new AvoidJoinAboveUnionTransformer(IQ_FACTORY),
+                IQ_FACTORY,
+                new CardinalityEstimator(r -> Optional.ofNullable(statistics.get(r))));
+    }
+
+    private static boolean hasJoinAboveUnion(IQTree tree) {
+        return (tree.getRootNode() instanceof InnerJoinNode
+                && tree.getChildren().stream().anyMatch(c -> c.getRootNode() instanceof UnionNode))
+                || tree.getChildren().stream().anyMatch(CostBasedQueryPlannerTest::hasJoinAboveUnion);
+    }
+}
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.dbschema;
 
 import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
 
 /**
  * Extracts DB metadata directly from the DB through a connection
@@ -9,4 +10,15 @@ import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
  *
  */
 public interface DBMetadataProvider extends MetadataProvider {
+
+    /**
+     * Statistics of the relation, taken from the statistics catalog of the DB if useCatalog is true and
+     * the catalog provides the number of rows, otherwise obtained by counting the rows and the distinct values
+     * of the attributes in a sample of at most sampleSize rows (positive).
+     *
+     * The queries are cancelled after queryTimeout seconds (0 for no timeout).
+     */
+    RelationStatistics getRelationStatistics(NamedRelationDefinition relation, boolean useCatalog,
+                                             int sampleSize, int queryTimeout)
+            throws MetadataExtractionException;
 }
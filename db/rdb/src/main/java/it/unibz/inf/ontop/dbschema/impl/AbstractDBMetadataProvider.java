@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.dbschema.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.exception.RelationNotFoundInMetadataException;
@@ -11,13 +12,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(AbstractDBMetadataProvider.class);
 
+    // Attributes whose values are (nearly) all distinct in the sample of the relation
+    private static final double NEARLY_UNIQUE_RATIO = 0.9;
+
     protected final Connection connection;
     protected final DBParameters dbParameters;
     protected final DatabaseMetaData metadata;
@@ -292,6 +296,143 @@ public abstract class AbstractDBMetadataProvider implements DBMetadataProvider {
         }
     }
 
+    @Override
+    public RelationStatistics getRelationStatistics(NamedRelationDefinition relation, boolean useCatalog,
+                                                    int sampleSize, int queryTimeout)
+            throws MetadataExtractionException {
+        try {
+            if (useCatalog) {
+                Optional<RelationStatistics> statistics = getCatalogStatistics(relation);
+                if (statistics.isPresent())
+                    return statistics.get();
+            }
+            return countStatistics(relation, sampleSize, queryTimeout);
+        }
+        catch (SQLException e) {
+            throw new MetadataExtractionException(e);
+        }
+    }
+
+    /**
+     * The number of rows is given by the tableIndexStatistic row of the index information
+     * (or, if absent, by the largest index), the numbers of distinct values by the single-attribute indexes
+     */
+    private Optional<RelationStatistics> getCatalogStatistics(NamedRelationDefinition relation) throws SQLException {
+        RelationID id = getCanonicalRelationId(relation.getID());
+        Long rowCount = null;
+        long maxIndexCardinality = -1;
+        Map<String, List<String>> indexAttributes = new HashMap<>();
+        Map<String, Long> indexCardinalities = new HashMap<>();
+        // approximate: the catalog is not refreshed
+        try (ResultSet rs = metadata.getIndexInfo(getRelationCatalog(id), getRelationSchema(id), getRelationName(id), false, true)) {
+            while (rs.next()) {
+                long cardinality = rs.getLong("CARDINALITY");
+                if (rs.wasNull() || cardinality <= 0)
+                    continue;
+
+                if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    rowCount = cardinality;
+                    continue;
+                }
+                String indexName = rs.getString("INDEX_NAME");
+                String attributeName = rs.getString("COLUMN_NAME");
+                if (indexName == null || attributeName == null)
+                    continue;
+                indexAttributes.computeIfAbsent(indexName, n -> new ArrayList<>()).add(attributeName);
+                indexCardinalities.put(indexName, cardinality);
+                maxIndexCardinality = Math.max(maxIndexCardinality, cardinality);
+            }
+        }
+        if (rowCount == null && maxIndexCardinality < 0)
+            return Optional.empty();
+
+        Map<QuotedID, Long> distinctValueCounts = new HashMap<>();
+        for (Map.Entry<String, List<String>> e : indexAttributes.entrySet()) {
+            if (e.getValue().size() == 1)
+                distinctValueCounts.put(rawIdFactory.createAttributeID(e.getValue().get(0)),
+                        indexCardinalities.get(e.getKey()));
+        }
+        return Optional.of(new RelationStatistics((rowCount != null) ? rowCount : maxIndexCardinality,
+                ImmutableMap.copyOf(distinctValueCounts)));
+    }
+
+    /**
+     * Counts the distinct values of each attribute in a sample of the relation (see getSampleQuery),
+     * and the rows of the relation if the sample does not contain all of them.
+     *
+     * The distinct value counts of the sample are extrapolated only for the attributes that are (nearly) unique
+     * in the sample; for the other ones, most values are assumed to be already in the sample.
+     * If counting the distinct values fails (e.g. for LOB attributes or on timeout), only counts the rows:
+     * the query planner then uses its default selectivities.
+     */
+    private RelationStatistics countStatistics(NamedRelationDefinition relation, int sampleSize, int queryTimeout)
+            throws SQLException {
+        ImmutableList<Attribute> attributes = relation.getAttributes();
+        String table = relation.getID().getSQLRendering();
+        String columns = attributes.stream()
+                .map(a -> a.getID().getSQLRendering())
+                .collect(Collectors.joining(", "));
+        String query = "SELECT COUNT(*)" + attributes.stream()
+                .map(a -> ", COUNT(DISTINCT " + a.getID().getSQLRendering() + ")")
+                .collect(Collectors.joining()) + " FROM (" + getSampleQuery(table, columns, sampleSize) + ") s";
+
+        long sampleRowCount;
+        long[] sampleDistinctValueCounts = new long[attributes.size()];
+        try (Statement st = createStatisticsStatement(queryTimeout);
+             ResultSet rs = st.executeQuery(query)) {
+            rs.next();
+            sampleRowCount = rs.getLong(1);
+            for (int i = 0; i < attributes.size(); i++)
+                sampleDistinctValueCounts[i] = rs.getLong(i + 2);
+        }
+        catch (SQLException e) {
+            LOGGER.debug("Cannot count the distinct values of {}: {}", table, e.getMessage());
+            return new RelationStatistics(countRows(table, queryTimeout), ImmutableMap.of());
+        }
+
+        long rowCount = (sampleRowCount < sampleSize) ? sampleRowCount : countRows(table, queryTimeout);
+        ImmutableMap.Builder<QuotedID, Long> builder = ImmutableMap.builder();
+        for (int i = 0; i < attributes.size(); i++)
+            builder.put(attributes.get(i).getID(),
+                    extrapolateDistinctValueCount(sampleDistinctValueCounts[i], sampleRowCount, rowCount));
+        return new RelationStatistics(rowCount, builder.build());
+    }
+
+    private long countRows(String table, int queryTimeout) throws SQLException {
+        try (Statement st = createStatisticsStatement(queryTimeout);
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private Statement createStatisticsStatement(int queryTimeout) throws SQLException {
+        Statement st = connection.createStatement();
+        try {
+            st.setQueryTimeout(queryTimeout);
+        }
+        catch (SQLException e) {
+            st.close();
+            throw e;
+        }
+        return st;
+    }
+
+    private static long extrapolateDistinctValueCount(long sampleDistinctValueCount, long sampleRowCount,
+                                                      long rowCount) {
+        if (sampleRowCount >= rowCount || sampleDistinctValueCount < sampleRowCount * NEARLY_UNIQUE_RATIO)
+            return sampleDistinctValueCount;
+        return Math.round((double) sampleDistinctValueCount * rowCount / sampleRowCount);
+    }
+
+    /**
+     * Query returning at most sampleSize rows of the relation (the first ones, not a random sample),
+     * used as a subquery
+     */
+    protected String getSampleQuery(String table, String columns, int sampleSize) {
+        return "SELECT " + columns + " FROM " + table + " LIMIT " + sampleSize;
+    }
+
     protected abstract RelationID getCanonicalRelationId(RelationID id);
 
     protected abstract ImmutableList<RelationID> getAllIDs(RelationID id);
@@ -26,6 +26,11 @@ public class DB2DBMetadataProvider extends DefaultSchemaDBMetadataProvider {
         return IGNORED_SCHEMAS.contains(getRelationSchema(id));
     }
 
+    @Override
+    protected String getSampleQuery(String table, String columns, int sampleSize) {
+        return "SELECT " + columns + " FROM " + table + " FETCH FIRST " + sampleSize + " ROWS ONLY";
+    }
+
     /*
       Alternative solution for retrieving the schema
                 "select CURRENT SCHEMA AS TABLE_SCHEM from SYSIBM.SYSDUMMY1");
@@ -27,4 +27,9 @@ public class JTDSDBMetadataProvider extends DefaultSchemaCatalogDBMetadataProvid
     protected boolean isRelationExcluded(RelationID id) {
         return IGNORED_SCHEMAS.contains(getRelationSchema(id));
     }
+
+    @Override
+    protected String getSampleQuery(String table, String columns, int sampleSize) {
+        return "SELECT TOP " + sampleSize + " " + columns + " FROM " + table;
+    }
 }
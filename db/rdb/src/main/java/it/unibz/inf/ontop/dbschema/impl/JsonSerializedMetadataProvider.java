@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.dbschema.*;
@@ -18,11 +19,13 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.stream.Stream;
 
 public class JsonSerializedMetadataProvider implements SerializedMetadataProvider {
 
     private final DBParameters dbParameters;
     private final ImmutableMap<RelationID, JsonDatabaseTable> relationMap;
+    private final ImmutableList<RelationID> relationIDs;
 
 
     @AssistedInject
@@ -39,9 +42,16 @@ public class JsonSerializedMetadataProvider implements SerializedMetadataProvide
                 idFactory,
                 coreSingletons);
 
-        // TODO: add to all
+        // Indexed by all the IDs (e.g. also without the default schema)
         relationMap = jsonMetadata.relations.stream()
-                .collect(ImmutableCollectors.toMap(t -> JsonMetadata.deserializeRelationID(idFactory, t.name), t -> t));
+                .flatMap(t -> Stream.concat(Stream.of(t.name), t.otherNames.stream())
+                        .map(n -> JsonMetadata.deserializeRelationID(idFactory, n))
+                        .distinct()
+                        .map(id -> Maps.immutableEntry(id, t)))
+                .collect(ImmutableCollectors.toMap());
+        relationIDs = jsonMetadata.relations.stream()
+                .map(t -> JsonMetadata.deserializeRelationID(idFactory, t.name))
+                .collect(ImmutableCollectors.toList());
     }
 
 
@@ -83,7 +93,7 @@ public class JsonSerializedMetadataProvider implements SerializedMetadataProvide
 
     @Override
     public ImmutableList<RelationID> getRelationIDs() throws MetadataExtractionException {
-        return ImmutableList.copyOf(relationMap.keySet());
+        return relationIDs;
     }
 
     @Override
@@ -84,4 +84,9 @@ public class OracleDBMetadataProvider extends DefaultSchemaDBMetadataProvider {
                 "   NOT view_name LIKE 'LOGMNR_%' AND " +
                 "   NOT view_name LIKE 'AQ$_%'");
     }
+
+    @Override
+    protected String getSampleQuery(String table, String columns, int sampleSize) {
+        return "SELECT " + columns + " FROM " + table + " WHERE ROWNUM <= " + sampleSize;
+    }
 }
@@ -24,6 +24,11 @@ public class SQLServerDBMetadataProvider extends DefaultSchemaCatalogDBMetadataP
         return IGNORED_SCHEMAS.contains(getRelationSchema(id));
     }
 
+    @Override
+    protected String getSampleQuery(String table, String columns, int sampleSize) {
+        return "SELECT TOP " + sampleSize + " " + columns + " FROM " + table;
+    }
+
     /*
                 "SELECT DB_NAME() AS TABLE_CAT, SCHEMA_NAME() AS TABLE_SCHEM");
         https://msdn.microsoft.com/en-us/library/ms175068.aspx
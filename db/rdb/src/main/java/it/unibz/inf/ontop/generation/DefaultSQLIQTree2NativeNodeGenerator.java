@@ -6,6 +6,7 @@ import com.google.inject.Inject;
 import it.unibz.inf.ontop.iq.transform.IQTree2NativeNodeGenerator;
 import it.unibz.inf.ontop.generation.algebra.IQTree2SelectFromWhereConverter;
 import it.unibz.inf.ontop.generation.algebra.SelectFromWhereWithModifiers;
+import it.unibz.inf.ontop.generation.serializer.SQLSerializationException;
 import it.unibz.inf.ontop.generation.serializer.SelectFromWhereSerializer;
 import it.unibz.inf.ontop.dbschema.DBParameters;
 import it.unibz.inf.ontop.dbschema.QuotedID;
@@ -14,6 +15,7 @@ import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.iq.node.NativeNode;
 import it.unibz.inf.ontop.iq.type.UniqueTermTypeExtractor;
+import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.model.type.TypeFactory;
@@ -29,37 +31,82 @@ public class DefaultSQLIQTree2NativeNodeGenerator implements IQTree2NativeNodeGe
     private final IntermediateQueryFactory iqFactory;
     private final UniqueTermTypeExtractor uniqueTermTypeExtractor;
     private final DBTermType abstractRootDBType;
+    private final TermFactory termFactory;
 
     @Inject
     private DefaultSQLIQTree2NativeNodeGenerator(SelectFromWhereSerializer serializer,
                                                  IQTree2SelectFromWhereConverter converter,
                                                  IntermediateQueryFactory iqFactory,
                                                  UniqueTermTypeExtractor uniqueTermTypeExtractor,
-                                                 TypeFactory typeFactory) {
+                                                 TypeFactory typeFactory,
+                                                 TermFactory termFactory) {
         this.serializer = serializer;
         this.converter = converter;
         this.iqFactory = iqFactory;
         this.uniqueTermTypeExtractor = uniqueTermTypeExtractor;
         abstractRootDBType = typeFactory.getDBTypeFactory().getAbstractRootDBType();
+        this.termFactory = termFactory;
     }
 
 
+    /**
+     * The constants are inlined, but the parameters of the nested native nodes (if any) are kept
+     */
     @Override
     public NativeNode generate(IQTree iqTree, DBParameters dbParameters, boolean tolerateUnknownTypes) {
+        if (SQLParameterExtractor.hasNestedParameters(iqTree))
+            return generate(iqTree, dbParameters, tolerateUnknownTypes,
+                    new SQLParameterExtractor(iqFactory, termFactory, false))
+                    .orElseThrow(() -> new SQLSerializationException("The parameters of a nested native query cannot "
+                            + "be combined with SQL containing question marks (e.g. PostgreSQL JSON operators):\n"
+                            + iqTree));
+
         ImmutableSortedSet<Variable> signature = ImmutableSortedSet.copyOf(iqTree.getVariables());
 
         SelectFromWhereWithModifiers selectFromWhere = converter.convert(iqTree, signature);
         SelectFromWhereSerializer.QuerySerialization serializedQuery = serializer.serialize(selectFromWhere, dbParameters);
 
-        ImmutableMap<Variable, DBTermType> variableTypeMap = extractVariableTypeMap(iqTree, tolerateUnknownTypes);
+        return iqFactory.createNativeNode(signature, extractVariableTypeMap(iqTree, tolerateUnknownTypes),
+                extractColumnNames(serializedQuery), serializedQuery.getString(), iqTree.getVariableNullability());
+    }
+
+    /**
+     * The constants are not extracted if the SQL of the mapping contains question marks
+     * (e.g. PostgreSQL JSON operators), as they could not be told apart from the placeholders.
+     */
+    @Override
+    public NativeNode generateWithParameters(IQTree iqTree, DBParameters dbParameters) {
+        return generate(iqTree, dbParameters, false, new SQLParameterExtractor(iqFactory, termFactory, true))
+                .orElseGet(() -> generate(iqTree, dbParameters, false));
+    }
+
+    /**
+     * Empty if the serialized query contains question marks that are not placeholders, and therefore
+     * cannot be parameterized
+     */
+    private Optional<NativeNode> generate(IQTree iqTree, DBParameters dbParameters, boolean tolerateUnknownTypes,
+                                          SQLParameterExtractor parameterExtractor) {
+        ImmutableSortedSet<Variable> signature = ImmutableSortedSet.copyOf(iqTree.getVariables());
 
-        ImmutableMap<Variable, QuotedID> columnNames = serializedQuery.getColumnIDs().entrySet().stream()
+        SelectFromWhereWithModifiers selectFromWhere = converter.convert(parameterExtractor.transform(iqTree), signature);
+        SelectFromWhereSerializer.QuerySerialization serializedQuery = serializer.serialize(selectFromWhere, dbParameters);
+        if (SQLParameterExtractor.hasQuestionMarks(serializedQuery.getString()))
+            return Optional.empty();
+
+        SQLParameterExtractor.ParameterizedString parameterizedString = parameterExtractor.replaceMarkers(
+                serializedQuery.getString());
+
+        return Optional.of(iqFactory.createNativeNode(signature, extractVariableTypeMap(iqTree, tolerateUnknownTypes),
+                extractColumnNames(serializedQuery), parameterizedString.getString(),
+                parameterizedString.getParameters(), iqTree.getVariableNullability()));
+    }
+
+    private static ImmutableMap<Variable, QuotedID> extractColumnNames(
+            SelectFromWhereSerializer.QuerySerialization serializedQuery) {
+        return serializedQuery.getColumnIDs().entrySet().stream()
                 .collect(ImmutableCollectors.toMap(
                         Map.Entry::getKey,
                         e -> e.getValue().getAttribute()));
-
-        return iqFactory.createNativeNode(signature, variableTypeMap, columnNames,
-                serializedQuery.getString(), iqTree.getVariableNullability());
     }
 
     private ImmutableMap<Variable, DBTermType> extractVariableTypeMap(IQTree tree, boolean tolerateUnknownTypes) {
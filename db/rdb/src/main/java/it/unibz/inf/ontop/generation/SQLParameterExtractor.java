@@ -0,0 +1,300 @@
+package it.unibz.inf.ontop.generation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.BooleanFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBStrictEqFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.impl.AbstractDBInequalityOperator;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.impl.AbstractDBNonStrictEqOperator;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.impl.AbstractTypedDBFunctionSymbol;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the parameters of a native query: the parameters of the native nodes nested in the tree and, if enabled,
+ * the string, integer and decimal constants compared to non-constant terms in the conditions of the filters,
+ * inner joins and left joins.
+ *
+ * The constants are first replaced in the tree by parameter terms, serialized as markers.
+ * The placeholders of the nested native nodes are replaced by markers as well.
+ * Once the query has been serialized, the markers are replaced by placeholders ("?").
+ * The markers contain a random nonce, so that they cannot be confused with the content of a string constant.
+ *
+ * One instance per native query.
+ */
+class SQLParameterExtractor {
+
+    private static final ImmutableSet<DBTermType.Category> PARAMETER_CATEGORIES = ImmutableSet.of(
+            DBTermType.Category.STRING, DBTermType.Category.INTEGER, DBTermType.Category.DECIMAL);
+    private static final String PLACEHOLDER = "?";
+
+    private final IntermediateQueryFactory iqFactory;
+    private final TermFactory termFactory;
+    private final boolean extractConstants;
+    private final String nonce;
+    private final Pattern markerPattern;
+
+    // Mutable, indexed by the parameter number of the markers
+    private final List<DBConstant> constants = new ArrayList<>();
+
+    /**
+     * If extractConstants is false, only the parameters of the nested native nodes are extracted
+     */
+    SQLParameterExtractor(IntermediateQueryFactory iqFactory, TermFactory termFactory, boolean extractConstants) {
+        this.iqFactory = iqFactory;
+        this.termFactory = termFactory;
+        this.extractConstants = extractConstants;
+        this.nonce = "p" + UUID.randomUUID().toString().replace("-", "");
+        this.markerPattern = Pattern.compile(nonce + "_([0-9]+)_");
+    }
+
+    IQTree transform(IQTree tree) {
+        return new ParameterTransformer(iqFactory).transformChild(tree);
+    }
+
+    /**
+     * True if a native node with parameters is nested in the tree
+     */
+    static boolean hasNestedParameters(IQTree tree) {
+        return (tree instanceof NativeNode)
+                ? !((NativeNode) tree).getParameters().isEmpty()
+                : tree.getChildren().stream().anyMatch(SQLParameterExtractor::hasNestedParameters);
+    }
+
+    /**
+     * Replaces the markers by placeholders. The parameters follow the order of the placeholders.
+     */
+    ParameterizedString replaceMarkers(String serializedQuery) {
+        ImmutableList.Builder<DBConstant> parameterBuilder = ImmutableList.builder();
+        Matcher matcher = markerPattern.matcher(serializedQuery);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            parameterBuilder.add(constants.get(Integer.parseInt(matcher.group(1))));
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(PLACEHOLDER));
+        }
+        matcher.appendTail(sb);
+        return new ParameterizedString(sb.toString(), parameterBuilder.build());
+    }
+
+    private String createMarker(DBConstant constant) {
+        int index = constants.size();
+        constants.add(constant);
+        return nonce + "_" + index + "_";
+    }
+
+    /**
+     * Replaces the placeholders of the native query string (outside the comments, quoted strings and identifiers)
+     * by markers.
+     *
+     * A native query with parameters has no other question mark (see DefaultSQLIQTree2NativeNodeGenerator).
+     */
+    private NativeNode transformNativeNode(NativeNode nativeNode) {
+        ImmutableList<DBConstant> parameters = nativeNode.getParameters();
+        if (parameters.isEmpty())
+            return nativeNode;
+
+        String queryString = nativeNode.getNativeQueryString();
+        ImmutableList<Integer> placeholderPositions = SQLPlaceholderScanner.findQuestionMarks(queryString);
+        if (placeholderPositions.size() != parameters.size())
+            throw new MinorOntopInternalBugException("The native query does not have a placeholder per parameter:\n"
+                    + nativeNode);
+
+        StringBuilder sb = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < parameters.size(); i++) {
+            int position = placeholderPositions.get(i);
+            sb.append(queryString, start, position)
+                    .append(createMarker(parameters.get(i)));
+            start = position + PLACEHOLDER.length();
+        }
+        sb.append(queryString.substring(start));
+
+        return iqFactory.createNativeNode(nativeNode.getVariables(), nativeNode.getTypeMap(),
+                nativeNode.getColumnNames(), sb.toString(), nativeNode.getVariableNullability());
+    }
+
+    /**
+     * True if the query serialized with markers contains question marks (outside the comments, quoted strings
+     * and identifiers). They come from the SQL of the mapping (e.g. PostgreSQL JSON operators ?, ?| and ?&)
+     * and would be confused with the placeholders.
+     */
+    static boolean hasQuestionMarks(String serializedQuery) {
+        return !SQLPlaceholderScanner.findQuestionMarks(serializedQuery).isEmpty();
+    }
+
+    private ImmutableExpression transformCondition(ImmutableExpression expression) {
+        if (!extractConstants)
+            return expression;
+
+        BooleanFunctionSymbol functionSymbol = expression.getFunctionSymbol();
+        ImmutableList<? extends ImmutableTerm> terms = expression.getTerms();
+
+        Function<ImmutableTerm, ImmutableTerm> termTransformer;
+        if (isComparison(functionSymbol)) {
+            if (terms.stream().allMatch(t -> t instanceof Constant))
+                return expression;
+            termTransformer = this::transformComparedTerm;
+        }
+        else
+            termTransformer = t -> (t instanceof ImmutableExpression)
+                    ? transformCondition((ImmutableExpression) t)
+                    : t;
+
+        ImmutableList<ImmutableTerm> newTerms = terms.stream()
+                .map(termTransformer)
+                .collect(ImmutableCollectors.toList());
+
+        return newTerms.equals(terms)
+                ? expression
+                : termFactory.getImmutableExpression(functionSymbol, newTerms);
+    }
+
+    private static boolean isComparison(BooleanFunctionSymbol functionSymbol) {
+        return (functionSymbol instanceof DBStrictEqFunctionSymbol)
+                || (functionSymbol instanceof AbstractDBNonStrictEqOperator)
+                || (functionSymbol instanceof AbstractDBInequalityOperator);
+    }
+
+    private ImmutableTerm transformComparedTerm(ImmutableTerm term) {
+        if (!(term instanceof DBConstant))
+            return term;
+
+        DBConstant constant = (DBConstant) term;
+        if (!PARAMETER_CATEGORIES.contains(constant.getType().getCategory()))
+            return term;
+
+        return termFactory.getImmutableFunctionalTerm(
+                new ParameterFunctionSymbol(createMarker(constant), constant.getType()));
+    }
+
+    private Optional<ImmutableExpression> transformCondition(Optional<ImmutableExpression> condition) {
+        return condition.map(this::transformCondition);
+    }
+
+
+    /**
+     * The nested native nodes do not accept transformers, so they are handled when transforming their parent
+     */
+    private class ParameterTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        ParameterTransformer(IntermediateQueryFactory iqFactory) {
+            super(iqFactory);
+        }
+
+        IQTree transformChild(IQTree child) {
+            return (child instanceof NativeNode)
+                    ? transformNativeNode((NativeNode) child)
+                    : child.acceptTransformer(this);
+        }
+
+        private ImmutableList<IQTree> transformChildren(ImmutableList<IQTree> children) {
+            return children.stream()
+                    .map(this::transformChild)
+                    .collect(ImmutableCollectors.toList());
+        }
+
+        @Override
+        public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
+            return iqFactory.createUnaryIQTree(
+                    rootNode.changeFilterCondition(transformCondition(rootNode.getFilterCondition())),
+                    transformChild(child));
+        }
+
+        @Override
+        public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            return iqFactory.createNaryIQTree(
+                    rootNode.changeOptionalFilterCondition(transformCondition(rootNode.getOptionalFilterCondition())),
+                    transformChildren(children));
+        }
+
+        @Override
+        public IQTree transformLeftJoin(IQTree tree, LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+            return iqFactory.createBinaryNonCommutativeIQTree(
+                    rootNode.changeOptionalFilterCondition(transformCondition(rootNode.getOptionalFilterCondition())),
+                    transformChild(leftChild),
+                    transformChild(rightChild));
+        }
+
+        @Override
+        protected IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
+            return iqFactory.createUnaryIQTree(rootNode, transformChild(child));
+        }
+
+        @Override
+        protected IQTree transformNaryCommutativeNode(IQTree tree, NaryOperatorNode rootNode,
+                                                      ImmutableList<IQTree> children) {
+            return iqFactory.createNaryIQTree(rootNode, transformChildren(children));
+        }
+
+        @Override
+        protected IQTree transformBinaryNonCommutativeNode(IQTree tree, BinaryNonCommutativeOperatorNode rootNode,
+                                                           IQTree leftChild, IQTree rightChild) {
+            return iqFactory.createBinaryNonCommutativeIQTree(rootNode, transformChild(leftChild),
+                    transformChild(rightChild));
+        }
+    }
+
+    /**
+     * Nullary, serialized as a marker (cast for decimals, like the constants)
+     */
+    private static class ParameterFunctionSymbol extends AbstractTypedDBFunctionSymbol {
+
+        private final String marker;
+
+        ParameterFunctionSymbol(String marker, DBTermType type) {
+            super(marker, ImmutableList.of(), type);
+            this.marker = marker;
+        }
+
+        @Override
+        public String getNativeDBString(ImmutableList<? extends ImmutableTerm> terms,
+                                        Function<ImmutableTerm, String> termConverter, TermFactory termFactory) {
+            DBTermType type = getTargetType();
+            return type.getCategory() == DBTermType.Category.DECIMAL
+                    ? String.format("CAST(%s AS %s)", marker, type.getCastName())
+                    : marker;
+        }
+
+        @Override
+        public boolean isAlwaysInjectiveInTheAbsenceOfNonInjectiveFunctionalTerms() {
+            return true;
+        }
+
+        @Override
+        public boolean canBePostProcessed(ImmutableList<? extends ImmutableTerm> arguments) {
+            return false;
+        }
+    }
+
+    static class ParameterizedString {
+        private final String string;
+        private final ImmutableList<DBConstant> parameters;
+
+        private ParameterizedString(String string, ImmutableList<DBConstant> parameters) {
+            this.string = string;
+            this.parameters = parameters;
+        }
+
+        String getString() {
+            return string;
+        }
+
+        ImmutableList<DBConstant> getParameters() {
+            return parameters;
+        }
+    }
+}
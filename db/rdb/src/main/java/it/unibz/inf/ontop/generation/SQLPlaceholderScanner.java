@@ -0,0 +1,128 @@
+package it.unibz.inf.ontop.generation;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Finds the question marks of a SQL string that are neither in a comment nor in a quoted string or identifier.
+ *
+ * Skips:
+ *   - the line comments (--) and the block comments (possibly nested, like in PostgreSQL),
+ *   - the string literals ('...', with doubled quotes, and E'...' with backslash escapes),
+ *   - the quoted identifiers ("...", `...` and [...]),
+ *   - the PostgreSQL dollar-quoted strings ($$...$$ and $tag$...$tag$).
+ *
+ * The question marks found are either JDBC placeholders or dialect operators (e.g. the PostgreSQL ?, ?| and ?&
+ * JSON operators), which cannot be told apart in general.
+ */
+final class SQLPlaceholderScanner {
+
+    private SQLPlaceholderScanner() {
+    }
+
+    /**
+     * Positions of the question marks, in order
+     */
+    static ImmutableList<Integer> findQuestionMarks(String sql) {
+        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-')
+                i = skipLineComment(sql, i + 2);
+            else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*')
+                i = skipBlockComment(sql, i + 2);
+            else if (c == '\'')
+                i = skipQuoted(sql, i + 1, '\'', isEscapeStringPrefix(sql, i));
+            else if (c == '"' || c == '`')
+                i = skipQuoted(sql, i + 1, c, false);
+            else if (c == '[')
+                i = skipQuoted(sql, i + 1, ']', false);
+            else if (c == '$' && !isIdentifierPart(sql, i - 1))
+                i = skipDollarQuoted(sql, i);
+            else {
+                if (c == '?')
+                    builder.add(i);
+                i++;
+            }
+        }
+        return builder.build();
+    }
+
+    private static int skipLineComment(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    private static int skipBlockComment(String sql, int start) {
+        int depth = 1;
+        int i = start;
+        while (i < sql.length() && depth > 0) {
+            if (sql.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            }
+            else if (sql.startsWith("*/", i)) {
+                depth--;
+                i += 2;
+            }
+            else
+                i++;
+        }
+        return i;
+    }
+
+    /**
+     * A doubled closing character stands for itself
+     */
+    private static int skipQuoted(String sql, int start, char closing, boolean hasBackslashEscapes) {
+        int i = start;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (hasBackslashEscapes && c == '\\')
+                i += 2;
+            else if (c == closing) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == closing)
+                    i += 2;
+                else
+                    return i + 1;
+            }
+            else
+                i++;
+        }
+        return i;
+    }
+
+    /**
+     * Not a dollar-quoted string if the tag is not followed by a dollar (e.g. positional parameter $1)
+     */
+    private static int skipDollarQuoted(String sql, int start) {
+        int tagEnd = start + 1;
+        while (tagEnd < sql.length() && isTagPart(sql.charAt(tagEnd)))
+            tagEnd++;
+        if (tagEnd >= sql.length() || sql.charAt(tagEnd) != '$'
+                || (tagEnd > start + 1 && Character.isDigit(sql.charAt(start + 1))))
+            return start + 1;
+
+        String tag = sql.substring(start, tagEnd + 1);
+        int end = sql.indexOf(tag, tagEnd + 1);
+        return end < 0 ? sql.length() : end + tag.length();
+    }
+
+    private static boolean isEscapeStringPrefix(String sql, int quoteIndex) {
+        return quoteIndex > 0
+                && Character.toUpperCase(sql.charAt(quoteIndex - 1)) == 'E'
+                && !isIdentifierPart(sql, quoteIndex - 2);
+    }
+
+    private static boolean isIdentifierPart(String sql, int index) {
+        if (index < 0)
+            return false;
+        char c = sql.charAt(index);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isTagPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
@@ -4,8 +4,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.inject.Inject;
-import it.unibz.inf.ontop.generation.algebra.*;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.generation.algebra.*;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.iq.UnaryIQTree;
@@ -173,6 +173,10 @@ public class IQTree2SelectFromWhereConverterImpl implements IQTree2SelectFromWhe
         QueryNode rootNode = tree.getRootNode();
         if (rootNode instanceof NativeNode) {
             NativeNode nativeNode = (NativeNode) rootNode;
+            // The parameters are expected to have been replaced by markers (see SQLParameterExtractor)
+            if (!nativeNode.getParameters().isEmpty())
+                throw new MinorOntopInternalBugException("The parameters of a nested native node would be lost:\n"
+                        + nativeNode);
             String sqlQuery = nativeNode.getNativeQueryString();
             return sqlAlgebraFactory.createSQLSerializedQuery(sqlQuery, nativeNode.getColumnNames());
         }
@@ -9,6 +9,7 @@ import it.unibz.inf.ontop.model.vocabulary.XSD;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -86,7 +87,8 @@ public class DefaultSQLDBTypeFactory implements SQLDBTypeFactory {
 
     protected DefaultSQLDBTypeFactory(Map<String, DBTermType> typeMap,
                                       ImmutableMap<DefaultTypeCode, String> defaultTypeCodeMap) {
-        sqlTypeMap = typeMap;
+        // Extended concurrently with the types found in the DB metadata
+        sqlTypeMap = new ConcurrentHashMap<>(typeMap);
         this.defaultTypeCodeMap = defaultTypeCodeMap;
         // TODO: get it from the settings
         this.defaultStrictEqSupport = SAME_TYPE_NO_CONSTANT;
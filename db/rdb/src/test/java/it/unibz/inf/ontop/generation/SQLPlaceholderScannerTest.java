@@ -0,0 +1,48 @@
+package it.unibz.inf.ontop.generation;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SQLPlaceholderScannerTest {
+
+    @Test
+    public void testPlaceholders() {
+        assertEquals(ImmutableList.of(30, 40),
+                SQLPlaceholderScanner.findQuestionMarks("SELECT a FROM t WHERE a = 1 + ? AND b = ?"));
+    }
+
+    @Test
+    public void testQuotedStringsAndIdentifiers() {
+        assertEquals(ImmutableList.of(56),
+                SQLPlaceholderScanner.findQuestionMarks("SELECT \"a?\", `b?`, [c?] FROM t WHERE d = 'e''?' AND f = ?"));
+    }
+
+    @Test
+    public void testEscapeString() {
+        assertEquals(ImmutableList.of(28),
+                SQLPlaceholderScanner.findQuestionMarks("SELECT E'a\\'?' FROM t WHERE ?"));
+    }
+
+    @Test
+    public void testComments() {
+        assertEquals(ImmutableList.of(50),
+                SQLPlaceholderScanner.findQuestionMarks("SELECT a -- a?\n FROM t /* b? /* c? */ d? */ WHERE ?"));
+    }
+
+    @Test
+    public void testDollarQuotedStrings() {
+        assertEquals(ImmutableList.of(39),
+                SQLPlaceholderScanner.findQuestionMarks("SELECT $$a?$$, $tag$b?$tag$ WHERE $1 = ?"));
+    }
+
+    /**
+     * Not in a comment nor in a literal: found, although they are PostgreSQL JSON operators
+     */
+    @Test
+    public void testPostgresJsonOperators() {
+        assertEquals(ImmutableList.of(24, 36, 56),
+                SQLPlaceholderScanner.findQuestionMarks("SELECT a FROM t WHERE b ? 'k' AND c ?| array['k'] AND d ?& array['k']"));
+    }
+}
@@ -0,0 +1,21 @@
+package it.unibz.inf.ontop.answering.logging;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of the query log messages (one JSON object per message).
+ *
+ * Only called by the background thread of the query log writer, so implementations do not need to be thread-safe.
+ * Resources (files, sockets) should be opened lazily, as the sink is also instantiated when query logging is disabled.
+ */
+public interface QueryLogSink extends AutoCloseable {
+
+    /**
+     * Writes a batch of messages
+     */
+    void write(List<String> messages) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,50 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Writes to the standard output, to a rolling file or to a local socket, depending on the settings
+ */
+public class DefaultQueryLogSink implements QueryLogSink {
+
+    private final QueryLogSink delegate;
+
+    @Inject
+    protected DefaultQueryLogSink(OntopReformulationSettings settings) {
+        switch (settings.getQueryLoggingSink()) {
+            case FILE:
+                String file = settings.getQueryLoggingFile()
+                        .orElseThrow(() -> new InvalidOntopConfigurationException(
+                                OntopReformulationSettings.QUERY_LOGGING_FILE + " is required by the file sink"));
+                delegate = new RollingFileQueryLogSink(Paths.get(file), settings.getQueryLoggingFileMaxSize(),
+                        settings.getQueryLoggingFileMaxCount());
+                break;
+            case SOCKET:
+                int port = settings.getQueryLoggingSocketPort()
+                        .orElseThrow(() -> new InvalidOntopConfigurationException(
+                                OntopReformulationSettings.QUERY_LOGGING_SOCKET_PORT + " is required by the socket sink"));
+                delegate = new SocketQueryLogSink(port);
+                break;
+            case STDOUT:
+            default:
+                delegate = new PrintStreamQueryLogSink(System.out);
+        }
+    }
+
+    @Override
+    public void write(List<String> messages) throws IOException {
+        delegate.write(messages);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
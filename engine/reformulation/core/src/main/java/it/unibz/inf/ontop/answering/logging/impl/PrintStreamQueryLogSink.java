@@ -0,0 +1,35 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * One message per line. Does not close the stream (typically System.out).
+ */
+class PrintStreamQueryLogSink implements QueryLogSink {
+
+    private final PrintStream outputStream;
+
+    PrintStreamQueryLogSink(PrintStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void write(List<String> messages) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String message : messages)
+            sb.append(message).append(System.lineSeparator());
+        outputStream.print(sb);
+        outputStream.flush();
+        if (outputStream.checkError())
+            throw new IOException("Could not write to the output stream");
+    }
+
+    @Override
+    public void close() {
+        outputStream.flush();
+    }
+}
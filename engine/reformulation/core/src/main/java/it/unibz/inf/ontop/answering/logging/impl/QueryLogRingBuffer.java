@@ -0,0 +1,93 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free queue with multiple producers and a single consumer.
+ *
+ * Each slot has a sequence number telling whether it is free for the producer claiming a given position
+ * or filled for the consumer (bounded MPMC queue of D. Vyukov, restricted to one consumer).
+ * Producers never block: offer() returns false when the buffer is full.
+ */
+class QueryLogRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only accessed by the consumer
+    private long head = 0;
+
+    /**
+     * The capacity is rounded up to a power of two
+     */
+    QueryLogRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+        this.mask = capacity - 1;
+    }
+
+    int getCapacity() {
+        return elements.length;
+    }
+
+    /**
+     * Returns false if the buffer is full. Thread-safe.
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    // Publishes the element
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            }
+            else if (difference < 0)
+                // The slot has not been consumed yet
+                return false;
+            else
+                // Claimed by another producer
+                position = tail.get();
+        }
+    }
+
+    /**
+     * Only called by the consumer.
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    /**
+     * Moves at most maxCount elements into the list. Returns the number of elements moved.
+     *
+     * Only called by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<? super E> list, int maxCount) {
+        int count = 0;
+        while (count < maxCount) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1)
+                break;
+            list.add((E) elements[index]);
+            elements[index] = null;
+            // Frees the slot for the producers of the next round
+            sequences.set(index, head + elements.length);
+            head++;
+            count++;
+        }
+        return count;
+    }
+}
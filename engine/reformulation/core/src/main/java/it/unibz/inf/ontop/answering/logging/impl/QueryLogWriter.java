@@ -0,0 +1,254 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the query log messages asynchronously, shared by all the query loggers of the query engine.
+ *
+ * The query threads only put the events into a bounded lock-free ring buffer. A background thread
+ * serializes them into JSON (including the extraction work deferred by the query loggers)
+ * and hands them over to the sink by batches.
+ *
+ * When the buffer is full, the events are dropped and counted instead of blocking the query threads.
+ * The events submitted while the writer is being closed are dropped as well.
+ *
+ * The background thread is only started when the first event is submitted. It blocks while the buffer is empty
+ * and is woken up by the query threads. It is stopped, after having written the remaining events, when the query
+ * engine is closed (a later event starts a new one).
+ */
+@Singleton
+public class QueryLogWriter implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryLogWriter.class);
+    private static final int MAX_BATCH_SIZE = 512;
+    private static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Serializes one message. Called by the background thread.
+     */
+    @FunctionalInterface
+    public interface QueryLogEvent {
+        void write(JsonGenerator js) throws IOException;
+    }
+
+    private final Provider<QueryLogSink> sinkProvider;
+    private final QueryLogRingBuffer<QueryLogEvent> buffer;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private volatile boolean isStarted = false;
+    // Set first by close(): rejects the new events
+    private volatile boolean isClosing = false;
+    // Then set once the submissions in progress are over: final round of the background thread
+    private volatile boolean isStopping = false;
+    // Set by the background thread before blocking
+    private volatile boolean isWaiting = false;
+    @Nullable
+    private volatile Thread thread;
+    // Query threads currently in submit(), waited for by close()
+    private final AtomicInteger activeSubmitCount = new AtomicInteger();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @Inject
+    protected QueryLogWriter(Provider<QueryLogSink> sinkProvider, OntopReformulationSettings settings) {
+        this.sinkProvider = sinkProvider;
+        this.buffer = new QueryLogRingBuffer<>(settings.getQueryLoggingBufferSize());
+    }
+
+    /**
+     * Never blocks. Returns false if the event has been dropped (buffer full or writer being closed).
+     */
+    public boolean submit(QueryLogEvent event) {
+        activeSubmitCount.incrementAndGet();
+        try {
+            // Once closing has started, the background thread may have already drained the buffer for the last time
+            if (isClosing || !buffer.offer(event)) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            submittedCount.incrementAndGet();
+        } finally {
+            activeSubmitCount.decrementAndGet();
+        }
+
+        // After the offer, so that an event submitted just after close() is written by a new thread
+        if (!isStarted)
+            start();
+        else if (isWaiting) {
+            Thread t = thread;
+            if (t != null)
+                LockSupport.unpark(t);
+        }
+        return true;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Events rejected because the buffer was full or the writer was being closed
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Events that could not be serialized or written by the sink
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Waits until all the events submitted so far have been handled (written or failed)
+     */
+    public void flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long target = submittedCount.get();
+        while (writtenCount.get() + failedCount.get() < target) {
+            if (System.nanoTime() > deadline)
+                return;
+            Thread.sleep(1);
+        }
+    }
+
+    boolean isRunning() {
+        Thread t = thread;
+        return t != null && t.isAlive();
+    }
+
+    private synchronized void start() {
+        if (isStarted)
+            return;
+        isStopping = false;
+        Thread t = new Thread(this::run, "ontop-query-log-writer");
+        t.setDaemon(true);
+        thread = t;
+        isStarted = true;
+        t.start();
+    }
+
+    /**
+     * Writes the remaining events and stops the background thread (waits at most 5 seconds).
+     * Called when the query engine is closed.
+     *
+     * The events submitted from now on are rejected. The submissions already in progress are waited for
+     * (they never block), so that their events are written in the final round of the background thread.
+     */
+    @Override
+    public synchronized void close() {
+        Thread t = thread;
+        if (!isStarted || t == null)
+            return;
+
+        isClosing = true;
+        while (activeSubmitCount.get() > 0)
+            Thread.yield();
+        isStopping = true;
+        LockSupport.unpark(t);
+        try {
+            t.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Otherwise, still the only consumer of the buffer: no new thread
+        if (!t.isAlive()) {
+            thread = null;
+            isStarted = false;
+            isClosing = false;
+        }
+        else
+            LOGGER.warn("The query log writer did not stop in time");
+    }
+
+    private void run() {
+        List<QueryLogEvent> events = new ArrayList<>(MAX_BATCH_SIZE);
+        List<String> messages = new ArrayList<>(MAX_BATCH_SIZE);
+        long reportedDroppedCount = 0;
+
+        try (QueryLogSink sink = sinkProvider.get()) {
+            while (true) {
+                boolean isFinalRound = isStopping;
+                if (buffer.drainTo(events, MAX_BATCH_SIZE) == 0) {
+                    if (isFinalRound)
+                        break;
+                    waitForEvents();
+                    continue;
+                }
+
+                for (QueryLogEvent event : events) {
+                    try {
+                        messages.add(serialize(event));
+                    } catch (IOException | RuntimeException e) {
+                        failedCount.incrementAndGet();
+                        LOGGER.error(QueryLoggerImpl.OUTPUT_STREAM_JSON_ERROR + e);
+                    }
+                }
+                events.clear();
+
+                try {
+                    sink.write(messages);
+                    writtenCount.addAndGet(messages.size());
+                } catch (IOException | RuntimeException e) {
+                    failedCount.addAndGet(messages.size());
+                    LOGGER.error("Could not write " + messages.size() + " query log messages: " + e);
+                }
+                messages.clear();
+
+                long currentDroppedCount = droppedCount.get();
+                if (currentDroppedCount > reportedDroppedCount) {
+                    LOGGER.warn("Query log buffer full: " + (currentDroppedCount - reportedDroppedCount)
+                            + " messages dropped (" + currentDroppedCount + " in total)");
+                    reportedDroppedCount = currentDroppedCount;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Query log sink failure: " + e);
+        }
+    }
+
+    /**
+     * The buffer is checked again after having declared the wait, so that no wake-up by a query thread is missed
+     * (a pending unpark makes park() return immediately).
+     */
+    private void waitForEvents() {
+        isWaiting = true;
+        if (buffer.isEmpty() && !isStopping)
+            LockSupport.park(this);
+        isWaiting = false;
+    }
+
+    private String serialize(QueryLogEvent event) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
+            event.write(js);
+        }
+        return stringWriter.toString();
+    }
+}
@@ -2,6 +2,8 @@ package it.unibz.inf.ontop.answering.logging.impl;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
@@ -10,7 +12,9 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.logging.impl.ClassAndPropertyExtractor.ClassesAndProperties;
-import it.unibz.inf.ontop.answering.logging.impl.QueryTemplateExtractor.QueryTemplateExtraction;
+import it.unibz.inf.ontop.answering.logging.impl.QueryLogWriter.QueryLogEvent;
+import it.unibz.inf.ontop.answering.reformulation.impl.QueryTemplateExtractor;
+import it.unibz.inf.ontop.answering.reformulation.impl.QueryTemplateExtractor.QueryTemplateExtraction;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.iq.IQ;
@@ -26,9 +30,9 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
-import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
@@ -36,6 +40,12 @@ import java.util.UUID;
 
 /**
  * See QueryLogger.Factory for constructing new instances
+ *
+ * By default, the messages are serialized and written asynchronously by the QueryLogWriter of the query engine.
+ * The extraction of the classes, properties, tables and query template is also deferred to the writer thread.
+ *
+ * The information about the query is set once by the query thread, before the messages that use it are submitted
+ * (the submission makes it visible to the writer thread).
  */
 public class QueryLoggerImpl implements QueryLogger {
 
@@ -74,19 +84,24 @@ public class QueryLoggerImpl implements QueryLogger {
     protected static final String PREDEFINED_QUERY_KEY = "queryId";
     protected static final String BINDINGS_KEY = "bindings";
 
-    private static final DateFormat  DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+            .withZone(ZoneId.systemDefault());
+    // Thread-safe
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
     private static final Logger REGULAR_LOGGER = LoggerFactory.getLogger(QueryLoggerImpl.class);
-    ;
 
 
     private final UUID queryId;
     private final long creationTime;
+    // Synchronous writing if not null
+    @Nullable
     private final PrintStream outputStream;
+    @Nullable
+    private final QueryLogWriter writer;
     private final ImmutableMultimap<String, String> httpHeaders;
     private final OntopReformulationSettings settings;
     private final boolean disabled;
     private final String applicationName;
-    private final JsonFactory jsonFactory;
     private final boolean isDecompositionEnabled;
     private final boolean isMergingEnabled;
     private long reformulationTime;
@@ -95,16 +110,17 @@ public class QueryLoggerImpl implements QueryLogger {
     private final RelationNameExtractor relationNameExtractor;
     private final QueryTemplateExtractor queryTemplateExtractor;
 
+    // Memoized (computed by the writer thread)
     @Nullable
-    private ImmutableSet<IRI> classes, properties;
+    private Supplier<ClassesAndProperties> classesAndProperties;
     @Nullable
-    private ImmutableSet<String> relationNames;
+    private Supplier<ImmutableSet<String>> relationNames;
 
     @Nullable
     private String sparqlQueryString;
 
     @Nullable
-    private QueryTemplateExtraction queryTemplate;
+    private Supplier<Optional<QueryTemplateExtraction>> queryTemplate;
 
     @Nullable
     private IQ reformulatedQuery;
@@ -122,15 +138,30 @@ public class QueryLoggerImpl implements QueryLogger {
                               OntopReformulationSettings settings,
                               ClassAndPropertyExtractor classAndPropertyExtractor,
                               RelationNameExtractor relationNameExtractor,
-                              QueryTemplateExtractor queryTemplateExtractor) {
-        this(System.out, httpHeaders, settings, classAndPropertyExtractor, relationNameExtractor, queryTemplateExtractor);
+                              QueryTemplateExtractor queryTemplateExtractor,
+                              QueryLogWriter writer) {
+        this(null, writer, httpHeaders, settings, classAndPropertyExtractor, relationNameExtractor,
+                queryTemplateExtractor);
     }
 
+    /**
+     * Writes synchronously to the output stream
+     */
     protected QueryLoggerImpl(PrintStream outputStream, ImmutableMultimap<String, String> httpHeaders,
                               OntopReformulationSettings settings,
                               ClassAndPropertyExtractor classAndPropertyExtractor,
                               RelationNameExtractor relationNameExtractor, QueryTemplateExtractor queryTemplateExtractor) {
+        this(outputStream, null, httpHeaders, settings, classAndPropertyExtractor, relationNameExtractor,
+                queryTemplateExtractor);
+    }
+
+    private QueryLoggerImpl(@Nullable PrintStream outputStream, @Nullable QueryLogWriter writer,
+                            ImmutableMultimap<String, String> httpHeaders,
+                            OntopReformulationSettings settings,
+                            ClassAndPropertyExtractor classAndPropertyExtractor,
+                            RelationNameExtractor relationNameExtractor, QueryTemplateExtractor queryTemplateExtractor) {
         this.outputStream = outputStream;
+        this.writer = writer;
         this.httpHeaders = httpHeaders;
         this.settings = settings;
         this.classAndPropertyExtractor = classAndPropertyExtractor;
@@ -141,7 +172,6 @@ public class QueryLoggerImpl implements QueryLogger {
         applicationName = settings.getApplicationName();
         reformulationTime = -1;
         unblockedResulSetTime = -1;
-        jsonFactory = new JsonFactory();
 
         this.disabled = !settings.isQueryLoggingEnabled();
         this.isDecompositionEnabled = settings.isQueryLoggingDecompositionEnabled();
@@ -156,10 +186,10 @@ public class QueryLoggerImpl implements QueryLogger {
         reformulationTime = System.currentTimeMillis();
 
         if (isDecompositionEnabled) {
-            StringWriter stringWriter = new StringWriter();
-            try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
+            long time = reformulationTime;
+            emit(js -> {
                 js.writeStartObject();
-                js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(System.currentTimeMillis()));
+                js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(time));
                 js.writeStringField(MESSAGE_KEY, QUERY_REFORMULATED);
                 js.writeStringField(APPLICATION_KEY, applicationName);
                 js.writeObjectFieldStart(PAYLOAD_KEY);
@@ -167,10 +197,7 @@ public class QueryLoggerImpl implements QueryLogger {
                 writeReformulationSpecificFields(reformulatedQuery, wasCached, js);
                 js.writeEndObject();
                 js.writeEndObject();
-            } catch (IOException ex) {
-                REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + ex);
-            }
-            outputStream.println(stringWriter.toString());
+            });
         }
 
         if (isMergingEnabled) {
@@ -181,24 +208,23 @@ public class QueryLoggerImpl implements QueryLogger {
     }
 
     protected void writeReformulationSpecificFields(IQ reformulatedQuery, boolean wasCached, JsonGenerator js) throws IOException {
-        // Classes
-        if (classes != null) {
+        if (classesAndProperties != null) {
+            ClassesAndProperties extraction = classesAndProperties.get();
+            // Classes
             js.writeArrayFieldStart(CLASSES_KEY);
-            for (IRI klass : classes)
+            for (IRI klass : extraction.getClasses())
                 js.writeString(klass.getIRIString());
             js.writeEndArray();
-        }
-        // Properties
-        if (properties != null) {
+            // Properties
             js.writeArrayFieldStart(PROPERTIES_KEY);
-            for (IRI p : properties)
+            for (IRI p : extraction.getProperties())
                 js.writeString(p.getIRIString());
             js.writeEndArray();
         }
         // Relations
         if (relationNames != null) {
             js.writeArrayFieldStart(TABLES_KEY);
-            for (String n : relationNames)
+            for (String n : relationNames.get())
                 js.writeString(n);
             js.writeEndArray();
         }
@@ -230,19 +256,20 @@ public class QueryLoggerImpl implements QueryLogger {
     }
 
     private void writeQueryTemplateExtraction(JsonGenerator js) throws IOException {
-        if (queryTemplate == null)
+        if (queryTemplate == null || !queryTemplate.get().isPresent())
             return;
+        QueryTemplateExtraction extraction = queryTemplate.get().get();
         js.writeObjectFieldStart(QUERY_TEMPLATE_KEY);
 
         // TODO: update Guava
         @SuppressWarnings("UnstableApiUsage")
         String iqHash = Hashing.sha256()
-                .hashString(queryTemplate.getIq().toString(), StandardCharsets.UTF_8)
+                .hashString(extraction.getIq().toString(), StandardCharsets.UTF_8)
                 .toString();
         js.writeStringField(HASH_KEY, iqHash);
 
         js.writeObjectFieldStart(PARAMETERS_KEY);
-        for (Map.Entry<GroundTerm, Variable> e : queryTemplate.getParameterMap().entrySet()) {
+        for (Map.Entry<GroundTerm, Variable> e : extraction.getParameterMap().entrySet()) {
             js.writeStringField(e.getValue().toString(), e.getKey().toString());
         }
         js.writeEndObject();
@@ -272,9 +299,7 @@ public class QueryLoggerImpl implements QueryLogger {
         unblockedResulSetTime = System.currentTimeMillis();
 
         if (isDecompositionEnabled) {
-
-            StringWriter stringWriter = new StringWriter();
-            try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
+            emit(js -> {
                 js.writeStartObject();
                 js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(unblockedResulSetTime));
                 js.writeStringField(MESSAGE_KEY, QUERY_RESULT_SET_UNBLOCKED);
@@ -284,11 +309,7 @@ public class QueryLoggerImpl implements QueryLogger {
                 writeResultSetUnblockedSpecificFields(js);
                 js.writeEndObject();
                 js.writeEndObject();
-            } catch (IOException e) {
-                REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + e);
-                return;
-            }
-            outputStream.println(stringWriter.toString());
+            });
         }
     }
 
@@ -308,9 +329,7 @@ public class QueryLoggerImpl implements QueryLogger {
             throw new IllegalStateException("Result set should have been declared as unblocked");
 
         if (isDecompositionEnabled) {
-
-            StringWriter stringWriter = new StringWriter();
-            try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
+            emit(js -> {
                 js.writeStartObject();
                 js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(lastResultFetchedTime));
                 js.writeStringField(MESSAGE_KEY, QUERY_LAST_RESULT_FETCHED);
@@ -320,10 +339,7 @@ public class QueryLoggerImpl implements QueryLogger {
                 writeLastResultRetrievedSpecificFields(js, lastResultFetchedTime, resultCount);
                 js.writeEndObject();
                 js.writeEndObject();
-            } catch (IOException e) {
-                REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + e);
-            }
-            outputStream.println(stringWriter.toString());
+            });
         }
 
         if (isMergingEnabled) {
@@ -374,17 +390,12 @@ public class QueryLoggerImpl implements QueryLogger {
         if (disabled)
             return;
 
-        if(settings.areClassesAndPropertiesIncludedIntoQueryLog()) {
-            ClassesAndProperties classesAndProperties = classAndPropertyExtractor.extractClassesAndProperties(sparqlIQ);
-            classes = classesAndProperties.getClasses();
-            properties = classesAndProperties.getProperties();
-        }
-
-        if (settings.isQueryTemplateExtractionEnabled()) {
-            Optional<QueryTemplateExtraction> extraction = queryTemplateExtractor.extract(sparqlIQ);
+        if(settings.areClassesAndPropertiesIncludedIntoQueryLog())
+            classesAndProperties = Suppliers.memoize(
+                    () -> classAndPropertyExtractor.extractClassesAndProperties(sparqlIQ));
 
-            extraction.ifPresent(e -> queryTemplate = e);
-        }
+        if (settings.isQueryTemplateExtractionEnabled())
+            queryTemplate = Suppliers.memoize(() -> queryTemplateExtractor.extract(sparqlIQ));
     }
 
     @Override
@@ -392,7 +403,7 @@ public class QueryLoggerImpl implements QueryLogger {
         if (disabled || (!settings.areTablesIncludedIntoQueryLog()))
             return;
 
-        relationNames = relationNameExtractor.extractRelationNames(plannedQuery);
+        relationNames = Suppliers.memoize(() -> relationNameExtractor.extractRelationNames(plannedQuery));
     }
 
     @Override
@@ -409,10 +420,11 @@ public class QueryLoggerImpl implements QueryLogger {
         if (disabled)
             return;
 
-        StringWriter stringWriter = new StringWriter();
-        try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
+        long time = System.currentTimeMillis();
+        IQ currentReformulatedQuery = reformulatedQuery;
+        emit(js -> {
             js.writeStartObject();
-            js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(System.currentTimeMillis()));
+            js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(time));
             js.writeStringField(MESSAGE_KEY, exceptionType);
             js.writeStringField(APPLICATION_KEY, applicationName);
             js.writeObjectFieldStart(PAYLOAD_KEY);
@@ -420,42 +432,56 @@ public class QueryLoggerImpl implements QueryLogger {
             js.writeStringField(EXCEPTION_KEY, e.getMessage());
             if (sparqlQueryString != null)
                 js.writeStringField(SPARQL_QUERY_KEY, sparqlQueryString);
-            if (reformulatedQuery != null)
-                js.writeStringField(REFORMULATED_QUERY_KEY, reformulatedQuery.toString());
+            if (currentReformulatedQuery != null)
+                js.writeStringField(REFORMULATED_QUERY_KEY, currentReformulatedQuery.toString());
             js.writeEndObject();
             js.writeEndObject();
+        });
+    }
+
+    protected String serializeTimestamp(long time) {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(time));
+    }
+
+    /**
+     * Submits the message to the writer, or writes it directly to the output stream (synchronous mode)
+     */
+    protected void emit(QueryLogEvent event) {
+        if (writer != null) {
+            writer.submit(event);
+            return;
+        }
+
+        StringWriter stringWriter = new StringWriter();
+        try (JsonGenerator js = JSON_FACTORY.createGenerator(stringWriter)) {
+            event.write(js);
         } catch (IOException ex) {
             REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + ex);
+            return;
         }
         outputStream.println(stringWriter.toString());
     }
 
-    protected String serializeTimestamp(long time) {
-        return DATE_FORMAT.format(new Timestamp(time));
-    }
-
     /**
      * Optional summary message
      */
     protected void serializeMergedMessage(long lastResultFetchedTime, long resultCount) {
-        StringWriter stringWriter = new StringWriter();
-        try (JsonGenerator js = jsonFactory.createGenerator(stringWriter)) {
+        IQ currentReformulatedQuery = reformulatedQuery;
+        Boolean currentWasReformulationCached = wasReformulationCached;
+        emit(js -> {
             js.writeStartObject();
             js.writeStringField(TIMESTAMP_KEY, serializeTimestamp(lastResultFetchedTime));
             js.writeStringField(MESSAGE_KEY, MERGED_MSG);
             js.writeStringField(APPLICATION_KEY, applicationName);
             js.writeObjectFieldStart(PAYLOAD_KEY);
             js.writeStringField(QUERY_ID_KEY, queryId.toString());
-            if (reformulatedQuery != null)
+            if (currentReformulatedQuery != null)
                 //noinspection ConstantConditions
-                writeReformulationSpecificFields(reformulatedQuery, wasReformulationCached, js);
+                writeReformulationSpecificFields(currentReformulatedQuery, currentWasReformulationCached, js);
             writeResultSetUnblockedSpecificFields(js);
             writeLastResultRetrievedSpecificFields(js, lastResultFetchedTime, resultCount);
             js.writeEndObject();
             js.writeEndObject();
-        } catch (IOException e) {
-            REGULAR_LOGGER.error(OUTPUT_STREAM_JSON_ERROR + e);
-        }
-        outputStream.println(stringWriter.toString());
+        });
     }
 }
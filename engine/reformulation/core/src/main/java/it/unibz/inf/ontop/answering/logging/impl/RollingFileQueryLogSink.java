@@ -0,0 +1,89 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends the messages to a file (one per line).
+ *
+ * When the file exceeds the maximum size, it is renamed into file.1 (file.1 into file.2, etc.)
+ * and a new file is started. At most maxCount rolled-over files are kept.
+ */
+class RollingFileQueryLogSink implements QueryLogSink {
+
+    private final Path file;
+    private final long maxSize;
+    private final int maxCount;
+
+    @Nullable
+    private Writer writer;
+    private long size;
+
+    RollingFileQueryLogSink(Path file, long maxSize, int maxCount) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxCount = maxCount;
+    }
+
+    @Override
+    public void write(List<String> messages) throws IOException {
+        if (writer == null)
+            open();
+
+        for (String message : messages) {
+            String line = message + System.lineSeparator();
+            writer.write(line);
+            size += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+        writer.flush();
+
+        if (size >= maxSize)
+            roll();
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        size = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (maxCount <= 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(getRolledFile(maxCount));
+        for (int i = maxCount - 1; i >= 1; i--) {
+            Path rolledFile = getRolledFile(i);
+            if (Files.exists(rolledFile))
+                Files.move(rolledFile, getRolledFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(file, getRolledFile(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path getRolledFile(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            Writer w = writer;
+            writer = null;
+            w.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Sends the messages (one per line) to a TCP port of the local host, e.g. to a log shipper.
+ *
+ * Connects lazily and reconnects at the next batch after a failure.
+ */
+class SocketQueryLogSink implements QueryLogSink {
+
+    private static final int CONNECTION_TIMEOUT_MS = 1000;
+
+    private final int port;
+    @Nullable
+    private Socket socket;
+    @Nullable
+    private Writer writer;
+
+    SocketQueryLogSink(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void write(List<String> messages) throws IOException {
+        try {
+            if (writer == null)
+                connect();
+            for (String message : messages) {
+                writer.write(message);
+                writer.write('\n');
+            }
+            writer.flush();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECTION_TIMEOUT_MS);
+        writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws IOException {
+        Socket s = socket;
+        socket = null;
+        writer = null;
+        if (s != null)
+            s.close();
+    }
+}
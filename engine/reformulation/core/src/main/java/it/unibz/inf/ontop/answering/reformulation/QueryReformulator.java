@@ -7,12 +7,24 @@ import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.iq.IQ;
 
+import java.util.function.BooleanSupplier;
+
 /**
  * See ReformulationFactory for creating a new instance.
  */
 public interface QueryReformulator {
 
-    IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryLogger queryLogger) throws OntopReformulationException;
+    default IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryLogger queryLogger)
+            throws OntopReformulationException {
+        return reformulateIntoNativeQuery(inputQuery, queryLogger, () -> false);
+    }
+
+    /**
+     * Cooperative cancellation: the reformulation stops between two stages as soon as isCanceled returns true
+     * (an OntopReformulationInterruptedException is then thrown).
+     */
+    IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryLogger queryLogger, BooleanSupplier isCanceled)
+            throws OntopReformulationException;
 
     /**
      * For analysis purposes
@@ -0,0 +1,626 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.template.impl.TemplateParser;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.IRIStringTemplateFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.impl.SafeSeparatorFragment;
+import it.unibz.inf.ontop.model.type.RDFDatatype;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Cache of executable queries shared by the SPARQL queries that only differ by the values of some of their constants,
+ * like SELECT * { &lt;http://example.org/person/1&gt; ?p ?o } and SELECT * { &lt;http://example.org/person/2&gt; ?p ?o }.
+ *
+ * The constants considered are the ones found at the positions of the parameters of a query template
+ * (see {@link QueryTemplateExtractor}). A slot is:
+ *   - a literal of type xsd:string (or having a language tag), xsd:integer or xsd:decimal;
+ *   - a placeholder value of an IRI matching exactly one injective IRI template of the mapping
+ *     (made of unreserved IRI characters).
+ * Numbers must be in their canonical form, and a value equal to a constant of the mapping or of the query
+ * is not a slot.
+ *
+ * The shape of a query is made of the query where the slots have been replaced by markers, and of how the slot values
+ * compare (numerically and lexicographically) to each other and to the constants of the query and of the mapping.
+ *
+ * The executable query of a shape is learnt from the first two queries having this shape, which are reformulated
+ * as usual. The shape is only reused if their executable queries only differ by parameters of their native queries
+ * that are equal to the slot values. The values of a new query are then bound to these parameters.
+ * Therefore, this cache is only effective when the constants are passed as parameters of the native query.
+ *
+ * As the parameters are inferred by comparing two samples, a value computed at compile time from a slot
+ * (e.g. STRLEN("abc")) may coincide in both of them and be wrongly taken as fixed, and conversely a fixed value may
+ * differ by coincidence. Therefore, the learnt executable query is only cached after having been checked against
+ * the regular reformulation of a third query (whose slot values differ from the ones of both samples).
+ *
+ * Thread-safe.
+ */
+class ParameterizedQueryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ParameterizedQueryCache.class);
+    private static final int MAX_SLOT_COUNT = 32;
+    private static final Pattern UNRESERVED_IRI_CHARACTERS = Pattern.compile("[A-Za-z0-9._~-]+");
+    private static final Pattern NUMBER = Pattern.compile("[+-]?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)");
+    private static final Pattern CANONICAL_NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]*[1-9])?");
+
+    private final QueryTemplateExtractor templateExtractor;
+    private final TermFactory termFactory;
+    private final IntermediateQueryFactory iqFactory;
+    private final Constants mappingConstants;
+    // Empty if the mapping contains a non-injective IRI template
+    private final ImmutableList<IRITemplate> iriTemplates;
+
+    // Empty when the shape cannot be reused
+    @SuppressWarnings("UnstableApiUsage")
+    private final Cache<QueryShape, Optional<ParameterizedExecutableQuery>> cache;
+    // Shapes being learnt
+    @SuppressWarnings("UnstableApiUsage")
+    private final Cache<QueryShape, Sample> samples;
+
+    ParameterizedQueryCache(Mapping mapping, OntopReformulationSettings settings,
+                            QueryTemplateExtractor templateExtractor, TermFactory termFactory,
+                            IntermediateQueryFactory iqFactory) {
+        this.templateExtractor = templateExtractor;
+        this.termFactory = termFactory;
+        this.iqFactory = iqFactory;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(settings.getQueryCacheMaxSize())
+                .build();
+        this.samples = CacheBuilder.newBuilder()
+                .maximumSize(settings.getQueryCacheMaxSize())
+                .build();
+
+        ImmutableList<IQ> definitions = mapping.getRDFAtomPredicates().stream()
+                .flatMap(p -> mapping.getQueries(p).stream())
+                .collect(ImmutableCollectors.toList());
+
+        this.mappingConstants = Constants.collect(definitions.stream().flatMap(d -> extractTerms(d.getTree())),
+                ImmutableSet.of());
+
+        ImmutableSet<ImmutableList<Template.Component>> templates = definitions.stream()
+                .flatMap(d -> extractTerms(d.getTree()))
+                .flatMap(ParameterizedQueryCache::extractFunctionSymbols)
+                .filter(f -> f instanceof IRIStringTemplateFunctionSymbol)
+                .map(f -> ((IRIStringTemplateFunctionSymbol) f).getTemplateComponents())
+                .collect(ImmutableCollectors.toSet());
+
+        if (templates.stream().allMatch(ParameterizedQueryCache::isInjective))
+            this.iriTemplates = templates.stream()
+                    .map(IRITemplate::new)
+                    .collect(ImmutableCollectors.toList());
+        else {
+            log.info("The IRI slots of the parameterized query cache are disabled (non-injective IRI template)");
+            this.iriTemplates = ImmutableList.of();
+        }
+    }
+
+    /**
+     * Same condition as the one of the template function symbols: at most one placeholder per safe-separator fragment
+     */
+    private static boolean isInjective(ImmutableList<Template.Component> components) {
+        return SafeSeparatorFragment.split(TemplateParser.getEncodedTemplateString(components)).stream()
+                .allMatch(f -> f.getComponents().stream()
+                        .filter(Template.Component::isColumnNameReference)
+                        .count() <= 1);
+    }
+
+    /**
+     * Empty if the query has no slot or if its shape is not supported.
+     */
+    Optional<ParameterizedQuery> parameterize(IQ sparqlQuery) {
+        SlotExtractor slotExtractor = new SlotExtractor();
+        IQ shapeQuery = templateExtractor.replaceGroundTerms(sparqlQuery, slotExtractor);
+        ImmutableList<String> slotValues = ImmutableList.copyOf(slotExtractor.slotIndexMap.keySet());
+        if (slotValues.isEmpty() || slotValues.size() > MAX_SLOT_COUNT)
+            return Optional.empty();
+
+        Constants constants = mappingConstants.merge(
+                Constants.collect(extractTerms(shapeQuery.getTree()), slotExtractor.markerTerms));
+        // A slot value equal to another constant of the query is not supported
+        if (slotValues.stream().anyMatch(constants::contains))
+            return Optional.empty();
+
+        return Optional.of(new ParameterizedQuery(
+                new QueryShape(shapeQuery, computeSignature(slotValues, constants)), slotValues));
+    }
+
+    /**
+     * Empty if the shape of the query has not been learnt yet or cannot be reused
+     */
+    Optional<IQ> get(ParameterizedQuery query) {
+        Optional<ParameterizedExecutableQuery> executableQuery = cache.getIfPresent(query.getShape());
+        if (executableQuery == null || !executableQuery.isPresent())
+            return Optional.empty();
+
+        log.debug("Parameterized query cache hit");
+        return Optional.of(executableQuery.get().bind(query.getSlotValues()));
+    }
+
+    /**
+     * Learns the shape of the query (if not already known) from the executable query obtained by
+     * the regular reformulation. The first query of a shape is kept as a sample, to which the executable query
+     * of the next one (with different slot values) is compared. The resulting candidate is then checked
+     * against the executable query of a third one (with slot values different from the ones of both samples).
+     */
+    synchronized void learn(ParameterizedQuery query, IQ executableQuery) {
+        QueryShape shape = query.getShape();
+        if (cache.getIfPresent(shape) != null)
+            return;
+
+        ImmutableList<String> slotValues = query.getSlotValues();
+        Sample sample = samples.getIfPresent(shape);
+        if (sample == null) {
+            samples.put(shape, new Sample(slotValues, executableQuery));
+            return;
+        }
+        // Each slot must have different values in the compared queries, so that the parameters depending on it differ
+        if (!sample.hasDifferentValuesInEachSlot(slotValues)) {
+            // Another first sample, as long as no candidate has been learnt
+            if (!sample.candidate.isPresent())
+                samples.put(shape, new Sample(slotValues, executableQuery));
+            return;
+        }
+
+        if (sample.candidate.isPresent()) {
+            samples.invalidate(shape);
+            boolean isConfirmed = sample.candidate.get().bind(slotValues).equals(executableQuery);
+            if (!isConfirmed)
+                log.debug("The learnt executable query does not match the one of a third query having the same shape");
+            cache.put(shape, isConfirmed ? sample.candidate : Optional.empty());
+            return;
+        }
+
+        Optional<ParameterizedExecutableQuery> candidate = ParameterizedExecutableQuery.create(
+                sample.executableQuery, executableQuery, sample.slotValues.get(0), slotValues, iqFactory,
+                termFactory);
+
+        if (candidate.isPresent())
+            samples.put(shape, sample.withCandidate(slotValues, candidate.get()));
+        else {
+            log.debug("The executable query cannot be reused by other queries having the same shape");
+            samples.invalidate(shape);
+            cache.put(shape, Optional.empty());
+        }
+    }
+
+    /**
+     * Per slot: numeric and lexicographic ranks w.r.t. the other constants.
+     * Per pair of slots: numeric and lexicographic comparisons.
+     */
+    private static ImmutableList<Integer> computeSignature(ImmutableList<String> slotValues, Constants constants) {
+        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
+        for (String value : slotValues)
+            builder.add(constants.getNumericRank(value), constants.getLexicographicRank(value));
+
+        for (int i = 0; i < slotValues.size(); i++) {
+            for (int j = i + 1; j < slotValues.size(); j++) {
+                String value = slotValues.get(i);
+                String otherValue = slotValues.get(j);
+                builder.add(isNumber(value) && isNumber(otherValue)
+                                ? Integer.signum(new BigDecimal(value).compareTo(new BigDecimal(otherValue)))
+                                : 2,
+                        Integer.signum(value.compareTo(otherValue)));
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean isNumber(String value) {
+        return NUMBER.matcher(value).matches();
+    }
+
+    private static Stream<FunctionSymbol> extractFunctionSymbols(ImmutableTerm term) {
+        if (term instanceof ImmutableFunctionalTerm) {
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            return Stream.concat(
+                    Stream.of(functionalTerm.getFunctionSymbol()),
+                    functionalTerm.getTerms().stream()
+                            .flatMap(ParameterizedQueryCache::extractFunctionSymbols));
+        }
+        return Stream.empty();
+    }
+
+    /**
+     * Terms of all the nodes of the tree
+     */
+    private static Stream<ImmutableTerm> extractTerms(IQTree tree) {
+        return Stream.concat(
+                extractTerms(tree.getRootNode()),
+                tree.getChildren().stream()
+                        .flatMap(ParameterizedQueryCache::extractTerms));
+    }
+
+    private static Stream<ImmutableTerm> extractTerms(QueryNode node) {
+        if (node instanceof ExtendedProjectionNode)
+            return ((ExtendedProjectionNode) node).getSubstitution().getImmutableMap().values().stream()
+                    .map(t -> (ImmutableTerm) t);
+        if (node instanceof JoinOrFilterNode)
+            return ((JoinOrFilterNode) node).getOptionalFilterCondition()
+                    .map(Stream::<ImmutableTerm>of)
+                    .orElseGet(Stream::empty);
+        if (node instanceof ExtensionalDataNode)
+            return ((ExtensionalDataNode) node).getArgumentMap().values().stream()
+                    .map(t -> (ImmutableTerm) t);
+        if (node instanceof IntensionalDataNode)
+            return ((IntensionalDataNode) node).getProjectionAtom().getArguments().stream()
+                    .map(t -> (ImmutableTerm) t);
+        if (node instanceof OrderByNode)
+            return ((OrderByNode) node).getComparators().stream()
+                    .map(c -> (ImmutableTerm) c.getTerm());
+        return Stream.empty();
+    }
+
+    /**
+     * Replaces the slots by markers, while collecting the slot values.
+     * A value appearing several times is the same slot.
+     */
+    private class SlotExtractor implements Function<GroundTerm, Optional<? extends GroundTerm>> {
+        private final Map<String, Integer> slotIndexMap = new LinkedHashMap<>();
+        private final Set<GroundTerm> markerTerms = new HashSet<>();
+
+        @Override
+        public Optional<? extends GroundTerm> apply(GroundTerm term) {
+            Optional<GroundTerm> markerTerm = (term instanceof IRIConstant)
+                    ? replaceIRISlots((IRIConstant) term)
+                    : (term instanceof RDFLiteralConstant)
+                        ? replaceLiteralSlot((RDFLiteralConstant) term)
+                        : Optional.empty();
+
+            markerTerm.ifPresent(markerTerms::add);
+            return markerTerm;
+        }
+
+        private Optional<GroundTerm> replaceLiteralSlot(RDFLiteralConstant literal) {
+            RDFDatatype datatype = literal.getType();
+            String value = literal.getValue();
+
+            boolean isSlot = (datatype.getLanguageTag().isPresent() || datatype.getIRI().equals(XSD.STRING))
+                    ? !isNumber(value) || isCanonicalNumber(value)
+                    : (datatype.getIRI().equals(XSD.INTEGER) || datatype.getIRI().equals(XSD.DECIMAL))
+                        && isCanonicalNumber(value);
+
+            return isSlot && isSlotValue(value)
+                    ? Optional.of(termFactory.getRDFLiteralConstant(getMarker(value), datatype))
+                    : Optional.empty();
+        }
+
+        private Optional<GroundTerm> replaceIRISlots(IRIConstant iriConstant) {
+            String iri = iriConstant.getIRI().getIRIString();
+            if (mappingConstants.contains(iri))
+                return Optional.empty();
+
+            ImmutableList<IRITemplate> matchingTemplates = iriTemplates.stream()
+                    .filter(t -> t.matches(iri))
+                    .collect(ImmutableCollectors.toList());
+            if (matchingTemplates.size() != 1)
+                return Optional.empty();
+
+            IRITemplate template = matchingTemplates.get(0);
+            ImmutableList<String> values = template.extractValues(iri);
+            if (!values.stream().allMatch(v -> UNRESERVED_IRI_CHARACTERS.matcher(v).matches()
+                    && (!isNumber(v) || isCanonicalNumber(v))
+                    && isSlotValue(v)))
+                return Optional.empty();
+
+            return Optional.of(termFactory.getConstantIRI(template.instantiate(values.stream()
+                    .map(this::getMarker)
+                    .collect(ImmutableCollectors.toList()))));
+        }
+
+        private boolean isCanonicalNumber(String value) {
+            return CANONICAL_NUMBER.matcher(value).matches();
+        }
+
+        private boolean isSlotValue(String value) {
+            return !value.isEmpty() && !mappingConstants.contains(value);
+        }
+
+        private String getMarker(String value) {
+            return "{ontop:slot:" + slotIndexMap.computeIfAbsent(value, s -> slotIndexMap.size()) + "}";
+        }
+    }
+
+    /**
+     * Same decomposition as the one of the injective IRI templates by the reformulation
+     */
+    private static class IRITemplate {
+        private final ImmutableList<Template.Component> components;
+        private final Pattern pattern;
+
+        private IRITemplate(ImmutableList<Template.Component> components) {
+            this.components = components;
+            this.pattern = Pattern.compile("^" + components.stream()
+                    .map(c -> c.isColumnNameReference()
+                            ? "(" + SafeSeparatorFragment.NOT_A_SAFE_SEPARATOR_REGEX + ")"
+                            : SafeSeparatorFragment.makeRegexSafe(c.getComponent()))
+                    .collect(Collectors.joining()) + "$");
+        }
+
+        boolean matches(String iri) {
+            return pattern.matcher(iri).matches();
+        }
+
+        ImmutableList<String> extractValues(String iri) {
+            Matcher matcher = pattern.matcher(iri);
+            if (!matcher.matches())
+                throw new IllegalArgumentException("The IRI does not match the template");
+            return IntStream.rangeClosed(1, matcher.groupCount())
+                    .mapToObj(matcher::group)
+                    .collect(ImmutableCollectors.toList());
+        }
+
+        String instantiate(ImmutableList<String> values) {
+            StringBuilder sb = new StringBuilder();
+            int i = 0;
+            for (Template.Component component : components)
+                sb.append(component.isColumnNameReference() ? values.get(i++) : component.getComponent());
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Constants found in a mapping or in a query (sorted lexical values and numbers)
+     */
+    private static class Constants {
+        private final ImmutableList<String> lexicalValues;
+        private final ImmutableList<BigDecimal> numbers;
+
+        private Constants(Stream<String> lexicalValues) {
+            this.lexicalValues = lexicalValues
+                    .distinct()
+                    .sorted()
+                    .collect(ImmutableCollectors.toList());
+            this.numbers = this.lexicalValues.stream()
+                    .filter(ParameterizedQueryCache::isNumber)
+                    .map(BigDecimal::new)
+                    .sorted()
+                    .collect(ImmutableCollectors.toList());
+        }
+
+        static Constants collect(Stream<ImmutableTerm> terms, Set<GroundTerm> excludedTerms) {
+            return new Constants(terms.flatMap(t -> extractLexicalValues(t, excludedTerms)));
+        }
+
+        private static Stream<String> extractLexicalValues(ImmutableTerm term, Set<GroundTerm> excludedTerms) {
+            if (excludedTerms.contains(term) || term instanceof RDFTermTypeConstant)
+                return Stream.empty();
+            if (term instanceof IRIConstant)
+                return Stream.of(((IRIConstant) term).getIRI().getIRIString());
+            if ((term instanceof Constant) && !((Constant) term).isNull())
+                return Stream.of(((Constant) term).getValue());
+            if (term instanceof ImmutableFunctionalTerm)
+                return ((ImmutableFunctionalTerm) term).getTerms().stream()
+                        .flatMap(t -> extractLexicalValues(t, excludedTerms));
+            return Stream.empty();
+        }
+
+        Constants merge(Constants other) {
+            return new Constants(Stream.concat(lexicalValues.stream(), other.lexicalValues.stream()));
+        }
+
+        boolean contains(String value) {
+            return Collections.binarySearch(lexicalValues, value) >= 0
+                    || (isNumber(value) && Collections.binarySearch(numbers, new BigDecimal(value)) >= 0);
+        }
+
+        /**
+         * Number of numbers strictly lower (assumes that the value is not contained), -1 if not a number
+         */
+        int getNumericRank(String value) {
+            if (!isNumber(value))
+                return -1;
+            int index = Collections.binarySearch(numbers, new BigDecimal(value));
+            return index >= 0 ? index : -(index + 1);
+        }
+
+        int getLexicographicRank(String value) {
+            int index = Collections.binarySearch(lexicalValues, value);
+            return index >= 0 ? index : -(index + 1);
+        }
+    }
+
+    /**
+     * Shape of a SPARQL query (IQ) together with the values of its slots
+     */
+    static class ParameterizedQuery {
+        private final QueryShape shape;
+        private final ImmutableList<String> slotValues;
+
+        private ParameterizedQuery(QueryShape shape, ImmutableList<String> slotValues) {
+            this.shape = shape;
+            this.slotValues = slotValues;
+        }
+
+        QueryShape getShape() {
+            return shape;
+        }
+
+        ImmutableList<String> getSlotValues() {
+            return slotValues;
+        }
+    }
+
+    private static class QueryShape {
+        // Where the slots have been replaced by markers
+        private final IQ query;
+        private final ImmutableList<Integer> signature;
+        private final int hashCode;
+
+        private QueryShape(IQ query, ImmutableList<Integer> signature) {
+            this.query = query;
+            this.signature = signature;
+            this.hashCode = Objects.hash(query, signature);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QueryShape that = (QueryShape) o;
+            return hashCode == that.hashCode
+                    && signature.equals(that.signature)
+                    && query.equals(that.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * First query of a shape being learnt, and the candidate learnt with the second one (if any)
+     */
+    private static class Sample {
+        // Of the first query, then also of the second one
+        private final ImmutableList<ImmutableList<String>> slotValues;
+        private final IQ executableQuery;
+        private final Optional<ParameterizedExecutableQuery> candidate;
+
+        private Sample(ImmutableList<String> slotValues, IQ executableQuery) {
+            this(ImmutableList.of(slotValues), executableQuery, Optional.empty());
+        }
+
+        private Sample(ImmutableList<ImmutableList<String>> slotValues, IQ executableQuery,
+                       Optional<ParameterizedExecutableQuery> candidate) {
+            this.slotValues = slotValues;
+            this.executableQuery = executableQuery;
+            this.candidate = candidate;
+        }
+
+        Sample withCandidate(ImmutableList<String> otherSlotValues, ParameterizedExecutableQuery candidate) {
+            return new Sample(ImmutableList.of(slotValues.get(0), otherSlotValues), executableQuery,
+                    Optional.of(candidate));
+        }
+
+        boolean hasDifferentValuesInEachSlot(ImmutableList<String> otherSlotValues) {
+            return slotValues.stream()
+                    .allMatch(values -> IntStream.range(0, values.size())
+                            .noneMatch(i -> values.get(i).equals(otherSlotValues.get(i))));
+        }
+    }
+
+    /**
+     * Executable query whose native query has parameters equal to slot values
+     */
+    private static class ParameterizedExecutableQuery {
+        private final IQ executableQuery;
+        // Per parameter of the native node: index of its slot (empty when the parameter does not depend on the slots)
+        private final ImmutableList<Optional<Integer>> slotIndexes;
+        private final IntermediateQueryFactory iqFactory;
+        private final TermFactory termFactory;
+
+        private ParameterizedExecutableQuery(IQ executableQuery, ImmutableList<Optional<Integer>> slotIndexes,
+                                             IntermediateQueryFactory iqFactory, TermFactory termFactory) {
+            this.executableQuery = executableQuery;
+            this.slotIndexes = slotIndexes;
+            this.iqFactory = iqFactory;
+            this.termFactory = termFactory;
+        }
+
+        /**
+         * Compares the executable queries obtained for two different sets of slot values.
+         * Empty if they differ elsewhere than in the parameters of the native query, or if a differing parameter
+         * is not equal to the same slot in both queries.
+         */
+        static Optional<ParameterizedExecutableQuery> create(IQ executableQuery, IQ otherExecutableQuery,
+                                                             ImmutableList<String> slotValues,
+                                                             ImmutableList<String> otherSlotValues,
+                                                             IntermediateQueryFactory iqFactory,
+                                                             TermFactory termFactory) {
+            if (executableQuery.equals(otherExecutableQuery))
+                return Optional.of(new ParameterizedExecutableQuery(executableQuery, ImmutableList.of(),
+                        iqFactory, termFactory));
+
+            Optional<NativeNode> nativeNode = extractNativeNode(executableQuery);
+            Optional<NativeNode> otherNativeNode = extractNativeNode(otherExecutableQuery);
+            if (!nativeNode.isPresent() || !otherNativeNode.isPresent()
+                    || !executableQuery.getProjectionAtom().equals(otherExecutableQuery.getProjectionAtom())
+                    || !executableQuery.getTree().getRootNode().isSyntacticallyEquivalentTo(
+                            otherExecutableQuery.getTree().getRootNode()))
+                return Optional.empty();
+
+            NativeNode node = nativeNode.get();
+            NativeNode otherNode = otherNativeNode.get();
+            if (!node.getNativeQueryString().equals(otherNode.getNativeQueryString())
+                    || !node.getVariables().equals(otherNode.getVariables())
+                    || !node.getTypeMap().equals(otherNode.getTypeMap())
+                    || !node.getColumnNames().equals(otherNode.getColumnNames())
+                    || node.getParameters().size() != otherNode.getParameters().size())
+                return Optional.empty();
+
+            ImmutableList.Builder<Optional<Integer>> slotIndexBuilder = ImmutableList.builder();
+            for (int i = 0; i < node.getParameters().size(); i++) {
+                DBConstant parameter = node.getParameters().get(i);
+                DBConstant otherParameter = otherNode.getParameters().get(i);
+                if (!parameter.getType().equals(otherParameter.getType()))
+                    return Optional.empty();
+
+                if (parameter.getValue().equals(otherParameter.getValue()))
+                    slotIndexBuilder.add(Optional.empty());
+                else {
+                    int slotIndex = slotValues.indexOf(parameter.getValue());
+                    if (slotIndex < 0 || !otherSlotValues.get(slotIndex).equals(otherParameter.getValue()))
+                        return Optional.empty();
+                    slotIndexBuilder.add(Optional.of(slotIndex));
+                }
+            }
+
+            return Optional.of(new ParameterizedExecutableQuery(executableQuery, slotIndexBuilder.build(),
+                    iqFactory, termFactory));
+        }
+
+        private static Optional<NativeNode> extractNativeNode(IQ executableQuery) {
+            return Optional.of(executableQuery.getTree())
+                    .filter(t -> t instanceof UnaryIQTree)
+                    .map(t -> ((UnaryIQTree) t).getChild())
+                    .filter(c -> c instanceof NativeNode)
+                    .map(c -> (NativeNode) c);
+        }
+
+        IQ bind(ImmutableList<String> slotValues) {
+            if (slotIndexes.isEmpty())
+                return executableQuery;
+
+            UnaryIQTree tree = (UnaryIQTree) executableQuery.getTree();
+            NativeNode nativeNode = (NativeNode) tree.getChild();
+            ImmutableList<DBConstant> parameters = IntStream.range(0, slotIndexes.size())
+                    .mapToObj(i -> slotIndexes.get(i)
+                            .map(s -> termFactory.getDBConstant(slotValues.get(s),
+                                    nativeNode.getParameters().get(i).getType()))
+                            .orElseGet(() -> nativeNode.getParameters().get(i)))
+                    .collect(ImmutableCollectors.toList());
+
+            NativeNode newNativeNode = iqFactory.createNativeNode(nativeNode.getVariables(), nativeNode.getTypeMap(),
+                    nativeNode.getColumnNames(), nativeNode.getNativeQueryString(), parameters,
+                    nativeNode.getVariableNullability());
+
+            return iqFactory.createIQ(executableQuery.getProjectionAtom(),
+                    iqFactory.createUnaryIQTree((UnaryOperatorNode) tree.getRootNode(), newNativeNode));
+        }
+    }
+}
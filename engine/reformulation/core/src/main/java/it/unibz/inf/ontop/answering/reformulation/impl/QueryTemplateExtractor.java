@@ -1,4 +1,4 @@
-package it.unibz.inf.ontop.answering.logging.impl;
+package it.unibz.inf.ontop.answering.reformulation.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -30,12 +30,13 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 
 /**
- * TODO: move it away from the query logging package if also used for other purposes
+ * Used for logging query templates and by the parameterized query cache
  */
 @Singleton
 public class QueryTemplateExtractor {
@@ -51,7 +52,7 @@ public class QueryTemplateExtractor {
         this.settings = settings;
     }
 
-    Optional<QueryTemplateExtraction> extract(IQ iq) {
+    public Optional<QueryTemplateExtraction> extract(IQ iq) {
 
         IQTree initialIQTree = iq.getTree();
         QueryTemplateTransformer transformer = new QueryTemplateTransformer(coreSingletons,
@@ -68,43 +69,104 @@ public class QueryTemplateExtractor {
                 parameterMap));
     }
 
+    /**
+     * Replaces the ground terms found at the positions of the parameters of a query template
+     * by the ones returned by the replacement function (if any).
+     *
+     * Contrary to the extraction of a template, does not introduce unbound variables.
+     */
+    public IQ replaceGroundTerms(IQ iq, Function<GroundTerm, Optional<? extends GroundTerm>> replacementFunction) {
+        IQTree initialIQTree = iq.getTree();
+        IQTree newTree = new GroundTermReplacer(coreSingletons, replacementFunction).transform(initialIQTree);
+
+        return newTree.equals(initialIQTree)
+                ? iq
+                : iqFactory.createIQ(iq.getProjectionAtom(), newTree);
+    }
+
 
     /**
      * Specific to an IQ
      *
      * Extracts from filter/LJ/joins and intensional data nodes.
      */
-    protected static class QueryTemplateTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+    protected static class QueryTemplateTransformer extends GroundTermTransformer {
 
-        private final CoreSingletons coreSingletons;
         private final VariableGenerator variableGenerator;
 
         // Mutable
         private final Map<GroundTerm, Variable> parameterMap;
-        private final AtomFactory atomFactory;
         private final OntopModelSettings settings;
-        private final SPARQLFunctionSymbol sparqlEqFunctionSymbol;
-        private final TermFactory termFactory;
-        private final BooleanFunctionSymbol rdf2BoolFunctionsymbol;
 
         protected QueryTemplateTransformer(CoreSingletons coreSingletons, ImmutableSet<Variable> knownVariables,
                                            OntopModelSettings settings) {
             super(coreSingletons);
-            this.coreSingletons = coreSingletons;
-            atomFactory = coreSingletons.getAtomFactory();
             this.settings = settings;
             this.variableGenerator = coreSingletons.getCoreUtilsFactory()
                     .createVariableGenerator(knownVariables);
             this.parameterMap = Maps.newLinkedHashMap();
+        }
+
+        public ImmutableMap<GroundTerm, Variable> getParameterMap() {
+            return ImmutableMap.copyOf(parameterMap);
+        }
+
+        @Override
+        protected VariableOrGroundTerm transformGroundTerm(GroundTerm groundTerm) {
+            return parameterMap.computeIfAbsent(groundTerm, g -> variableGenerator.generateNewVariable());
+        }
+
+        /**
+         * NB: produces an invalid IQ with unbound variables, so the test mode needs to be disabled
+         * for extracting parameters.
+         */
+        @Override
+        protected Optional<ImmutableExpression> transformFilterCondition(ImmutableExpression filterCondition) {
+            if (settings.isTestModeEnabled())
+                return Optional.empty();
+
+            return super.transformFilterCondition(filterCondition);
+        }
+    }
+
+    private static class GroundTermReplacer extends GroundTermTransformer {
+
+        private final Function<GroundTerm, Optional<? extends GroundTerm>> replacementFunction;
+
+        private GroundTermReplacer(CoreSingletons coreSingletons,
+                                   Function<GroundTerm, Optional<? extends GroundTerm>> replacementFunction) {
+            super(coreSingletons);
+            this.replacementFunction = replacementFunction;
+        }
+
+        @Override
+        protected VariableOrGroundTerm transformGroundTerm(GroundTerm groundTerm) {
+            return replacementFunction.apply(groundTerm)
+                    .map(t -> (VariableOrGroundTerm) t)
+                    .orElse(groundTerm);
+        }
+    }
+
+    /**
+     * Transforms the ground terms found in filter/LJ/joins and intensional data nodes.
+     */
+    protected abstract static class GroundTermTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        private final AtomFactory atomFactory;
+        private final SPARQLFunctionSymbol sparqlEqFunctionSymbol;
+        private final TermFactory termFactory;
+        private final BooleanFunctionSymbol rdf2BoolFunctionsymbol;
+
+        protected GroundTermTransformer(CoreSingletons coreSingletons) {
+            super(coreSingletons);
+            atomFactory = coreSingletons.getAtomFactory();
             this.termFactory = coreSingletons.getTermFactory();
             FunctionSymbolFactory functionSymbolFactory = coreSingletons.getFunctionSymbolFactory();
             this.sparqlEqFunctionSymbol = functionSymbolFactory.getRequiredSPARQLFunctionSymbol(SPARQL.EQ, 2);
             rdf2BoolFunctionsymbol = functionSymbolFactory.getRDF2DBBooleanFunctionSymbol();
         }
 
-        public ImmutableMap<GroundTerm, Variable> getParameterMap() {
-            return ImmutableMap.copyOf(parameterMap);
-        }
+        protected abstract VariableOrGroundTerm transformGroundTerm(GroundTerm groundTerm);
 
         @Override
         public IQTree transformIntensionalData(IntensionalDataNode dataNode) {
@@ -131,17 +193,16 @@ public class QueryTemplateExtractor {
                 if (groundTermIndex.isEmpty())
                     return dataNode;
 
-                // Adds new ground terms to the parameter map
-                groundTermIndex.values()
-                        .forEach(t -> parameterMap.computeIfAbsent(t, g -> variableGenerator.generateNewVariable()));
-
                 ImmutableList<VariableOrGroundTerm> newArguments = IntStream.range(0, arguments.size())
                         .boxed()
                         .map(i -> Optional.ofNullable(groundTermIndex.get(i))
-                                .map(parameterMap::get)
-                                .map(t -> (VariableOrGroundTerm)t)
+                                .map(this::transformGroundTerm)
                                 .orElseGet(() -> arguments.get(i)))
                         .collect(ImmutableCollectors.toList());
+
+                if (newArguments.equals(arguments))
+                    return dataNode;
+
                 DataAtom<AtomPredicate> newAtom = atomFactory.getDataAtom(atom.getPredicate(), newArguments);
 
                 return iqFactory.createIntensionalDataNode(newAtom);
@@ -194,14 +255,7 @@ public class QueryTemplateExtractor {
             return iqFactory.createNaryIQTree(newRootNode, newChildren);
         }
 
-        /**
-         * NB: produces an invalid IQ with unbound variables, so the test mode needs to be disabled
-         * for extracting parameters.
-         */
         protected Optional<ImmutableExpression> transformFilterCondition(ImmutableExpression filterCondition) {
-            if (settings.isTestModeEnabled())
-                return Optional.empty();
-
             return termFactory.getConjunction(filterCondition.flattenAND()
                     .map(this::transformSubExpression))
                     .filter(e -> !e.equals(filterCondition));
@@ -220,8 +274,7 @@ public class QueryTemplateExtractor {
                         ImmutableList<? extends ImmutableTerm> initialTerms = subFunctionalTerm.getTerms();
                         ImmutableList<ImmutableTerm> newTerms = initialTerms.stream()
                                 .map(t -> t.isGround()
-                                        ? parameterMap.computeIfAbsent(
-                                        (GroundTerm) t, g -> variableGenerator.generateNewVariable())
+                                        ? transformGroundTerm((GroundTerm) t)
                                         : t)
                                 .collect(ImmutableCollectors.toList());
 
@@ -5,6 +5,7 @@ import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.impl.ParameterizedQueryCache.ParameterizedQuery;
 import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
 import it.unibz.inf.ontop.answering.reformulation.input.DescribeQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
@@ -13,6 +14,9 @@ import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTr
 import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.exception.OntopReformulationInterruptedException;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.injection.TranslationFactory;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
@@ -23,7 +27,9 @@ import it.unibz.inf.ontop.spec.OBDASpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BooleanSupplier;
 
 /**
  * TODO: rename it QueryTranslatorImpl ?
@@ -36,6 +42,7 @@ public class QuestQueryProcessor implements QueryReformulator {
 	private final QueryRewriter rewriter;
 	private final NativeQueryGenerator datasourceQueryGenerator;
 	private final QueryCache queryCache;
+	private final Optional<ParameterizedQueryCache> parameterizedQueryCache;
 
 	private final QueryUnfolder queryUnfolder;
 
@@ -58,7 +65,10 @@ public class QuestQueryProcessor implements QueryReformulator {
 								InputQueryTranslator inputQueryTranslator,
 								GeneralStructuralAndSemanticIQOptimizer generalOptimizer,
 								QueryPlanner queryPlanner,
-								QueryLogger.Factory queryLoggerFactory) {
+								QueryLogger.Factory queryLoggerFactory,
+								OntopReformulationSettings settings,
+								QueryTemplateExtractor queryTemplateExtractor,
+								CoreSingletons coreSingletons) {
 		this.inputQueryFactory = inputQueryFactory;
 		this.rewriter = queryRewriter;
 		this.generalOptimizer = generalOptimizer;
@@ -72,12 +82,16 @@ public class QuestQueryProcessor implements QueryReformulator {
 		this.inputQueryTranslator = inputQueryTranslator;
 		this.queryCache = queryCache;
 		this.executorRegistry = executorRegistry;
+		this.parameterizedQueryCache = settings.isParameterizedQueryCacheEnabled()
+				? Optional.of(new ParameterizedQueryCache(obdaSpecification.getSaturatedMapping(), settings,
+						queryTemplateExtractor, coreSingletons.getTermFactory(), coreSingletons.getIQFactory()))
+				: Optional.empty();
 
 		log.info("Ontop has completed the setup and it is ready for query answering!");
 	}
 
 	@Override
-	public IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryLogger queryLogger)
+	public IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryLogger queryLogger, BooleanSupplier isCanceled)
 			throws OntopReformulationException {
 
 		long beginning = System.currentTimeMillis();
@@ -96,45 +110,43 @@ public class QuestQueryProcessor implements QueryReformulator {
 
 			queryLogger.setSparqlIQ(convertedIQ);
 
-            try {
-                log.debug("Start the rewriting process...");
-                IQ rewrittenIQ = rewriter.rewrite(convertedIQ);
-
-                if (IS_DEBUG_ENABLED)
-                	log.debug("Rewritten IQ:\n{}",rewrittenIQ);
-
-                log.debug("Start the unfolding...");
+			Optional<ParameterizedQuery> parameterizedQuery = parameterizedQueryCache
+					.flatMap(c -> c.parameterize(convertedIQ));
+			Optional<IQ> boundQuery = parameterizedQuery
+					.flatMap(q -> parameterizedQueryCache.get().get(q));
+			if (boundQuery.isPresent()) {
+				queryCache.put(inputQuery, boundQuery.get());
+				log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
+				queryLogger.declareReformulationFinishedAndSerialize(boundQuery.get(), true);
+				return boundQuery.get();
+			}
 
-                IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
-                if (unfoldedIQ.getTree().isDeclaredAsEmpty()) {
-                	log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
-					queryLogger.declareReformulationFinishedAndSerialize(unfoldedIQ, false);
-					return unfoldedIQ;
+            try {
+				IQ executableQuery = reformulate(convertedIQ, queryLogger, isCanceled);
+				if (executableQuery.getTree().isDeclaredAsEmpty()) {
+					log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
+					queryLogger.declareReformulationFinishedAndSerialize(executableQuery, false);
+					return executableQuery;
 				}
 
-                // These IQ can be large so getting the string can be expensive
-                if (IS_DEBUG_ENABLED)
-                	log.debug("Unfolded query: \n" + unfoldedIQ.toString());
-
-                IQ optimizedQuery = generalOptimizer.optimize(unfoldedIQ, executorRegistry);
-				IQ plannedQuery = queryPlanner.optimize(optimizedQuery, executorRegistry);
-				if (IS_DEBUG_ENABLED)
-					log.debug("Planned query: \n" + plannedQuery);
-
-				queryLogger.setPlannedQuery(plannedQuery);
-
-				IQ executableQuery = generateExecutableQuery(plannedQuery);
 				queryCache.put(inputQuery, executableQuery);
 				log.debug(String.format("Reformulation time: %d ms", System.currentTimeMillis() - beginning));
 				queryLogger.declareReformulationFinishedAndSerialize(executableQuery, false);
-				return executableQuery;
 
+				parameterizedQuery
+						.ifPresent(q -> parameterizedQueryCache.get().learn(q, executableQuery));
+
+				return executableQuery;
 			}
             catch (OntopReformulationException e) {
             	queryLogger.declareReformulationException(e);
                 throw e;
             }
         }
+		// Already declared to the query logger
+		catch (OntopReformulationInterruptedException e) {
+			throw e;
+		}
 		/*
 		 * Bug: should normally not be reached
 		 * TODO: remove it
@@ -147,6 +159,55 @@ public class QuestQueryProcessor implements QueryReformulator {
 		}
 	}
 
+	/**
+	 * From the IQ of the SPARQL query to the executable query.
+	 *
+	 * The executable query is empty when the unfolding has detected that the query has no answer.
+	 */
+	private IQ reformulate(IQ convertedIQ, QueryLogger queryLogger, BooleanSupplier isCanceled)
+			throws OntopReformulationException, EmptyQueryException {
+		checkCancellation(isCanceled);
+		log.debug("Start the rewriting process...");
+		IQ rewrittenIQ = rewriter.rewrite(convertedIQ);
+
+		if (IS_DEBUG_ENABLED)
+			log.debug("Rewritten IQ:\n{}",rewrittenIQ);
+
+		checkCancellation(isCanceled);
+		log.debug("Start the unfolding...");
+
+		IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
+		if (unfoldedIQ.getTree().isDeclaredAsEmpty())
+			return unfoldedIQ;
+
+		// These IQ can be large so getting the string can be expensive
+		if (IS_DEBUG_ENABLED)
+			log.debug("Unfolded query: \n" + unfoldedIQ.toString());
+
+		checkCancellation(isCanceled);
+		IQ optimizedQuery = generalOptimizer.optimize(unfoldedIQ, executorRegistry);
+		checkCancellation(isCanceled);
+		IQ plannedQuery = queryPlanner.optimize(optimizedQuery, executorRegistry);
+		if (IS_DEBUG_ENABLED)
+			log.debug("Planned query: \n" + plannedQuery);
+
+		queryLogger.setPlannedQuery(plannedQuery);
+
+		checkCancellation(isCanceled);
+		return generateExecutableQuery(plannedQuery);
+	}
+
+	/**
+	 * Cooperative cancellation: the reformulation is stopped between two stages
+	 * when the query has been cancelled or the thread has been interrupted.
+	 *
+	 * The interruption flag is left untouched.
+	 */
+	private static void checkCancellation(BooleanSupplier isCanceled) throws OntopReformulationInterruptedException {
+		if (isCanceled.getAsBoolean() || Thread.currentThread().isInterrupted())
+			throw new OntopReformulationInterruptedException();
+	}
+
 	private IQ generateExecutableQuery(IQ iq) {
 
 		log.debug("Producing the native query string...");
@@ -1,6 +1,5 @@
 package it.unibz.inf.ontop.answering.reformulation.input;
 
-import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.rdf.api.IRI;
 
@@ -15,8 +14,11 @@ public interface DescribeQuery extends GraphSPARQLQuery {
 
     /**
      * Restriction: description of blank nodes is not supported.
+     *
+     * A construct query may describe several resources at once.
+     * The queries may be created lazily, while iterating.
      */
-    ImmutableCollection<ConstructQuery> computeConstructQueries(ImmutableSet<IRI> resourcesToDescribe);
+    Iterable<ConstructQuery> computeConstructQueries(ImmutableSet<IRI> resourcesToDescribe);
 
 
 }
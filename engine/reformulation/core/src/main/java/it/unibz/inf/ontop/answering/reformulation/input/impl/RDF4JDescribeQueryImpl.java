@@ -1,8 +1,8 @@
 package it.unibz.inf.ontop.answering.reformulation.input.impl;
 
-import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JDescribeQuery;
@@ -17,11 +17,15 @@ import org.apache.commons.rdf.api.IRI;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.algebra.*;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.query.impl.ListBindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
 
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 
 class RDF4JDescribeQueryImpl implements RDF4JDescribeQuery {
@@ -39,18 +43,22 @@ class RDF4JDescribeQueryImpl implements RDF4JDescribeQuery {
 
     // True if the pattern "?s ?p <describedIRI>" should also be considered while answering a DESCRIBE query.
     private final boolean isFixedObjectIncludedInDescribe;
+    // Maximum number of resources described by one construct query
+    private final int chunkSize;
 
     RDF4JDescribeQueryImpl(ParsedQuery originalParsedQuery, String queryString, BindingSet bindings,
-                           boolean isFixedObjectIncludedInDescribe) {
+                           boolean isFixedObjectIncludedInDescribe, int chunkSize) {
         this.originalParsedQuery = originalParsedQuery;
         this.queryString = queryString;
         this.bindings = bindings;
         this.isFixedObjectIncludedInDescribe = isFixedObjectIncludedInDescribe;
+        this.chunkSize = Math.max(1, chunkSize);
     }
 
     @Override
     public RDF4JDescribeQuery newBindings(BindingSet newBindings) {
-        return new RDF4JDescribeQueryImpl(originalParsedQuery, getInputString(), newBindings, isFixedObjectIncludedInDescribe);
+        return new RDF4JDescribeQueryImpl(originalParsedQuery, getInputString(), newBindings,
+                isFixedObjectIncludedInDescribe, chunkSize);
     }
 
     @Override
@@ -82,19 +90,55 @@ class RDF4JDescribeQueryImpl implements RDF4JDescribeQuery {
                 + queryString, bindings);
     }
 
+    /**
+     * The resources are described by chunks: each construct query binds the describe variable
+     * to up to chunkSize resources through a VALUES block.
+     *
+     * The construct queries are created lazily, when iterating.
+     */
     @Override
-    public ImmutableCollection<ConstructQuery> computeConstructQueries(ImmutableSet<IRI> resourcesToDescribe) {
-        ConstructQuerySplit split = createConstructionQuerySplit(isFixedObjectIncludedInDescribe);
-        SimpleValueFactory valueFactory = SimpleValueFactory.getInstance();
+    public Iterable<ConstructQuery> computeConstructQueries(ImmutableSet<IRI> resourcesToDescribe) {
+        if (chunkSize == 1) {
+            ConstructQuerySplit split = createConstructionQuerySplit(isFixedObjectIncludedInDescribe, null);
+            SimpleValueFactory valueFactory = SimpleValueFactory.getInstance();
+
+            return Iterables.transform(resourcesToDescribe,
+                    d -> new RDF4JConstructQueryImpl(split, "# Construct for describing " + d,
+                            new ListBindingSet(ImmutableList.of(DESCRIBE_VARIABLE), valueFactory.createIRI(d.getIRIString()))));
+        }
 
-        return resourcesToDescribe.stream()
-                .map(d -> new RDF4JConstructQueryImpl(split, "# Construct for describing " + d,
-                        new ListBindingSet(ImmutableList.of(DESCRIBE_VARIABLE), valueFactory.createIRI(d.getIRIString()))))
-                .collect(ImmutableCollectors.toList());
+        return Iterables.transform(Iterables.partition(resourcesToDescribe, chunkSize), this::createChunkConstructQuery);
+    }
+
+    private ConstructQuery createChunkConstructQuery(List<IRI> resources) {
+        SimpleValueFactory valueFactory = SimpleValueFactory.getInstance();
+        ImmutableList<String> bindingNames = ImmutableList.of(DESCRIBE_VARIABLE);
+
+        BindingSetAssignment valuesBlock = new BindingSetAssignment();
+        valuesBlock.setBindingNames(ImmutableSet.of(DESCRIBE_VARIABLE));
+        valuesBlock.setBindingSets(resources.stream()
+                .<BindingSet>map(d -> new ListBindingSet(bindingNames, valueFactory.createIRI(d.getIRIString())))
+                .collect(ImmutableCollectors.toList()));
+
+        // Also used as the key of the query cache
+        String chunkQueryString = resources.stream()
+                .map(d -> "<" + d.getIRIString() + ">")
+                .collect(Collectors.joining(" ", "# Construct for describing ", ""));
+
+        return new RDF4JConstructQueryImpl(
+                createConstructionQuerySplit(isFixedObjectIncludedInDescribe, valuesBlock),
+                chunkQueryString, EmptyBindingSet.getInstance());
     }
 
-    private static ConstructQuerySplit createConstructionQuerySplit(boolean isFixedObjectIncludedInDescribe) {
-        ParsedTupleQuery selectQuery = new ParsedTupleQuery(createSPPOUnion(isFixedObjectIncludedInDescribe));
+    /**
+     * When the values block is not null, joins it with the SPPO union
+     */
+    private static ConstructQuerySplit createConstructionQuerySplit(boolean isFixedObjectIncludedInDescribe,
+                                                                    @Nullable BindingSetAssignment valuesBlock) {
+        TupleExpr sppoUnion = createSPPOUnion(isFixedObjectIncludedInDescribe);
+        ParsedTupleQuery selectQuery = new ParsedTupleQuery(valuesBlock == null
+                ? sppoUnion
+                : new Join(valuesBlock, sppoUnion));
 
         UnaryTupleOperator newProjection = createNewProjection(isFixedObjectIncludedInDescribe);
         ConstructTemplate constructTemplate = new RDF4JConstructTemplate(newProjection, null);
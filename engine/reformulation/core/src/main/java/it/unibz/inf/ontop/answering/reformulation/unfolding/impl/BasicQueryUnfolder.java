@@ -1,16 +1,22 @@
 package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
 
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.injection.QueryTransformerFactory;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.iq.node.IntensionalDataNode;
+import it.unibz.inf.ontop.iq.optimizer.UnionAndBindingLiftOptimizer;
 import it.unibz.inf.ontop.iq.optimizer.impl.AbstractIntensionalQueryMerger;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
@@ -23,12 +29,17 @@ import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
+import org.apache.commons.rdf.api.IRI;
 
 import java.util.Optional;
 import java.util.stream.Stream;
 
 /**
  * See TranslationFactory for creating a new instance.
+ *
+ * The definitions selected for a triple pattern (property, class or star pattern) are merged, normalized and
+ * pre-optimized once and kept in a bounded cache, as they are shared by many queries that do not hit
+ * the query cache.
  */
 public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implements QueryUnfolder {
 
@@ -37,17 +48,50 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
     private final QueryTransformerFactory transformerFactory;
     private final UnionBasedQueryMerger queryMerger;
     private final CoreUtilsFactory coreUtilsFactory;
+    private final UnionAndBindingLiftOptimizer bindingLiftOptimizer;
+
+    // NB: still present in more recent versions of Guava
+    @SuppressWarnings("UnstableApiUsage")
+    private final Cache<FragmentKey, Optional<IQ>> fragmentCache;
 
     @AssistedInject
     private BasicQueryUnfolder(@Assisted Mapping mapping, IntermediateQueryFactory iqFactory,
                                SubstitutionFactory substitutionFactory, QueryTransformerFactory transformerFactory,
-                               UnionBasedQueryMerger queryMerger, CoreUtilsFactory coreUtilsFactory) {
+                               UnionBasedQueryMerger queryMerger, CoreUtilsFactory coreUtilsFactory,
+                               UnionAndBindingLiftOptimizer bindingLiftOptimizer,
+                               OntopReformulationSettings settings) {
         super(iqFactory);
         this.mapping = mapping;
         this.substitutionFactory = substitutionFactory;
         this.transformerFactory = transformerFactory;
         this.queryMerger = queryMerger;
         this.coreUtilsFactory = coreUtilsFactory;
+        this.bindingLiftOptimizer = bindingLiftOptimizer;
+        this.fragmentCache = CacheBuilder.newBuilder()
+                .maximumSize(settings.getUnfoldingFragmentCacheMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Merges, normalizes and lifts the bindings of the definitions, unless the fragment is already in the cache.
+     *
+     * Concurrent misses on the same key may compute the fragment twice (same result).
+     */
+    private Optional<IQ> getFragment(FragmentKey key) {
+        Optional<IQ> cachedFragment = fragmentCache.getIfPresent(key);
+        if (cachedFragment != null)
+            return cachedFragment;
+
+        Optional<IQ> fragment = queryMerger.mergeDefinitions(key.definitions)
+                .map(IQ::normalizeForOptimization)
+                .map(bindingLiftOptimizer::optimize);
+        fragmentCache.put(key, fragment);
+        return fragment;
+    }
+
+    public CacheStats getFragmentCacheStats() {
+        return fragmentCache.stats();
     }
 
     @Override
@@ -76,27 +120,71 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
             return predicate.getPropertyIRI(arguments)
                     .map(i -> i.equals(RDF.TYPE)
                             ? getRDFClassDefinition(predicate, arguments)
-                            : mapping.getRDFPropertyDefinition(predicate, i))
-                    .orElseGet(() -> getStarDefinition(predicate));
+                            : getFragment(predicate, false, arguments,
+                                    toList(mapping.getRDFPropertyDefinition(predicate, i))))
+                    .orElseGet(() -> getStarDefinition(predicate, arguments));
         }
 
         private Optional<IQ> getRDFClassDefinition(RDFAtomPredicate predicate,
                                                    ImmutableList<? extends VariableOrGroundTerm> arguments) {
             return predicate.getClassIRI(arguments)
-                    .map(i -> mapping.getRDFClassDefinition(predicate, i))
-                    .orElseGet(() -> getStarClassDefinition(predicate));
+                    .map(i -> getFragment(predicate, true, arguments,
+                            toList(mapping.getRDFClassDefinition(predicate, i))))
+                    .orElseGet(() -> getStarClassDefinition(predicate, arguments));
         }
 
-        private Optional<IQ> getStarClassDefinition(RDFAtomPredicate predicate) {
-            return queryMerger.mergeDefinitions(mapping.getRDFClasses(predicate).stream()
+        /**
+         * When the subject is a constant IRI, only the compatible branches of the class definitions are merged
+         */
+        private Optional<IQ> getStarClassDefinition(RDFAtomPredicate predicate,
+                                                    ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            Optional<IRI> subject = extractIRI(predicate.getSubject(arguments));
+
+            if (subject.isPresent())
+                return getFragment(predicate, true, arguments,
+                        mapping.getCompatibleClassDefinitions(predicate, subject.get()));
+
+            return getFragment(predicate, true, arguments, mapping.getRDFClasses(predicate).stream()
                     .flatMap(i -> mapping.getRDFClassDefinition(predicate, i)
                             .map(Stream::of)
                             .orElseGet(Stream::empty))
                     .collect(ImmutableCollectors.toList()));
         }
 
-        private Optional<IQ> getStarDefinition(RDFAtomPredicate predicate) {
-            return queryMerger.mergeDefinitions(mapping.getQueries(predicate));
+        /**
+         * When the subject and/or the object are constant IRIs, only the compatible branches of the definitions
+         * are merged
+         */
+        private Optional<IQ> getStarDefinition(RDFAtomPredicate predicate,
+                                               ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            Optional<IRI> subject = extractIRI(predicate.getSubject(arguments));
+            Optional<IRI> object = extractIRI(predicate.getObject(arguments));
+
+            return getFragment(predicate, false, arguments,
+                    subject.isPresent() || object.isPresent()
+                            ? mapping.getCompatibleDefinitions(predicate, subject, object)
+                            : mapping.getQueries(predicate));
+        }
+
+        private Optional<IQ> getFragment(RDFAtomPredicate predicate, boolean isClass,
+                                         ImmutableList<? extends VariableOrGroundTerm> arguments,
+                                         ImmutableCollection<IQ> definitions) {
+            return BasicQueryUnfolder.this.getFragment(new FragmentKey(predicate, isClass,
+                    extractIRI(predicate.getSubject(arguments)).isPresent(),
+                    extractIRI(predicate.getObject(arguments)).isPresent(),
+                    ImmutableList.copyOf(definitions)));
+        }
+
+        private ImmutableList<IQ> toList(Optional<IQ> definition) {
+            return definition
+                    .map(ImmutableList::of)
+                    .orElseGet(ImmutableList::of);
+        }
+
+        private Optional<IRI> extractIRI(VariableOrGroundTerm term) {
+            return Optional.of(term)
+                    .filter(t -> t instanceof IRIConstant)
+                    .map(t -> ((IRIConstant) t).getIRI());
         }
 
         @Override
@@ -104,4 +192,61 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
             return iqFactory.createEmptyNode(dataNode.getVariables());
         }
     }
+
+    /**
+     * Shape of the triple pattern (class or not, positions holding a constant IRI) and the definitions
+     * selected for it.
+     *
+     * The constant IRIs and the projected variables are not part of the key: the definitions are selected
+     * according to the IRI templates, so all the IRIs matching the same templates share the fragment, which is
+     * renamed and specialized for each intensional data node.
+     *
+     * The definitions come from the mapping and are compared by reference.
+     */
+    private static class FragmentKey {
+        private final RDFAtomPredicate predicate;
+        private final boolean isClass;
+        private final boolean isSubjectConstant;
+        private final boolean isObjectConstant;
+        private final ImmutableList<IQ> definitions;
+        private final int hashCode;
+
+        private FragmentKey(RDFAtomPredicate predicate, boolean isClass, boolean isSubjectConstant,
+                            boolean isObjectConstant, ImmutableList<IQ> definitions) {
+            this.predicate = predicate;
+            this.isClass = isClass;
+            this.isSubjectConstant = isSubjectConstant;
+            this.isObjectConstant = isObjectConstant;
+            this.definitions = definitions;
+            int definitionHashCode = 1;
+            for (IQ definition : definitions)
+                definitionHashCode = 31 * definitionHashCode + System.identityHashCode(definition);
+            this.hashCode = 31 * (31 * (31 * (31 * predicate.hashCode() + Boolean.hashCode(isClass))
+                    + Boolean.hashCode(isSubjectConstant)) + Boolean.hashCode(isObjectConstant)) + definitionHashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FragmentKey that = (FragmentKey) o;
+            if (hashCode != that.hashCode
+                    || isClass != that.isClass
+                    || isSubjectConstant != that.isSubjectConstant
+                    || isObjectConstant != that.isObjectConstant
+                    || !predicate.equals(that.predicate)
+                    || definitions.size() != that.definitions.size())
+                return false;
+            for (int i = 0; i < definitions.size(); i++) {
+                if (definitions.get(i) != that.definitions.get(i))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package it.unibz.inf.ontop.answering.resultset;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+
+import javax.annotation.Nullable;
+
+/**
+ * Consecutive rows of a TupleResultSet, stored column by column.
+ *
+ * Each column has a dictionary of the distinct values it takes in the batch, and the rows refer to these values
+ * by index. Repeated values (e.g. the same IRI or the same literal) are therefore only decoded once per batch,
+ * and consumers can convert the dictionaries instead of every single value.
+ */
+public interface TupleResultBatch {
+
+    ImmutableList<String> getSignature();
+
+    /**
+     * 0 when the result set has no more rows
+     */
+    int getRowCount();
+
+    /**
+     * Distinct values of the column in the batch
+     */
+    ImmutableList<RDFConstant> getDictionary(int column);
+
+    /**
+     * Index of the value in the dictionary of the column, -1 if the variable is unbound
+     */
+    int getIndex(int row, int column);
+
+    @Nullable
+    default RDFConstant getConstant(int row, int column) {
+        int index = getIndex(row, column);
+        return index < 0 ? null : getDictionary(column).get(index);
+    }
+}
@@ -37,4 +37,12 @@ public interface TupleResultSet extends IterativeOBDAResultSet<OntopBindingSet,
 	int getFetchSize() throws OntopConnectionException;
 
 	boolean isConnectionAlive() throws OntopConnectionException;
+
+	/**
+	 * Alternative to next() for bulk consumers: returns the next rows (at most maxRowCount), column by column.
+	 * Can be mixed with hasNext() and next().
+	 *
+	 * Returns an empty batch when there are no more rows (the result set is then closed, like with hasNext()).
+	 */
+	TupleResultBatch nextBatch(int maxRowCount) throws OntopConnectionException, OntopResultConversionException;
 }
@@ -0,0 +1,144 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.resultset.TupleResultBatch;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ColumnarTupleResultBatch implements TupleResultBatch {
+
+    private final ImmutableList<String> signature;
+    private final int rowCount;
+    private final ImmutableList<ImmutableList<RDFConstant>> dictionaries;
+    // One array of dictionary indexes per column
+    private final int[][] indexes;
+
+    private ColumnarTupleResultBatch(ImmutableList<String> signature, int rowCount,
+                                     ImmutableList<ImmutableList<RDFConstant>> dictionaries, int[][] indexes) {
+        this.signature = signature;
+        this.rowCount = rowCount;
+        this.dictionaries = dictionaries;
+        this.indexes = indexes;
+    }
+
+    @Override
+    public ImmutableList<String> getSignature() {
+        return signature;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public ImmutableList<RDFConstant> getDictionary(int column) {
+        return dictionaries.get(column);
+    }
+
+    @Override
+    public int getIndex(int row, int column) {
+        if (row >= rowCount)
+            throw new IndexOutOfBoundsException("Row " + row + " is not in the batch (" + rowCount + " rows)");
+        return indexes[column][row];
+    }
+
+    /**
+     * Rows are filled column by column: a value must be added to each column before calling endRow().
+     *
+     * Not thread-safe.
+     */
+    public static class Builder {
+        private final ImmutableList<String> signature;
+        private final ImmutableList<ColumnBuilder> columns;
+        private int rowCount = 0;
+
+        public Builder(ImmutableList<String> signature, int expectedRowCount) {
+            this.signature = signature;
+            this.columns = signature.stream()
+                    .map(v -> new ColumnBuilder(expectedRowCount))
+                    .collect(ImmutableCollectors.toList());
+        }
+
+        public ColumnBuilder getColumn(int column) {
+            return columns.get(column);
+        }
+
+        public void endRow() {
+            rowCount++;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public ColumnarTupleResultBatch build() {
+            return new ColumnarTupleResultBatch(signature, rowCount,
+                    columns.stream()
+                            .map(c -> ImmutableList.copyOf(c.dictionary))
+                            .collect(ImmutableCollectors.toList()),
+                    columns.stream()
+                            .map(c -> Arrays.copyOf(c.indexes, rowCount))
+                            .toArray(int[][]::new));
+        }
+    }
+
+    /**
+     * The values are identified by a key, which allows producers to look up a value before building it
+     * (e.g. from its lexical value). Within a column, different values must have different keys.
+     */
+    public static class ColumnBuilder {
+        private final Map<Object, Integer> keyIndex = new HashMap<>();
+        private final List<RDFConstant> dictionary = new ArrayList<>();
+        private int[] indexes;
+        private int size = 0;
+
+        private ColumnBuilder(int expectedRowCount) {
+            this.indexes = new int[Math.max(expectedRowCount, 1)];
+        }
+
+        /**
+         * Returns false if no value has been registered for this key (the value must then be added with add())
+         */
+        public boolean addIfKnown(Object key) {
+            Integer index = keyIndex.get(key);
+            if (index == null)
+                return false;
+            append(index);
+            return true;
+        }
+
+        public void add(Object key, RDFConstant constant) {
+            Integer index = keyIndex.get(key);
+            if (index == null) {
+                index = dictionary.size();
+                dictionary.add(constant);
+                keyIndex.put(key, index);
+            }
+            append(index);
+        }
+
+        /**
+         * The constant is its own key (null if unbound)
+         */
+        public void add(@Nullable RDFConstant constant) {
+            if (constant == null)
+                append(-1);
+            else
+                add(constant, constant);
+        }
+
+        private void append(int index) {
+            if (size == indexes.length)
+                indexes = Arrays.copyOf(indexes, size * 2);
+            indexes[size++] = index;
+        }
+    }
+}
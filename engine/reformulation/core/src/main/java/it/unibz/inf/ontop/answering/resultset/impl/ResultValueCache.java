@@ -0,0 +1,70 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.function.Function;
+
+/**
+ * Bounded cache deduplicating the values (RDF constants, binding library values, etc.) created during
+ * the conversion of the results.
+ *
+ * The same IRIs and literals (classes, code lists, language tags, etc.) typically appear in many rows:
+ * sharing them reduces the number of objects allocated and retained by long result streams.
+ *
+ * Thread-safe. Disabled (no caching, no statistics) if the maximum size is 0.
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class ResultValueCache<K, V> {
+
+    private final String name;
+    private final Cache<K, V> cache;
+    private final boolean isEnabled;
+
+    public ResultValueCache(String name, int maxSize) {
+        this.name = name;
+        this.isEnabled = maxSize > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(Math.max(maxSize, 0))
+                .concurrencyLevel(Math.max(4, Runtime.getRuntime().availableProcessors()))
+                .recordStats()
+                .build();
+    }
+
+    public static <K, V> ResultValueCache<K, V> disabled() {
+        return new ResultValueCache<>("disabled", 0);
+    }
+
+    /**
+     * Returns the cached value for the key, otherwise converts it and caches the result.
+     * The converter must always return the same value (up to equals()) for the same key.
+     */
+    public V get(K key, Function<? super K, ? extends V> converter) {
+        if (!isEnabled)
+            return converter.apply(key);
+
+        V value = cache.getIfPresent(key);
+        if (value == null) {
+            value = converter.apply(key);
+            if (value != null)
+                cache.put(key, value);
+        }
+        return value;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return String.format("%s cache: %d entries, %d hits, %d misses (hit rate: %.1f%%), %d evictions",
+                name, cache.size(), stats.hitCount(), stats.missCount(), 100 * stats.hitRate(), stats.evictionCount());
+    }
+}
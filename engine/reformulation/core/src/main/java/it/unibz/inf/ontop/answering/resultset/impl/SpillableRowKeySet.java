@@ -0,0 +1,416 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set of the rows already seen by a post-processing step (e.g. DISTINCT), with a bounded memory footprint.
+ *
+ * While the memory budget is not exceeded, the rows are kept in a hash set and compared EXACTLY,
+ * by the equals() and hashCode() methods of their values (and by content for byte arrays).
+ * The memory of a row is estimated from its values (the estimation also covers the fingerprints computed
+ * when spilling, so that the spill stays within the budget).
+ *
+ * When the budget is exceeded, the rows are reduced to 128-bit fingerprints (murmur3), which are sorted
+ * and spilled to a temporary file (a "run"), memory-mapped and looked up by binary search.
+ * Runs are merged when they become too numerous.
+ *
+ * Only the spilled rows are compared through their fingerprints: two distinct rows sharing the same fingerprint
+ * are considered equal, so the second one is wrongly reported as already seen (e.g. dropped by DISTINCT).
+ * The probability is negligible (about 2^-70 for a billion rows) but not zero.
+ * The fingerprint of a value is computed from its content for the strings, byte arrays, numbers, booleans and
+ * dates, and from its class and hashCode() otherwise (less discriminating, but consistent with equals()).
+ *
+ * Not thread-safe. The temporary files are deleted by close().
+ */
+public class SpillableRowKeySet implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillableRowKeySet.class);
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int KEY_SIZE = 16; // bytes
+    private static final int MAX_RUNS = 8;
+    // Keys per memory-mapped segment of a run (1 GB)
+    private static final int SEGMENT_KEYS = 1 << 26;
+
+    // Estimated sizes (in bytes): entry of the hash set (and its share of the table), row key and its array header
+    private static final int ROW_OVERHEAD = 80;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int OBJECT_HEADER_SIZE = 16;
+
+    private final String name;
+    private final long memoryBudget;
+    private final File spillDirectory;
+
+    private final Set<RowKey> rows = new HashSet<>();
+    private long rowMemory = 0;
+
+    private final List<Run> runs = new ArrayList<>();
+    private long size = 0;
+    private int spillCount = 0;
+
+    /**
+     * @param name used for reporting the spills
+     * @param memoryBudget maximal (estimated) size in bytes of the rows kept in memory
+     */
+    public SpillableRowKeySet(String name, long memoryBudget, File spillDirectory) {
+        this.name = name;
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Returns true if the row has not been seen before.
+     * The values are compared by equals() (and content for byte arrays), null being equal to null.
+     */
+    public boolean add(Object... values) throws IOException {
+        RowKey row = new RowKey(values.clone());
+        if (rows.contains(row))
+            return false;
+
+        if (!runs.isEmpty()) {
+            long[] fingerprint = computeFingerprint(row);
+            for (Run run : runs)
+                if (run.contains(fingerprint[0], fingerprint[1]))
+                    return false;
+        }
+
+        rows.add(row);
+        rowMemory += estimateSize(row);
+        size++;
+
+        if (rowMemory > memoryBudget)
+            spill();
+        return true;
+    }
+
+    /**
+     * Number of distinct rows
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Number of times the rows kept in memory have been spilled to disk
+     */
+    public int getSpillCount() {
+        return spillCount;
+    }
+
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    @Override
+    public void close() {
+        for (Run run : runs)
+            run.delete();
+        runs.clear();
+        rows.clear();
+        rowMemory = 0;
+        if (spillCount > 0)
+            LOGGER.debug("{}: {} distinct rows, spilled {} times to disk", name, size, spillCount);
+    }
+
+    private static long estimateSize(RowKey row) {
+        long size = ROW_OVERHEAD + KEY_SIZE;
+        for (Object value : row.values)
+            size += REFERENCE_SIZE + estimateSize(value);
+        return size;
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null)
+            return 0;
+        if (value instanceof String)
+            return 2 * OBJECT_HEADER_SIZE + 2L * ((String) value).length();
+        if (value instanceof byte[])
+            return OBJECT_HEADER_SIZE + ((byte[]) value).length;
+        if (value instanceof BigDecimal || value instanceof BigInteger)
+            return 4 * OBJECT_HEADER_SIZE;
+        return 2 * OBJECT_HEADER_SIZE;
+    }
+
+    /**
+     * Consistent with RowKey.equals(): equal rows have the same fingerprint
+     */
+    private static long[] computeFingerprint(RowKey row) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        for (Object value : row.values)
+            putValue(hasher, value);
+        ByteBuffer hash = ByteBuffer.wrap(hasher.hash().asBytes());
+        return new long[] { hash.getLong(), hash.getLong() };
+    }
+
+    /**
+     * Values of different classes are never equal (for the JDBC values), so the class is part of the fingerprint
+     */
+    private static void putValue(Hasher hasher, Object value) {
+        if (value == null) {
+            hasher.putByte((byte) 0);
+            return;
+        }
+        if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            hasher.putByte((byte) 1).putInt(bytes.length).putBytes(bytes);
+            return;
+        }
+        String className = value.getClass().getName();
+        hasher.putByte((byte) 2).putInt(className.length()).putString(className, StandardCharsets.UTF_8);
+        if (value instanceof String) {
+            String string = (String) value;
+            hasher.putInt(string.length()).putString(string, StandardCharsets.UTF_8);
+        }
+        else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            hasher.putLong(((Number) value).longValue());
+        else if (value instanceof Double || value instanceof Float)
+            hasher.putLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            byte[] unscaledValue = decimal.unscaledValue().toByteArray();
+            hasher.putInt(decimal.scale()).putInt(unscaledValue.length).putBytes(unscaledValue);
+        }
+        else if (value instanceof BigInteger) {
+            byte[] bytes = ((BigInteger) value).toByteArray();
+            hasher.putInt(bytes.length).putBytes(bytes);
+        }
+        else if (value instanceof Boolean)
+            hasher.putBoolean((Boolean) value);
+        else if (value instanceof Timestamp)
+            hasher.putLong(((Timestamp) value).getTime()).putInt(((Timestamp) value).getNanos());
+        else if (value instanceof Date)
+            hasher.putLong(((Date) value).getTime());
+        else
+            hasher.putInt(value.hashCode());
+    }
+
+    private void spill() throws IOException {
+        if (spillCount == 0)
+            LOGGER.info("{} exceeded its memory budget of {} bytes after {} rows: spilling to {}",
+                    name, memoryBudget, size, spillDirectory);
+
+        int count = rows.size();
+        long[] keys = new long[2 * count];
+        int i = 0;
+        for (RowKey row : rows) {
+            long[] fingerprint = computeFingerprint(row);
+            keys[2 * i] = fingerprint[0];
+            keys[2 * i + 1] = fingerprint[1];
+            i++;
+        }
+        // The rows are released before writing the run
+        rows.clear();
+        rowMemory = 0;
+        sort(keys, 0, count - 1);
+
+        File file = File.createTempFile("ontop-spill-", ".keys", spillDirectory);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            for (long key : keys)
+                out.writeLong(key);
+        }
+        runs.add(new Run(file, count));
+        spillCount++;
+        LOGGER.debug("{}: spilled {} keys to {}", name, count, file);
+
+        if (runs.size() > MAX_RUNS)
+            mergeRuns();
+    }
+
+    /**
+     * The runs are disjoint, but for the rows of a spill sharing the same fingerprint (duplicates are skipped)
+     */
+    private void mergeRuns() throws IOException {
+        long total = runs.stream().mapToLong(r -> r.count).sum();
+        long[] positions = new long[runs.size()];
+
+        long written = 0;
+        File file = File.createTempFile("ontop-spill-", ".keys", spillDirectory);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            long last1 = 0, last2 = 0;
+            for (long read = 0; read < total; read++) {
+                int min = -1;
+                for (int i = 0; i < runs.size(); i++) {
+                    if (positions[i] < runs.get(i).count
+                            && (min < 0 || runs.get(i).compareAt(positions[i], runs.get(min), positions[min]) < 0))
+                        min = i;
+                }
+                Run run = runs.get(min);
+                long h1 = run.getH1(positions[min]), h2 = run.getH2(positions[min]);
+                positions[min]++;
+                if (written > 0 && h1 == last1 && h2 == last2)
+                    continue;
+                out.writeLong(h1);
+                out.writeLong(h2);
+                last1 = h1;
+                last2 = h2;
+                written++;
+            }
+        }
+        for (Run run : runs)
+            run.delete();
+        runs.clear();
+        runs.add(new Run(file, written));
+        LOGGER.debug("{}: merged the spilled keys into {}", name, file);
+    }
+
+    private static int compare(long a1, long a2, long b1, long b2) {
+        int c = Long.compare(a1, b1);
+        return (c != 0) ? c : Long.compare(a2, b2);
+    }
+
+    /**
+     * Quicksort of the (h1, h2) pairs between the pair indexes from and to (inclusive).
+     * The fingerprints being uniformly distributed, the middle pivot is good enough.
+     */
+    private static void sort(long[] keys, int from, int to) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            long p1 = keys[2 * mid], p2 = keys[2 * mid + 1];
+            int i = from, j = to;
+            while (i <= j) {
+                while (compare(keys[2 * i], keys[2 * i + 1], p1, p2) < 0)
+                    i++;
+                while (compare(keys[2 * j], keys[2 * j + 1], p1, p2) > 0)
+                    j--;
+                if (i <= j) {
+                    swap(keys, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // recurses on the smaller part to bound the stack depth
+            if (j - from < to - i) {
+                sort(keys, from, j);
+                from = i;
+            }
+            else {
+                sort(keys, i, to);
+                to = j;
+            }
+        }
+    }
+
+    private static void swap(long[] keys, int i, int j) {
+        long t1 = keys[2 * i], t2 = keys[2 * i + 1];
+        keys[2 * i] = keys[2 * j];
+        keys[2 * i + 1] = keys[2 * j + 1];
+        keys[2 * j] = t1;
+        keys[2 * j + 1] = t2;
+    }
+
+    /**
+     * Row kept in memory, compared by the equals() and hashCode() of its values
+     */
+    private static final class RowKey {
+        private final Object[] values;
+        private final int hashCode;
+
+        RowKey(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.deepHashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof RowKey))
+                return false;
+            RowKey other = (RowKey) o;
+            return hashCode == other.hashCode && Arrays.deepEquals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Sorted fingerprints stored in a memory-mapped file
+     */
+    private static final class Run {
+        private final File file;
+        private final long count;
+        private final LongBuffer[] segments;
+
+        Run(File file, long count) throws IOException {
+            this.file = file;
+            this.count = count;
+            int segmentCount = (int) ((count + SEGMENT_KEYS - 1) / SEGMENT_KEYS);
+            this.segments = new LongBuffer[segmentCount];
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                for (int i = 0; i < segmentCount; i++) {
+                    long first = (long) i * SEGMENT_KEYS;
+                    long keys = Math.min(SEGMENT_KEYS, count - first);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * KEY_SIZE, keys * KEY_SIZE)
+                            .asLongBuffer();
+                }
+            }
+        }
+
+        long getH1(long index) {
+            return segments[(int) (index / SEGMENT_KEYS)].get((int) (index % SEGMENT_KEYS) * 2);
+        }
+
+        long getH2(long index) {
+            return segments[(int) (index / SEGMENT_KEYS)].get((int) (index % SEGMENT_KEYS) * 2 + 1);
+        }
+
+        int compareAt(long index, Run other, long otherIndex) {
+            return compare(getH1(index), getH2(index), other.getH1(otherIndex), other.getH2(otherIndex));
+        }
+
+        boolean contains(long h1, long h2) {
+            long low = 0, high = count - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                int c = compare(getH1(mid), getH2(mid), h1, h2);
+                if (c < 0)
+                    low = mid + 1;
+                else if (c > 0)
+                    high = mid - 1;
+                else
+                    return true;
+            }
+            return false;
+        }
+
+        void delete() {
+            if (!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + size + " rows, " + runs.size() + " runs)";
+    }
+
+    /**
+     * Estimated size (in bytes) of the rows kept in memory
+     */
+    public long getMemoryUsage() {
+        return rowMemory;
+    }
+}
@@ -0,0 +1,11 @@
+package it.unibz.inf.ontop.exception;
+
+/**
+ * Thrown when the query reformulation has been stopped (the query has been cancelled or the thread interrupted)
+ */
+public class OntopReformulationInterruptedException extends OntopReformulationException {
+
+    public OntopReformulationInterruptedException() {
+        super("The query reformulation has been interrupted");
+    }
+}
@@ -3,6 +3,8 @@ package it.unibz.inf.ontop.injection;
 
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Optional;
+
 public interface OntopReformulationSettings extends OntopOBDASettings, OntopOptimizationSettings {
 
     boolean isExistentialReasoningEnabled();
@@ -25,6 +27,49 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     boolean isQueryLoggingDecompositionEnabled();
     boolean areQueryLoggingDecompositionAndMergingMutuallyExclusive();
 
+    /**
+     * Maximal number of query log messages waiting to be written.
+     * When the buffer is full, new messages are dropped (and counted) instead of blocking the queries.
+     */
+    int getQueryLoggingBufferSize();
+
+    /**
+     * Destination of the query log messages (when using the default QueryLogSink)
+     */
+    QueryLoggingSink getQueryLoggingSink();
+
+    /**
+     * Required by the FILE sink
+     */
+    Optional<String> getQueryLoggingFile();
+
+    /**
+     * Size (in bytes) after which the query log file is rolled over
+     */
+    long getQueryLoggingFileMaxSize();
+
+    /**
+     * Number of rolled-over query log files kept
+     */
+    int getQueryLoggingFileMaxCount();
+
+    /**
+     * Required by the SOCKET sink (local TCP port)
+     */
+    Optional<Integer> getQueryLoggingSocketPort();
+
+    enum QueryLoggingSink {
+        STDOUT,
+        /**
+         * Rolling file
+         */
+        FILE,
+        /**
+         * TCP socket on the local host
+         */
+        SOCKET
+    }
+
     /**
      * Returns true if the pattern "?s ?p <describedIRI>" should also be
      * considered while answering a DESCRIBE query.
@@ -32,10 +77,31 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
      */
     boolean isFixedObjectIncludedInDescribe();
 
+    /**
+     * Maximum number of resources described by one CONSTRUCT query (bound through a VALUES block)
+     * when answering a DESCRIBE query.
+     *
+     * 1 means one CONSTRUCT query per described resource.
+     */
+    int getDescribeChunkSize();
+
     ImmutableSet<String> getHttpHeaderNamesToLog();
 
     long getQueryCacheMaxSize();
 
+    /**
+     * If true, queries that only differ by some of the values appearing in their IRIs and literals
+     * may share the same executable query. Only effective when these values are passed as parameters
+     * of the native query (e.g. ontop.sql.bindParameters for SQL).
+     */
+    boolean isParameterizedQueryCacheEnabled();
+
+    /**
+     * Maximum number of merged definitions (for star patterns, possibly restricted to some constant IRIs)
+     * kept by the unfolder. Unlike the query cache, these fragments are shared by different queries.
+     */
+    long getUnfoldingFragmentCacheMaxSize();
+
     String getApplicationName();
 
 
@@ -49,6 +115,8 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     String AVOID_POST_PROCESSING = "ontop.avoidPostProcessing";
     String EXCLUDE_INVALID_TRIPLES_FROM_RESULT_SET = "ontop.excludeInvalidTriplesFromResultSet";
     String QUERY_CACHE_MAX_SIZE = "ontop.cache.query.size";
+    String PARAMETERIZED_QUERY_CACHE = "ontop.cache.query.parameterized";
+    String UNFOLDING_FRAGMENT_CACHE_MAX_SIZE = "ontop.cache.unfolding.size";
     String QUERY_LOGGING = "ontop.queryLogging";
     // Needed for logging
     String APPLICATION_NAME = "ontop.applicationName";
@@ -64,6 +132,13 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     String QUERY_TEMPLATE_EXTRACTION = "ontop.queryLogging.extractQueryTemplate";
     String QUERY_LOGGING_DECOMPOSITION = "ontop.queryLogging.decomposition";
     String QUERY_LOGGING_DECOMPOSITION_AND_MERGING_EXCLUSIVE = "ontop.queryLogging.decompositionAndMergingMutuallyExclusive";
+    String QUERY_LOGGING_BUFFER_SIZE = "ontop.queryLogging.bufferSize";
+    String QUERY_LOGGING_SINK = "ontop.queryLogging.sink";
+    String QUERY_LOGGING_FILE = "ontop.queryLogging.file";
+    String QUERY_LOGGING_FILE_MAX_SIZE = "ontop.queryLogging.file.maxSize";
+    String QUERY_LOGGING_FILE_MAX_COUNT = "ontop.queryLogging.file.maxCount";
+    String QUERY_LOGGING_SOCKET_PORT = "ontop.queryLogging.socket.port";
 
     String INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE = "ontop.includeFixedObjectPositionInDescribe";
+    String DESCRIBE_CHUNK_SIZE = "ontop.describe.chunkSize";
 }
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.injection.impl;
 
 import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopOptimizationSettings;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
@@ -8,12 +9,14 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.Properties;
 
 public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implements OntopReformulationSettings {
 
     private static final String DEFAULT_FILE = "reformulation-default.properties";
     private final OntopOptimizationSettings optimizationSettings;
+    private final QueryLoggingSink queryLoggingSink;
 
     // LAZY
     @Nullable
@@ -22,6 +25,15 @@ public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implem
     OntopReformulationSettingsImpl(Properties userProperties) {
         super(loadProperties(userProperties));
         optimizationSettings = new OntopOptimizationSettingsImpl(copyProperties());
+        queryLoggingSink = extractQueryLoggingSink(getRequiredProperty(QUERY_LOGGING_SINK));
+    }
+
+    private static QueryLoggingSink extractQueryLoggingSink(String value) {
+        try {
+            return QueryLoggingSink.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOntopConfigurationException("Invalid value for " + QUERY_LOGGING_SINK + ": is " + value);
+        }
     }
 
     private static Properties loadProperties(Properties userProperties) {
@@ -100,11 +112,56 @@ public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implem
         return getRequiredBoolean(INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE);
     }
 
+    @Override
+    public int getDescribeChunkSize() {
+        return getRequiredInteger(DESCRIBE_CHUNK_SIZE);
+    }
+
     @Override
     public long getQueryCacheMaxSize() {
         return getRequiredLong(QUERY_CACHE_MAX_SIZE);
     }
 
+    @Override
+    public boolean isParameterizedQueryCacheEnabled() {
+        return getRequiredBoolean(PARAMETERIZED_QUERY_CACHE);
+    }
+
+    @Override
+    public long getUnfoldingFragmentCacheMaxSize() {
+        return getRequiredLong(UNFOLDING_FRAGMENT_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public int getQueryLoggingBufferSize() {
+        return getRequiredInteger(QUERY_LOGGING_BUFFER_SIZE);
+    }
+
+    @Override
+    public QueryLoggingSink getQueryLoggingSink() {
+        return queryLoggingSink;
+    }
+
+    @Override
+    public Optional<String> getQueryLoggingFile() {
+        return getProperty(QUERY_LOGGING_FILE);
+    }
+
+    @Override
+    public long getQueryLoggingFileMaxSize() {
+        return getRequiredLong(QUERY_LOGGING_FILE_MAX_SIZE);
+    }
+
+    @Override
+    public int getQueryLoggingFileMaxCount() {
+        return getRequiredInteger(QUERY_LOGGING_FILE_MAX_COUNT);
+    }
+
+    @Override
+    public Optional<Integer> getQueryLoggingSocketPort() {
+        return getInteger(QUERY_LOGGING_SOCKET_PORT);
+    }
+
     @Override
     public String getApplicationName() {
         return getRequiredProperty(APPLICATION_NAME);
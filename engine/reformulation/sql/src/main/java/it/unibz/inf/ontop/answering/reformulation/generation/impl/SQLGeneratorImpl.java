@@ -149,7 +149,12 @@ public class SQLGeneratorImpl implements NativeQueryGenerator {
         return subTree;
     }
 
+    /**
+     * The constants are only bound as parameters when enabled in the settings (inlined by default)
+     */
     private NativeNode generateNativeNode(IQTree normalizedSubTree) {
-        return defaultIQTree2NativeNodeGenerator.generate(normalizedSubTree, dbParameters, false);
+        return settings.areConstantsBoundAsParameters()
+                ? defaultIQTree2NativeNodeGenerator.generateWithParameters(normalizedSubTree, dbParameters)
+                : defaultIQTree2NativeNodeGenerator.generate(normalizedSubTree, dbParameters, false);
     }
 }
@@ -3,4 +3,18 @@ package it.unibz.inf.ontop.injection;
 
 public interface OntopReformulationSQLSettings extends OntopReformulationSettings, OntopSQLCoreSettings {
 
+    /**
+     * If true, the constants compared in the conditions of the generated SQL query are passed
+     * as parameters of a prepared statement instead of being inlined (opt-in).
+     *
+     * Binding may change how some DBs compare the values (e.g. CHAR columns in Oracle,
+     * NVARCHAR parameters in SQL Server) and requires proper PreparedStatement support from the driver.
+     */
+    boolean areConstantsBoundAsParameters();
+
+    //--------------------------
+    // Keys
+    //--------------------------
+
+    String BIND_PARAMETERS = "ontop.sql.bindParameters";
 }
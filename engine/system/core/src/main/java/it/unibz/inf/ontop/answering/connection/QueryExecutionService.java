@@ -0,0 +1,58 @@
+package it.unibz.inf.ontop.answering.connection;
+
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Controls the admission of the query evaluations (reformulation + execution of the native query) of the statements.
+ *
+ * The evaluations run on the thread calling the statement: no other thread is ever interrupted,
+ * so the cancellation remains cooperative.
+ *
+ * Shared by all the statements of a query engine.
+ *
+ * Guice-enabled interface.
+ */
+public interface QueryExecutionService {
+
+    /**
+     * Blocks until the evaluation can start, at most timeout ms (no specific bound if equal to 0)
+     * and never longer than the queue timeout of the settings.
+     *
+     * Empty if the evaluation has been cancelled (see isCanceled) while waiting.
+     *
+     * Throws an OntopConnectionException if no slot has become available in time.
+     */
+    Optional<ExecutionSlot> acquireSlot(BooleanSupplier isCanceled, long timeout)
+            throws InterruptedException, OntopConnectionException;
+
+    //--------------------------
+    // Metrics
+    //--------------------------
+
+    /**
+     * Number of evaluations currently running
+     */
+    int getActiveQueryCount();
+
+    /**
+     * Number of evaluations waiting for a slot
+     */
+    int getQueuedQueryCount();
+
+    long getCompletedQueryCount();
+
+
+    /**
+     * Held during the evaluation and the streaming of its results.
+     * Must be closed when the result set or the statement is closed, when the query is cancelled
+     * or when the evaluation fails (closing it again has no effect).
+     */
+    interface ExecutionSlot extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,114 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Depending on the QueryExecutionMode, bounds the number of concurrent evaluations (POOL)
+ * or admits all of them (CALLER).
+ *
+ * Waiting evaluations regularly check whether they have been cancelled. They give up with an error
+ * after the queue timeout (or the query timeout, when shorter), so that slots that are not released
+ * in time (e.g. result sets left open) cannot block the following queries forever.
+ */
+@Singleton
+public class DefaultQueryExecutionService implements QueryExecutionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultQueryExecutionService.class);
+    private static final long CANCELLATION_CHECK_PERIOD_MS = 100;
+
+    // Null when the evaluations are not bounded
+    @Nullable
+    private final Semaphore slots;
+    private final long queueTimeout;
+
+    private final AtomicInteger activeQueryCount = new AtomicInteger();
+    private final AtomicInteger queuedQueryCount = new AtomicInteger();
+    private final AtomicLong completedQueryCount = new AtomicLong();
+
+    @Inject
+    private DefaultQueryExecutionService(OntopSystemSettings settings) {
+        QueryExecutionMode mode = settings.getQueryExecutionMode();
+        switch (mode) {
+            case CALLER:
+                slots = null;
+                break;
+            case POOL:
+            default:
+                slots = new Semaphore(settings.getQueryExecutionPoolSize(), true);
+        }
+        queueTimeout = settings.getQueryExecutionQueueTimeout();
+        log.debug("Query execution mode: {}", mode);
+    }
+
+    @Override
+    public Optional<ExecutionSlot> acquireSlot(BooleanSupplier isCanceled, long timeout)
+            throws InterruptedException, OntopConnectionException {
+        if (slots != null && !slots.tryAcquire()) {
+            long maxWait = (timeout > 0) ? Math.min(timeout, queueTimeout) : queueTimeout;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWait);
+            queuedQueryCount.incrementAndGet();
+            try {
+                while (true) {
+                    if (isCanceled.getAsBoolean())
+                        return Optional.empty();
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0)
+                        throw new OntopConnectionException("No query execution slot available after " + maxWait
+                                + " ms (" + getActiveQueryCount() + " queries running)");
+                    if (slots.tryAcquire(Math.min(remaining, CANCELLATION_CHECK_PERIOD_MS), TimeUnit.MILLISECONDS))
+                        break;
+                }
+            } finally {
+                queuedQueryCount.decrementAndGet();
+            }
+        }
+        activeQueryCount.incrementAndGet();
+        return Optional.of(new SlotImpl());
+    }
+
+    @Override
+    public int getActiveQueryCount() {
+        return activeQueryCount.get();
+    }
+
+    @Override
+    public int getQueuedQueryCount() {
+        return queuedQueryCount.get();
+    }
+
+    @Override
+    public long getCompletedQueryCount() {
+        return completedQueryCount.get();
+    }
+
+
+    private class SlotImpl implements ExecutionSlot {
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        @Override
+        public void close() {
+            if (closed.getAndSet(true))
+                return;
+            activeQueryCount.decrementAndGet();
+            completedQueryCount.incrementAndGet();
+            if (slots != null)
+                slots.release();
+        }
+    }
+}
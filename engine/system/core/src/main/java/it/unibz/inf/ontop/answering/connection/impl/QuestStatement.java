@@ -2,6 +2,8 @@ package it.unibz.inf.ontop.answering.connection.impl;
 
 import com.google.common.collect.ImmutableMultimap;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService.ExecutionSlot;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
@@ -12,7 +14,7 @@ import it.unibz.inf.ontop.iq.IQ;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.Optional;
 
 
 /**
@@ -24,89 +26,22 @@ public abstract class QuestStatement implements OntopStatement {
 	private final QueryReformulator engine;
 	private final QueryLogger.Factory queryLoggerFactory;
 
-	private QueryExecutionThread executionThread;
-	private boolean canceled = false;
+	private final QueryExecutionService executionService;
+
+	private volatile boolean canceled = false;
+	/* True once the reformulation is over and the native query is about to be executed */
+	private volatile boolean executingTargetQuery = false;
+	/* Slot of the last query, released at the latest when the statement is closed or the query cancelled */
+	private volatile ExecutionSlot currentSlot;
 
 
 	private static final Logger log = LoggerFactory.getLogger(QuestStatement.class);
 
 
-	public QuestStatement(QueryReformulator queryProcessor) {
+	public QuestStatement(QueryReformulator queryProcessor, QueryExecutionService executionService) {
 		this.engine = queryProcessor;
 		this.queryLoggerFactory = queryProcessor.getQueryLoggerFactory();
-	}
-
-	/**
-	 * Execution thread
-	 */
-	private class QueryExecutionThread<R extends OBDAResultSet, Q extends InputQuery<R>> extends Thread {
-
-		private final Q inputQuery;
-		private final QueryLogger queryLogger;
-		private final Evaluator<R, Q> evaluator;
-		private final CountDownLatch monitor;
-
-		private R resultSet;	  // only for SELECT and ASK queries
-		private Exception exception;
-		private boolean executingTargetQuery;
-
-		QueryExecutionThread(Q inputQuery, QueryLogger queryLogger, Evaluator<R,Q> evaluator,
-						CountDownLatch monitor) {
-			this.inputQuery = inputQuery;
-			this.queryLogger = queryLogger;
-			this.evaluator = evaluator;
-			this.monitor = monitor;
-			this.exception = null;
-			this.executingTargetQuery = false;
-		}
-
-		public boolean errorStatus() {
-			return exception != null;
-		}
-
-		public Exception getException() {
-			return exception;
-		}
-
-		public R getResultSet() {
-			return resultSet;
-		}
-
-		public void cancel() throws OntopQueryEvaluationException {
-			canceled = true;
-			if (!executingTargetQuery) {
-				this.stop();
-			} else {
-				cancelExecution();
-			}
-		}
-
-		@Override
-		public void run() {
-			//                        FOR debugging H2 in-memory database
-//			try {
-//				org.h2.tools.Server.startWebServer(((QuestConnection)conn).getSQLConnection());
-//			} catch (SQLException e) {
-//				e.printStackTrace();
-//			}
-			try {
-				/*
-				 * Executes the target query.
-				 */
-				executingTargetQuery = true;
-				resultSet = evaluator.evaluate(inputQuery, queryLogger);
-				// NB: finished if the result set is blocking!
-				log.debug("Result set unblocked.\n");
-				/*
-				 * TODO: re-handle the timeout exception.
-				 */
-			} catch (Exception e) {
-				exception = e;
-				log.error(e.getMessage(), e);
-			} finally {
-				monitor.countDown();
-			}
-		}
+		this.executionService = executionService;
 	}
 
 	private TupleResultSet executeSelectQuery(SelectQuery inputQuery, QueryLogger queryLogger)
@@ -117,8 +52,8 @@ public abstract class QuestStatement implements OntopStatement {
 	private TupleResultSet executeSelectQuery(SelectQuery inputQuery, QueryLogger queryLogger,
 											  boolean shouldAlsoCloseStatement)
 			throws OntopQueryEvaluationException, OntopReformulationException {
-		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery, queryLogger);
-		logExecutionStartingMessage();
+		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery, queryLogger, this::isCanceled);
+		declareTargetQueryExecutionStarting();
 		return executeSelectQuery(executableQuery, queryLogger, shouldAlsoCloseStatement);
 	}
 
@@ -134,8 +69,8 @@ public abstract class QuestStatement implements OntopStatement {
 
 	private BooleanResultSet executeBooleanQuery(AskQuery inputQuery, QueryLogger queryLogger)
 			throws OntopQueryEvaluationException, OntopReformulationException {
-		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery, queryLogger);
-		logExecutionStartingMessage();
+		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery, queryLogger, this::isCanceled);
+		declareTargetQueryExecutionStarting();
 		return executeBooleanQuery(executableQuery, queryLogger);
 	}
 
@@ -147,8 +82,8 @@ public abstract class QuestStatement implements OntopStatement {
 	private GraphResultSet executeConstructQuery(ConstructQuery constructQuery, QueryLogger queryLogger,
 												 boolean shouldAlsoCloseStatement)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException, OntopReformulationException {
-		IQ executableQuery = engine.reformulateIntoNativeQuery(constructQuery, queryLogger);
-		logExecutionStartingMessage();
+		IQ executableQuery = engine.reformulateIntoNativeQuery(constructQuery, queryLogger, this::isCanceled);
+		declareTargetQueryExecutionStarting();
 		return executeConstructQuery(constructQuery.getConstructTemplate(), executableQuery, queryLogger, shouldAlsoCloseStatement);
 	}
 
@@ -170,7 +105,15 @@ public abstract class QuestStatement implements OntopStatement {
 				this::close);
 	}
 
-	private void logExecutionStartingMessage() {
+	/**
+	 * From now on, the cancellation is delegated to the native statement (see cancelExecution()).
+	 *
+	 * The flag is set before checking for cancellation so that a concurrent call to cancel() cannot be missed.
+	 */
+	private void declareTargetQueryExecutionStarting() throws OntopQueryEvaluationException {
+		executingTargetQuery = true;
+		if (canceled)
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
 		log.debug("Executing the query and get the result...");
 	}
 
@@ -194,16 +137,16 @@ public abstract class QuestStatement implements OntopStatement {
 			throws OntopConnectionException, OntopReformulationException, OntopQueryEvaluationException, OntopResultConversionException {
 
 		if (inputQuery instanceof SelectQuery) {
-			return (R) executeInThread((SelectQuery) inputQuery, httpHeaders, this::executeSelectQuery);
+			return (R) executeInSlot((SelectQuery) inputQuery, httpHeaders, this::executeSelectQuery);
 		}
 		else if (inputQuery instanceof AskQuery) {
-			return (R) executeInThread((AskQuery) inputQuery, httpHeaders, this::executeBooleanQuery);
+			return (R) executeInSlot((AskQuery) inputQuery, httpHeaders, this::executeBooleanQuery);
 		}
 		else if (inputQuery instanceof DescribeQuery) {
-			return (R) executeInThread((DescribeQuery) inputQuery, httpHeaders, this::executeDescribeQuery);
+			return (R) executeInSlot((DescribeQuery) inputQuery, httpHeaders, this::executeDescribeQuery);
 		}
 		else if (inputQuery instanceof ConstructQuery) {
-			return (R) executeInThread((ConstructQuery) inputQuery, httpHeaders, this::executeConstructQuery);
+			return (R) executeInSlot((ConstructQuery) inputQuery, httpHeaders, this::executeConstructQuery);
 		}
 		else {
 			throw new OntopUnsupportedInputQueryException("Unsupported query type: " + inputQuery);
@@ -211,59 +154,100 @@ public abstract class QuestStatement implements OntopStatement {
 	}
 
 	/**
-	 * Internal method to start a new query execution thread type defines the
-	 * query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 * Internal method evaluating the query on the calling thread, once the QueryExecutionService has admitted it.
+	 * The query type (SELECT, ASK, CONSTRUCT, or DESCRIBE) is handled by the evaluator.
+	 *
+	 * The slot is released when the returned result set is closed (or exhausted), when the query is cancelled,
+	 * when the statement is closed or when it executes another query (its previous result set is then closed).
+	 *
+	 * The wait for a slot is bounded by the query timeout of the statement.
 	 */
-	private <R extends OBDAResultSet, Q extends InputQuery<R>> R executeInThread(Q inputQuery, ImmutableMultimap<String, String> httpHeaders,
+	private <R extends OBDAResultSet, Q extends InputQuery<R>> R executeInSlot(Q inputQuery, ImmutableMultimap<String, String> httpHeaders,
 			Evaluator<R, Q> evaluator)
-			throws OntopReformulationException, OntopQueryEvaluationException {
+			throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException {
 		QueryLogger queryLogger = queryLoggerFactory.create(httpHeaders);
 
 		queryLogger.setSparqlQuery(inputQuery.getInputString());
 
-		CountDownLatch monitor = new CountDownLatch(1);
-
-		QueryExecutionThread<R, Q> executionthread = new QueryExecutionThread<>(inputQuery, queryLogger, evaluator,
-				monitor);
+		canceled = false;
+		executingTargetQuery = false;
+		releaseExecutionSlot();
 
-		this.executionThread = executionthread;
-		executionthread.start();
+		Optional<ExecutionSlot> slot;
 		try {
-			monitor.await();
+			slot = executionService.acquireSlot(this::isCanceled, getQueryTimeout() * 1000L);
 		} catch (InterruptedException e) {
-			e.printStackTrace();
+			Thread.currentThread().interrupt();
+			throw new OntopQueryEvaluationException("Interrupted while waiting for the query execution", e);
 		}
-		if (executionthread.errorStatus()) {
-			Exception ex = executionthread.getException();
-			if (ex instanceof OntopReformulationException) {
-				throw (OntopReformulationException) ex;
-			}
-			else if (ex instanceof OntopQueryEvaluationException) {
-				queryLogger.declareEvaluationException(ex);
-				throw (OntopQueryEvaluationException) ex;
-			}
-			else {
-				queryLogger.declareEvaluationException(ex);
-				throw new OntopQueryEvaluationException(ex);
-			}
+		if (!slot.isPresent())
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
+
+		ExecutionSlot executionSlot = slot.get();
+		currentSlot = executionSlot;
+		R resultSet = null;
+		try {
+			// The slot is held until the result set is closed
+			resultSet = SlotReleasingResultSets.wrap(evaluator.evaluate(inputQuery, queryLogger), executionSlot);
+		} catch (OntopReformulationException e) {
+			if (canceled && (e instanceof OntopReformulationInterruptedException))
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+			log.error(e.getMessage(), e);
+			throw e;
+		} catch (OntopQueryEvaluationException e) {
+			log.error(e.getMessage(), e);
+			queryLogger.declareEvaluationException(e);
+			throw e;
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+			queryLogger.declareEvaluationException(e);
+			throw new OntopQueryEvaluationException(e);
+		} finally {
+			if (resultSet == null)
+				executionSlot.close();
 		}
 
 		if (canceled) {
 			canceled = false;
+			try {
+				resultSet.close();
+			} catch (OntopConnectionException e) {
+				log.warn("Could not close the result set of the cancelled query", e);
+			}
 			throw new OntopQueryEvaluationException("Query execution was cancelled");
 		}
-		R resultSet = executionthread.getResultSet();
 		return resultSet;
 	}
 
 
+	/**
+	 * Cooperative cancellation (no thread is interrupted, as it may be inside the JDBC driver):
+	 *   - during the reformulation, the flag is checked by the reformulator between two stages,
+	 *   - during the execution of the native query, the native statement is cancelled.
+	 */
 	@Override
 	public void cancel() throws OntopConnectionException {
 		canceled = true;
 		try {
-			QuestStatement.this.executionThread.cancel();
+			if (executingTargetQuery) {
+				cancelExecution();
+			}
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
+		} finally {
+			releaseExecutionSlot();
+		}
+	}
+
+	/**
+	 * Releases the slot of the last query, if not already done (e.g. by closing its result set).
+	 * To be called when the statement is closed.
+	 */
+	protected void releaseExecutionSlot() {
+		ExecutionSlot slot = currentSlot;
+		if (slot != null) {
+			currentSlot = null;
+			slot.close();
 		}
 	}
 
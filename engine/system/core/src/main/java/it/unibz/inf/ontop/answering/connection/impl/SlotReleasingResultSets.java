@@ -0,0 +1,180 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService.ExecutionSlot;
+import it.unibz.inf.ontop.answering.resultset.*;
+import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+
+import java.util.List;
+
+/**
+ * Result sets holding the execution slot of their query until they are closed (or exhausted),
+ * so that the bound on the concurrent evaluations also covers the streaming of the results.
+ */
+class SlotReleasingResultSets {
+
+    private SlotReleasingResultSets() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <R extends OBDAResultSet> R wrap(R resultSet, ExecutionSlot slot) {
+        if (resultSet instanceof TupleResultSet)
+            return (R) new SlotReleasingTupleResultSet((TupleResultSet) resultSet, slot);
+        if (resultSet instanceof GraphResultSet)
+            return (R) new SlotReleasingGraphResultSet((GraphResultSet) resultSet, slot);
+        if (resultSet instanceof BooleanResultSet)
+            return (R) new SlotReleasingBooleanResultSet((BooleanResultSet) resultSet, slot);
+        throw new MinorOntopInternalBugException("Unexpected result set: " + resultSet.getClass());
+    }
+
+    private static void close(OBDAResultSet resultSet, ExecutionSlot slot) throws OntopConnectionException {
+        try {
+            resultSet.close();
+        } finally {
+            slot.close();
+        }
+    }
+
+
+    private static class SlotReleasingTupleResultSet implements TupleResultSet {
+        private final TupleResultSet resultSet;
+        private final ExecutionSlot slot;
+
+        private SlotReleasingTupleResultSet(TupleResultSet resultSet, ExecutionSlot slot) {
+            this.resultSet = resultSet;
+            this.slot = slot;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return resultSet.getColumnCount();
+        }
+
+        @Override
+        public List<String> getSignature() throws OntopConnectionException {
+            return resultSet.getSignature();
+        }
+
+        @Override
+        public int getFetchSize() throws OntopConnectionException {
+            return resultSet.getFetchSize();
+        }
+
+        @Override
+        public boolean isConnectionAlive() throws OntopConnectionException {
+            return resultSet.isConnectionAlive();
+        }
+
+        @Override
+        public TupleResultBatch nextBatch(int maxRowCount) throws OntopConnectionException, OntopResultConversionException {
+            TupleResultBatch batch = resultSet.nextBatch(maxRowCount);
+            // Exhausted (the result set has closed itself)
+            if (batch.getRowCount() == 0)
+                slot.close();
+            return batch;
+        }
+
+        @Override
+        public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+            boolean hasNext = resultSet.hasNext();
+            // Exhausted (the result set has closed itself)
+            if (!hasNext)
+                slot.close();
+            return hasNext;
+        }
+
+        @Override
+        public OntopBindingSet next() throws OntopConnectionException, OntopResultConversionException {
+            return resultSet.next();
+        }
+
+        @Override
+        public void close() throws OntopConnectionException {
+            SlotReleasingResultSets.close(resultSet, slot);
+        }
+    }
+
+
+    private static class SlotReleasingGraphResultSet implements GraphResultSet {
+        private final GraphResultSet resultSet;
+        private final ExecutionSlot slot;
+
+        private SlotReleasingGraphResultSet(GraphResultSet resultSet, ExecutionSlot slot) {
+            this.resultSet = resultSet;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean hasNext() throws OntopConnectionException, OntopResultConversionException, OntopQueryAnsweringException {
+            boolean hasNext = resultSet.hasNext();
+            if (!hasNext)
+                slot.close();
+            return hasNext;
+        }
+
+        @Override
+        public RDFFact next() throws OntopQueryAnsweringException, OntopConnectionException {
+            return resultSet.next();
+        }
+
+        /**
+         * Closing the iterator also releases the slot
+         */
+        @Override
+        public OntopCloseableIterator<RDFFact, OntopConnectionException> iterator() {
+            OntopCloseableIterator<RDFFact, OntopConnectionException> iterator = resultSet.iterator();
+            return new OntopCloseableIterator<RDFFact, OntopConnectionException>() {
+                @Override
+                public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+                    boolean hasNext = iterator.hasNext();
+                    if (!hasNext)
+                        slot.close();
+                    return hasNext;
+                }
+
+                @Override
+                public RDFFact next() throws OntopConnectionException {
+                    return iterator.next();
+                }
+
+                @Override
+                public void close() throws OntopConnectionException {
+                    try {
+                        iterator.close();
+                    } finally {
+                        slot.close();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() throws OntopConnectionException {
+            SlotReleasingResultSets.close(resultSet, slot);
+        }
+    }
+
+
+    private static class SlotReleasingBooleanResultSet implements BooleanResultSet {
+        private final BooleanResultSet resultSet;
+        private final ExecutionSlot slot;
+
+        private SlotReleasingBooleanResultSet(BooleanResultSet resultSet, ExecutionSlot slot) {
+            this.resultSet = resultSet;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean getValue() throws OntopConnectionException {
+            return resultSet.getValue();
+        }
+
+        @Override
+        public void close() throws OntopConnectionException {
+            SlotReleasingResultSets.close(resultSet, slot);
+        }
+    }
+}
@@ -4,6 +4,7 @@ package it.unibz.inf.ontop.answering.impl;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.logging.impl.QueryLogWriter;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.injection.OntopSystemFactory;
@@ -17,14 +18,17 @@ public class OntopQueryEngineImpl implements OntopQueryEngine {
 
     private final DBConnector dbConnector;
     private final QueryReformulator queryReformulator;
+    private final QueryLogWriter queryLogWriter;
 
     @AssistedInject
     private OntopQueryEngineImpl(@Assisted OBDASpecification obdaSpecification,
                                  @Assisted ExecutorRegistry executorRegistry,
                                  ReformulationFactory translationFactory,
-                                 OntopSystemFactory systemFactory) {
+                                 OntopSystemFactory systemFactory,
+                                 QueryLogWriter queryLogWriter) {
         queryReformulator = translationFactory.create(obdaSpecification, executorRegistry);
         dbConnector = systemFactory.create(queryReformulator);
+        this.queryLogWriter = queryLogWriter;
     }
 
     @Override
@@ -34,7 +38,11 @@ public class OntopQueryEngineImpl implements OntopQueryEngine {
 
     @Override
     public void close() throws OntopConnectionException {
-        dbConnector.close();
+        try {
+            dbConnector.close();
+        } finally {
+            queryLogWriter.close();
+        }
     }
 
     @Override
@@ -1,9 +1,7 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
-import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.UnmodifiableIterator;
 import it.unibz.inf.ontop.answering.connection.impl.Evaluator;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
@@ -17,7 +15,12 @@ import it.unibz.inf.ontop.spec.ontology.RDFFact;
 import org.apache.commons.rdf.api.IRI;
 
 import javax.annotation.Nullable;
+import java.util.Iterator;
 
+/**
+ * Evaluates the construct queries (one per chunk of described resources) one after the other,
+ * while streaming their results.
+ */
 public class DefaultDescribeGraphResultSet implements GraphResultSet {
     private final ResultSetIterator iterator;
 
@@ -86,7 +89,7 @@ public class DefaultDescribeGraphResultSet implements GraphResultSet {
 
     protected static class ResultSetIterator extends RDFFactCloseableIterator {
 
-        private final UnmodifiableIterator<ConstructQuery> constructQueryIterator;
+        private final Iterator<ConstructQuery> constructQueryIterator;
         private final OntopConnectionCloseable statementClosingCB;
         private final QueryLogger queryLogger;
         private final QueryLogger.Factory queryLoggerFactory;
@@ -96,7 +99,7 @@ public class DefaultDescribeGraphResultSet implements GraphResultSet {
         @Nullable
         private OntopCloseableIterator<RDFFact, OntopConnectionException> currentGraphResultSetIterator;
 
-        public ResultSetIterator(ImmutableCollection<ConstructQuery> constructQueries,
+        public ResultSetIterator(Iterable<ConstructQuery> constructQueries,
                                  QueryLogger queryLogger, QueryLogger.Factory queryLoggerFactory,
                                  Evaluator<GraphResultSet, ConstructQuery> constructQueryEvaluator,
                                  OntopConnectionCloseable statementClosingCB) {
@@ -1,8 +1,9 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Queue;
 
 import it.unibz.inf.ontop.answering.resultset.*;
 
@@ -17,6 +18,7 @@ import org.eclipse.rdf4j.query.algebra.ProjectionElemList;
 import org.eclipse.rdf4j.query.algebra.ValueConstant;
 import org.eclipse.rdf4j.query.algebra.ValueExpr;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -30,6 +32,8 @@ import it.unibz.inf.ontop.model.vocabulary.XSD;
 import it.unibz.inf.ontop.spec.ontology.RDFFact;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
+import javax.annotation.Nullable;
+
 public class DefaultSimpleGraphResultSet implements GraphResultSet {
 
 	private final ResultSetIterator iterator;
@@ -39,7 +43,8 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 			ConstructTemplate constructTemplate,
 			TermFactory termFactory,
 			RDF rdfFactory, boolean excludeInvalidTriples) {
-		iterator = new ResultSetIterator(tupleResultSet, constructTemplate, termFactory, rdfFactory, excludeInvalidTriples);
+		iterator = new ResultSetIterator(tupleResultSet,
+				new CompiledConstructTemplate(constructTemplate, termFactory, rdfFactory), excludeInvalidTriples);
 	}
 
 	@Override
@@ -64,33 +69,32 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 
 	private static class ResultSetIterator extends RDFFactCloseableIterator {
 		private final TupleResultSet resultSet;
-		private final ConstructTemplate constructTemplate;
-		private final TermFactory termFactory;
-		private final org.apache.commons.rdf.api.RDF rdfFactory;
-		private final Queue<RDFFact> statementBuffer;
-		private ImmutableMap<String, ValueExpr> extMap;
+		private final CompiledConstructTemplate template;
 		private final boolean excludeInvalidTriples;
 
+		// Facts of the current row: statementBuffer[bufferStart, bufferEnd[
+		private final RDFFact[] statementBuffer;
+		private int bufferStart, bufferEnd;
+
 		private ResultSetIterator(
 				TupleResultSet resultSet,
-				ConstructTemplate constructTemplate,
-				TermFactory termFactory,
-				RDF rdfFactory, boolean excludeInvalidTriples) {
+				CompiledConstructTemplate template,
+				boolean excludeInvalidTriples) {
 			this.resultSet = resultSet;
-			this.constructTemplate = constructTemplate;
-			this.termFactory = termFactory;
-			this.rdfFactory = rdfFactory;
+			this.template = template;
 			this.excludeInvalidTriples = excludeInvalidTriples;
-			intExtMap();
-			this.statementBuffer = new LinkedList<>();
+			this.statementBuffer = new RDFFact[template.getMaxFactCountPerRow()];
+			this.bufferStart = 0;
+			this.bufferEnd = 0;
 		}
 
 		@Override
 		public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
-			if (statementBuffer.isEmpty() && resultSetHasNext()) {
-				addStatementFromResultSet();
+			// Some rows may not produce any fact (unbound variables)
+			while (bufferStart == bufferEnd && resultSetHasNext()) {
+				addStatementsFromResultSet();
 			}
-			boolean hasNext = !statementBuffer.isEmpty();
+			boolean hasNext = bufferStart < bufferEnd;
 			if (!hasNext) {
 				handleClose();
 			}
@@ -99,10 +103,13 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 
 		@Override
 		public RDFFact next() throws OntopConnectionException {
-			if (statementBuffer.isEmpty()) {
+			if (bufferStart == bufferEnd) {
 				handleClose();
+				throw new NoSuchElementException();
 			}
-			return statementBuffer.remove();
+			RDFFact fact = statementBuffer[bufferStart];
+			statementBuffer[bufferStart++] = null;
+			return fact;
 		}
 
 		@Override
@@ -117,24 +124,12 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 			}
 		}
 
-		private void addStatementFromResultSet() throws OntopConnectionException, OntopResultConversionException {
+		private void addStatementsFromResultSet() throws OntopConnectionException, OntopResultConversionException {
+			bufferStart = 0;
+			bufferEnd = 0;
 			try {
 				OntopBindingSet bindingSet = resultSet.next();
-				for (ProjectionElemList peList : constructTemplate.getProjectionElemList()) {
-					int size = peList.getElements().size();
-					for (int i = 0; i < size / 3; i++) {
-						ObjectConstant subjectConstant =
-								(ObjectConstant) getConstant(peList.getElements().get(i * 3), bindingSet);
-						IRIConstant propertyConstant =
-								(IRIConstant) getConstant(peList.getElements().get(i * 3 + 1), bindingSet);
-						RDFConstant objectConstant =
-								(RDFConstant) getConstant(peList.getElements().get(i * 3 + 2), bindingSet);
-						if (subjectConstant != null && propertyConstant != null && objectConstant != null) {
-							statementBuffer.add(
-									RDFFact.createTripleFact(subjectConstant, propertyConstant, objectConstant));
-						}
-					}
-				}
+				bufferEnd = template.instantiate(bindingSet, statementBuffer);
 			} catch (OntopResultConversionException e) {
 				if (!excludeInvalidTriples)
 					throw e;
@@ -142,18 +137,62 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 			}
 		}
 
-		private Constant getConstant(ProjectionElem node, OntopBindingSet bindingSet)
-				throws OntopResultConversionException {
-			Constant constant = null;
-			String nodeName = node.getSourceName();
-			ValueExpr ve = null;
+		private boolean resultSetHasNext() throws OntopConnectionException, OntopResultConversionException {
+			if (!resultSet.isConnectionAlive()) {
+				return false;
+			}
+			return resultSet.hasNext();
+		}
+	}
 
-			if (extMap != null) {
-				ve = extMap.get(nodeName);
+	/**
+	 * Construct template compiled once per query: the constants are built in advance
+	 * and the variables are mapped to slots, filled in one pass over the bindings of each row.
+	 */
+	private static class CompiledConstructTemplate {
+
+		// 3 terms per triple pattern
+		private final TermSlot[] terms;
+		private final ImmutableMap<String, Integer> variableSlots;
+		private final boolean hasBNodeGenerators;
+
+		// Per-row values of the variables (reused)
+		private final RDFConstant[] values;
+
+		private CompiledConstructTemplate(ConstructTemplate constructTemplate, TermFactory termFactory,
+										  RDF rdfFactory) {
+			Extension ex = constructTemplate.getExtension();
+			ImmutableMap<String, ValueExpr> extMap = (ex == null)
+					? ImmutableMap.of()
+					: ex.getElements().stream()
+						.collect(ImmutableCollectors.toMap(ExtensionElem::getName, ExtensionElem::getExpr));
+
+			Map<String, Integer> slotMap = new HashMap<>();
+			ImmutableList.Builder<TermSlot> termBuilder = ImmutableList.builder();
+			for (ProjectionElemList peList : constructTemplate.getProjectionElemList()) {
+				ImmutableList<ProjectionElem> elements = ImmutableList.copyOf(peList.getElements());
+				// Ignores incomplete triple patterns
+				for (int i = 0; i < (elements.size() / 3) * 3; i++) {
+					termBuilder.add(compileTerm(elements.get(i).getSourceName(), extMap, slotMap,
+							termFactory, rdfFactory));
+				}
 			}
+			this.terms = termBuilder.build().toArray(new TermSlot[0]);
+			this.variableSlots = ImmutableMap.copyOf(slotMap);
+			this.values = new RDFConstant[slotMap.size()];
+			boolean hasBNodes = false;
+			for (TermSlot term : terms)
+				hasBNodes |= (term.bNodeLabelPrefix != null);
+			this.hasBNodeGenerators = hasBNodes;
+		}
+
+		private static TermSlot compileTerm(String nodeName, ImmutableMap<String, ValueExpr> extMap,
+											Map<String, Integer> slotMap, TermFactory termFactory, RDF rdfFactory) {
+			ValueExpr ve = extMap.get(nodeName);
 
 			if (ve instanceof ValueConstant) {
 				ValueConstant vc = (ValueConstant) ve;
+				Constant constant;
 				if (vc.getValue() instanceof IRI) {
 					constant = termFactory.getConstantIRI(rdfFactory.createIRI(vc.getValue().stringValue()));
 				} else if (vc.getValue() instanceof Literal) {
@@ -161,42 +200,94 @@ public class DefaultSimpleGraphResultSet implements GraphResultSet {
 				} else {
 					constant = termFactory.getConstantBNode(vc.getValue().stringValue());
 				}
+				return TermSlot.constant(constant);
 			} else if (ve instanceof BNodeGenerator) {
 				// See https://www.w3.org/TR/sparql11-query/#tempatesWithBNodes
-				String rowId = bindingSet.getRowUUIDStr();
-
-				String label =
+				String labelPrefix =
 						Optional.ofNullable(((BNodeGenerator) ve).getNodeIdExpr())
 								// If defined, we expected the b-node label to be constant (as appearing in the
 								// CONSTRUCT block)
 								.filter(e -> e instanceof ValueConstant)
 								.map(v -> ((ValueConstant) v).getValue().stringValue())
-								.map(s -> s + rowId)
-								.orElseGet(() -> nodeName + rowId);
-
-				constant = termFactory.getConstantBNode(label);
+								.orElse(nodeName);
+				return TermSlot.bNode(labelPrefix, termFactory);
 			} else {
-				constant = bindingSet.getConstant(nodeName);
+				return TermSlot.variable(slotMap.computeIfAbsent(nodeName, n -> slotMap.size()));
 			}
-			return constant;
 		}
 
-		private void intExtMap() {
-			Extension ex = constructTemplate.getExtension();
-			if (ex != null) {
-				extMap =
-						ex.getElements().stream()
-								.collect(ImmutableCollectors.toMap(ExtensionElem::getName, ExtensionElem::getExpr));
-			} else {
-				extMap = null;
-			}
+		int getMaxFactCountPerRow() {
+			return terms.length / 3;
 		}
 
-		private boolean resultSetHasNext() throws OntopConnectionException, OntopResultConversionException {
-			if (!resultSet.isConnectionAlive()) {
-				return false;
+		/**
+		 * Writes the facts of the row at the beginning of the buffer and returns their number
+		 */
+		int instantiate(OntopBindingSet bindingSet, RDFFact[] buffer) throws OntopResultConversionException {
+			for (int i = 0; i < values.length; i++)
+				values[i] = null;
+			for (OntopBinding binding : bindingSet.getBindings()) {
+				Integer slot = variableSlots.get(binding.getName());
+				if (slot != null)
+					values[slot] = binding.getValue();
 			}
-			return resultSet.hasNext();
+			String rowId = hasBNodeGenerators ? bindingSet.getRowUUIDStr() : null;
+
+			int count = 0;
+			for (int i = 0; i < terms.length; i += 3) {
+				Constant subject = terms[i].evaluate(values, rowId);
+				Constant property = terms[i + 1].evaluate(values, rowId);
+				Constant object = terms[i + 2].evaluate(values, rowId);
+				// Triples with unbound variables or not valid in RDF are not produced
+				if (subject instanceof ObjectConstant && property instanceof IRIConstant
+						&& object instanceof RDFConstant) {
+					buffer[count++] = RDFFact.createTripleFact((ObjectConstant) subject, (IRIConstant) property,
+							(RDFConstant) object);
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Either a constant, a variable slot or a b-node generator
+	 */
+	private static class TermSlot {
+		@Nullable
+		private final Constant constant;
+		private final int variableSlot;
+		@Nullable
+		private final String bNodeLabelPrefix;
+		@Nullable
+		private final TermFactory termFactory;
+
+		private TermSlot(@Nullable Constant constant, int variableSlot, @Nullable String bNodeLabelPrefix,
+						 @Nullable TermFactory termFactory) {
+			this.constant = constant;
+			this.variableSlot = variableSlot;
+			this.bNodeLabelPrefix = bNodeLabelPrefix;
+			this.termFactory = termFactory;
+		}
+
+		static TermSlot constant(Constant constant) {
+			return new TermSlot(constant, -1, null, null);
+		}
+
+		static TermSlot variable(int slot) {
+			return new TermSlot(null, slot, null, null);
+		}
+
+		static TermSlot bNode(String labelPrefix, TermFactory termFactory) {
+			return new TermSlot(null, -1, labelPrefix, termFactory);
+		}
+
+		@Nullable
+		Constant evaluate(RDFConstant[] values, @Nullable String rowId) {
+			if (constant != null)
+				return constant;
+			if (bNodeLabelPrefix != null)
+				return termFactory.getConstantBNode(bNodeLabelPrefix + rowId);
+			return values[variableSlot];
 		}
 	}
 }
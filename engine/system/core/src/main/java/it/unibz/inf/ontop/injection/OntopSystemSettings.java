@@ -21,12 +21,54 @@ public interface OntopSystemSettings extends OntopReformulationSettings {
     // HTTP Caching
     Optional<String> getHttpCacheControl();
 
+    /**
+     * How the queries of the statements are evaluated (see QueryExecutionMode)
+     */
+    QueryExecutionMode getQueryExecutionMode();
+
+    /**
+     * Maximal number of queries evaluated concurrently in the POOL mode.
+     * A query holds its slot until its result set or its statement is closed, or until it is cancelled.
+     * Additional queries wait for a slot.
+     */
+    int getQueryExecutionPoolSize();
+
+    /**
+     * Maximal waiting time (in ms) for a slot in the POOL mode.
+     * The wait is also bounded by the query timeout of the statement, when set.
+     */
+    long getQueryExecutionQueueTimeout();
+
+    /**
+     * Maximal number of values (RDF constants, binding library values) shared during the conversion of the results.
+     * The RDF constants are cached at the level of the query engine and the converted values at the level of the query.
+     *
+     * Caching is disabled if equal to 0.
+     */
+    int getResultValueCacheSize();
+
+    enum QueryExecutionMode {
+        /**
+         * On the thread calling the statement, with a bounded number of concurrent evaluations
+         * shared by all the statements of the query engine
+         */
+        POOL,
+        /**
+         * On the thread calling the statement, without bound (default)
+         */
+        CALLER
+    }
+
     //--------------------------
     // Keys
     //--------------------------
 
     String DEFAULT_QUERY_TIMEOUT = "ontop.query.defaultTimeout";
     String PERMANENT_DB_CONNECTION = "ontop.permanentConnection";
+    String QUERY_EXECUTION_MODE = "ontop.query.executionMode";
+    String QUERY_EXECUTION_POOL_SIZE = "ontop.query.executionPoolSize";
+    String QUERY_EXECUTION_QUEUE_TIMEOUT = "ontop.query.executionQueueTimeout";
+    String RESULT_VALUE_CACHE_SIZE = "ontop.resultValueCache.size";
 
     // HTTP caching
     String HTTP_CACHE_CONTROL = "ontop.http.cacheControl";
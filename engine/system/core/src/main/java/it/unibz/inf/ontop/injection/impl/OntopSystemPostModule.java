@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.inject.Module;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.cache.HTTPCacheHeaders;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
 import it.unibz.inf.ontop.injection.OntopSystemFactory;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.answering.connection.DBConnector;
@@ -18,6 +19,7 @@ public class OntopSystemPostModule  extends OntopAbstractModule {
     @Override
     protected void configure() {
         bindFromSettings(HTTPCacheHeaders.class);
+        bindFromSettings(QueryExecutionService.class);
 
         Module engineFactoryModule = buildFactory(ImmutableList.of(
                 OntopQueryEngine.class,
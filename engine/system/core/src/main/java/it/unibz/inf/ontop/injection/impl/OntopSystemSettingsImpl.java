@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 
@@ -11,9 +12,19 @@ import java.util.stream.Stream;
 public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl implements OntopSystemSettings {
 
     private static final String DEFAULT_FILE = "system-default.properties";
+    private final QueryExecutionMode queryExecutionMode;
 
     OntopSystemSettingsImpl(Properties userProperties) {
         super(loadProperties(userProperties));
+        queryExecutionMode = extractQueryExecutionMode(getRequiredProperty(QUERY_EXECUTION_MODE));
+    }
+
+    private static QueryExecutionMode extractQueryExecutionMode(String value) {
+        try {
+            return QueryExecutionMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOntopConfigurationException("Invalid value for " + QUERY_EXECUTION_MODE + ": is " + value);
+        }
     }
 
     private static Properties loadProperties(Properties userProperties) {
@@ -36,6 +47,26 @@ public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl impl
         return getRequiredBoolean(PERMANENT_DB_CONNECTION);
     }
 
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return queryExecutionMode;
+    }
+
+    @Override
+    public int getQueryExecutionPoolSize() {
+        return getRequiredInteger(QUERY_EXECUTION_POOL_SIZE);
+    }
+
+    @Override
+    public long getQueryExecutionQueueTimeout() {
+        return getRequiredLong(QUERY_EXECUTION_QUEUE_TIMEOUT);
+    }
+
+    @Override
+    public int getResultValueCacheSize() {
+        return getRequiredInteger(RESULT_VALUE_CACHE_SIZE);
+    }
+
     @Override
     public Optional<String> getHttpCacheControl() {
         String cacheControl = getProperty(HTTP_CACHE_CONTROL)
@@ -16,6 +16,14 @@ public interface MaterializationParams {
      */
     boolean canMaterializationBeIncomplete();
 
+    /**
+     * Number of classes/properties materialized concurrently,
+     * each of them over its own connection.
+     *
+     * 1 by default (sequential materialization).
+     */
+    int getDegreeOfParallelism();
+
 
     static Builder defaultBuilder() {
         return new MaterializationParamsImpl.DefaultBuilder<>();
@@ -26,6 +34,8 @@ public interface MaterializationParams {
 
         B enableIncompleteMaterialization(boolean enable);
 
+        B degreeOfParallelism(int degreeOfParallelism);
+
         MaterializationParams build();
 
     }
@@ -154,9 +154,14 @@ class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
      * Builds (named) assertions out of (quad) results
      */
     private RDFFact toAssertion(OntopBindingSet tuple) throws OntopResultConversionException {
+        return toAssertion(tuple, lastSeenPredicate, lastSeenPredicateIRI, rdfTypeIRI);
+    }
+
+    static RDFFact toAssertion(OntopBindingSet tuple, VocabularyEntry predicate, IRIConstant predicateIRI,
+                               IRIConstant rdfTypeIRI) throws OntopResultConversionException {
         ObjectConstant s = (ObjectConstant) tuple.getConstant("s");
-        IRIConstant p = lastSeenPredicate.isClass() ? rdfTypeIRI : lastSeenPredicateIRI;
-        RDFConstant o = lastSeenPredicate.isClass() ? lastSeenPredicateIRI : tuple.getConstant("o");
+        IRIConstant p = predicate.isClass() ? rdfTypeIRI : predicateIRI;
+        RDFConstant o = predicate.isClass() ? predicateIRI : tuple.getConstant("o");
         ObjectConstant g = (ObjectConstant)tuple.getConstant("g");
 
         return (g == null)
@@ -57,12 +57,18 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
     @Override
     public MaterializedGraphResultSet materialize() {
-        return new DefaultMaterializedGraphResultSet(vocabulary, params, queryEngine, inputQueryFactory, termFactory, rdfFactory);
+        return createResultSet(vocabulary);
     }
 
     @Override
     public MaterializedGraphResultSet materialize(@Nonnull ImmutableSet<IRI> selectedVocabulary) {
-        return new DefaultMaterializedGraphResultSet(filterVocabularyEntries(selectedVocabulary), params, queryEngine, inputQueryFactory, termFactory, rdfFactory);
+        return createResultSet(filterVocabularyEntries(selectedVocabulary));
+    }
+
+    private MaterializedGraphResultSet createResultSet(ImmutableMap<IRI, VocabularyEntry> selectedVocabulary) {
+        return (params.getDegreeOfParallelism() > 1)
+                ? new ParallelMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory, termFactory)
+                : new DefaultMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory, termFactory, rdfFactory);
     }
 
     private ImmutableMap<IRI, VocabularyEntry> filterVocabularyEntries(ImmutableSet<IRI> selectedVocabulary) {
@@ -5,9 +5,11 @@ import it.unibz.inf.ontop.materialization.MaterializationParams;
 public class MaterializationParamsImpl implements MaterializationParams {
 
     private final boolean enableIncompleteMaterialization;
+    private final int degreeOfParallelism;
 
-    private MaterializationParamsImpl(boolean enableIncompleteMaterialization) {
+    private MaterializationParamsImpl(boolean enableIncompleteMaterialization, int degreeOfParallelism) {
         this.enableIncompleteMaterialization = enableIncompleteMaterialization;
+        this.degreeOfParallelism = degreeOfParallelism;
     }
 
 
@@ -16,14 +18,21 @@ public class MaterializationParamsImpl implements MaterializationParams {
         return enableIncompleteMaterialization;
     }
 
+    @Override
+    public int getDegreeOfParallelism() {
+        return degreeOfParallelism;
+    }
+
 
     public static class DefaultBuilder<B extends Builder<B>> implements Builder<B> {
 
         private final B builder;
         private boolean canMaterializationBeIncomplete;
+        private int degreeOfParallelism;
 
         public DefaultBuilder() {
             this.canMaterializationBeIncomplete = false;
+            this.degreeOfParallelism = 1;
             this.builder = (B) this;
         }
 
@@ -33,9 +42,17 @@ public class MaterializationParamsImpl implements MaterializationParams {
             return builder;
         }
 
+        @Override
+        public B degreeOfParallelism(int degreeOfParallelism) {
+            if (degreeOfParallelism < 1)
+                throw new IllegalArgumentException("The degree of parallelism must be positive");
+            this.degreeOfParallelism = degreeOfParallelism;
+            return builder;
+        }
+
         @Override
         public MaterializationParams build() {
-            return new MaterializationParamsImpl(canMaterializationBeIncomplete);
+            return new MaterializationParamsImpl(canMaterializationBeIncomplete, degreeOfParallelism);
         }
     }
 
@@ -0,0 +1,338 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.OntopCloseableIterator;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.answering.resultset.impl.RDFFactCloseableIterator;
+import it.unibz.inf.ontop.exception.*;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materializes several classes/properties concurrently (one SELECT query per class/property),
+ * each worker using its own connection from the pool.
+ *
+ * The facts produced by the workers are merged into a single stream, in batches.
+ * The order of the facts is therefore not deterministic.
+ *
+ * Like DefaultMaterializedGraphResultSet, does not allocate resources before hasNext() is called.
+ */
+class ParallelMaterializedGraphResultSet implements MaterializedGraphResultSet {
+
+    private static final int BATCH_SIZE = 1000;
+    // Number of batches buffered per worker
+    private static final int BUFFERED_BATCHES_PER_WORKER = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMaterializedGraphResultSet.class);
+
+    private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
+    private final OntopQueryEngine queryEngine;
+    private final InputQueryFactory inputQueryFactory;
+    private final TermFactory termFactory;
+    private final boolean canBeIncomplete;
+    private final int degreeOfParallelism;
+    private final IRIConstant rdfTypeIRI;
+
+    private final Queue<VocabularyEntry> remainingEntries;
+    private final BlockingQueue<Batch> batchQueue;
+    private final List<IRI> possiblyIncompleteClassesAndProperties;
+    private final AtomicInteger completedEntryCount;
+    private final AtomicLong counter;
+
+    @Nullable
+    private ExecutorService executor;
+    private Iterator<RDFFact> currentBatch;
+    private int remainingWorkers;
+    private volatile boolean closed;
+
+    ParallelMaterializedGraphResultSet(ImmutableMap<IRI, VocabularyEntry> vocabulary, MaterializationParams params,
+                                       OntopQueryEngine queryEngine, InputQueryFactory inputQueryFactory,
+                                       TermFactory termFactory) {
+        this.vocabulary = vocabulary;
+        this.queryEngine = queryEngine;
+        this.inputQueryFactory = inputQueryFactory;
+        this.termFactory = termFactory;
+        this.canBeIncomplete = params.canMaterializationBeIncomplete();
+        this.degreeOfParallelism = Math.max(1, Math.min(params.getDegreeOfParallelism(), vocabulary.size()));
+        this.rdfTypeIRI = termFactory.getConstantIRI(RDF.TYPE.getIRIString());
+
+        this.remainingEntries = new ConcurrentLinkedQueue<>(vocabulary.values());
+        this.batchQueue = new ArrayBlockingQueue<>(degreeOfParallelism * BUFFERED_BATCHES_PER_WORKER);
+        this.possiblyIncompleteClassesAndProperties = Collections.synchronizedList(new ArrayList<>());
+        this.completedEntryCount = new AtomicInteger();
+        this.counter = new AtomicLong();
+        this.currentBatch = Collections.emptyIterator();
+
+        // Lately initiated
+        this.executor = null;
+    }
+
+    @Override
+    public ImmutableSet<IRI> getSelectedVocabulary() {
+        return vocabulary.keySet();
+    }
+
+    @Override
+    public boolean hasNext() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (executor == null)
+            start();
+
+        while (!currentBatch.hasNext()) {
+            if (remainingWorkers == 0)
+                return false;
+
+            Batch batch;
+            try {
+                batch = batchQueue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new OntopConnectionException(e);
+            }
+
+            if (batch.exception != null) {
+                close();
+                if (batch.exception instanceof OntopConnectionException)
+                    throw (OntopConnectionException) batch.exception;
+                if (batch.exception instanceof OntopQueryAnsweringException)
+                    throw (OntopQueryAnsweringException) batch.exception;
+                Throwables.throwIfUnchecked(batch.exception);
+                // Other checked exception (all the throwables that are not unchecked are exceptions)
+                throw new OntopQueryEvaluationException((Exception) batch.exception);
+            }
+            if (batch.isLast)
+                remainingWorkers--;
+            else
+                currentBatch = batch.facts.iterator();
+        }
+        return true;
+    }
+
+    private void start() {
+        LOGGER.debug("Materializing {} classes/properties with {} workers", vocabulary.size(), degreeOfParallelism);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(degreeOfParallelism, r -> {
+            Thread thread = new Thread(r, "ontop-materialization-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        remainingWorkers = degreeOfParallelism;
+        for (int i = 0; i < degreeOfParallelism; i++)
+            executor.submit(this::runWorker);
+        executor.shutdown();
+    }
+
+    @Override
+    public RDFFact next() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (!hasNext())
+            throw new NoSuchElementException("No more RDF fact");
+        return nextFact();
+    }
+
+    private RDFFact nextFact() {
+        counter.incrementAndGet();
+        return currentBatch.next();
+    }
+
+    /**
+     * Processes classes/properties until there is no one left (or the result set is closed).
+     *
+     * Always publishes a last batch (completion or error), so that the consumer is never left waiting.
+     */
+    private void runWorker() {
+        Batch lastBatch = Batch.LAST;
+        try (WorkerConnection connection = new WorkerConnection()) {
+            VocabularyEntry entry;
+            while ((!closed) && (entry = remainingEntries.poll()) != null) {
+                try {
+                    materialize(entry, connection);
+                } catch (OntopQueryAnsweringException | OntopConnectionException e) {
+                    if (canBeIncomplete) {
+                        LOGGER.warn("Possibly incomplete class/property " + entry + " (materialization problem).\n"
+                                + "Details: " + e);
+                        possiblyIncompleteClassesAndProperties.add(entry.name);
+                    } else {
+                        LOGGER.error("Problem materializing the class/property " + entry);
+                        lastBatch = new Batch(e);
+                        return;
+                    }
+                }
+                LOGGER.info("Materialized {} ({}/{} classes/properties)", entry.name,
+                        completedEntryCount.incrementAndGet(), vocabulary.size());
+            }
+        } catch (InterruptedException e) {
+            // Closed: nobody is consuming anymore
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            LOGGER.error("Unexpected problem during the materialization", e);
+            lastBatch = new Batch(e);
+        } finally {
+            publishLastBatch(lastBatch);
+        }
+    }
+
+    private void publishLastBatch(Batch batch) {
+        if (closed)
+            return;
+        try {
+            batchQueue.put(batch);
+        } catch (InterruptedException e) {
+            // Closed: nobody is consuming anymore
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void materialize(VocabularyEntry entry, WorkerConnection connection)
+            throws OntopQueryAnsweringException, OntopConnectionException, InterruptedException {
+        SelectQuery query = inputQueryFactory.createSelectQuery(entry.getSelectQuery());
+        IRIConstant predicateIRI = termFactory.getConstantIRI(entry.getIRIString());
+
+        try (OntopStatement statement = connection.get().createStatement();
+             TupleResultSet resultSet = statement.execute(query)) {
+            List<RDFFact> facts = new ArrayList<>(BATCH_SIZE);
+            while (resultSet.hasNext()) {
+                if (closed)
+                    return;
+                facts.add(DefaultMaterializedGraphResultSet.toAssertion(resultSet.next(), entry, predicateIRI, rdfTypeIRI));
+                if (facts.size() == BATCH_SIZE) {
+                    batchQueue.put(new Batch(facts));
+                    facts = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!facts.isEmpty())
+                batchQueue.put(new Batch(facts));
+        }
+    }
+
+    /**
+     * Iterates over the facts of this result set (hasNext() must be called before next()).
+     * Closing the iterator closes the result set.
+     */
+    @Override
+    public OntopCloseableIterator<RDFFact, OntopConnectionException> iterator() {
+        return new RDFFactCloseableIterator() {
+            @Override
+            public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+                try {
+                    return ParallelMaterializedGraphResultSet.this.hasNext();
+                } catch (OntopResultConversionException e) {
+                    throw e;
+                } catch (OntopQueryAnsweringException e) {
+                    // Not allowed by the iterator interface
+                    throw new OntopResultConversionException(e);
+                }
+            }
+
+            @Override
+            public RDFFact next() {
+                if (!currentBatch.hasNext())
+                    throw new NoSuchElementException("No more RDF fact");
+                return nextFact();
+            }
+
+            @Override
+            protected void handleClose() {
+                ParallelMaterializedGraphResultSet.this.close();
+            }
+        };
+    }
+
+    /**
+     * Stops the workers, which release their connections
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            remainingWorkers = 0;
+        }
+        batchQueue.clear();
+        currentBatch = Collections.emptyIterator();
+    }
+
+    @Override
+    public long getTripleCountSoFar() {
+        return counter.get();
+    }
+
+    @Override
+    public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
+        synchronized (possiblyIncompleteClassesAndProperties) {
+            return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
+        }
+    }
+
+
+    /**
+     * Either a list of facts, an exception or the notification that a worker has completed
+     */
+    private static class Batch {
+        private static final Batch LAST = new Batch(Collections.emptyList(), null, true);
+
+        private final List<RDFFact> facts;
+        @Nullable
+        private final Throwable exception;
+        private final boolean isLast;
+
+        private Batch(List<RDFFact> facts, @Nullable Throwable exception, boolean isLast) {
+            this.facts = facts;
+            this.exception = exception;
+            this.isLast = isLast;
+        }
+
+        Batch(List<RDFFact> facts) {
+            this(facts, null, false);
+        }
+
+        Batch(Throwable exception) {
+            this(Collections.emptyList(), exception, false);
+        }
+    }
+
+    /**
+     * Connection of a worker, only opened when the first class/property is processed.
+     */
+    private class WorkerConnection implements AutoCloseable {
+        @Nullable
+        private OntopConnection connection;
+
+        OntopConnection get() throws OntopConnectionException {
+            if (connection == null)
+                connection = queryEngine.getConnection();
+            return connection;
+        }
+
+        @Override
+        public void close() {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (OntopConnectionException e) {
+                    LOGGER.warn("Non-critical exception while closing the connection: " + e);
+                }
+            }
+        }
+    }
+}
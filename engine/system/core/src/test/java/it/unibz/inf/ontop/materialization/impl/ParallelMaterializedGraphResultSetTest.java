@@ -0,0 +1,160 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.input.*;
+import it.unibz.inf.ontop.answering.resultset.OntopCloseableIterator;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopInvalidInputQueryException;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class ParallelMaterializedGraphResultSetTest {
+
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder().build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final RDF RDF_FACTORY = CONFIGURATION.getInjector().getInstance(RDF.class);
+
+    /**
+     * One worker fails with an unchecked exception, the other ones complete (incomplete materialization allowed):
+     * the consumer must not wait forever and receives the exception.
+     */
+    @Test(timeout = 10000)
+    public void testUncheckedExceptionInWorker() throws Exception {
+        ImmutableMap<IRI, VocabularyEntry> vocabulary = Stream.of("A", "B", "C")
+                .map(n -> RDF_FACTORY.createIRI("http://example.org/" + n))
+                .collect(ImmutableCollectors.toMap(i -> i, i -> new VocabularyEntry(i, 1)));
+
+        MaterializationParams params = MaterializationParams.defaultBuilder()
+                .degreeOfParallelism(2)
+                .enableIncompleteMaterialization(true)
+                .build();
+
+        try (ParallelMaterializedGraphResultSet resultSet = new ParallelMaterializedGraphResultSet(vocabulary, params,
+                new UnavailableQueryEngine(), new FailingInputQueryFactory(), TERM_FACTORY)) {
+            resultSet.hasNext();
+            fail("The unchecked exception of the worker was expected");
+        } catch (IllegalStateException e) {
+            assertEquals(FailingInputQueryFactory.UNCHECKED_MESSAGE, e.getMessage());
+        }
+    }
+
+    /**
+     * Same behaviour through the iterator, which closes the result set when closed
+     */
+    @Test(timeout = 10000)
+    public void testIterator() throws Exception {
+        ImmutableMap<IRI, VocabularyEntry> vocabulary = Stream.of("A", "B")
+                .map(n -> RDF_FACTORY.createIRI("http://example.org/" + n))
+                .collect(ImmutableCollectors.toMap(i -> i, i -> new VocabularyEntry(i, 1)));
+
+        MaterializationParams params = MaterializationParams.defaultBuilder()
+                .degreeOfParallelism(2)
+                .enableIncompleteMaterialization(true)
+                .build();
+
+        ParallelMaterializedGraphResultSet resultSet = new ParallelMaterializedGraphResultSet(vocabulary, params,
+                new UnavailableQueryEngine(), new InvalidInputQueryFactory(), TERM_FACTORY);
+        try (OntopCloseableIterator<RDFFact, OntopConnectionException> iterator = resultSet.iterator()) {
+            assertFalse(iterator.hasNext());
+            try {
+                iterator.next();
+                fail("No fact was expected");
+            } catch (NoSuchElementException expected) {
+            }
+        }
+        assertEquals(2, resultSet.getPossiblyIncompleteRDFPropertiesAndClassesSoFar().size());
+        assertFalse(resultSet.hasNext());
+    }
+
+    /**
+     * The first query fails with an unchecked exception, the next ones with a regular (checked) one.
+     */
+    private static class FailingInputQueryFactory implements InputQueryFactory {
+        private static final String UNCHECKED_MESSAGE = "Unexpected failure";
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public SelectQuery createSelectQuery(String queryString) throws OntopInvalidInputQueryException {
+            if (counter.getAndIncrement() == 0)
+                throw new IllegalStateException(UNCHECKED_MESSAGE);
+            throw new OntopInvalidInputQueryException("Invalid query");
+        }
+
+        @Override
+        public AskQuery createAskQuery(String queryString) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ConstructQuery createConstructQuery(String queryString) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DescribeQuery createDescribeQuery(String queryString) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SPARQLQuery createSPARQLQuery(String queryString) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public GraphSPARQLQuery createGraphQuery(String queryString) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * All the queries fail with a regular (checked) exception
+     */
+    private static class InvalidInputQueryFactory extends FailingInputQueryFactory {
+        @Override
+        public SelectQuery createSelectQuery(String queryString) throws OntopInvalidInputQueryException {
+            throw new OntopInvalidInputQueryException("Invalid query");
+        }
+    }
+
+    /**
+     * Never reached: the queries fail before a connection is needed
+     */
+    private static class UnavailableQueryEngine implements OntopQueryEngine {
+
+        @Override
+        public boolean connect() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public OntopConnection getConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public QueryReformulator getQueryReformulator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
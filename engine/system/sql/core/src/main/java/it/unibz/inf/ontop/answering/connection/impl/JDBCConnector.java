@@ -1,15 +1,24 @@
 package it.unibz.inf.ontop.answering.connection.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.connection.DBConnector;
 import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolMetrics;
+import it.unibz.inf.ontop.answering.resultset.impl.JDBCRowDecoder;
+import it.unibz.inf.ontop.answering.resultset.impl.ResultValueCache;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.planner.RelationStatisticsProvider;
 
+import it.unibz.inf.ontop.model.term.RDFConstant;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
@@ -18,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.util.Optional;
 
 /**
  * For RDBMS having a JDBC driver.
@@ -25,6 +35,7 @@ import java.sql.*;
 public class JDBCConnector implements DBConnector {
 
     private final QueryReformulator queryReformulator;
+    private final QueryExecutionService executionService;
 
     private final SubstitutionFactory substitutionFactory;
     private final OntopSystemSQLSettings settings;
@@ -38,22 +49,51 @@ public class JDBCConnector implements DBConnector {
     private final TermFactory termFactory;
     private final RDF rdfFactory;
     private final JDBCStatementInitializer statementInitializer;
+    private final RelationStatisticsProvider relationStatisticsProvider;
+
+    /*
+     * Row decoders compiled for the executable queries.
+     * Weak keys (identity): an entry lives as long as its IQ (e.g. in the query cache).
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    private final Cache<IQ, JDBCRowDecoder> rowDecoderCache;
+
+    /*
+     * RDF constants shared by all the result sets of the query engine
+     */
+    private final ResultValueCache<Object, RDFConstant> constantCache;
+
+    // In ms
+    private final long connectionAcquisitionTimeout;
 
     @AssistedInject
     private JDBCConnector(@Assisted QueryReformulator queryReformulator,
+                          QueryExecutionService executionService,
                           JDBCConnectionPool connectionPool,
                           TermFactory termFactory,
                           SubstitutionFactory substitutionFactory,
                           RDF rdfFactory,
                           JDBCStatementInitializer statementInitializer,
+                          RelationStatisticsProvider relationStatisticsProvider,
                           OntopSystemSQLSettings settings) {
         this.queryReformulator = queryReformulator;
+        this.executionService = executionService;
         this.termFactory = termFactory;
         this.substitutionFactory = substitutionFactory;
         this.settings = settings;
         this.connectionPool = connectionPool;
         this.rdfFactory = rdfFactory;
         this.statementInitializer = statementInitializer;
+        this.relationStatisticsProvider = relationStatisticsProvider;
+        this.rowDecoderCache = CacheBuilder.newBuilder()
+                .weakKeys()
+                .maximumSize(settings.getQueryCacheMaxSize())
+                .build();
+        this.constantCache = new ResultValueCache<>("RDF constant", settings.getResultValueCacheSize());
+        this.connectionAcquisitionTimeout = settings.getDefaultQueryTimeout()
+                .filter(t -> t > 0)
+                .map(t -> Math.min(t * 1000L, settings.getConnectionTimeout()))
+                .orElse((long) settings.getConnectionTimeout());
     }
 
     /**
@@ -86,17 +126,39 @@ public class JDBCConnector implements DBConnector {
         } catch (Exception e) {
             log.error(e.getMessage());
         }
+        connectionPool.getMetrics()
+                .ifPresent(m -> log.debug("Connection pool: {}", m));
         connectionPool.close();
+        relationStatisticsProvider.close();
+        if (constantCache.isEnabled())
+            log.debug(constantCache.toString());
+    }
+
+    /**
+     * Not synchronized: the pools are thread-safe and the requests wait in their fair queue.
+     *
+     * A request does not wait longer for a connection than for the evaluation of its query:
+     * the wait is bounded by the default query timeout, when shorter than the connection timeout.
+     */
+    public Connection getSQLPoolConnection() throws OntopConnectionException {
+        return getSQLPoolConnection(connectionAcquisitionTimeout);
     }
 
-    public synchronized Connection getSQLPoolConnection() throws OntopConnectionException {
+    /**
+     * Waits at most timeout ms for a connection (e.g. for respecting the deadline of a request)
+     */
+    public Connection getSQLPoolConnection(long timeout) throws OntopConnectionException {
         try {
-            return connectionPool.getConnection();
+            return connectionPool.getConnection(timeout);
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
         }
     }
 
+    public Optional<JDBCConnectionPoolMetrics> getPoolMetrics() {
+        return connectionPool.getMetrics();
+    }
+
     /***
      * Returns an OntopConnection, the main object that a client should use to
      * access the query answering services of Quest. With the QuestConnection
@@ -114,8 +176,9 @@ public class JDBCConnector implements DBConnector {
     @Override
     public OntopConnection getConnection() throws OntopConnectionException {
 
-        return new SQLConnection(this, queryReformulator, getSQLPoolConnection(),
-                termFactory, rdfFactory, substitutionFactory, statementInitializer, settings);
+        return new SQLConnection(this, queryReformulator, executionService, getSQLPoolConnection(),
+                termFactory, rdfFactory, substitutionFactory, statementInitializer, rowDecoderCache, constantCache,
+                settings);
     }
 
 
@@ -16,7 +16,7 @@ public class PostgresJDBCStatementInitializer extends DefaultJDBCStatementInitia
     }
 
     @Override
-    protected Statement init(Statement statement) throws SQLException {
+    protected <S extends Statement> S init(S statement) throws SQLException {
         int fetchSize = settings.getFetchSize();
         if (fetchSize > 0) {
             statement.getConnection().setAutoCommit(false);
@@ -0,0 +1,148 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of the prepared statements of a JDBC connection, indexed by their SQL query.
+ * The SQL queries are parameterized (constants passed as bind parameters), so that the queries only differing
+ * by their constants share the same prepared statement.
+ *
+ * A prepared statement is lent to one Ontop statement at a time: it is removed from the cache when acquired
+ * and put back when released. If the statement for a query is already lent, a new one is prepared.
+ *
+ * Reusing the same prepared statement allows the drivers supporting server-side prepared statements
+ * (e.g. PostgreSQL after a few executions, Oracle) to skip the parsing and the planning of the query.
+ */
+class PreparedStatementCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PreparedStatementCache.class);
+    private static final int STATISTICS_LOGGING_PERIOD = 100;
+
+    private final Connection connection;
+    private final JDBCStatementInitializer statementInitializer;
+    private final int maxSize;
+    // Access order, only contains the statements that are not lent
+    private final LinkedHashMap<String, PreparedStatement> availableStatements;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long preparationNanos = 0;
+    private boolean isClosed = false;
+
+    PreparedStatementCache(Connection connection, JDBCStatementInitializer statementInitializer, int maxSize) {
+        this.connection = connection;
+        this.statementInitializer = statementInitializer;
+        this.maxSize = maxSize;
+        this.availableStatements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * The statement must be released after use
+     */
+    synchronized PreparedStatement acquire(String sql) throws SQLException {
+        PreparedStatement statement = availableStatements.remove(sql);
+        if (statement != null && !statement.isClosed()) {
+            hitCount++;
+            logStatisticsPeriodically();
+            return statement;
+        }
+
+        long beginning = System.nanoTime();
+        statement = statementInitializer.prepareAndInitStatement(connection, sql);
+        preparationNanos += System.nanoTime() - beginning;
+        missCount++;
+        logStatisticsPeriodically();
+        return statement;
+    }
+
+    /**
+     * Makes the statement available again (closes it if it cannot be kept).
+     *
+     * The result set of its last execution (if any) is closed and its parameters are cleared before
+     * the statement is put back, so that no cursor stays open on the DB side while the statement is idle.
+     */
+    synchronized void release(String sql, PreparedStatement statement, @Nullable ResultSet resultSet)
+            throws SQLException {
+        if (statement.isClosed())
+            return;
+        if (isClosed) {
+            statement.close();
+            return;
+        }
+
+        try {
+            if (resultSet != null)
+                resultSet.close();
+            statement.clearParameters();
+        } catch (SQLException e) {
+            // Not reused, as its state is unknown
+            statement.close();
+            throw e;
+        }
+
+        PreparedStatement previousStatement = availableStatements.put(sql, statement);
+        if (previousStatement != null)
+            previousStatement.close();
+
+        Iterator<Map.Entry<String, PreparedStatement>> iterator = availableStatements.entrySet().iterator();
+        while (availableStatements.size() > maxSize) {
+            PreparedStatement evictedStatement = iterator.next().getValue();
+            iterator.remove();
+            evictedStatement.close();
+        }
+    }
+
+    /**
+     * Closes the statements that are not lent (the lent ones are closed when released)
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        if (isClosed)
+            return;
+        isClosed = true;
+        logStatistics();
+
+        SQLException exception = null;
+        for (PreparedStatement statement : availableStatements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                exception = e;
+            }
+        }
+        availableStatements.clear();
+        if (exception != null)
+            throw exception;
+    }
+
+    private void logStatisticsPeriodically() {
+        if ((hitCount + missCount) % STATISTICS_LOGGING_PERIOD == 0)
+            logStatistics();
+    }
+
+    /**
+     * The time saved is estimated from the average time needed for preparing a statement
+     */
+    private void logStatistics() {
+        long lookupCount = hitCount + missCount;
+        if (lookupCount == 0 || !log.isDebugEnabled())
+            return;
+
+        long averagePreparationNanos = missCount == 0 ? 0 : preparationNanos / missCount;
+        log.debug(String.format("Prepared statement cache: %d hits, %d misses (hit rate: %.1f%%), " +
+                        "~%d ms of statement preparation saved",
+                hitCount, missCount, 100.0 * hitCount / lookupCount, hitCount * averagePreparationNanos / 1000000));
+    }
+}
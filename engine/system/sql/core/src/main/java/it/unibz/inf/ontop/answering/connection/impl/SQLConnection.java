@@ -2,17 +2,25 @@ package it.unibz.inf.ontop.answering.connection.impl;
 
 import java.sql.Connection;
 
+import com.google.common.cache.Cache;
 import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.resultset.impl.JDBCRowDecoder;
+import it.unibz.inf.ontop.answering.resultset.impl.ResultValueCache;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.term.RDFConstant;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import org.apache.commons.rdf.api.RDF;
 
+import javax.annotation.Nullable;
+
 /***
  * Quest connection is responsible for wrapping a JDBC connection to the data
  * source. It will translate calls to OBDAConnection into JDBC Connection calls
@@ -28,6 +36,7 @@ import org.apache.commons.rdf.api.RDF;
 public class SQLConnection implements OntopConnection {
 
 	private final QueryReformulator queryProcessor;
+	private final QueryExecutionService executionService;
 	private Connection conn;
 	private final TermFactory termFactory;
 	private final SubstitutionFactory substitutionFactory;
@@ -37,26 +46,48 @@ public class SQLConnection implements OntopConnection {
 	private boolean isClosed;
 	private final RDF rdfFactory;
 	private final JDBCStatementInitializer statementInitializer;
+	private final Cache<IQ, JDBCRowDecoder> rowDecoderCache;
+	private final ResultValueCache<Object, RDFConstant> constantCache;
+	// Null if disabled
+	@Nullable
+	private PreparedStatementCache preparedStatementCache;
 
 
-	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor, Connection connection,
+	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor,
+						 QueryExecutionService executionService, Connection connection,
 						 TermFactory termFactory, RDF rdfFactory, SubstitutionFactory substitutionFactory,
 						 JDBCStatementInitializer statementInitializer,
+						 Cache<IQ, JDBCRowDecoder> rowDecoderCache,
+						 ResultValueCache<Object, RDFConstant> constantCache,
 						 OntopSystemSQLSettings settings) {
 		this.jdbcConnector = jdbcConnector;
 		this.queryProcessor = queryProcessor;
+		this.executionService = executionService;
 		this.conn = connection;
 		this.termFactory = termFactory;
 		this.substitutionFactory = substitutionFactory;
 		this.statementInitializer = statementInitializer;
+		this.rowDecoderCache = rowDecoderCache;
+		this.constantCache = constantCache;
 		this.settings = settings;
 		this.rdfFactory = rdfFactory;
 		this.isClosed = false;
+		this.preparedStatementCache = createPreparedStatementCache(connection);
+	}
+
+	@Nullable
+	private PreparedStatementCache createPreparedStatementCache(Connection connection) {
+		int cacheSize = settings.getPreparedStatementCacheSize();
+		return cacheSize > 0
+				? new PreparedStatementCache(connection, statementInitializer, cacheSize)
+				: null;
 	}
 
 	@Override
 	public void close() throws OntopConnectionException {
 		try {
+			if (preparedStatementCache != null)
+				preparedStatementCache.close();
 			conn.close();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
@@ -69,12 +100,17 @@ public class SQLConnection implements OntopConnection {
 			if (conn.isClosed()) {
 				// Sometimes it gets dropped, reconnect
 				conn = jdbcConnector.getSQLPoolConnection();
+				if (preparedStatementCache != null)
+					preparedStatementCache.close();
+				preparedStatementCache = createPreparedStatementCache(conn);
 			}
 			return new SQLQuestStatement(
 					this.queryProcessor,
+					executionService,
 					statementInitializer.createAndInitStatement(conn),
 					statementInitializer,
-					termFactory, rdfFactory, substitutionFactory, settings);
+					termFactory, rdfFactory, substitutionFactory, rowDecoderCache, constantCache, settings,
+					preparedStatementCache);
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
@@ -1,10 +1,14 @@
 package it.unibz.inf.ontop.answering.connection.impl;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSortedSet;
-import it.unibz.inf.ontop.answering.connection.JDBCStatementFinalizer;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
@@ -22,12 +26,14 @@ import it.unibz.inf.ontop.iq.UnaryIQTree;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
 import it.unibz.inf.ontop.iq.node.ConstructionNode;
 import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.model.term.DBConstant;
+import it.unibz.inf.ontop.model.term.RDFConstant;
 import it.unibz.inf.ontop.model.term.TermFactory;
-import it.unibz.inf.ontop.model.term.Variable;
-import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import org.apache.commons.rdf.api.RDF;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.sql.*;
 import java.sql.ResultSet;
 
@@ -38,22 +44,46 @@ import java.sql.ResultSet;
 public class SQLQuestStatement extends QuestStatement {
 
     private final Statement sqlStatement;
-    private final JDBCStatementFinalizer statementFinalizer;
+    private final JDBCStatementInitializer statementInitializer;
     private final TermFactory termFactory;
     private final RDF rdfFactory;
     private final SubstitutionFactory substitutionFactory;
+    private final Cache<IQ, JDBCRowDecoder> rowDecoderCache;
+    private final ResultValueCache<Object, RDFConstant> constantCache;
     private final OntopSystemSQLSettings settings;
+    @Nullable
+    private final PreparedStatementCache preparedStatementCache;
 
-    public SQLQuestStatement(QueryReformulator queryProcessor, Statement sqlStatement,
-                             JDBCStatementFinalizer statementFinalizer, TermFactory termFactory,
+    /*
+     * Prepared statement of the last query (if any), either lent by the cache or owned by this statement.
+     * It is released when another query is executed or when this statement is closed,
+     * like the result set of a regular statement is closed.
+     */
+    @Nullable
+    private volatile PreparedStatement preparedStatement;
+    @Nullable
+    private String preparedSQLQuery;
+    @Nullable
+    private ResultSet preparedResultSet;
+    private boolean isPreparedStatementCached;
+
+    public SQLQuestStatement(QueryReformulator queryProcessor, QueryExecutionService executionService,
+                             Statement sqlStatement,
+                             JDBCStatementInitializer statementInitializer, TermFactory termFactory,
                              RDF rdfFactory, SubstitutionFactory substitutionFactory,
-                             OntopSystemSQLSettings settings) {
-        super(queryProcessor);
+                             Cache<IQ, JDBCRowDecoder> rowDecoderCache,
+                             ResultValueCache<Object, RDFConstant> constantCache,
+                             OntopSystemSQLSettings settings,
+                             @Nullable PreparedStatementCache preparedStatementCache) {
+        super(queryProcessor, executionService);
         this.sqlStatement = sqlStatement;
-        this.statementFinalizer = statementFinalizer;
+        this.preparedStatementCache = preparedStatementCache;
+        this.statementInitializer = statementInitializer;
         this.termFactory = termFactory;
         this.rdfFactory = rdfFactory;
         this.substitutionFactory = substitutionFactory;
+        this.rowDecoderCache = rowDecoderCache;
+        this.constantCache = constantCache;
         this.settings = settings;
     }
 
@@ -126,7 +156,7 @@ public class SQLQuestStatement extends QuestStatement {
             if (!isCanceled()) {
                 try {
 
-                    java.sql.ResultSet set = sqlStatement.executeQuery(newsql);
+                    java.sql.ResultSet set = executeSQLQuery(newsql, extractNativeNode(targetQuery).getParameters());
                     if (set.next()) {
                         return set.getInt(1);
                     } else {
@@ -147,8 +177,10 @@ public class SQLQuestStatement extends QuestStatement {
     @Override
     public void close() throws OntopConnectionException {
         try {
+            releaseExecutionSlot();
+            releasePreparedStatement();
             if (sqlStatement != null)
-                statementFinalizer.closeStatement(sqlStatement);
+                statementInitializer.closeStatement(sqlStatement);
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
         }
@@ -156,7 +188,11 @@ public class SQLQuestStatement extends QuestStatement {
 
     protected void cancelExecution() throws OntopQueryEvaluationException {
         try {
-            sqlStatement.cancel();
+            PreparedStatement currentPreparedStatement = preparedStatement;
+            if (currentPreparedStatement != null)
+                currentPreparedStatement.cancel();
+            else
+                sqlStatement.cancel();
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e);
         }
@@ -168,7 +204,7 @@ public class SQLQuestStatement extends QuestStatement {
         try {
             String sqlQuery = extractSQLQuery(executableQuery);
             try {
-                java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+                java.sql.ResultSet set = executeSQLQuery(sqlQuery, extractNativeNode(executableQuery).getParameters());
                 queryLogger.declareResultSetUnblockedAndSerialize();
                 return new SQLBooleanResultSet(set, queryLogger, this::close);
             } catch (SQLException e) {
@@ -186,21 +222,21 @@ public class SQLQuestStatement extends QuestStatement {
             throws OntopQueryEvaluationException {
         try {
             String sqlQuery = extractSQLQuery(executableQuery);
-            ConstructionNode constructionNode = extractRootConstructionNode(executableQuery);
-            NativeNode nativeNode = extractNativeNode(executableQuery);
-            ImmutableSortedSet<Variable> signature = nativeNode.getVariables();
-            ImmutableMap<Variable, DBTermType> typeMap = nativeNode.getTypeMap();
+            JDBCRowDecoder rowDecoder = getRowDecoder(executableQuery);
 
             OntopConnectionCloseable statementClosingCB = shouldAlsoCloseStatement ? this::close : null;
 
             try {
-                java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+                java.sql.ResultSet set = executeSQLQuery(sqlQuery, extractNativeNode(executableQuery).getParameters());
                 queryLogger.declareResultSetUnblockedAndSerialize();
                 return settings.isDistinctPostProcessingEnabled()
-                        ? new DistinctJDBCTupleResultSet(set, signature, typeMap, constructionNode,
-                            executableQuery.getProjectionAtom(), queryLogger, statementClosingCB, termFactory, substitutionFactory)
-                        : new JDBCTupleResultSet(set, signature, typeMap, constructionNode, executableQuery.getProjectionAtom(),
-                            queryLogger, statementClosingCB, termFactory, substitutionFactory);
+                        ? new DistinctJDBCTupleResultSet(set, rowDecoder, executableQuery.getProjectionAtom(),
+                            queryLogger, statementClosingCB, settings.getDistinctResultSetMemoryBudget(),
+                            settings.getDistinctResultSetSpillDirectory()
+                                    .map(File::new)
+                                    .orElseGet(() -> new File(System.getProperty("java.io.tmpdir"))))
+                        : new JDBCTupleResultSet(set, rowDecoder, executableQuery.getProjectionAtom(),
+                            queryLogger, statementClosingCB);
             } catch (SQLException e) {
                 throw new OntopQueryEvaluationException(e);
             }
@@ -220,18 +256,15 @@ public class SQLQuestStatement extends QuestStatement {
         TupleResultSet tuples;
         try {
             String sqlQuery = extractSQLQuery(executableQuery);
-            ConstructionNode constructionNode = extractRootConstructionNode(executableQuery);
-            NativeNode nativeNode = extractNativeNode(executableQuery);
-            ImmutableSortedSet<Variable> SQLSignature = nativeNode.getVariables();
-            ImmutableMap<Variable, DBTermType> SQLTypeMap = nativeNode.getTypeMap();
+            JDBCRowDecoder rowDecoder = getRowDecoder(executableQuery);
 
             OntopConnectionCloseable statementClosingCB = shouldAlsoCloseStatement ? this::close : null;
 
             try {
-                ResultSet rs = sqlStatement.executeQuery(sqlQuery);
+                ResultSet rs = executeSQLQuery(sqlQuery, extractNativeNode(executableQuery).getParameters());
                 queryLogger.declareResultSetUnblockedAndSerialize();
-                tuples = new JDBCTupleResultSet(rs, SQLSignature, SQLTypeMap, constructionNode,
-                        executableQuery.getProjectionAtom(), queryLogger, statementClosingCB, termFactory, substitutionFactory);
+                tuples = new JDBCTupleResultSet(rs, rowDecoder, executableQuery.getProjectionAtom(), queryLogger,
+                        statementClosingCB);
             } catch (SQLException e) {
                 throw new OntopQueryEvaluationException(e.getMessage());
             }
@@ -243,6 +276,96 @@ public class SQLQuestStatement extends QuestStatement {
                 settings.areInvalidTriplesExcludedFromResultSet());
     }
 
+    /**
+     * Through a prepared statement when the query has parameters (see ontop.sql.bindParameters)
+     * or when the prepared statement cache is enabled.
+     *
+     * The prepared statements are initialized like the regular ones (fetch size, cursor mode, etc.).
+     * The max rows and the query timeout of the regular statement also apply to the prepared statement.
+     */
+    private ResultSet executeSQLQuery(String sqlQuery, ImmutableList<DBConstant> parameters) throws SQLException {
+        if (preparedStatementCache == null && parameters.isEmpty())
+            return sqlStatement.executeQuery(sqlQuery);
+
+        releasePreparedStatement();
+        PreparedStatement statement = (preparedStatementCache == null)
+                ? statementInitializer.prepareAndInitStatement(sqlStatement.getConnection(), sqlQuery)
+                : preparedStatementCache.acquire(sqlQuery);
+        preparedSQLQuery = sqlQuery;
+        isPreparedStatementCached = preparedStatementCache != null;
+        preparedStatement = statement;
+        try {
+            statement.setMaxRows(sqlStatement.getMaxRows());
+            statement.setQueryTimeout(sqlStatement.getQueryTimeout());
+            bindParameters(statement, parameters);
+            preparedResultSet = statement.executeQuery();
+            return preparedResultSet;
+        } catch (SQLException e) {
+            // Not reused, as its state is unknown
+            preparedStatement = null;
+            statement.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The integers and the decimals are bound as numbers, so that they are compared as such by the DB.
+     */
+    private static void bindParameters(PreparedStatement statement, ImmutableList<DBConstant> parameters)
+            throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            DBConstant parameter = parameters.get(i);
+            String value = parameter.getValue();
+            try {
+                switch (parameter.getType().getCategory()) {
+                    case INTEGER:
+                        BigInteger integer = new BigInteger(value);
+                        if (integer.bitLength() < 64)
+                            statement.setLong(i + 1, integer.longValue());
+                        else
+                            statement.setBigDecimal(i + 1, new BigDecimal(integer));
+                        break;
+                    case DECIMAL:
+                        statement.setBigDecimal(i + 1, new BigDecimal(value));
+                        break;
+                    default:
+                        statement.setString(i + 1, value);
+                }
+            } catch (NumberFormatException e) {
+                statement.setString(i + 1, value);
+            }
+        }
+    }
+
+    private void releasePreparedStatement() throws SQLException {
+        PreparedStatement statement = preparedStatement;
+        if (statement != null) {
+            preparedStatement = null;
+            ResultSet resultSet = preparedResultSet;
+            preparedResultSet = null;
+            if (isPreparedStatementCached)
+                preparedStatementCache.release(preparedSQLQuery, statement, resultSet);
+            else
+                statement.close();
+        }
+    }
+
+    /**
+     * Compiles the row decoder once per executable query
+     */
+    private JDBCRowDecoder getRowDecoder(IQ executableQuery) throws EmptyQueryException {
+        ConstructionNode constructionNode = extractRootConstructionNode(executableQuery);
+        NativeNode nativeNode = extractNativeNode(executableQuery);
+        try {
+            return rowDecoderCache.get(executableQuery, () -> new JDBCRowDecoder(
+                    executableQuery.getProjectionAtom().getArguments(), nativeNode.getVariables(),
+                    nativeNode.getTypeMap(), constructionNode.getSubstitution(), termFactory, substitutionFactory,
+                    constantCache));
+        } catch (ExecutionException e) {
+            throw new MinorOntopInternalBugException("Could not compile the row decoder: " + e.getMessage());
+        }
+    }
+
     private NativeNode extractNativeNode(IQ executableQuery) throws EmptyQueryException {
         IQTree tree = executableQuery.getTree();
         if (tree.isDeclaredAsEmpty()) {
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.answering.connection.pool;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Optional;
 
 public interface JDBCConnectionPool extends AutoCloseable {
 
@@ -10,4 +11,18 @@ public interface JDBCConnectionPool extends AutoCloseable {
     void close();
 
     Connection getConnection() throws SQLException;
+
+    /**
+     * Waits at most timeout ms for a connection (instead of the connection timeout of the settings)
+     */
+    default Connection getConnection(long timeout) throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Empty if the pool does not collect metrics
+     */
+    default Optional<JDBCConnectionPoolMetrics> getMetrics() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,84 @@
+package it.unibz.inf.ontop.answering.connection.pool;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the state of a connection pool, for sizing it from observed data.
+ */
+public class JDBCConnectionPoolMetrics {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int pendingRequests;
+    private final long acquisitionCount;
+    private final long timeoutCount;
+    private final ImmutableSortedMap<Long, Long> waitTimeHistogram;
+
+    public JDBCConnectionPoolMetrics(int activeConnections, int idleConnections, int pendingRequests,
+                                     long acquisitionCount, long timeoutCount,
+                                     ImmutableSortedMap<Long, Long> waitTimeHistogram) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.pendingRequests = pendingRequests;
+        this.acquisitionCount = acquisitionCount;
+        this.timeoutCount = timeoutCount;
+        this.waitTimeHistogram = waitTimeHistogram;
+    }
+
+    /**
+     * Connections lent and not returned yet
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * Requests waiting for a connection
+     */
+    public int getPendingRequests() {
+        return pendingRequests;
+    }
+
+    /**
+     * Number of connections successfully acquired
+     */
+    public long getAcquisitionCount() {
+        return acquisitionCount;
+    }
+
+    /**
+     * Number of requests that have given up waiting for a connection
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * Number of successful acquisitions by wait time: the key is the (inclusive) upper bound of the bucket
+     * in milliseconds, Long.MAX_VALUE for the last one
+     */
+    public ImmutableSortedMap<Long, Long> getWaitTimeHistogram() {
+        return waitTimeHistogram;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("active=" + activeConnections + ", idle=" + idleConnections
+                + ", pending=" + pendingRequests + ", acquisitions=" + acquisitionCount
+                + ", timeouts=" + timeoutCount + ", wait time (ms): {");
+        String separator = "";
+        for (Map.Entry<Long, Long> e : waitTimeHistogram.entrySet()) {
+            sb.append(separator)
+                    .append(e.getKey() == Long.MAX_VALUE ? "more" : "<=" + e.getKey())
+                    .append(": ").append(e.getValue());
+            separator = ", ";
+        }
+        return sb.append("}").toString();
+    }
+}
@@ -0,0 +1,193 @@
+package it.unibz.inf.ontop.answering.connection.pool.impl;
+
+import com.google.common.collect.ImmutableSortedMap;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolMetrics;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Puts the requests for a connection into a fair (FIFO) wait queue in front of the underlying pool,
+ * each request waiting until its own deadline.
+ *
+ * The queue is a fair semaphore with one permit per connection of the pool: it does not hold any monitor
+ * while waiting, so the waiting threads can be parked (and virtual threads unmounted).
+ * A permit is released when the connection is closed (i.e. returned to the pool).
+ * The timeout bounds the whole acquisition: the underlying pool only gets the time remaining after the wait.
+ *
+ * Also collects the wait time histogram of the acquisitions.
+ */
+public abstract class AbstractJDBCConnectionPool implements JDBCConnectionPool {
+
+    // Upper bounds (in ms) of the buckets of the wait time histogram
+    private static final long[] WAIT_TIME_BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000, Long.MAX_VALUE };
+
+    private final long connectionTimeout;
+    // null if disabled
+    @Nullable
+    private final Semaphore waitQueue;
+
+    private final LongAdder[] waitTimeCounts = new LongAdder[WAIT_TIME_BUCKETS.length];
+    private final LongAdder acquisitionCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * When disabled (e.g. because the underlying pool may reclaim connections that have not been closed),
+     * the requests wait in the underlying pool, within its own connection timeout.
+     */
+    protected AbstractJDBCConnectionPool(int maxPoolSize, long connectionTimeout, boolean isWaitQueueEnabled) {
+        this.connectionTimeout = connectionTimeout;
+        this.waitQueue = isWaitQueueEnabled ? new Semaphore(maxPoolSize, true) : null;
+        for (int i = 0; i < waitTimeCounts.length; i++)
+            waitTimeCounts[i] = new LongAdder();
+    }
+
+    /**
+     * Gets a connection from the underlying pool, waiting at most timeout ms if the pool supports it
+     */
+    protected abstract Connection acquireConnection(long timeout) throws SQLException;
+
+    protected abstract int getActiveConnectionCount();
+
+    protected abstract int getIdleConnectionCount();
+
+    /**
+     * Number of requests waiting inside the underlying pool
+     */
+    protected abstract int getPoolPendingRequestCount();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(connectionTimeout);
+    }
+
+    @Override
+    public Connection getConnection(long timeout) throws SQLException {
+        long startTime = System.nanoTime();
+        if (waitQueue == null) {
+            Connection connection = acquireConnection(timeout);
+            recordAcquisition(startTime);
+            return connection;
+        }
+
+        boolean isAcquired;
+        try {
+            isAcquired = waitQueue.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a DB connection", e);
+        }
+        if (!isAcquired) {
+            timeoutCount.increment();
+            throw new SQLTransientConnectionException("No DB connection available after " + timeout + " ms ("
+                    + getPoolMetrics() + ")");
+        }
+
+        try {
+            long remainingTimeout = Math.max(0,
+                    timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            Connection connection = acquireConnection(remainingTimeout);
+            recordAcquisition(startTime);
+            return releasingOnClose(connection, waitQueue);
+        }
+        catch (SQLException | RuntimeException e) {
+            waitQueue.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<JDBCConnectionPoolMetrics> getMetrics() {
+        return Optional.of(getPoolMetrics());
+    }
+
+    private JDBCConnectionPoolMetrics getPoolMetrics() {
+        ImmutableSortedMap.Builder<Long, Long> histogramBuilder = ImmutableSortedMap.naturalOrder();
+        for (int i = 0; i < WAIT_TIME_BUCKETS.length; i++)
+            histogramBuilder.put(WAIT_TIME_BUCKETS[i], waitTimeCounts[i].sum());
+
+        int pending = getPoolPendingRequestCount() + ((waitQueue == null) ? 0 : waitQueue.getQueueLength());
+        return new JDBCConnectionPoolMetrics(getActiveConnectionCount(), getIdleConnectionCount(), pending,
+                acquisitionCount.sum(), timeoutCount.sum(), histogramBuilder.build());
+    }
+
+    private void recordAcquisition(long startTime) {
+        long waitTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        int bucket = 0;
+        while (waitTime > WAIT_TIME_BUCKETS[bucket])
+            bucket++;
+        waitTimeCounts[bucket].increment();
+        acquisitionCount.increment();
+    }
+
+    private static Connection releasingOnClose(Connection connection, Semaphore waitQueue) {
+        return (Connection) releasingOnClose(connection, AbstractJDBCConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, waitQueue, new AtomicBoolean(false));
+    }
+
+    /**
+     * The objects unwrapped from the connection are also proxied (when they are connections themselves),
+     * as closing them must release the permit too.
+     */
+    private static Object releasingOnClose(Connection connection, ClassLoader classLoader, Class<?>[] interfaces,
+                                           Semaphore waitQueue, AtomicBoolean isReleased) {
+        return Proxy.newProxyInstance(classLoader, interfaces,
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "isWrapperFor": {
+                            Class<?> iface = (Class<?>) args[0];
+                            return iface.isInstance(proxy) || (iface.isInterface() && connection.isWrapperFor(iface));
+                        }
+                        case "unwrap": {
+                            Class<?> iface = (Class<?>) args[0];
+                            if (iface.isInstance(proxy))
+                                return proxy;
+                            Object unwrapped = connection.unwrap(iface);
+                            if (!(unwrapped instanceof Connection))
+                                return unwrapped;
+                            if (!iface.isInterface())
+                                throw new SQLException("Cannot unwrap a pooled connection into the class " + iface.getName()
+                                        + ", only into an interface");
+                            // The driver interface may not be visible from the class loader of Ontop
+                            return releasingOnClose((Connection) unwrapped,
+                                    Optional.ofNullable(iface.getClassLoader())
+                                            .orElseGet(AbstractJDBCConnectionPool.class::getClassLoader),
+                                    new Class<?>[] { iface, Connection.class }, waitQueue, isReleased);
+                        }
+                        case "close":
+                            try {
+                                return method.invoke(connection, args);
+                            }
+                            catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                            finally {
+                                if (isReleased.compareAndSet(false, true))
+                                    waitQueue.release();
+                            }
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            }
+                            catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+}
@@ -2,23 +2,28 @@ package it.unibz.inf.ontop.answering.connection.pool.impl;
 
 import com.google.inject.Inject;
 import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
-import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 
 /**
  * NOT a singleton
+ *
+ * Uses the pool directly (instead of a HikariDataSource) so as to pass the timeout of each acquisition.
  */
-public class HikariConnectionPool implements JDBCConnectionPool {
+public class HikariConnectionPool extends AbstractJDBCConnectionPool {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(HikariConnectionPool.class);
 
-    private final HikariDataSource ds;
+    private final HikariPool pool;
 
     @Inject
     private HikariConnectionPool(OntopSystemSQLSettings settings) {
+        super(settings.getConnectionPoolMaxSize(), settings.getConnectionTimeout(), true);
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(settings.getJdbcUrl());
         config.setUsername(settings.getJdbcUser());
@@ -30,17 +35,39 @@ public class HikariConnectionPool implements JDBCConnectionPool {
         config.setConnectionTimeout(settings.getConnectionTimeout());
         config.setReadOnly(true);
 
-        ds = new HikariDataSource(config);
+        // Normally done by the HikariDataSource
+        config.validate();
+        pool = new HikariPool(config);
     }
 
 
     @Override
     public void close() {
-        ds.close();
+        try {
+            pool.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while shutting down the connection pool");
+        }
     }
 
     @Override
-    public Connection getConnection() throws SQLException {
-        return ds.getConnection();
+    protected Connection acquireConnection(long timeout) throws SQLException {
+        return pool.getConnection(timeout);
+    }
+
+    @Override
+    protected int getActiveConnectionCount() {
+        return pool.getActiveConnections();
+    }
+
+    @Override
+    protected int getIdleConnectionCount() {
+        return pool.getIdleConnections();
+    }
+
+    @Override
+    protected int getPoolPendingRequestCount() {
+        return pool.getThreadsAwaitingConnection();
     }
 }
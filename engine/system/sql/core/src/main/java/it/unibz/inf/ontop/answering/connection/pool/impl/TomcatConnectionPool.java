@@ -2,7 +2,6 @@ package it.unibz.inf.ontop.answering.connection.pool.impl;
 
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
-import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
 import org.apache.tomcat.jdbc.pool.DataSource;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.slf4j.Logger;
@@ -15,13 +14,17 @@ import java.sql.SQLException;
 /**
  * Not a SINGLETON!
  */
-public class TomcatConnectionPool implements JDBCConnectionPool {
+public class TomcatConnectionPool extends AbstractJDBCConnectionPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TomcatConnectionPool.class);
     private final DataSource tomcatPool;
 
     @Inject
     private TomcatConnectionPool(OntopSystemSQLSettings settings) {
+        // Abandoned connections are reclaimed by the pool without being closed: they would never be returned
+        // to the wait queue
+        super(settings.getConnectionPoolMaxSize(), settings.getConnectionTimeout(),
+                !settings.isRemoveAbandonedEnabled());
         PoolProperties poolProperties = new PoolProperties();
         poolProperties.setUrl(settings.getJdbcUrl());
         poolProperties.setDriverClassName(settings.getJdbcDriver());
@@ -55,6 +58,7 @@ public class TomcatConnectionPool implements JDBCConnectionPool {
         poolProperties.setMaxIdle(maxPoolSize);
         poolProperties.setInitialSize(startPoolSize);
         poolProperties.setMaxWait(timeout);
+        poolProperties.setFairQueue(true);
         poolProperties.setRemoveAbandonedTimeout(abandonedTimeout);
         poolProperties.setMinEvictableIdleTimeMillis(timeout);
         poolProperties.setLogAbandoned(false);
@@ -75,8 +79,27 @@ public class TomcatConnectionPool implements JDBCConnectionPool {
         tomcatPool.close();
     }
 
+    /**
+     * The timeout is not passed to the pool, which waits at most its maxWait.
+     * Behind the wait queue, a connection is always available (or can be opened) without waiting.
+     */
     @Override
-    public Connection getConnection() throws SQLException {
+    protected Connection acquireConnection(long timeout) throws SQLException {
         return tomcatPool.getConnection();
     }
+
+    @Override
+    protected int getActiveConnectionCount() {
+        return tomcatPool.getActive();
+    }
+
+    @Override
+    protected int getIdleConnectionCount() {
+        return tomcatPool.getIdle();
+    }
+
+    @Override
+    protected int getPoolPendingRequestCount() {
+        return tomcatPool.getWaitCount();
+    }
 }
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.answering.resultset.impl;
 import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultBatch;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.exception.OntopResultConversionException;
@@ -40,6 +41,9 @@ public abstract class AbstractTupleResultSet implements TupleResultSet {
 
     private long rowCount = 0;
 
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
+    private static final int MAX_FETCH_SIZE = 10000;
+
     AbstractTupleResultSet(ResultSet rs, ImmutableList<Variable> signature, QueryLogger queryLogger,
                            @Nullable OntopConnectionCloseable statementClosingCB){
         this.rs = rs;
@@ -108,6 +112,56 @@ public abstract class AbstractTupleResultSet implements TupleResultSet {
         return foundNextElement;
     }
 
+    @Override
+    public TupleResultBatch nextBatch(int maxRowCount) throws OntopConnectionException, OntopResultConversionException {
+        if (maxRowCount <= 0)
+            throw new IllegalArgumentException("The maximum number of rows of a batch must be positive");
+
+        ColumnarTupleResultBatch.Builder batchBuilder = new ColumnarTupleResultBatch.Builder(getSignature(),
+                Math.min(maxRowCount, INITIAL_BATCH_CAPACITY));
+
+        // Row already fetched by hasNext()
+        if (lastCalledIsHasNext) {
+            if (!foundNextElement)
+                return batchBuilder.build();
+            lastCalledIsHasNext = false;
+            appendCurrentRow(batchBuilder);
+        }
+
+        increaseFetchSize(maxRowCount);
+
+        while (batchBuilder.getRowCount() < maxRowCount) {
+            try {
+                foundNextElement = moveCursor();
+            } catch (Exception e) {
+                throw buildConnectionException(e);
+            }
+            if (!foundNextElement) {
+                // Same state as after hasNext() returning false
+                lastCalledIsHasNext = true;
+                queryLogger.declareLastResultRetrievedAndSerialize(rowCount);
+                close();
+                break;
+            }
+            rowCount++;
+            appendCurrentRow(batchBuilder);
+        }
+        return batchBuilder.build();
+    }
+
+    /**
+     * The fetch size is only a hint: it is raised to the batch size so that a batch requires
+     * as few round trips as possible, but never lowered.
+     */
+    private void increaseFetchSize(int maxRowCount) {
+        try {
+            if (rs.getFetchSize() < maxRowCount)
+                rs.setFetchSize(Math.min(maxRowCount, MAX_FETCH_SIZE));
+        } catch (SQLException e) {
+            // Not supported by the driver (or forward-only constraint): keeps the current fetch size
+        }
+    }
+
     /* This method can be overwritten to ensure distinct rows */
     protected boolean moveCursor() throws SQLException, OntopConnectionException {
         return rs.next();
@@ -134,6 +188,12 @@ public abstract class AbstractTupleResultSet implements TupleResultSet {
 
     protected abstract OntopBindingSet readCurrentRow() throws OntopConnectionException, OntopResultConversionException;
 
+    /**
+     * Appends the current row to the batch
+     */
+    protected abstract void appendCurrentRow(ColumnarTupleResultBatch.Builder batchBuilder)
+            throws OntopConnectionException, OntopResultConversionException;
+
     protected OntopConnectionException buildConnectionException(Exception e) {
         queryLogger.declareConnectionException(e);
         return new OntopConnectionException(e);
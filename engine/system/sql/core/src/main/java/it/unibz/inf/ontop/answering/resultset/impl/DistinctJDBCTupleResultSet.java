@@ -33,28 +33,40 @@ import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.*;
 
 /**
  * Class to handle distinct in SPARQL query. Avoid returning duplicate rows.
  * See test case DistinctResultSetTest
+ *
+ * The rows already returned are kept in memory, and spilled to disk as fingerprints beyond the memory budget
+ * (see SpillableRowKeySet).
  */
 
 @Deprecated
 public class DistinctJDBCTupleResultSet extends JDBCTupleResultSet implements TupleResultSet {
 
-    private Set<List<Object>> rowKeys;
+    private final SpillableRowKeySet rowKeys;
 
     public DistinctJDBCTupleResultSet(ResultSet rs, ImmutableSortedSet<Variable> sqlSignature, ImmutableMap<Variable, DBTermType> sqlTypes,
                                       ConstructionNode constructionNode,
                                       DistinctVariableOnlyDataAtom answerAtom, QueryLogger queryLogger,
                                       @Nullable OntopConnectionCloseable statementClosingCB, TermFactory termFactory,
-                                      SubstitutionFactory substitutionFactory) {
+                                      SubstitutionFactory substitutionFactory, long memoryBudget, File spillDirectory) {
 
         super(rs, sqlSignature, sqlTypes, constructionNode, answerAtom, queryLogger, statementClosingCB, termFactory, substitutionFactory);
-        rowKeys = new HashSet<>();
+        rowKeys = new SpillableRowKeySet("DISTINCT post-processing", memoryBudget, spillDirectory);
+    }
+
+    public DistinctJDBCTupleResultSet(ResultSet rs, JDBCRowDecoder rowDecoder,
+                                      DistinctVariableOnlyDataAtom answerAtom, QueryLogger queryLogger,
+                                      @Nullable OntopConnectionCloseable statementClosingCB,
+                                      long memoryBudget, File spillDirectory) {
+        super(rs, rowDecoder, answerAtom, queryLogger, statementClosingCB);
+        rowKeys = new SpillableRowKeySet("DISTINCT post-processing", memoryBudget, spillDirectory);
     }
 
     /**
@@ -63,24 +75,28 @@ public class DistinctJDBCTupleResultSet extends JDBCTupleResultSet implements Tu
     @Override
     protected boolean moveCursor() throws SQLException, OntopConnectionException {
         boolean foundFreshTuple;
-        List<Object> currentKey;
-        do{
-           foundFreshTuple = rs.next();
-           // Cannot use this in the while condition: limit case where the last row was a duplicate
-           if(!foundFreshTuple) {
-               break;
-           }
-           currentKey = computeTupleKey(rs);
-        } while(!rowKeys.add(currentKey));
+        Object[] currentKey;
+        try {
+            do {
+                foundFreshTuple = rs.next();
+                // Cannot use this in the while condition: limit case where the last row was a duplicate
+                if (!foundFreshTuple) {
+                    break;
+                }
+                currentKey = computeTupleKey(rs);
+            } while (!rowKeys.add(currentKey));
+        }
+        catch (IOException e) {
+            throw buildConnectionException(e);
+        }
 
         return foundFreshTuple;
     }
 
-    private List<Object> computeTupleKey(ResultSet rs) throws OntopConnectionException {
-
-        ArrayList rowKey = new ArrayList<>();
-        for (int i = 1; i <= getSignature().size();  i ++ ) {
-            rowKey.add(getRawObject(i)); //value
+    private Object[] computeTupleKey(ResultSet rs) throws OntopConnectionException {
+        Object[] rowKey = new Object[getSignature().size()];
+        for (int i = 1; i <= rowKey.length;  i ++ ) {
+            rowKey[i - 1] = getRawObject(i); //value
         }
         return rowKey;
     }
@@ -93,4 +109,14 @@ public class DistinctJDBCTupleResultSet extends JDBCTupleResultSet implements Tu
             throw buildConnectionException(e);
         }
     }
+
+    @Override
+    public void close() throws OntopConnectionException {
+        try {
+            super.close();
+        }
+        finally {
+            rowKeys.close();
+        }
+    }
 }
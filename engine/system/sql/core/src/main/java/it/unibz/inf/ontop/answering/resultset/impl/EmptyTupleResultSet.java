@@ -23,6 +23,7 @@ package it.unibz.inf.ontop.answering.resultset.impl;
 import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.answering.logging.QueryLogger;
 import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultBatch;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.model.term.Variable;
@@ -83,4 +84,9 @@ public class EmptyTupleResultSet implements TupleResultSet {
 		return false;
 	}
 
+	@Override
+	public TupleResultBatch nextBatch(int maxRowCount) {
+		hasNext();
+		return new ColumnarTupleResultBatch.Builder(signature, 0).build();
+	}
 }
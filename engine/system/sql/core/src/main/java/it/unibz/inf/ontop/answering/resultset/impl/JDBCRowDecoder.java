@@ -0,0 +1,424 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBTypeConversionFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.IRIStringTemplateFunctionSymbol;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.R2RMLIRISafeEncoder;
+
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Converts the current row of a JDBC result set into bindings.
+ *
+ * The substitution of the root construction node of the executable query is compiled once
+ * (per executable query) into one slot per projected variable:
+ *   - constants are pre-computed,
+ *   - RDF(x, T) and RDF(IRI_TEMPLATE(x1, ..., xn), T), where the xi are native columns (possibly under a simple cast)
+ *     and T a concrete RDF term type, are built directly out of the column values,
+ *   - any other term falls back to the generic path (substitution of the row values + simplification).
+ *
+ * The generic path is also used when a compiled slot receives a NULL column value, so that the behavior
+ * (e.g. an exception for an invalid RDF(NULL, IRI) term) is the same as before.
+ *
+ * The RDF constants built by the compiled slots can be shared through a bounded cache, indexed by the column values
+ * (no IRI is built for a cache hit).
+ *
+ * When decoding into a columnar batch, the compiled slots look up the column values in the dictionary of the batch
+ * before building the RDF constant, so that repeated values are only built once per batch.
+ *
+ * Immutable, can be shared between result sets.
+ */
+public class JDBCRowDecoder {
+
+    private final ImmutableList<Variable> signature;
+    private final ImmutableList<Variable> sqlVariables;
+    private final ImmutableList<DBTermType> sqlTypes;
+    private final ImmutableList<Slot> slots;
+    private final TermFactory termFactory;
+    private final SubstitutionFactory substitutionFactory;
+    private final ResultValueCache<Object, RDFConstant> constantCache;
+
+    public JDBCRowDecoder(ImmutableList<Variable> signature,
+                          ImmutableSortedSet<Variable> sqlSignature,
+                          ImmutableMap<Variable, DBTermType> sqlTypeMap,
+                          ImmutableSubstitution<ImmutableTerm> sparqlVar2Term,
+                          TermFactory termFactory,
+                          SubstitutionFactory substitutionFactory) {
+        this(signature, sqlSignature, sqlTypeMap, sparqlVar2Term, termFactory, substitutionFactory,
+                ResultValueCache.disabled());
+    }
+
+    /**
+     * The constant cache can be shared between row decoders (typically at the level of the query engine)
+     */
+    public JDBCRowDecoder(ImmutableList<Variable> signature,
+                          ImmutableSortedSet<Variable> sqlSignature,
+                          ImmutableMap<Variable, DBTermType> sqlTypeMap,
+                          ImmutableSubstitution<ImmutableTerm> sparqlVar2Term,
+                          TermFactory termFactory,
+                          SubstitutionFactory substitutionFactory,
+                          ResultValueCache<Object, RDFConstant> constantCache) {
+        this.constantCache = constantCache;
+        this.signature = signature;
+        this.sqlVariables = sqlSignature.asList();
+        this.sqlTypes = sqlVariables.stream()
+                .map(sqlTypeMap::get)
+                .collect(ImmutableCollectors.toList());
+        this.termFactory = termFactory;
+        this.substitutionFactory = substitutionFactory;
+        this.slots = signature.stream()
+                .map(v -> compile(sparqlVar2Term.apply(v)))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * Number of projected variables that could not be compiled (and are therefore evaluated generically).
+     */
+    public long getGenericSlotCount() {
+        return slots.stream()
+                .filter(s -> s instanceof GenericSlot)
+                .count();
+    }
+
+    public OntopBinding[] decode(ResultSet rs) throws SQLException {
+        String[] values = new String[sqlVariables.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = rs.getString(i + 1);
+
+        Row row = new Row(values);
+        List<OntopBinding> bindings = new ArrayList<>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            RDFConstant constant = slots.get(i).decode(row);
+            if (constant != null)
+                bindings.add(new OntopBindingImpl(signature.get(i), constant));
+        }
+        return bindings.toArray(new OntopBinding[0]);
+    }
+
+    /**
+     * Appends the current row to the batch (one value per column)
+     */
+    public void decode(ResultSet rs, ColumnarTupleResultBatch.Builder batchBuilder) throws SQLException {
+        String[] values = new String[sqlVariables.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = rs.getString(i + 1);
+
+        Row row = new Row(values);
+        for (int i = 0; i < slots.size(); i++)
+            slots.get(i).decodeInto(row, batchBuilder.getColumn(i));
+        batchBuilder.endRow();
+    }
+
+    private Slot compile(ImmutableTerm term) {
+        if (term instanceof Constant) {
+            Constant constant = (Constant) term;
+            if (constant instanceof RDFConstant)
+                return new ConstantSlot((RDFConstant) constant);
+            if (constant.isNull())
+                return new ConstantSlot(null);
+        }
+        else if (term instanceof ImmutableFunctionalTerm) {
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            if (functionalTerm.getFunctionSymbol() instanceof RDFTermFunctionSymbol) {
+                ImmutableTerm lexicalTerm = functionalTerm.getTerm(0);
+                ImmutableTerm typeTerm = functionalTerm.getTerm(1);
+                if (typeTerm instanceof RDFTermTypeConstant) {
+                    RDFTermType termType = ((RDFTermTypeConstant) typeTerm).getRDFTermType();
+                    if (!termType.isAbstract()) {
+                        Optional<Slot> slot = compileLexicalTerm(lexicalTerm, termType, term);
+                        if (slot.isPresent())
+                            return slot.get();
+                    }
+                }
+            }
+        }
+        return new GenericSlot(term);
+    }
+
+    private Optional<Slot> compileLexicalTerm(ImmutableTerm lexicalTerm, RDFTermType termType, ImmutableTerm term) {
+        int lexicalIndex = getColumnIndex(lexicalTerm);
+        if (lexicalIndex >= 0)
+            return Optional.of(new LexicalSlot(lexicalIndex, termType, term));
+
+        if (lexicalTerm instanceof ImmutableFunctionalTerm) {
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) lexicalTerm;
+            if (!(functionalTerm.getFunctionSymbol() instanceof IRIStringTemplateFunctionSymbol))
+                return Optional.empty();
+
+            ImmutableList<? extends ImmutableTerm> arguments = functionalTerm.getTerms();
+            int[] argumentIndexes = new int[arguments.size()];
+            for (int i = 0; i < argumentIndexes.length; i++) {
+                int index = getColumnIndex(arguments.get(i));
+                if (index < 0)
+                    return Optional.empty();
+                argumentIndexes[i] = index;
+            }
+            ImmutableList<Template.Component> components =
+                    ((IRIStringTemplateFunctionSymbol) functionalTerm.getFunctionSymbol()).getTemplateComponents();
+            return Optional.of(new IRITemplateSlot(components, argumentIndexes, termType, term));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Index of the column if the term is a native variable, possibly under a simple cast
+     * (which does not change the string representation, e.g. INTEGER to TEXT), -1 otherwise.
+     */
+    private int getColumnIndex(ImmutableTerm term) {
+        if (term instanceof Variable)
+            return sqlVariables.indexOf(term);
+        if (term instanceof ImmutableFunctionalTerm) {
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            FunctionSymbol functionSymbol = functionalTerm.getFunctionSymbol();
+            if ((functionSymbol instanceof DBTypeConversionFunctionSymbol)
+                    && ((DBTypeConversionFunctionSymbol) functionSymbol).isSimple()
+                    && functionSymbol.canBePostProcessed(functionalTerm.getTerms())
+                    && (functionalTerm.getTerm(0) instanceof Variable))
+                return sqlVariables.indexOf(functionalTerm.getTerm(0));
+        }
+        return -1;
+    }
+
+    @Nullable
+    private RDFConstant evaluate(ImmutableTerm term) {
+        ImmutableTerm simplifiedTerm = term.simplify();
+        if (simplifiedTerm instanceof Constant) {
+            if (simplifiedTerm instanceof RDFConstant) {
+                return (RDFConstant) simplifiedTerm;
+            }
+            Constant constant = (Constant) simplifiedTerm;
+            if (constant.isNull()) {
+                return null;
+            }
+            if (constant instanceof DBConstant) {
+                throw new SQLOntopBindingSet.InvalidConstantTypeInResultException(
+                        constant + "is a DB constant. But a binding cannot have a DB constant as value");
+            }
+            throw new SQLOntopBindingSet.InvalidConstantTypeInResultException("Unexpected constant type for " + constant);
+        }
+        throw new SQLOntopBindingSet.InvalidTermAsResultException(simplifiedTerm);
+    }
+
+
+    /**
+     * Values of the current row. The substitution used by the generic path is only built when needed.
+     */
+    private class Row {
+        private final String[] values;
+        @Nullable
+        private ImmutableSubstitution<Constant> substitution;
+
+        private Row(String[] values) {
+            this.values = values;
+        }
+
+        ImmutableSubstitution<Constant> getSubstitution() {
+            if (substitution == null) {
+                ImmutableMap.Builder<Variable, Constant> builder = ImmutableMap.builder();
+                for (int i = 0; i < values.length; i++) {
+                    builder.put(sqlVariables.get(i),
+                            values[i] == null
+                                    ? termFactory.getNullConstant()
+                                    : termFactory.getDBConstant(values[i], sqlTypes.get(i)));
+                }
+                substitution = substitutionFactory.getSubstitution(builder.build());
+            }
+            return substitution;
+        }
+    }
+
+    private interface Slot {
+        @Nullable
+        RDFConstant decode(Row row);
+
+        default void decodeInto(Row row, ColumnarTupleResultBatch.ColumnBuilder column) {
+            column.add(decode(row));
+        }
+    }
+
+    private static class ConstantSlot implements Slot {
+        @Nullable
+        private final RDFConstant constant;
+
+        private ConstantSlot(@Nullable RDFConstant constant) {
+            this.constant = constant;
+        }
+
+        @Override
+        public RDFConstant decode(Row row) {
+            return constant;
+        }
+    }
+
+    private class GenericSlot implements Slot {
+        private final ImmutableTerm term;
+
+        private GenericSlot(ImmutableTerm term) {
+            this.term = term;
+        }
+
+        @Override
+        public RDFConstant decode(Row row) {
+            return evaluate(row.getSubstitution().apply(term));
+        }
+    }
+
+    /**
+     * RDF(x, T)
+     */
+    private class LexicalSlot extends GenericSlot {
+        private final int index;
+        private final RDFTermType termType;
+
+        private LexicalSlot(int index, RDFTermType termType, ImmutableTerm term) {
+            super(term);
+            this.index = index;
+            this.termType = termType;
+        }
+
+        @Override
+        public RDFConstant decode(Row row) {
+            String value = row.values[index];
+            if (value == null)
+                return super.decode(row);
+            return constantCache.isEnabled()
+                    ? constantCache.get(new ConstantKey(termType, null, value),
+                        k -> termFactory.getRDFConstant(value, termType))
+                    : termFactory.getRDFConstant(value, termType);
+        }
+
+        /**
+         * The column value is the key
+         */
+        @Override
+        public void decodeInto(Row row, ColumnarTupleResultBatch.ColumnBuilder column) {
+            String value = row.values[index];
+            if (value == null)
+                column.add(super.decode(row));
+            else if (!column.addIfKnown(value))
+                column.add(value, decode(row));
+        }
+    }
+
+    /**
+     * RDF(IRI_TEMPLATE(x1, ..., xn), T)
+     */
+    private class IRITemplateSlot extends GenericSlot {
+        private final ImmutableList<Template.Component> components;
+        private final int[] argumentIndexes;
+        private final RDFTermType termType;
+
+        private IRITemplateSlot(ImmutableList<Template.Component> components, int[] argumentIndexes,
+                                RDFTermType termType, ImmutableTerm term) {
+            super(term);
+            this.components = components;
+            this.argumentIndexes = argumentIndexes;
+            this.termType = termType;
+        }
+
+        @Override
+        public RDFConstant decode(Row row) {
+            Object argumentKey = getArgumentKey(row);
+            if (argumentKey == null)
+                return super.decode(row);
+            return constantCache.isEnabled()
+                    ? constantCache.get(new ConstantKey(termType, components, argumentKey), k -> build(row))
+                    : build(row);
+        }
+
+        private RDFConstant build(Row row) {
+            StringBuilder sb = new StringBuilder();
+            for (Template.Component component : components) {
+                if (component.isColumnNameReference())
+                    sb.append(R2RMLIRISafeEncoder.encode(row.values[argumentIndexes[component.getIndex()]]));
+                else
+                    sb.append(component.getComponent());
+            }
+            return termFactory.getRDFConstant(sb.toString(), termType);
+        }
+
+        /**
+         * The argument values are the key: the IRI is only built (and its arguments encoded) for new values
+         */
+        @Override
+        public void decodeInto(Row row, ColumnarTupleResultBatch.ColumnBuilder column) {
+            Object argumentKey = getArgumentKey(row);
+            if (argumentKey == null)
+                column.add(super.decode(row));
+            else if (!column.addIfKnown(argumentKey))
+                column.add(argumentKey, decode(row));
+        }
+
+        /**
+         * Null if one argument is NULL
+         */
+        @Nullable
+        private Object getArgumentKey(Row row) {
+            if (argumentIndexes.length == 1)
+                return row.values[argumentIndexes[0]];
+
+            String[] arguments = new String[argumentIndexes.length];
+            for (int i = 0; i < arguments.length; i++) {
+                String value = row.values[argumentIndexes[i]];
+                if (value == null)
+                    return null;
+                arguments[i] = value;
+            }
+            return Arrays.asList(arguments);
+        }
+    }
+
+    /**
+     * Key of the RDF constant cache: lexical value or template arguments (+ template) and term type
+     */
+    private static class ConstantKey {
+        private final RDFTermType termType;
+        @Nullable
+        private final ImmutableList<Template.Component> templateComponents;
+        private final Object value;
+        private final int hashCode;
+
+        private ConstantKey(RDFTermType termType, @Nullable ImmutableList<Template.Component> templateComponents,
+                            Object value) {
+            this.termType = termType;
+            this.templateComponents = templateComponents;
+            this.value = value;
+            this.hashCode = Objects.hash(termType, templateComponents, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ConstantKey)) return false;
+            ConstantKey other = (ConstantKey) o;
+            return hashCode == other.hashCode
+                    && value.equals(other.value)
+                    && termType.equals(other.termType)
+                    && Objects.equals(templateComponents, other.templateComponents);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
+
 
 public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReformulationSQLSettings,
         OntopSQLCredentialSettings {
@@ -16,6 +18,54 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
 
     int getFetchSize();
 
+    /**
+     * Maximum number of prepared statements kept per connection (0 if disabled)
+     */
+    int getPreparedStatementCacheSize();
+
+    //--------------------------
+    // Post-processing
+    //--------------------------
+
+    /**
+     * Maximum size (in bytes) of the rows kept in memory by the DISTINCT post-processing
+     * (see DISTINCT_RESULTSET). Beyond it, they are spilled to disk.
+     *
+     * The rows kept in memory are compared exactly. The spilled rows are compared through 128-bit fingerprints,
+     * so the DISTINCT is then probabilistic: two distinct rows with the same fingerprint would be merged
+     * (negligible but non-zero probability).
+     */
+    long getDistinctResultSetMemoryBudget();
+
+    /**
+     * Directory of the spilled rows (by default, the temporary directory of the JVM)
+     */
+    Optional<String> getDistinctResultSetSpillDirectory();
+
+    //--------------------------
+    // Query planning
+    //--------------------------
+
+    /**
+     * Delay (in seconds) after which the statistics of a relation are collected again
+     */
+    long getPlannerStatisticsRefreshInterval();
+
+    /**
+     * If true, the statistics are taken from the catalog of the DB when available, instead of scanning the relations
+     */
+    boolean isPlannerStatisticsCatalogEnabled();
+
+    /**
+     * Maximum number of rows of a relation scanned for counting the distinct values of its attributes
+     */
+    int getPlannerStatisticsSampleSize();
+
+    /**
+     * Timeout (in seconds) of the queries collecting the statistics of a relation (0 for no timeout)
+     */
+    int getPlannerStatisticsQueryTimeout();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -31,4 +81,17 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
      * If <= 0, the fetch size is ignored
      */
     String FETCH_SIZE = "jdbc.fetchSize";
+
+    /*
+     * If <= 0, the SQL queries are not prepared
+     */
+    String PREPARED_STATEMENT_CACHE_SIZE = "jdbc.preparedStatementCache.size";
+
+    String DISTINCT_RESULTSET_MEMORY_BUDGET = "ontop.distinctResultSet.memoryBudget";
+    String DISTINCT_RESULTSET_SPILL_DIRECTORY = "ontop.distinctResultSet.spillDirectory";
+
+    String PLANNER_STATISTICS_REFRESH_INTERVAL = "ontop.planner.statistics.refreshInterval";
+    String PLANNER_STATISTICS_USE_CATALOG = "ontop.planner.statistics.useCatalog";
+    String PLANNER_STATISTICS_SAMPLE_SIZE = "ontop.planner.statistics.sampleSize";
+    String PLANNER_STATISTICS_QUERY_TIMEOUT = "ontop.planner.statistics.queryTimeout";
 }
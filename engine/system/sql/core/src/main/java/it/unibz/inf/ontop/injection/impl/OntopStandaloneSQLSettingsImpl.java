@@ -33,6 +33,11 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return getRequiredBoolean(DISTINCT_RESULTSET);
     }
 
+    @Override
+    public boolean areConstantsBoundAsParameters() {
+        return systemSettings.areConstantsBoundAsParameters();
+    }
+
     @Override
     public boolean isPostProcessingAvoided() {
         return systemSettings.isPostProcessingAvoided();
@@ -48,6 +53,36 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return getRequiredBoolean(QUERY_LOGGING);
     }
 
+    @Override
+    public int getQueryLoggingBufferSize() {
+        return systemSettings.getQueryLoggingBufferSize();
+    }
+
+    @Override
+    public QueryLoggingSink getQueryLoggingSink() {
+        return systemSettings.getQueryLoggingSink();
+    }
+
+    @Override
+    public Optional<String> getQueryLoggingFile() {
+        return systemSettings.getQueryLoggingFile();
+    }
+
+    @Override
+    public long getQueryLoggingFileMaxSize() {
+        return systemSettings.getQueryLoggingFileMaxSize();
+    }
+
+    @Override
+    public int getQueryLoggingFileMaxCount() {
+        return systemSettings.getQueryLoggingFileMaxCount();
+    }
+
+    @Override
+    public Optional<Integer> getQueryLoggingSocketPort() {
+        return systemSettings.getQueryLoggingSocketPort();
+    }
+
     @Override
     public boolean isQueryTemplateExtractionEnabled() {
         return systemSettings.isQueryTemplateExtractionEnabled();
@@ -88,11 +123,26 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return getRequiredBoolean(INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE);
     }
 
+    @Override
+    public int getDescribeChunkSize() {
+        return getRequiredInteger(DESCRIBE_CHUNK_SIZE);
+    }
+
     @Override
     public long getQueryCacheMaxSize() {
         return getRequiredLong(QUERY_CACHE_MAX_SIZE);
     }
 
+    @Override
+    public boolean isParameterizedQueryCacheEnabled() {
+        return getRequiredBoolean(PARAMETERIZED_QUERY_CACHE);
+    }
+
+    @Override
+    public long getUnfoldingFragmentCacheMaxSize() {
+        return getRequiredLong(UNFOLDING_FRAGMENT_CACHE_MAX_SIZE);
+    }
+
     @Override
     public String getApplicationName() {
         return getRequiredProperty(APPLICATION_NAME);
@@ -133,6 +183,31 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.getFetchSize();
     }
 
+    @Override
+    public int getPreparedStatementCacheSize() {
+        return systemSettings.getPreparedStatementCacheSize();
+    }
+
+    @Override
+    public long getDistinctResultSetMemoryBudget() {
+        return systemSettings.getDistinctResultSetMemoryBudget();
+    }
+
+    @Override
+    public Optional<String> getDistinctResultSetSpillDirectory() {
+        return systemSettings.getDistinctResultSetSpillDirectory();
+    }
+
+    @Override
+    public long getPlannerStatisticsRefreshInterval() {
+        return systemSettings.getPlannerStatisticsRefreshInterval();
+    }
+
+    @Override
+    public boolean isPlannerStatisticsCatalogEnabled() {
+        return systemSettings.isPlannerStatisticsCatalogEnabled();
+    }
+
     @Override
     public Optional<Integer> getDefaultQueryTimeout() {
         return getInteger(DEFAULT_QUERY_TIMEOUT);
@@ -143,6 +218,26 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.isPermanentDBConnectionEnabled();
     }
 
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return systemSettings.getQueryExecutionMode();
+    }
+
+    @Override
+    public int getQueryExecutionPoolSize() {
+        return systemSettings.getQueryExecutionPoolSize();
+    }
+
+    @Override
+    public long getQueryExecutionQueueTimeout() {
+        return systemSettings.getQueryExecutionQueueTimeout();
+    }
+
+    @Override
+    public int getResultValueCacheSize() {
+        return systemSettings.getResultValueCacheSize();
+    }
+
     @Override
     public Optional<String> getHttpCacheControl() {
         return systemSettings.getHttpCacheControl();
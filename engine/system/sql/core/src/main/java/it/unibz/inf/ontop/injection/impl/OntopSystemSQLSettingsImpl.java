@@ -84,6 +84,41 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return getRequiredInteger(FETCH_SIZE);
     }
 
+    @Override
+    public int getPreparedStatementCacheSize() {
+        return getRequiredInteger(PREPARED_STATEMENT_CACHE_SIZE);
+    }
+
+    @Override
+    public long getDistinctResultSetMemoryBudget() {
+        return getRequiredLong(DISTINCT_RESULTSET_MEMORY_BUDGET);
+    }
+
+    @Override
+    public Optional<String> getDistinctResultSetSpillDirectory() {
+        return getProperty(DISTINCT_RESULTSET_SPILL_DIRECTORY);
+    }
+
+    @Override
+    public long getPlannerStatisticsRefreshInterval() {
+        return getRequiredLong(PLANNER_STATISTICS_REFRESH_INTERVAL);
+    }
+
+    @Override
+    public boolean isPlannerStatisticsCatalogEnabled() {
+        return getRequiredBoolean(PLANNER_STATISTICS_USE_CATALOG);
+    }
+
+    @Override
+    public int getPlannerStatisticsSampleSize() {
+        return getRequiredInteger(PLANNER_STATISTICS_SAMPLE_SIZE);
+    }
+
+    @Override
+    public int getPlannerStatisticsQueryTimeout() {
+        return getRequiredInteger(PLANNER_STATISTICS_QUERY_TIMEOUT);
+    }
+
     @Override
     public Optional<Integer> getDefaultQueryTimeout() {
         return getInteger(DEFAULT_QUERY_TIMEOUT);
@@ -94,6 +129,26 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return systemSettings.isPermanentDBConnectionEnabled();
     }
 
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return systemSettings.getQueryExecutionMode();
+    }
+
+    @Override
+    public int getQueryExecutionPoolSize() {
+        return systemSettings.getQueryExecutionPoolSize();
+    }
+
+    @Override
+    public long getQueryExecutionQueueTimeout() {
+        return systemSettings.getQueryExecutionQueueTimeout();
+    }
+
+    @Override
+    public int getResultValueCacheSize() {
+        return systemSettings.getResultValueCacheSize();
+    }
+
     @Override
     public Optional<String> getHttpCacheControl() {
         return systemSettings.getHttpCacheControl();
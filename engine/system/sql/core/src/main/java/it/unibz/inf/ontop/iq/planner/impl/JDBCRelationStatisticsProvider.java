@@ -0,0 +1,168 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import it.unibz.inf.ontop.iq.planner.RelationStatisticsProvider;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the statistics of the relations from the DB (see DBMetadataProvider.getRelationStatistics),
+ * the first time they are requested, and then after each refresh interval.
+ *
+ * The statistics are collected in the background: until they are available, the relation has no statistics
+ * (and the previous ones are kept while they are being refreshed).
+ * The relations requested in the meantime are collected in one batch, on one connection.
+ *
+ * The background thread is stopped when the query engine is closed (see close()),
+ * and started again if statistics are requested afterwards.
+ */
+@Singleton
+public class JDBCRelationStatisticsProvider implements RelationStatisticsProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JDBCRelationStatisticsProvider.class);
+
+    private final OntopSystemSQLSettings settings;
+    private final JDBCMetadataProviderFactory metadataProviderFactory;
+    private final long refreshInterval;
+    private final Map<RelationID, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<NamedRelationDefinition> pendingRelations = new ConcurrentLinkedQueue<>();
+
+    // Guarded by this. Null if not started or closed
+    @Nullable
+    private ExecutorService executor;
+    // Guarded by this
+    private boolean isBatchScheduled;
+
+    @Inject
+    private JDBCRelationStatisticsProvider(OntopSystemSQLSettings settings,
+                                           JDBCMetadataProviderFactory metadataProviderFactory) {
+        this.settings = settings;
+        this.metadataProviderFactory = metadataProviderFactory;
+        this.refreshInterval = TimeUnit.SECONDS.toNanos(settings.getPlannerStatisticsRefreshInterval());
+    }
+
+    @Override
+    public Optional<RelationStatistics> getStatistics(RelationDefinition relation) {
+        if (!(relation instanceof NamedRelationDefinition))
+            return Optional.empty();
+
+        NamedRelationDefinition namedRelation = (NamedRelationDefinition) relation;
+        Entry entry = entries.computeIfAbsent(namedRelation.getID(), id -> new Entry());
+        if (entry.isOutdated() && entry.isLoading.compareAndSet(false, true)) {
+            pendingRelations.add(namedRelation);
+            scheduleBatch();
+        }
+
+        return Optional.ofNullable(entry.statistics);
+    }
+
+    /**
+     * Stops the background thread. The relations waiting for their statistics will be requested again.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        isBatchScheduled = false;
+        for (NamedRelationDefinition relation; (relation = pendingRelations.poll()) != null; )
+            entries.get(relation.getID()).isLoading.set(false);
+    }
+
+    private synchronized void scheduleBatch() {
+        if (isBatchScheduled)
+            return;
+
+        if (executor == null)
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "ontop-relation-statistics");
+                thread.setDaemon(true);
+                return thread;
+            });
+        isBatchScheduled = true;
+        executor.execute(this::loadBatch);
+    }
+
+    /**
+     * Collects the statistics of the pending relations, including the ones added in the meantime
+     */
+    private void loadBatch() {
+        try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings)) {
+            DBMetadataProvider metadataProvider = metadataProviderFactory.getMetadataProvider(connection);
+            for (NamedRelationDefinition relation; (relation = pendingRelations.poll()) != null; )
+                load(relation, metadataProvider);
+        }
+        catch (SQLException | MetadataExtractionException | RuntimeException e) {
+            // Not retried before the next refresh
+            LOGGER.warn("Cannot collect the statistics of the relations: {}", e.getMessage());
+            for (NamedRelationDefinition relation; (relation = pendingRelations.poll()) != null; )
+                entries.get(relation.getID()).setLoaded(null);
+        }
+        finally {
+            synchronized (this) {
+                isBatchScheduled = false;
+                // Relations added after the last poll
+                if (executor != null && !pendingRelations.isEmpty())
+                    scheduleBatch();
+            }
+        }
+    }
+
+    private void load(NamedRelationDefinition relation, DBMetadataProvider metadataProvider) {
+        Entry entry = entries.get(relation.getID());
+        try {
+            RelationStatistics statistics = metadataProvider.getRelationStatistics(relation,
+                    settings.isPlannerStatisticsCatalogEnabled(), settings.getPlannerStatisticsSampleSize(),
+                    settings.getPlannerStatisticsQueryTimeout());
+            LOGGER.debug("Statistics of {}: {}", relation.getID(), statistics);
+            entry.setLoaded(statistics);
+        }
+        catch (MetadataExtractionException | RuntimeException e) {
+            // Not retried before the next refresh
+            LOGGER.warn("Cannot collect the statistics of {}: {}", relation.getID(), e.getMessage());
+            entry.setLoaded(null);
+        }
+    }
+
+    private class Entry {
+        private final AtomicBoolean isLoading = new AtomicBoolean(false);
+        private volatile boolean isLoaded;
+        private volatile long loadTime;
+        private volatile RelationStatistics statistics;
+
+        private boolean isOutdated() {
+            return !isLoaded || System.nanoTime() - loadTime > refreshInterval;
+        }
+
+        /**
+         * The previous statistics are kept if statistics is null
+         */
+        private void setLoaded(@Nullable RelationStatistics statistics) {
+            if (statistics != null)
+                this.statistics = statistics;
+            loadTime = System.nanoTime();
+            isLoaded = true;
+            isLoading.set(false);
+        }
+    }
+}
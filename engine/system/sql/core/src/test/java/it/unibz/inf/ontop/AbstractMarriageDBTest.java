@@ -0,0 +1,73 @@
+package it.unibz.inf.ontop;
+
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * In-memory H2 database of the marriage example (src/test/resources/marriage), created before the tests
+ * of a class and dropped after them, with its mapping.
+ */
+public abstract class AbstractMarriageDBTest {
+
+    protected static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    protected static final String JDBC_URL = "jdbc:h2:mem:marriage";
+    protected static final String JDBC_USER = "sa";
+    protected static final String JDBC_PASSWORD = "";
+
+    protected static final String PREFIX = "PREFIX : <http://example.org/marriage/voc#>\n";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    protected static Connection CONN;
+
+    @BeforeClass
+    public static void createMarriageDB() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        try (Statement st = CONN.createStatement()) {
+            String s = Files.lines(Paths.get(CREATE_DB_FILE)).collect(joining());
+            st.executeUpdate(s);
+            CONN.commit();
+        }
+    }
+
+    /**
+     * The DB is dropped explicitly, as the query engines of the tests may still hold connections to it
+     */
+    @AfterClass
+    public static void dropMarriageDB() throws Exception {
+        try (Statement st = CONN.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        finally {
+            CONN.close();
+        }
+    }
+
+    protected static OntopStandaloneSQLConfiguration.Builder<? extends OntopStandaloneSQLConfiguration.Builder<?>> createConfigurationBuilder() {
+        return OntopStandaloneSQLConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .enableTestMode();
+    }
+
+    protected static OntopStandaloneSQLConfiguration createConfiguration(Properties properties) {
+        return createConfigurationBuilder()
+                .properties(properties)
+                .build();
+    }
+}
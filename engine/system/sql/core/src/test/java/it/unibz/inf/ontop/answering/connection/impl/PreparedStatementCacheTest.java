@@ -0,0 +1,191 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.JDBCStatementInitializer;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.NativeNode;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class PreparedStatementCacheTest extends AbstractMarriageDBTest {
+
+    private static final String QUERY_1 = "SELECT \"id\" FROM \"person\" WHERE \"id\" = 1";
+    private static final String QUERY_2 = "SELECT \"id\" FROM \"person\" WHERE \"id\" = 2";
+    private static final String QUERY_3 = "SELECT \"id\" FROM \"person\" WHERE \"id\" = 3";
+    private static final String PARAMETERIZED_QUERY = "SELECT \"id\" FROM \"person\" WHERE \"id\" = ?";
+
+    private static OntopStandaloneSQLConfiguration CONFIGURATION;
+
+    @BeforeClass
+    public static void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSQLSettings.PREPARED_STATEMENT_CACHE_SIZE, "2");
+        CONFIGURATION = createConfiguration(properties);
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        try (PreparedStatementCache cache = createCache()) {
+            PreparedStatement statement = cache.acquire(QUERY_1);
+            assertEquals(1, executeAndGetId(statement));
+            cache.release(QUERY_1, statement, null);
+
+            PreparedStatement secondStatement = cache.acquire(QUERY_1);
+            assertSame(statement, secondStatement);
+            assertEquals(1, executeAndGetId(secondStatement));
+            cache.release(QUERY_1, secondStatement, null);
+        }
+    }
+
+    @Test
+    public void testReuseWithOtherParameters() throws Exception {
+        try (PreparedStatementCache cache = createCache()) {
+            PreparedStatement statement = cache.acquire(PARAMETERIZED_QUERY);
+            statement.setInt(1, 1);
+            assertEquals(1, executeAndGetId(statement));
+            cache.release(PARAMETERIZED_QUERY, statement, null);
+
+            PreparedStatement secondStatement = cache.acquire(PARAMETERIZED_QUERY);
+            assertSame(statement, secondStatement);
+            secondStatement.setInt(1, 2);
+            assertEquals(2, executeAndGetId(secondStatement));
+            cache.release(PARAMETERIZED_QUERY, secondStatement, null);
+        }
+    }
+
+    @Test
+    public void testReleaseClosesResultSet() throws Exception {
+        try (PreparedStatementCache cache = createCache()) {
+            PreparedStatement statement = cache.acquire(PARAMETERIZED_QUERY);
+            statement.setInt(1, 1);
+            ResultSet resultSet = statement.executeQuery();
+            cache.release(PARAMETERIZED_QUERY, statement, resultSet);
+
+            assertTrue(resultSet.isClosed());
+            assertFalse(statement.isClosed());
+            assertSame(statement, cache.acquire(PARAMETERIZED_QUERY));
+        }
+    }
+
+    @Test
+    public void testLentStatementIsNotShared() throws Exception {
+        try (PreparedStatementCache cache = createCache()) {
+            PreparedStatement statement = cache.acquire(QUERY_1);
+            PreparedStatement otherStatement = cache.acquire(QUERY_1);
+            assertNotSame(statement, otherStatement);
+
+            cache.release(QUERY_1, statement, null);
+            cache.release(QUERY_1, otherStatement, null);
+            // Only one statement is kept per query
+            assertTrue(statement.isClosed());
+            assertFalse(otherStatement.isClosed());
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        try (PreparedStatementCache cache = createCache()) {
+            PreparedStatement statement1 = cache.acquire(QUERY_1);
+            cache.release(QUERY_1, statement1, null);
+            PreparedStatement statement2 = cache.acquire(QUERY_2);
+            cache.release(QUERY_2, statement2, null);
+
+            // Query 1 becomes the most recently used one
+            cache.release(QUERY_1, cache.acquire(QUERY_1), null);
+
+            PreparedStatement statement3 = cache.acquire(QUERY_3);
+            cache.release(QUERY_3, statement3, null);
+
+            assertFalse(statement1.isClosed());
+            assertTrue(statement2.isClosed());
+            assertFalse(statement3.isClosed());
+        }
+    }
+
+    @Test
+    public void testQueryEngine() throws Exception {
+        String query = PREFIX + "SELECT ?n WHERE { ?p :firstName ?n }";
+
+        try (OntopQueryEngine queryEngine = CONFIGURATION.loadQueryEngine()) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection()) {
+                for (int i = 0; i < 3; i++) {
+                    try (OntopStatement statement = connection.createStatement()) {
+                        TupleResultSet resultSet = statement.execute(
+                                connection.getInputQueryFactory().createSelectQuery(query));
+
+                        ImmutableSet.Builder<String> answerBuilder = ImmutableSet.builder();
+                        while (resultSet.hasNext())
+                            answerBuilder.add(resultSet.next().getBinding("n").getValue().getValue());
+                        assertEquals(ImmutableSet.of("Mary", "John", "Bob"), answerBuilder.build());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The constants of the SPARQL queries are bound as parameters of the same prepared statement
+     */
+    @Test
+    public void testQueryEngineWithParameters() throws Exception {
+        ImmutableMap<String, String> expectedFirstNames = ImmutableMap.of(
+                "1", "Mary",
+                "2", "John",
+                "3", "Bob");
+
+        try (OntopQueryEngine queryEngine = CONFIGURATION.loadQueryEngine()) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection()) {
+                for (Map.Entry<String, String> entry : expectedFirstNames.entrySet()) {
+                    try (OntopStatement statement = connection.createStatement()) {
+                        SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PREFIX
+                                + "SELECT ?n WHERE { <http://example.com/person/" + entry.getKey() + "> :firstName ?n }");
+
+                        NativeNode nativeNode = (NativeNode) ((UnaryIQTree) statement.getExecutableQuery(query)
+                                .getTree()).getChild();
+                        assertTrue(nativeNode.getNativeQueryString().contains("?"));
+                        assertEquals(1, nativeNode.getParameters().size());
+                        assertEquals(entry.getKey(), nativeNode.getParameters().get(0).getValue());
+
+                        TupleResultSet resultSet = statement.execute(query);
+                        ImmutableSet.Builder<String> answerBuilder = ImmutableSet.builder();
+                        while (resultSet.hasNext())
+                            answerBuilder.add(resultSet.next().getBinding("n").getValue().getValue());
+                        assertEquals(ImmutableSet.of(entry.getValue()), answerBuilder.build());
+                    }
+                }
+            }
+        }
+    }
+
+    private static PreparedStatementCache createCache() {
+        return new PreparedStatementCache(CONN, CONFIGURATION.getInjector().getInstance(JDBCStatementInitializer.class),
+                2);
+    }
+
+    private static int executeAndGetId(PreparedStatement statement) throws Exception {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            assertTrue(resultSet.next());
+            return resultSet.getInt(1);
+        }
+    }
+}
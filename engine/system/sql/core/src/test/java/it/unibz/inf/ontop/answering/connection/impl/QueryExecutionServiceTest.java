@@ -0,0 +1,97 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableMultimap;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService.ExecutionSlot;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopReformulationInterruptedException;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class QueryExecutionServiceTest extends AbstractMarriageDBTest {
+
+    private static final String PERSON_QUERY_STRING = PREFIX + "SELECT ?x WHERE { ?x a :Person . }";
+
+    private static OntopStandaloneSQLConfiguration CONFIGURATION;
+
+    @BeforeClass
+    public static void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSettings.QUERY_EXECUTION_MODE, "POOL");
+        properties.setProperty(OntopSystemSettings.QUERY_EXECUTION_POOL_SIZE, "1");
+        CONFIGURATION = createConfiguration(properties);
+    }
+
+    /**
+     * The only slot is taken: the second evaluation waits until it is cancelled.
+     */
+    @Test(timeout = 10000)
+    public void testCancelWhileWaitingForSlot() throws Exception {
+        QueryExecutionService executionService = CONFIGURATION.getInjector().getInstance(QueryExecutionService.class);
+
+        long completedQueryCount = executionService.getCompletedQueryCount();
+        Optional<ExecutionSlot> firstSlot = executionService.acquireSlot(() -> false, 0);
+        assertTrue(firstSlot.isPresent());
+        assertEquals(1, executionService.getActiveQueryCount());
+
+        AtomicBoolean canceled = new AtomicBoolean(false);
+        Thread canceler = new Thread(() -> {
+            while (executionService.getQueuedQueryCount() == 0)
+                Thread.yield();
+            canceled.set(true);
+        });
+        canceler.start();
+
+        assertFalse(executionService.acquireSlot(canceled::get, 0).isPresent());
+        canceler.join();
+        assertEquals(0, executionService.getQueuedQueryCount());
+
+        firstSlot.get().close();
+        assertEquals(0, executionService.getActiveQueryCount());
+        assertEquals(completedQueryCount + 1, executionService.getCompletedQueryCount());
+
+        try (ExecutionSlot slot = executionService.acquireSlot(() -> false, 0).get()) {
+            assertEquals(1, executionService.getActiveQueryCount());
+        }
+    }
+
+    /**
+     * The only slot is never released: the second evaluation gives up after its timeout instead of hanging.
+     */
+    @Test(timeout = 10000)
+    public void testTimeoutWhileWaitingForSlot() throws Exception {
+        QueryExecutionService executionService = CONFIGURATION.getInjector().getInstance(QueryExecutionService.class);
+
+        try (ExecutionSlot slot = executionService.acquireSlot(() -> false, 0).get()) {
+            try {
+                executionService.acquireSlot(() -> false, 200);
+                fail("The wait for a slot should have timed out");
+            } catch (OntopConnectionException e) {
+                assertEquals(0, executionService.getQueuedQueryCount());
+            }
+        }
+    }
+
+    /**
+     * The cancellation flag is checked by the reformulation itself (no thread interruption)
+     */
+    @Test(expected = OntopReformulationInterruptedException.class)
+    public void testCancelledReformulation() throws Exception {
+        QueryReformulator reformulator = CONFIGURATION.loadQueryReformulator();
+        SelectQuery query = reformulator.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+        reformulator.reformulateIntoNativeQuery(query, reformulator.getQueryLoggerFactory().create(ImmutableMultimap.of()),
+                () -> true);
+    }
+}
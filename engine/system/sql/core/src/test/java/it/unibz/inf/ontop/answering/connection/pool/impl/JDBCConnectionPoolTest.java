@@ -0,0 +1,141 @@
+package it.unibz.inf.ontop.answering.connection.pool.impl;
+
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPool;
+import it.unibz.inf.ontop.answering.connection.pool.JDBCConnectionPoolMetrics;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class JDBCConnectionPoolTest extends AbstractMarriageDBTest {
+
+    @Test
+    public void testTomcatWaitQueue() throws Exception {
+        checkWaitQueue(TomcatConnectionPool.class);
+    }
+
+    @Test
+    public void testHikariWaitQueue() throws Exception {
+        checkWaitQueue(HikariConnectionPool.class);
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        try (JDBCConnectionPool pool = createPool(TomcatConnectionPool.class, 2)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    futures.add(executor.submit(() -> {
+                        try (Connection connection = pool.getConnection()) {
+                            connection.createStatement().execute("SELECT 1");
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures)
+                    future.get();
+            }
+            finally {
+                executor.shutdown();
+            }
+
+            JDBCConnectionPoolMetrics metrics = pool.getMetrics().get();
+            assertEquals(100, metrics.getAcquisitionCount());
+            assertEquals(0, metrics.getTimeoutCount());
+            assertEquals(0, metrics.getActiveConnections());
+            assertEquals(100L, (long) metrics.getWaitTimeHistogram().values().stream().mapToLong(v -> v).sum());
+        }
+    }
+
+    /**
+     * The wait for a connection of the query engine is bounded by the default query timeout
+     */
+    @Test
+    public void testDefaultQueryTimeout() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSQLSettings.MAX_POOL_SIZE, "1");
+        properties.setProperty(OntopSystemSQLSettings.INIT_POOL_SIZE, "1");
+        properties.setProperty(OntopSystemSQLSettings.DEFAULT_QUERY_TIMEOUT, "1");
+
+        try (OntopQueryEngine queryEngine = createConfiguration(properties).loadQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection()) {
+                long start = System.currentTimeMillis();
+                try {
+                    queryEngine.getConnection();
+                    fail("The pool should have been exhausted");
+                }
+                catch (OntopConnectionException expected) {
+                    assertTrue(expected.getCause() instanceof SQLTransientConnectionException);
+                }
+                long waitTime = System.currentTimeMillis() - start;
+                // instead of the connection timeout (30 s)
+                assertTrue(waitTime >= 900 && waitTime < 10000);
+            }
+        }
+    }
+
+    private static void checkWaitQueue(Class<? extends JDBCConnectionPool> poolClass) throws Exception {
+        try (JDBCConnectionPool pool = createPool(poolClass, 2)) {
+            Connection c1 = pool.getConnection();
+            Connection c2 = pool.getConnection();
+
+            long start = System.currentTimeMillis();
+            try {
+                pool.getConnection(300);
+                fail("The pool should have been exhausted");
+            }
+            catch (SQLTransientConnectionException expected) {
+            }
+            assertTrue(System.currentTimeMillis() - start >= 250);
+
+            JDBCConnectionPoolMetrics metrics = pool.getMetrics().get();
+            assertEquals(2, metrics.getActiveConnections());
+            assertEquals(2, metrics.getAcquisitionCount());
+            assertEquals(1, metrics.getTimeoutCount());
+
+            // the waiting request gets the connection as soon as it is released
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<Connection> waiting = executor.submit(() -> pool.getConnection(10000));
+                Thread.sleep(100);
+                assertFalse(waiting.isDone());
+                c1.close();
+                c1.close(); // no effect
+                Connection c3 = waiting.get(5, TimeUnit.SECONDS);
+                assertFalse(c3.isClosed());
+                c3.close();
+            }
+            finally {
+                executor.shutdown();
+            }
+            c2.close();
+
+            // both permits are back
+            try (Connection c4 = pool.getConnection(100); Connection c5 = pool.getConnection(100)) {
+                assertNotSame(c4, c5);
+            }
+        }
+    }
+
+    private static JDBCConnectionPool createPool(Class<? extends JDBCConnectionPool> poolClass, int maxSize) {
+        Properties properties = new Properties();
+        properties.setProperty(JDBCConnectionPool.class.getCanonicalName(), poolClass.getCanonicalName());
+        properties.setProperty(OntopSystemSQLSettings.MAX_POOL_SIZE, String.valueOf(maxSize));
+        properties.setProperty(OntopSystemSQLSettings.INIT_POOL_SIZE, "1");
+
+        return createConfiguration(properties).getInjector().getInstance(JDBCConnectionPool.class);
+    }
+}
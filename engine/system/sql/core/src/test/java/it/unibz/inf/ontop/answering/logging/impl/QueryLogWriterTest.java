@@ -0,0 +1,132 @@
+package it.unibz.inf.ontop.answering.logging.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.logging.QueryLogSink;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueryLogWriterTest extends AbstractMarriageDBTest {
+
+    private static final String QUERY = PREFIX + "SELECT ?p ?n WHERE { ?p :firstName ?n }";
+
+    @Test
+    public void testRingBuffer() {
+        QueryLogRingBuffer<Integer> buffer = new QueryLogRingBuffer<>(3);
+        assertEquals(4, buffer.getCapacity());
+        for (int i = 0; i < 4; i++)
+            assertTrue(buffer.offer(i));
+        assertFalse(buffer.offer(4));
+
+        List<Integer> elements = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(elements, 3));
+        assertTrue(buffer.offer(5));
+        assertEquals(2, buffer.drainTo(elements, 10));
+        assertEquals(ImmutableList.of(0, 1, 2, 3, 5), elements);
+        assertEquals(0, buffer.drainTo(elements, 10));
+    }
+
+    /**
+     * The background thread blocks while idle, and a new one is started after the writer has been closed
+     */
+    @Test
+    public void testRestartAfterClose() throws Exception {
+        List<String> messages = new ArrayList<>();
+        QueryLogSink sink = new QueryLogSink() {
+            @Override
+            public synchronized void write(List<String> batch) {
+                messages.addAll(batch);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING, "true");
+        OntopReformulationSettings settings = createConfiguration(properties).getSettings();
+
+        QueryLogWriter writer = new QueryLogWriter(() -> sink, settings);
+        assertTrue(writer.submit(js -> js.writeString("first")));
+        writer.flush(10, TimeUnit.SECONDS);
+        assertTrue(writer.isRunning());
+        // Idle: waiting for new events
+        Thread.sleep(50);
+        assertEquals(1, writer.getWrittenCount());
+
+        writer.close();
+        assertFalse(writer.isRunning());
+
+        assertTrue(writer.submit(js -> js.writeString("second")));
+        writer.flush(10, TimeUnit.SECONDS);
+        assertTrue(writer.isRunning());
+        writer.close();
+
+        assertEquals(ImmutableList.of("\"first\"", "\"second\""), messages);
+    }
+
+    @Test
+    public void testRollingFile() throws Exception {
+        Path directory = Files.createTempDirectory("query-log");
+        Path file = directory.resolve("queries.log");
+
+        try (RollingFileQueryLogSink sink = new RollingFileQueryLogSink(file, 10, 2)) {
+            for (int i = 0; i < 4; i++)
+                sink.write(ImmutableList.of("{\"message\":" + i + "}"));
+        }
+
+        assertFalse(Files.exists(file));
+        assertEquals(ImmutableList.of("{\"message\":3}"), Files.readAllLines(directory.resolve("queries.log.1")));
+        assertEquals(ImmutableList.of("{\"message\":2}"), Files.readAllLines(directory.resolve("queries.log.2")));
+        assertFalse(Files.exists(directory.resolve("queries.log.3")));
+    }
+
+    @Test
+    public void testFileSink() throws Exception {
+        Path file = Files.createTempDirectory("query-log").resolve("queries.log");
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING, "true");
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING_SINK, "file");
+        properties.setProperty(OntopReformulationSettings.QUERY_LOGGING_FILE, file.toString());
+
+        OntopStandaloneSQLConfiguration configuration = createConfiguration(properties);
+
+        try (OntopQueryEngine queryEngine = configuration.loadQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(QUERY));
+                while (resultSet.hasNext())
+                    resultSet.next();
+                resultSet.close();
+            }
+        }
+
+        // Stopped by the query engine, after having written the remaining events
+        QueryLogWriter writer = configuration.getInjector().getInstance(QueryLogWriter.class);
+        assertFalse(writer.isRunning());
+        assertTrue(writer.getSubmittedCount() > 0);
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(writer.getSubmittedCount(), writer.getWrittenCount());
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(writer.getWrittenCount(), lines.size());
+        assertTrue(lines.stream().allMatch(l -> l.startsWith("{") && l.contains("\"queryId\"")));
+    }
+}
@@ -0,0 +1,255 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.logging.QueryLogger;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OBDASpecificationException;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.spec.ontology.InconsistentOntologyException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the executable queries obtained with the parameterized query cache with the ones obtained without it
+ * (the constants being bound as parameters in both cases).
+ *
+ * The executable query of a shape is learnt from the first two queries having this shape and checked against
+ * the third one: only the next ones are expected to hit the cache.
+ */
+public class ParameterizedQueryCacheTest extends AbstractMarriageDBTest {
+
+    private static final String PERSON_PREFIX = "http://example.com/person/";
+
+    private static OBDASpecification SPECIFICATION;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        SPECIFICATION = createConfigurationBuilder()
+                .build()
+                .loadSpecification();
+    }
+
+    @Test
+    public void testSubjectIRI() throws OBDASpecificationException, OntopReformulationException {
+        checkReformulations("SELECT ?n WHERE { <" + PERSON_PREFIX + "%s> :firstName ?n }",
+                "1", "2", "3", "7");
+    }
+
+    @Test
+    public void testObjectIRI() throws OBDASpecificationException, OntopReformulationException {
+        checkReformulations("SELECT ?x WHERE { ?x :hasSpouse <" + PERSON_PREFIX + "%s> }",
+                "2", "1", "3", "4");
+    }
+
+    @Test
+    public void testLiteralInFilter() throws OBDASpecificationException, OntopReformulationException {
+        checkReformulations("SELECT ?x WHERE { ?x :lastName ?n FILTER (?n = \"Smith%s\") }",
+                "5", "6", "9", "8");
+    }
+
+    @Test
+    public void testSameNumberTwice() throws OBDASpecificationException, OntopReformulationException {
+        QueryReformulator reformulator = createReformulator(true);
+        QueryReformulator referenceReformulator = createReformulator(false);
+        String query = PREFIX + "SELECT ?x WHERE { <" + PERSON_PREFIX + "%s> :hasSpouse ?x . ?x :hasSpouse <"
+                + PERSON_PREFIX + "%s> }";
+
+        reformulate(reformulator, String.format(query, "1", "2"));
+        // Not the same shape (the two values are equal)
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "3", "3"), false);
+        // Not the same shape either (reverse order)
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "2", "1"), false);
+        // Second query of the shape of the first one: learnt
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "3", "5"), false);
+        // Shares a value with the second one: not used for checking what has been learnt
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "4", "5"), false);
+        // Checked
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "4", "6"), false);
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "5", "7"), true);
+    }
+
+    /**
+     * CONTAINS is evaluated at compile time: its value is the same for the first two queries but not for the third,
+     * so the learnt executable query, where it is fixed, must not be reused.
+     */
+    @Test
+    public void testFunctionEvaluatedAtCompileTime() throws OBDASpecificationException, OntopReformulationException {
+        QueryReformulator reformulator = createReformulator(true);
+        QueryReformulator referenceReformulator = createReformulator(false);
+        String query = PREFIX + "SELECT ?x ?b WHERE { ?x :lastName ?n . BIND(CONTAINS(\"%s\", \"%s\") AS ?b) }";
+
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "pqr", "q"), false);
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "stu", "t"), false);
+        // Not contained: does not match what has been learnt
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "vwx", "z"), false);
+        checkReformulation(reformulator, referenceReformulator, String.format(query, "wxy", "x"), false);
+    }
+
+    /**
+     * The slots are determined by the type of the constants (here xsd:string), not by their lexical form
+     */
+    @Test
+    public void testStringLiteral() throws OBDASpecificationException, OntopReformulationException {
+        checkReformulations("SELECT ?x WHERE { ?x :lastName ?n FILTER (?n = \"%s\") }",
+                "Smith", "Doe", "Forester", "Miller");
+    }
+
+    @Test
+    public void testQueryEngine() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.PARAMETERIZED_QUERY_CACHE, "true");
+        properties.setProperty(OntopReformulationSQLSettings.BIND_PARAMETERS, "true");
+
+        OntopSystemSQLConfiguration configuration = OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(SPECIFICATION)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        ImmutableMap<String, String> expectedFirstNames = ImmutableMap.of(
+                "1", "Mary",
+                "2", "John",
+                "3", "Bob");
+
+        try (OntopQueryEngine queryEngine = configuration.loadQueryEngine()) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection()) {
+                for (String id : expectedFirstNames.keySet()) {
+                    try (OntopStatement statement = connection.createStatement()) {
+                        TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(
+                                PREFIX + "SELECT ?n WHERE { <" + PERSON_PREFIX + id + "> :firstName ?n }"));
+
+                        ImmutableSet.Builder<String> answerBuilder = ImmutableSet.builder();
+                        while (resultSet.hasNext()) {
+                            OntopBindingSet bindingSet = resultSet.next();
+                            answerBuilder.add(bindingSet.getBinding("n").getValue().getValue());
+                        }
+                        assertEquals(ImmutableSet.of(expectedFirstNames.get(id)), answerBuilder.build());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * All the queries but the first three ones are expected to reuse the learnt executable query
+     */
+    private static void checkReformulations(String queryTemplate, String... values)
+            throws OBDASpecificationException, OntopReformulationException {
+        QueryReformulator reformulator = createReformulator(true);
+        QueryReformulator referenceReformulator = createReformulator(false);
+
+        for (int i = 0; i < values.length; i++) {
+            checkReformulation(reformulator, referenceReformulator,
+                    PREFIX + String.format(queryTemplate, values[i]), i > 2);
+        }
+    }
+
+    private static void checkReformulation(QueryReformulator reformulator, QueryReformulator referenceReformulator,
+                                           String query, boolean isCacheHitExpected) throws OntopReformulationException {
+        CacheStatusLogger logger = new CacheStatusLogger();
+        IQ executableQuery = reformulator.reformulateIntoNativeQuery(
+                reformulator.getInputQueryFactory().createSelectQuery(query), logger);
+
+        assertEquals(isCacheHitExpected, logger.wasCached);
+        assertEquals(reformulate(referenceReformulator, query).toString(), executableQuery.toString());
+    }
+
+    private static IQ reformulate(QueryReformulator reformulator, String query) throws OntopReformulationException {
+        CacheStatusLogger logger = new CacheStatusLogger();
+        IQ executableQuery = reformulator.reformulateIntoNativeQuery(
+                reformulator.getInputQueryFactory().createSelectQuery(query), logger);
+        assertFalse(logger.wasCached);
+        assertTrue(logger.isFinished);
+        return executableQuery;
+    }
+
+    private static QueryReformulator createReformulator(boolean isParameterizedQueryCacheEnabled)
+            throws OBDASpecificationException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.PARAMETERIZED_QUERY_CACHE,
+                String.valueOf(isParameterizedQueryCacheEnabled));
+        properties.setProperty(OntopReformulationSQLSettings.BIND_PARAMETERS, "true");
+
+        return OntopReformulationSQLConfiguration.defaultBuilder()
+                .obdaSpecification(SPECIFICATION)
+                .jdbcUrl(JDBC_URL)
+                .properties(properties)
+                .enableTestMode()
+                .build()
+                .loadQueryReformulator();
+    }
+
+    private static class CacheStatusLogger implements QueryLogger {
+        private boolean isFinished = false;
+        private boolean wasCached = false;
+
+        @Override
+        public void declareReformulationFinishedAndSerialize(IQ reformulatedQuery, boolean wasCached) {
+            this.isFinished = true;
+            this.wasCached = wasCached;
+        }
+
+        @Override
+        public void declareResultSetUnblockedAndSerialize() {
+        }
+
+        @Override
+        public void declareLastResultRetrievedAndSerialize(long rowCount) {
+        }
+
+        @Override
+        public void declareReformulationException(OntopReformulationException e) {
+        }
+
+        @Override
+        public void declareEvaluationException(Exception e) {
+        }
+
+        @Override
+        public void declareConnectionException(Exception e) {
+        }
+
+        @Override
+        public void declareConversionException(InconsistentOntologyException e) {
+        }
+
+        @Override
+        public void setSparqlQuery(String sparqlQuery) {
+        }
+
+        @Override
+        public void setSparqlIQ(IQ sparqlIQ) {
+        }
+
+        @Override
+        public void setPlannedQuery(IQ plannedQuery) {
+        }
+
+        @Override
+        public void setPredefinedQuery(String queryId, ImmutableMap<String, String> bindings) {
+        }
+    }
+}
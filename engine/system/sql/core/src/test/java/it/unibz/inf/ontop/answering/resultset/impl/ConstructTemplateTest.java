@@ -0,0 +1,63 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.model.term.BNode;
+import it.unibz.inf.ontop.model.term.IRIConstant;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConstructTemplateTest extends AbstractMarriageDBTest {
+
+    /**
+     * The first row (Bob, without spouse) does not produce any fact: the iteration must go on
+     */
+    @Test
+    public void testRowWithoutFact() throws Exception {
+        ImmutableList<RDFFact> facts = construct(PREFIX +
+                "CONSTRUCT { ?p :spouseName ?n } WHERE { ?p a :Person OPTIONAL { ?p :hasSpouse ?s . ?s :firstName ?n } }\n" +
+                "ORDER BY DESC(?p)");
+        assertEquals(2, facts.size());
+    }
+
+    @Test
+    public void testConstantsAndBNodes() throws Exception {
+        ImmutableList<RDFFact> facts = construct(PREFIX +
+                "CONSTRUCT { ?p :marriage _:m . _:m a :Marriage } WHERE { ?p :hasSpouse ?s }");
+        assertEquals(4, facts.size());
+        for (int i = 0; i < facts.size(); i += 2) {
+            RDFFact first = facts.get(i);
+            RDFFact second = facts.get(i + 1);
+            assertTrue(first.getObject() instanceof BNode);
+            // Same b-node within a row
+            assertEquals(first.getObject(), second.getSubject());
+            assertEquals("http://example.org/marriage/voc#Marriage",
+                    ((IRIConstant) second.getObject()).getIRI().getIRIString());
+        }
+        // Different b-nodes across rows
+        assertNotEquals(facts.get(0).getObject(), facts.get(2).getObject());
+    }
+
+    private static ImmutableList<RDFFact> construct(String query) throws Exception {
+        OntopQueryEngine queryEngine = createConfigurationBuilder().build().loadQueryEngine();
+        queryEngine.connect();
+
+        try (OntopConnection connection = queryEngine.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            ImmutableList.Builder<RDFFact> facts = ImmutableList.builder();
+            try (GraphResultSet resultSet = statement.execute(connection.getInputQueryFactory().createConstructQuery(query))) {
+                while (resultSet.hasNext())
+                    facts.add(resultSet.next());
+            }
+            return facts.build();
+        } finally {
+            queryEngine.close();
+        }
+    }
+}
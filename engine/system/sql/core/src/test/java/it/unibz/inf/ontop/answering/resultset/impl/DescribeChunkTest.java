@@ -0,0 +1,87 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.DescribeQuery;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.spec.ontology.RDFFact;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class DescribeChunkTest extends AbstractMarriageDBTest {
+
+    private static final String QUERY = PREFIX + "DESCRIBE ?p WHERE { ?p a :Person }";
+
+    @Test
+    public void testSameResults() throws Exception {
+        ImmutableSet<RDFFact> expectedFacts = describe(1, false);
+        // 3 persons, each with rdf:type, first name, last name and 2 of them with a spouse
+        assertEquals(11, expectedFacts.size());
+        assertEquals(expectedFacts, describe(2, false));
+        assertEquals(expectedFacts, describe(100, false));
+    }
+
+    @Test
+    public void testSameResultsFixedObject() throws Exception {
+        ImmutableSet<RDFFact> expectedFacts = describe(1, true);
+        assertEquals(expectedFacts, describe(2, true));
+        assertEquals(expectedFacts, describe(100, true));
+    }
+
+    @Test
+    public void testChunks() throws Exception {
+        OntopStandaloneSQLConfiguration configuration = createConfiguration(2, false);
+        RDF rdf = configuration.getInjector().getInstance(RDF.class);
+        ImmutableSet<IRI> resources = ImmutableSet.of(
+                rdf.createIRI("http://example.com/person/1"),
+                rdf.createIRI("http://example.com/person/2"),
+                rdf.createIRI("http://example.com/person/3"));
+
+        try (OntopQueryEngine queryEngine = configuration.loadQueryEngine()) {
+            queryEngine.connect();
+            OntopConnection connection = queryEngine.getConnection();
+            DescribeQuery describeQuery = connection.getInputQueryFactory().createDescribeQuery(QUERY);
+            assertEquals(2, Iterables.size(describeQuery.computeConstructQueries(resources)));
+            connection.close();
+        }
+    }
+
+    private static ImmutableSet<RDFFact> describe(int chunkSize, boolean isFixedObjectIncluded) throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine(chunkSize, isFixedObjectIncluded);
+             OntopConnection connection = queryEngine.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            ImmutableSet.Builder<RDFFact> facts = ImmutableSet.builder();
+            try (GraphResultSet resultSet = statement.execute(connection.getInputQueryFactory().createDescribeQuery(QUERY))) {
+                while (resultSet.hasNext())
+                    facts.add(resultSet.next());
+            }
+            return facts.build();
+        }
+    }
+
+    private static OntopQueryEngine createQueryEngine(int chunkSize, boolean isFixedObjectIncluded) throws Exception {
+        OntopQueryEngine queryEngine = createConfiguration(chunkSize, isFixedObjectIncluded).loadQueryEngine();
+        queryEngine.connect();
+        return queryEngine;
+    }
+
+    private static OntopStandaloneSQLConfiguration createConfiguration(int chunkSize, boolean isFixedObjectIncluded) {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.DESCRIBE_CHUNK_SIZE, String.valueOf(chunkSize));
+        properties.setProperty(OntopReformulationSettings.INCLUDE_FIXED_OBJECT_POSITION_IN_DESCRIBE,
+                String.valueOf(isFixedObjectIncluded));
+
+        return createConfiguration(properties);
+    }
+}
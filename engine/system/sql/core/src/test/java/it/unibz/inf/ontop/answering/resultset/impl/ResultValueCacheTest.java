@@ -0,0 +1,70 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class ResultValueCacheTest extends AbstractMarriageDBTest {
+
+    private static final String QUERY = PREFIX + "SELECT ?p ?n WHERE { ?p :firstName ?n ; :lastName \"Smith\" }";
+
+    @Test
+    public void testSharedConstants() throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine(100)) {
+            RDFConstant firstIRI = getFirstValue(queryEngine, "p");
+            RDFConstant secondIRI = getFirstValue(queryEngine, "p");
+            assertEquals(firstIRI, secondIRI);
+            assertSame(firstIRI, secondIRI);
+            assertSame(getFirstValue(queryEngine, "n"), getFirstValue(queryEngine, "n"));
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine(0)) {
+            RDFConstant firstIRI = getFirstValue(queryEngine, "p");
+            RDFConstant secondIRI = getFirstValue(queryEngine, "p");
+            assertEquals(firstIRI, secondIRI);
+            assertNotSame(firstIRI, secondIRI);
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        ResultValueCache<String, String> cache = new ResultValueCache<>("test", 1);
+        assertEquals("A", cache.get("a", String::toUpperCase));
+        assertEquals("A", cache.get("a", String::toUpperCase));
+        assertEquals("B", cache.get("b", String::toUpperCase));
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(2, cache.getStats().missCount());
+    }
+
+    private static OntopQueryEngine createQueryEngine(int cacheSize) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSettings.RESULT_VALUE_CACHE_SIZE, String.valueOf(cacheSize));
+
+        OntopQueryEngine queryEngine = createConfiguration(properties).loadQueryEngine();
+        queryEngine.connect();
+        return queryEngine;
+    }
+
+    private static RDFConstant getFirstValue(OntopQueryEngine queryEngine, String variable) throws Exception {
+        try (OntopConnection connection = queryEngine.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(QUERY));
+            assertTrue(resultSet.hasNext());
+            RDFConstant value = resultSet.next().getConstant(variable);
+            resultSet.close();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SpillableRowKeySetTest {
+
+    private static final int COUNT = 100_000;
+
+    @Test
+    public void testInMemory() throws Exception {
+        try (SpillableRowKeySet set = new SpillableRowKeySet("test", 64 << 20, tempDirectory())) {
+            for (int i = 0; i < COUNT; i++)
+                assertTrue(set.add("http://example.org/" + i, i));
+            for (int i = 0; i < COUNT; i++)
+                assertFalse(set.add("http://example.org/" + i, i));
+
+            assertEquals(COUNT, set.size());
+            assertEquals(0, set.getSpillCount());
+        }
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        File directory = tempDirectory();
+        // a few hundred rows in memory at most
+        try (SpillableRowKeySet set = new SpillableRowKeySet("test", 64 << 10, directory)) {
+            for (int i = 0; i < COUNT; i++)
+                assertTrue(set.add("http://example.org/" + i, i));
+            assertTrue(set.getSpillCount() > 8);
+            assertTrue(set.getRunCount() <= 8);
+            assertTrue(set.getMemoryUsage() <= 64 << 10);
+
+            for (int i = COUNT - 1; i >= 0; i--)
+                assertFalse(set.add("http://example.org/" + i, i));
+            assertTrue(set.add("http://example.org/" + COUNT, COUNT));
+            assertEquals(COUNT + 1, set.size());
+        }
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        try (SpillableRowKeySet set = new SpillableRowKeySet("test", 1 << 20, tempDirectory())) {
+            assertTrue(set.add("a", null));
+            assertTrue(set.add(null, "a"));
+            assertTrue(set.add("ab", "c"));
+            assertTrue(set.add("a", "bc"));
+            assertTrue(set.add(1));
+            assertTrue(set.add(1L));
+            assertTrue(set.add(new BigDecimal("1.0")));
+            assertTrue(set.add(new BigDecimal("1.00")));
+            assertTrue(set.add((Object) new byte[] { 1, 2 }));
+
+            assertFalse(set.add("a", null));
+            assertFalse(set.add(1));
+            assertFalse(set.add(new BigDecimal("1.0")));
+            assertFalse(set.add((Object) new byte[] { 1, 2 }));
+        }
+    }
+
+    /**
+     * In memory, the rows are compared by equals(), not by their string representation
+     */
+    @Test
+    public void testEquality() throws Exception {
+        try (SpillableRowKeySet set = new SpillableRowKeySet("test", 1 << 20, tempDirectory())) {
+            assertTrue(set.add(new Value(1, "v")));
+            assertTrue(set.add(new Value(2, "v")));
+            assertFalse(set.add(new Value(1, "w")));
+            assertEquals(0, set.getSpillCount());
+        }
+    }
+
+    private static File tempDirectory() throws Exception {
+        File directory = Files.createTempDirectory("spill").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    /**
+     * Equal when the ids are equal, whatever the label
+     */
+    private static final class Value {
+        private final int id;
+        private final String label;
+
+        Value(int id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Value && ((Value) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+}
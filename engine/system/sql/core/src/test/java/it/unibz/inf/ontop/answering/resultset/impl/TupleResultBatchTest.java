@@ -0,0 +1,134 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultBatch;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TupleResultBatchTest extends AbstractMarriageDBTest {
+
+    private static OntopQueryEngine QUERY_ENGINE;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        QUERY_ENGINE = createConfigurationBuilder().build().loadQueryEngine();
+        QUERY_ENGINE.connect();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        QUERY_ENGINE.close();
+    }
+
+    @Test
+    public void testSameAnswersAsRowByRow() throws Exception {
+        String query = PREFIX + "SELECT ?p ?n ?s WHERE { ?p :firstName ?n . OPTIONAL { ?p :hasSpouse ?s } }";
+
+        ImmutableMultiset<List<RDFConstant>> expectedRows = readRowByRow(query);
+        assertEquals(3, expectedRows.size());
+
+        for (int batchSize : new int[]{1, 2, 1000})
+            assertEquals(expectedRows, readByBatches(query, batchSize));
+    }
+
+    @Test
+    public void testUnboundValue() throws Exception {
+        String query = PREFIX + "SELECT ?s WHERE { <http://example.com/person/3> :firstName ?n . " +
+                "OPTIONAL { <http://example.com/person/3> :hasSpouse ?s } }";
+
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(query));
+            TupleResultBatch batch = resultSet.nextBatch(10);
+            assertEquals(1, batch.getRowCount());
+            assertEquals(-1, batch.getIndex(0, 0));
+            assertNull(batch.getConstant(0, 0));
+            assertEquals(0, resultSet.nextBatch(10).getRowCount());
+        }
+    }
+
+    @Test
+    public void testSharedDictionary() throws Exception {
+        String query = PREFIX + "SELECT ?p ?c WHERE { ?p a ?c }";
+
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(query));
+            TupleResultBatch batch = resultSet.nextBatch(10);
+            assertEquals(3, batch.getRowCount());
+            assertEquals(3, batch.getDictionary(0).size());
+            // Same class for all the rows
+            assertEquals(1, batch.getDictionary(1).size());
+        }
+    }
+
+    @Test
+    public void testMixedWithHasNext() throws Exception {
+        String query = PREFIX + "SELECT ?n WHERE { ?p :firstName ?n }";
+
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(query));
+            assertTrue(resultSet.hasNext());
+            // The row fetched by hasNext() is not lost
+            assertEquals(2, resultSet.nextBatch(2).getRowCount());
+            assertTrue(resultSet.hasNext());
+            resultSet.next();
+            assertFalse(resultSet.hasNext());
+            assertEquals(0, resultSet.nextBatch(2).getRowCount());
+        }
+    }
+
+    private static ImmutableMultiset<List<RDFConstant>> readRowByRow(String query) throws Exception {
+        ImmutableMultiset.Builder<List<RDFConstant>> rowBuilder = ImmutableMultiset.builder();
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(query));
+            ImmutableList<String> signature = ImmutableList.copyOf(resultSet.getSignature());
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                List<RDFConstant> row = new ArrayList<>();
+                for (String variable : signature) {
+                    OntopBinding binding = bindingSet.getBinding(variable);
+                    row.add(binding == null ? null : binding.getValue());
+                }
+                rowBuilder.add(row);
+            }
+        }
+        return rowBuilder.build();
+    }
+
+    private static ImmutableMultiset<List<RDFConstant>> readByBatches(String query, int batchSize) throws Exception {
+        ImmutableMultiset.Builder<List<RDFConstant>> rowBuilder = ImmutableMultiset.builder();
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(query));
+            TupleResultBatch batch;
+            while ((batch = resultSet.nextBatch(batchSize)).getRowCount() > 0) {
+                assertTrue(batch.getRowCount() <= batchSize);
+                for (int i = 0; i < batch.getRowCount(); i++) {
+                    List<RDFConstant> row = new ArrayList<>();
+                    for (int j = 0; j < batch.getSignature().size(); j++)
+                        row.add(batch.getConstant(i, j));
+                    rowBuilder.add(row);
+                }
+            }
+        }
+        return rowBuilder.build();
+    }
+}
@@ -0,0 +1,137 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.dbschema.DBMetadataProvider;
+import it.unibz.inf.ontop.dbschema.NamedRelationDefinition;
+import it.unibz.inf.ontop.dbschema.QuotedIDFactory;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import it.unibz.inf.ontop.iq.planner.RelationStatisticsProvider;
+import it.unibz.inf.ontop.iq.planner.impl.CardinalityEstimator.Estimate;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class JDBCRelationStatisticsProviderTest extends AbstractMarriageDBTest {
+
+    private static OntopStandaloneSQLConfiguration CONFIGURATION;
+    private static NamedRelationDefinition PERSON;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONFIGURATION = createStatisticsConfiguration(new Properties());
+
+        DBMetadataProvider metadataProvider = CONFIGURATION.getInjector()
+                .getInstance(JDBCMetadataProviderFactory.class)
+                .getMetadataProvider(CONN);
+        QuotedIDFactory idFactory = metadataProvider.getQuotedIDFactory();
+        PERSON = metadataProvider.getRelation(idFactory.createRelationID("\"person\""));
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        RelationStatistics statistics = waitForStatistics(
+                CONFIGURATION.getInjector().getInstance(RelationStatisticsProvider.class));
+
+        assertEquals(3, statistics.getRowCount());
+        assertEquals(Optional.of(3L), statistics.getDistinctValueCount(PERSON.getAttribute(1).getID()));
+        assertEquals(Optional.of(2L), statistics.getDistinctValueCount(PERSON.getAttribute(4).getID()));
+    }
+
+    /**
+     * The distinct values are counted in the first 2 rows: the ids, unique in the sample, are extrapolated
+     */
+    @Test
+    public void testSampledStatistics() throws Exception {
+        DBMetadataProvider metadataProvider = CONFIGURATION.getInjector()
+                .getInstance(JDBCMetadataProviderFactory.class)
+                .getMetadataProvider(CONN);
+        RelationStatistics statistics = metadataProvider.getRelationStatistics(PERSON, false, 2, 10);
+
+        assertEquals(3, statistics.getRowCount());
+        assertEquals(Optional.of(3L), statistics.getDistinctValueCount(PERSON.getAttribute(1).getID()));
+    }
+
+    @Test
+    public void testEstimation() throws Exception {
+        waitForStatistics(CONFIGURATION.getInjector().getInstance(RelationStatisticsProvider.class));
+
+        IntermediateQueryFactory iqFactory = CONFIGURATION.getInjector().getInstance(IntermediateQueryFactory.class);
+        TermFactory termFactory = CONFIGURATION.getTermFactory();
+        CardinalityEstimator estimator = CONFIGURATION.getInjector().getInstance(CardinalityEstimator.class);
+        Variable id = termFactory.getVariable("id");
+        Variable spouse = termFactory.getVariable("spouse");
+
+        Estimate all = estimator.estimate(iqFactory.createExtensionalDataNode(PERSON,
+                ImmutableMap.of(0, id, 3, spouse)));
+        assertEquals(3, all.getRowCount(), 0.01);
+        assertEquals(2, all.getDistinctValueCount(spouse), 0.01);
+
+        Estimate one = estimator.estimate(iqFactory.createExtensionalDataNode(PERSON,
+                ImmutableMap.of(0, termFactory.getDBIntegerConstant(1), 3, spouse)));
+        assertEquals(1, one.getRowCount(), 0.01);
+
+        // Can be selected as query planner
+        assertNotNull(CONFIGURATION.getInjector().getInstance(CostBasedQueryPlanner.class));
+    }
+
+    @Test
+    public void testCloseAndRestart() throws Exception {
+        Properties properties = new Properties();
+        // Refreshed at each request
+        properties.setProperty(OntopSystemSQLSettings.PLANNER_STATISTICS_REFRESH_INTERVAL, "0");
+        RelationStatisticsProvider provider = createStatisticsConfiguration(properties).getInjector()
+                .getInstance(RelationStatisticsProvider.class);
+
+        RelationStatistics statistics = waitForStatistics(provider);
+        int threadCount = countStatisticsThreads();
+
+        provider.close();
+        waitForStatisticsThreads(threadCount - 1);
+        // The previous statistics are kept, and the request restarts the collection
+        assertEquals(statistics.getRowCount(), provider.getStatistics(PERSON).get().getRowCount());
+        waitForStatisticsThreads(threadCount);
+        provider.close();
+    }
+
+    private static OntopStandaloneSQLConfiguration createStatisticsConfiguration(Properties properties) {
+        properties.setProperty(OntopSystemSQLSettings.PLANNER_STATISTICS_USE_CATALOG, "false");
+        return createConfiguration(properties);
+    }
+
+    private static int countStatisticsThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("ontop-relation-statistics"))
+                .count();
+    }
+
+    private static void waitForStatisticsThreads(int count) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (countStatisticsThreads() == count)
+                return;
+            Thread.sleep(50);
+        }
+        fail("Expected " + count + " statistics threads, found " + countStatisticsThreads());
+    }
+
+    private static RelationStatistics waitForStatistics(RelationStatisticsProvider provider) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<RelationStatistics> statistics = provider.getStatistics(PERSON);
+            if (statistics.isPresent())
+                return statistics.get();
+            Thread.sleep(50);
+        }
+        fail("The statistics have not been collected");
+        return null;
+    }
+}
@@ -43,6 +43,7 @@ import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.joining;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class OntopMaterializerTest {
 
@@ -192,6 +193,37 @@ public class OntopMaterializerTest {
 		// conn.close();
 	}
 
+	@Test
+	public void testOneSourceTripleParallel() throws Exception {
+
+		SQLPPMapping ppMapping = createMapping();
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(ppMapping)
+				.build();
+
+		ImmutableSet<IRI> vocabulary = Stream.of(fnIRI, lnIRI, ageIRI, hasschoolIRI, schoolIRI)
+				.collect(ImmutableCollectors.toSet());
+
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration,
+				MaterializationParams.defaultBuilder()
+						.degreeOfParallelism(3)
+						.build());
+
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+
+			ImmutableSet.Builder<RDFFact> rdfGraphBuilder = ImmutableSet.builder();
+			while (materializationResultSet.hasNext()) {
+				rdfGraphBuilder.add(materializationResultSet.next());
+			}
+			ImmutableSet<RDFFact> assertions = rdfGraphBuilder.build();
+
+			assertEquals(15, assertions.size());
+			assertEquals(15, materializationResultSet.getTripleCountSoFar());
+			assertTrue(materializationResultSet.getPossiblyIncompleteRDFPropertiesAndClassesSoFar().isEmpty());
+		}
+	}
+
 	@Test
 	public void testOneSourceQuad() throws Exception {
 
@@ -0,0 +1,63 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.exception.InvalidMappingSourceQueriesException;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelMappingExtractionTest extends AbstractMarriageDBTest {
+
+    @Test
+    public void testSameMapping() throws Exception {
+        ImmutableList<String> expectedQueries = extractMapping(1, 1);
+        assertFalse(expectedQueries.isEmpty());
+        assertEquals(expectedQueries, extractMapping(4, 1));
+        assertEquals(expectedQueries, extractMapping(4, 3));
+        assertEquals(expectedQueries, extractMapping(8, 8));
+    }
+
+    @Test
+    public void testOrderedResults() throws Exception {
+        ImmutableList<Integer> elements = IntStream.range(0, 1000).boxed().collect(ImmutableCollectors.toList());
+        ImmutableList<Integer> results = new ParallelMappingTransformer(4)
+                .transform(elements, i -> i * 2, RuntimeException.class);
+        assertEquals(elements.stream().map(i -> i * 2).collect(ImmutableCollectors.toList()), results);
+    }
+
+    @Test
+    public void testFirstExceptionThrown() {
+        ImmutableList<Integer> elements = IntStream.range(0, 100).boxed().collect(ImmutableCollectors.toList());
+        try {
+            new ParallelMappingTransformer(4).transform(elements, i -> {
+                if (i % 10 == 3)
+                    throw new InvalidMappingSourceQueriesException("element " + i);
+                return i;
+            }, InvalidMappingSourceQueriesException.class);
+            fail();
+        }
+        catch (InvalidMappingSourceQueriesException e) {
+            assertEquals("element 3", e.getMessage());
+        }
+    }
+
+    private static ImmutableList<String> extractMapping(int parallelism, int connectionCount) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSQLSettings.STARTUP_PARALLELISM, String.valueOf(parallelism));
+        properties.setProperty(OntopMappingSQLSettings.METADATA_CONNECTIONS, String.valueOf(connectionCount));
+
+        Mapping mapping = createConfiguration(properties).loadSpecification().getSaturatedMapping();
+        return mapping.getRDFAtomPredicates().stream()
+                .flatMap(p -> mapping.getQueries(p).stream())
+                .map(Object::toString)
+                .sorted()
+                .collect(ImmutableCollectors.toList());
+    }
+}
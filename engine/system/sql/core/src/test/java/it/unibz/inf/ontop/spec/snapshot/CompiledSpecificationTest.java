@@ -0,0 +1,188 @@
+package it.unibz.inf.ontop.spec.snapshot;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.AbstractMarriageDBTest;
+import it.unibz.inf.ontop.exception.OBDASpecificationException;
+import it.unibz.inf.ontop.injection.OntopStandaloneSQLConfiguration;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class CompiledSpecificationTest extends AbstractMarriageDBTest {
+
+    @Test
+    public void testCompileAndLoad() throws Exception {
+        File snapshotFile = Files.createTempFile("marriage", ".snapshot").toFile();
+        createConfiguration(OBDA_FILE, Optional.empty()).writeCompiledSpecification(snapshotFile);
+
+        ImmutableList<String> expectedQueries = extractMapping(createConfiguration(OBDA_FILE, Optional.empty()));
+
+        // The DB metadata is no longer accessible: only the snapshot provides it
+        renamePersonTable("person", "people");
+        try {
+            assertEquals(expectedQueries, extractMapping(createConfiguration(OBDA_FILE, Optional.of(snapshotFile))));
+            try {
+                extractMapping(createConfiguration(OBDA_FILE, Optional.empty()));
+                fail("The DB metadata should have been extracted");
+            }
+            catch (OBDASpecificationException expected) {
+            }
+        }
+        finally {
+            renamePersonTable("people", "person");
+        }
+    }
+
+    @Test
+    public void testStaleSnapshotIgnored() throws Exception {
+        File snapshotFile = Files.createTempFile("marriage", ".snapshot").toFile();
+        createConfiguration(OBDA_FILE, Optional.empty()).writeCompiledSpecification(snapshotFile);
+
+        Path modifiedMappingFile = Files.createTempFile("marriage", ".obda");
+        Files.copy(Paths.get(OBDA_FILE), modifiedMappingFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.write(modifiedMappingFile, "\n".getBytes(), StandardOpenOption.APPEND);
+
+        renamePersonTable("person", "people");
+        try {
+            extractMapping(createConfiguration(modifiedMappingFile.toString(), Optional.of(snapshotFile)));
+            fail("The stale snapshot should have been ignored");
+        }
+        catch (OBDASpecificationException expected) {
+        }
+        finally {
+            renamePersonTable("people", "person");
+        }
+    }
+
+    @Test
+    public void testSaturatedMappingAndTBoxRestored() throws Exception {
+        File snapshotFile = Files.createTempFile("marriage", ".snapshot").toFile();
+        OntopStandaloneSQLConfiguration configuration = createConfiguration(OBDA_FILE, Optional.empty());
+        configuration.writeCompiledSpecification(snapshotFile);
+
+        CompiledSpecificationSnapshot snapshot = CompiledSpecificationSnapshot.read(snapshotFile);
+        assertTrue(snapshot.getSpecification().isPresent());
+
+        OBDASpecification specification = configuration.loadSpecification();
+        OBDASpecification restoredSpecification = configuration.getInjector()
+                .getInstance(CompiledSpecificationSerializer.class)
+                .deserialize(snapshot.getSpecification().get(), snapshot.getDBMetadataReader(),
+                        Optional.empty(), Optional.empty());
+
+        assertEquals(extractMapping(specification), extractMapping(restoredSpecification));
+        ClassifiedTBox tbox = specification.getSaturatedTBox();
+        ClassifiedTBox restoredTBox = restoredSpecification.getSaturatedTBox();
+        assertEquals(ImmutableSet.copyOf(tbox.classes()), ImmutableSet.copyOf(restoredTBox.classes()));
+        assertEquals(ImmutableSet.copyOf(tbox.objectProperties()), ImmutableSet.copyOf(restoredTBox.objectProperties()));
+        assertEquals(ImmutableSet.copyOf(tbox.dataProperties()), ImmutableSet.copyOf(restoredTBox.dataProperties()));
+    }
+
+    @Test
+    public void testChecksumCoversConstraintsAndSettings() throws Exception {
+        File snapshotFile = Files.createTempFile("marriage", ".snapshot").toFile();
+        createConfiguration(OBDA_FILE, Optional.empty()).writeCompiledSpecification(snapshotFile);
+        String checksum = CompiledSpecificationSnapshot.read(snapshotFile).getInputChecksum();
+
+        File constraintFile = Files.createTempFile("marriage", ".constraints").toFile();
+        File otherSnapshotFile = Files.createTempFile("marriage", ".snapshot").toFile();
+        OntopStandaloneSQLConfiguration.Builder<? extends OntopStandaloneSQLConfiguration.Builder<?>> builder =
+                createBuilder(OBDA_FILE);
+        builder.basicImplicitConstraintFile(constraintFile).build().writeCompiledSpecification(otherSnapshotFile);
+        assertNotEquals(checksum, CompiledSpecificationSnapshot.read(otherSnapshotFile).getInputChecksum());
+
+        Properties properties = new Properties();
+        properties.setProperty("ontop.startup.parallelism", "1");
+        createBuilder(OBDA_FILE).properties(properties).build().writeCompiledSpecification(otherSnapshotFile);
+        assertNotEquals(checksum, CompiledSpecificationSnapshot.read(otherSnapshotFile).getInputChecksum());
+
+        // The snapshot compiled without the constraint file is stale
+        renamePersonTable("person", "people");
+        try {
+            extractMapping(createBuilder(OBDA_FILE)
+                    .basicImplicitConstraintFile(constraintFile)
+                    .compiledSpecificationFile(snapshotFile)
+                    .build()
+                    .loadSpecification());
+            fail("The stale snapshot should have been ignored");
+        }
+        catch (OBDASpecificationException expected) {
+        }
+        finally {
+            renamePersonTable("people", "person");
+        }
+    }
+
+    @Test
+    public void testChecksumCoversOntopVersion() throws Exception {
+        File snapshotFile = Files.createTempFile("marriage", ".snapshot").toFile();
+        OntopStandaloneSQLConfiguration configuration = createConfiguration(OBDA_FILE, Optional.empty());
+        configuration.writeCompiledSpecification(snapshotFile);
+        String checksum = CompiledSpecificationSnapshot.read(snapshotFile).getInputChecksum();
+
+        // Same inputs as the configuration
+        ImmutableMap<String, Optional<URL>> inputs = ImmutableMap.of(
+                "mapping", Optional.of(new File(OBDA_FILE).toURI().toURL()),
+                "constraints", Optional.empty(),
+                "ontopViews", Optional.empty());
+        assertEquals(checksum, CompiledSpecificationSnapshot.computeInputChecksum(inputs,
+                configuration.getSettings(), CompiledSpecificationSnapshot.getOntopVersion()));
+
+        // The snapshot compiled by another version of Ontop is stale
+        assertNotEquals(checksum, CompiledSpecificationSnapshot.computeInputChecksum(inputs,
+                configuration.getSettings(), CompiledSpecificationSnapshot.getOntopVersion() + "-other"));
+    }
+
+    private static void renamePersonTable(String from, String to) throws Exception {
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate("ALTER TABLE \"" + from + "\" RENAME TO \"" + to + "\"");
+        }
+    }
+
+    private static ImmutableList<String> extractMapping(OntopStandaloneSQLConfiguration configuration)
+            throws OBDASpecificationException {
+        return extractMapping(configuration.loadSpecification());
+    }
+
+    private static ImmutableList<String> extractMapping(OBDASpecification specification) {
+        Mapping mapping = specification.getSaturatedMapping();
+        return mapping.getRDFAtomPredicates().stream()
+                .flatMap(p -> mapping.getQueries(p).stream())
+                .map(Object::toString)
+                .sorted()
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static OntopStandaloneSQLConfiguration createConfiguration(String mappingFile, Optional<File> snapshotFile) {
+        OntopStandaloneSQLConfiguration.Builder<? extends OntopStandaloneSQLConfiguration.Builder<?>> builder =
+                createBuilder(mappingFile);
+        snapshotFile.ifPresent(builder::compiledSpecificationFile);
+        return builder.build();
+    }
+
+    private static OntopStandaloneSQLConfiguration.Builder<? extends OntopStandaloneSQLConfiguration.Builder<?>> createBuilder(
+            String mappingFile) {
+        return OntopStandaloneSQLConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(mappingFile)
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .enableTestMode();
+    }
+}
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
@@ -14,6 +15,7 @@ import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Optional;
 
@@ -34,6 +36,11 @@ public class OntopSQLOWLAPIConfigurationImpl extends OntopStandaloneSQLConfigura
         return loadSpecification(mappingOWLConfiguration::loadOntology);
     }
 
+    @Override
+    Optional<ImmutableMap<String, Optional<URL>>> getOntologyInputs() throws MalformedURLException {
+        return mappingOWLConfiguration.getOntologyInputs();
+    }
+
     @Override
     public Optional<OWLOntology> loadInputOntology() throws OWLOntologyCreationException {
         return mappingOWLConfiguration.loadInputOntology();
@@ -35,6 +35,11 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
      */
     boolean isCanIRIComplete();
 
+    /**
+     * Number of threads saturating the mapping (T-mappings). 0 means the number of available processors.
+     */
+    int getTMappingParallelism();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -43,6 +48,7 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
     String INFER_DEFAULT_DATATYPE = "ontop.inferDefaultDatatype";
     String TOLERATE_ABSTRACT_DATATYPE = "ontop.tolerateAbstractDatatype";
     String IS_CANONICAL_IRI_COMPLETE = "ontop.isCanonicalIRIComplete";
+    String TMAPPING_PARALLELISM = "ontop.tmappings.parallelism";
 
 
     /**
@@ -1,8 +1,14 @@
 package it.unibz.inf.ontop.spec.dbschema.tools;
 
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import it.unibz.inf.ontop.spec.mapping.pp.PreProcessedMapping;
 
 public interface DBMetadataExtractorAndSerializer {
 
     String extractAndSerialize() throws MetadataExtractionException;
+
+    /**
+     * Only serializes the relations used by the mapping
+     */
+    String extractAndSerialize(PreProcessedMapping<?> ppMapping) throws MetadataExtractionException;
 }
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.spec.dbschema.tools.impl;
 
 import it.unibz.inf.ontop.spec.dbschema.tools.DBMetadataExtractorAndSerializer;
+import it.unibz.inf.ontop.spec.mapping.pp.PreProcessedMapping;
 
 public class FakeDBMetadataExtractorAndSerializer implements DBMetadataExtractorAndSerializer {
 
@@ -8,4 +9,9 @@ public class FakeDBMetadataExtractorAndSerializer implements DBMetadataExtractor
     public String extractAndSerialize() {
         throw new UnsupportedOperationException("Fake implementation. Please use a real implementation");
     }
+
+    @Override
+    public String extractAndSerialize(PreProcessedMapping<?> ppMapping) {
+        throw new UnsupportedOperationException("Fake implementation. Please use a real implementation");
+    }
 }
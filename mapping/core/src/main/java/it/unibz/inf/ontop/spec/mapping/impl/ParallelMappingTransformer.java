@@ -0,0 +1,91 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Applies a transformation to each element of a list (e.g., mapping assertions) in a fork-join pool.
+ *
+ * The output is deterministic: the results keep the order of the input and, when several elements fail,
+ * the exception of the first one (in the input order) is thrown.
+ *
+ * With a parallelism of 1, the elements are transformed sequentially by the calling thread.
+ */
+public class ParallelMappingTransformer {
+
+    @FunctionalInterface
+    public interface Transformation<T, R, E extends Exception> {
+        R apply(T element) throws E;
+    }
+
+    private final int parallelism;
+
+    public ParallelMappingTransformer(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public <T, R, E extends Exception> ImmutableList<R> transform(ImmutableList<T> elements,
+                                                                   Transformation<T, R, E> transformation,
+                                                                   Class<E> exceptionClass) throws E {
+        if (parallelism == 1 || elements.size() < 2) {
+            ImmutableList.Builder<R> builder = ImmutableList.builder();
+            for (T element : elements)
+                builder.add(transformation.apply(element));
+            return builder.build();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, elements.size()));
+        try {
+            List<ForkJoinTask<Outcome<R>>> tasks = new ArrayList<>(elements.size());
+            for (T element : elements)
+                tasks.add(pool.submit(() -> apply(transformation, element)));
+
+            ImmutableList.Builder<R> builder = ImmutableList.builder();
+            for (ForkJoinTask<Outcome<R>> task : tasks)
+                builder.add(task.join().get(exceptionClass));
+            return builder.build();
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Exceptions are kept in the outcome so that they are not wrapped by the fork-join tasks
+     */
+    private static <T, R, E extends Exception> Outcome<R> apply(Transformation<T, R, E> transformation, T element) {
+        try {
+            return new Outcome<>(transformation.apply(element), null);
+        }
+        catch (Exception | Error e) {
+            return new Outcome<>(null, e);
+        }
+    }
+
+    private static class Outcome<R> {
+        private final R result;
+        private final Throwable throwable;
+
+        private Outcome(R result, Throwable throwable) {
+            this.result = result;
+            this.throwable = throwable;
+        }
+
+        <E extends Exception> R get(Class<E> exceptionClass) throws E {
+            if (throwable == null)
+                return result;
+            if (exceptionClass.isInstance(throwable))
+                throw exceptionClass.cast(throwable);
+            if (throwable instanceof RuntimeException)
+                throw (RuntimeException) throwable;
+            if (throwable instanceof Error)
+                throw (Error) throwable;
+            throw new MinorOntopInternalBugException("Unexpected exception: " + throwable);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 import com.google.common.collect.*;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.dbschema.DBParameters;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.injection.SpecificationFactory;
 import it.unibz.inf.ontop.iq.IQ;
@@ -35,6 +36,7 @@ public class DefaultMappingTransformer implements MappingTransformer {
 
     private MappingDistinctTransformer mappingDistinctTransformer;
     private final TermFactory termFactory;
+    private final IntermediateQueryFactory iqFactory;
 
     @Inject
     private DefaultMappingTransformer(MappingVariableNameNormalizer mappingNormalizer,
@@ -45,7 +47,8 @@ public class DefaultMappingTransformer implements MappingTransformer {
                                       SpecificationFactory specificationFactory,
                                       RDF rdfFactory,
                                       MappingDistinctTransformer mappingDistinctTransformer,
-                                      TermFactory termFactory) {
+                                      TermFactory termFactory,
+                                      IntermediateQueryFactory iqFactory) {
         this.mappingNormalizer = mappingNormalizer;
         this.mappingSaturator = mappingSaturator;
         this.factConverter = inserter;
@@ -55,6 +58,7 @@ public class DefaultMappingTransformer implements MappingTransformer {
         this.rdfFactory = rdfFactory;
         this.mappingDistinctTransformer = mappingDistinctTransformer;
         this.termFactory = termFactory;
+        this.iqFactory = iqFactory;
     }
 
     @Override
@@ -114,7 +118,7 @@ public class DefaultMappingTransformer implements MappingTransformer {
                 .map(DefaultMappingTransformer::asCell)
                 .collect(ImmutableCollectors.toTable());
 
-        return new MappingImpl(propertyDefinitions, classDefinitions);
+        return new MappingImpl(propertyDefinitions, classDefinitions, iqFactory);
     }
 
     private static Table.Cell<RDFAtomPredicate, IRI, IQ> asCell(MappingAssertion assertion) {
@@ -29,6 +29,7 @@ import it.unibz.inf.ontop.datalog.*;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transform.NoNullValueEnforcer;
@@ -42,6 +43,7 @@ import it.unibz.inf.ontop.model.vocabulary.RDF;
 import it.unibz.inf.ontop.spec.mapping.MappingAssertion;
 import it.unibz.inf.ontop.spec.mapping.MappingAssertionIndex;
 import it.unibz.inf.ontop.spec.mapping.TMappingExclusionConfig;
+import it.unibz.inf.ontop.spec.mapping.impl.ParallelMappingTransformer;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingCQCOptimizer;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingSaturator;
 import it.unibz.inf.ontop.spec.mapping.transformer.QueryUnionSplitter;
@@ -52,8 +54,15 @@ import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
+/**
+ * Saturates the mapping with respect to the class and property hierarchies (T-mappings).
+ *
+ * The DAG nodes are saturated independently of each other, in parallel (see OntopMappingSettings.getTMappingParallelism()),
+ * with a containment check shared by all the threads.
+ */
 @Singleton
 public class TMappingSaturatorImpl implements MappingSaturator  {
 
@@ -70,6 +79,7 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
     private final SubstitutionFactory substitutionFactory;
     private final CoreUtilsFactory coreUtilsFactory;
     private final CoreSingletons coreSingletons;
+    private final ParallelMappingTransformer parallelTransformer;
 
     @Inject
 	private TMappingSaturatorImpl(TMappingExclusionConfig tMappingExclusionConfig,
@@ -77,7 +87,8 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
                                   UnionFlattener unionNormalizer,
                                   MappingCQCOptimizer mappingCqcOptimizer,
                                   UnionBasedQueryMerger queryMerger,
-                                  CoreSingletons coreSingletons) {
+                                  CoreSingletons coreSingletons,
+                                  OntopMappingSettings settings) {
         this.tMappingExclusionConfig = tMappingExclusionConfig;
 		this.atomFactory = coreSingletons.getAtomFactory();
 		this.termFactory = coreSingletons.getTermFactory();
@@ -89,6 +100,9 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
         this.substitutionFactory = coreSingletons.getSubstitutionFactory();
         this.coreUtilsFactory = coreSingletons.getCoreUtilsFactory();
         this.coreSingletons = coreSingletons;
+        this.parallelTransformer = new ParallelMappingTransformer(settings.getTMappingParallelism() > 0
+                ? settings.getTMappingParallelism()
+                : Runtime.getRuntime().availableProcessors());
     }
 
     @Override
@@ -103,49 +117,57 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
         //     but the same IRI cannot be an object and a data or annotation property name at the same time
         // see https://www.w3.org/TR/owl2-new-features/#F12:_Punning
 
-        ImmutableMap<MappingAssertionIndex, Collection<TMappingRule>> original = mapping.stream()
-                .flatMap(a -> unionSplitter.splitUnion(unionNormalizer.optimize(a.getQuery()))
+        ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> original = parallelTransformer.transform(mapping,
+                    a -> unionSplitter.splitUnion(unionNormalizer.optimize(a.getQuery()))
                         .map(IQ::normalizeForOptimization) // replaces join equalities
                         .map(q -> mappingCqcOptimizer.optimize(cqc, q))
-                        .map(q -> Maps.immutableEntry(a.getIndex(), new TMappingRule(q, termFactory, iqFactory))))
-                .collect(ImmutableCollectors.toMultimap()).asMap();
+                        .map(q -> Maps.immutableEntry(a.getIndex(), new TMappingRule(q, termFactory, iqFactory)))
+                        .collect(ImmutableCollectors.toList()), RuntimeException.class)
+                .stream()
+                .flatMap(Collection::stream)
+                .collect(ImmutableCollectors.toMultimap())
+                .asMap().entrySet().stream()
+                .collect(ImmutableCollectors.toMap(Map.Entry::getKey, e -> ImmutableList.copyOf(e.getValue())));
 
-        ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> saturated = original.keySet().stream()
+        ImmutableList<NodeSaturation<?>> nodeSaturations = original.keySet().stream()
                 .map(MappingAssertionIndex::getPredicate)
                 .distinct()
                 .map(rdfAtomPredicate -> new TMappingRuleHeadConstructorProvider(rdfAtomPredicate, termFactory))
                 .flatMap(provider -> Stream.concat(Stream.concat(
                     reasoner.objectPropertiesDAG().stream()
                         .filter(node -> !node.getRepresentative().isInverse() && !tMappingExclusionConfig.contains(node.getRepresentative()))
-                        .flatMap(node -> node.getMembers().stream()
-                                .filter(d -> !d.isInverse() || d.getInverse() != node.getRepresentative())
-                                .map(saturator(node, reasoner.objectPropertiesDAG(), original, provider::constructor, cqc))),
+                        .map(node -> new NodeSaturation<>(node, reasoner.objectPropertiesDAG(), provider::constructor,
+                                d -> !d.isInverse() || d.getInverse() != node.getRepresentative())),
 
                     reasoner.dataPropertiesDAG().stream()
                         .filter(node -> !tMappingExclusionConfig.contains(node.getRepresentative()))
-                        .flatMap(node -> node.getMembers().stream()
-                                .map(saturator(node, reasoner.dataPropertiesDAG(), original, provider::constructor, cqc)))),
+                        .map(node -> new NodeSaturation<>(node, reasoner.dataPropertiesDAG(), provider::constructor, d -> true))),
 
                     reasoner.classesDAG().stream()
                         .filter(node -> (node.getRepresentative() instanceof OClass) && !tMappingExclusionConfig.contains((OClass)node.getRepresentative()))
-                        .flatMap(node -> node.getMembers().stream()
-                                .filter(d -> d instanceof OClass)
-                                .map(saturator(node, reasoner.classesDAG(), original, provider::constructor, cqc)))))
+                        .map(node -> new NodeSaturation<>(node, reasoner.classesDAG(), provider::constructor, d -> d instanceof OClass))))
+                .collect(ImmutableCollectors.toList());
 
+        ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> saturated = parallelTransformer.transform(nodeSaturations,
+                    n -> n.saturate(original, cqc), RuntimeException.class)
+                .stream()
+                .flatMap(Collection::stream)
                 .filter(e -> !e.getValue().isEmpty())
                 .collect(ImmutableCollectors.toMap());
 
+        ImmutableList<Map.Entry<MappingAssertionIndex, ImmutableList<TMappingRule>>> remaining = original.entrySet().stream()
+                .filter(e -> !saturated.containsKey(e.getKey()))
+                .collect(ImmutableCollectors.toList());
+
         ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> combined = Stream.concat(
                 saturated.entrySet().stream(),
-                original.entrySet().stream()
-                        .filter(e -> !saturated.containsKey(e.getKey()))
-                        .map(e -> Maps.immutableEntry(e.getKey(), e.getValue().stream()
-                                        .collect(TMappingEntry.toTMappingEntry(cqc, coreSingletons)))))
+                parallelTransformer.transform(remaining, e -> Maps.immutableEntry(e.getKey(),
+                        e.getValue().stream()
+                                .collect(TMappingEntry.toTMappingEntry(cqc, coreSingletons))), RuntimeException.class).stream())
                 .collect(ImmutableCollectors.toMap());
 
-        return combined.entrySet().stream()
-                .map(e -> new MappingAssertion(e.getKey(), toIQ(e.getValue()), null))
-                .collect(ImmutableCollectors.toList());
+        return parallelTransformer.transform(ImmutableList.copyOf(combined.entrySet()),
+                    e -> new MappingAssertion(e.getKey(), toIQ(e.getValue()), null), RuntimeException.class);
     }
 
     private IQ toIQ(Collection<TMappingRule> rules) {
@@ -155,27 +177,57 @@ public class TMappingSaturatorImpl implements MappingSaturator  {
                 .normalizeForOptimization();
     }
 
-    private <T> Function<T, Map.Entry<MappingAssertionIndex, ImmutableList<TMappingRule>>> saturator(Equivalences<T> node,
-                                                     EquivalencesDAG<T> dag,
-                                                     ImmutableMap<MappingAssertionIndex, Collection<TMappingRule>> original,
-                                                     Function<T, TMappingRuleHeadConstructor> constructor,
-                                                     ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc) {
-
-	    IRIConstant iri = constructor.apply(node.getRepresentative()).getIri();
-
-        ImmutableList<TMappingRule> saturatedRepresentative = dag.getSub(node).stream()
-                .flatMap(subnode -> subnode.getMembers().stream())
-                .map(constructor)
-                .flatMap(t -> original.getOrDefault(t.indexOf(), ImmutableList.of()).stream()
-                        .map(m -> new TMappingRule(t.getArguments(m.getHeadTerms(), iri), m)))
-                .collect(TMappingEntry.toTMappingEntry(cqc, coreSingletons));
-
-        return constructor.andThen(
-                t -> Maps.immutableEntry(
-                        t.indexOf(),
-                        saturatedRepresentative.stream()
-                            .map(m -> new TMappingRule(t.getArguments(m.getHeadTerms(), t.getIri()), m))
-                            .collect(ImmutableCollectors.toList())));
+    /**
+     * Saturation of a DAG node: the mapping assertions of all its sub-nodes are merged for the representative
+     * and then copied to each (selected) member of the node.
+     */
+    private class NodeSaturation<T> {
+        private final Equivalences<T> node;
+        private final EquivalencesDAG<T> dag;
+        private final Function<T, TMappingRuleHeadConstructor> constructor;
+        private final Predicate<T> memberFilter;
+
+        NodeSaturation(Equivalences<T> node, EquivalencesDAG<T> dag,
+                       Function<T, TMappingRuleHeadConstructor> constructor, Predicate<T> memberFilter) {
+            this.node = node;
+            this.dag = dag;
+            this.constructor = constructor;
+            this.memberFilter = memberFilter;
+        }
+
+        ImmutableList<Map.Entry<MappingAssertionIndex, ImmutableList<TMappingRule>>> saturate(
+                ImmutableMap<MappingAssertionIndex, ImmutableList<TMappingRule>> original,
+                ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqc) {
+
+            TMappingRuleHeadConstructor representativeConstructor = constructor.apply(node.getRepresentative());
+            IRIConstant iri = representativeConstructor.getIri();
+
+            // members of the sub-nodes (including the node itself) with their mapping assertions
+            ImmutableMap<T, ImmutableList<TMappingRule>> subRules = dag.getSub(node).stream()
+                    .flatMap(subnode -> subnode.getMembers().stream())
+                    .map(m -> Maps.immutableEntry(m,
+                            original.getOrDefault(constructor.apply(m).indexOf(), ImmutableList.<TMappingRule>of())))
+                    .filter(e -> !e.getValue().isEmpty())
+                    .collect(ImmutableCollectors.toMap());
+
+            ImmutableList<TMappingRule> saturatedRepresentative = subRules.entrySet().stream()
+                    .flatMap(e -> {
+                        TMappingRuleHeadConstructor t = constructor.apply(e.getKey());
+                        return e.getValue().stream()
+                                .map(m -> new TMappingRule(t.getArguments(m.getHeadTerms(), iri), m));
+                    })
+                    .collect(TMappingEntry.toTMappingEntry(cqc, coreSingletons));
+
+            return node.getMembers().stream()
+                    .filter(memberFilter)
+                    .map(constructor)
+                    .map(t -> Maps.immutableEntry(
+                            t.indexOf(),
+                            saturatedRepresentative.stream()
+                                    .map(m -> new TMappingRule(t.getArguments(m.getHeadTerms(), t.getIri()), m))
+                                    .collect(ImmutableCollectors.toList())))
+                    .collect(ImmutableCollectors.toList());
+        }
     }
 
     private static abstract class TMappingRuleHeadConstructor {
@@ -0,0 +1,117 @@
+package it.unibz.inf.ontop.spec.mapping;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.impl.OfflineMetadataProviderBuilder;
+import it.unibz.inf.ontop.injection.OntopMappingConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.spec.mapping.transformer.MappingSaturator;
+import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
+import it.unibz.inf.ontop.spec.ontology.InconsistentOntologyException;
+import it.unibz.inf.ontop.spec.ontology.OClass;
+import it.unibz.inf.ontop.spec.ontology.OntologyBuilder;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static it.unibz.inf.ontop.utils.MappingTestingTools.*;
+import static org.junit.Assert.assertEquals;
+
+public class TMappingSaturationTest {
+
+    private static final RelationDefinition TABLE1, TABLE2, TABLE3;
+
+    private static final Variable S = TERM_FACTORY.getVariable("s");
+    private static final Variable P = TERM_FACTORY.getVariable("p");
+    private static final Variable O = TERM_FACTORY.getVariable("o");
+    private static final Variable A = TERM_FACTORY.getVariable("a");
+    private static final Variable B = TERM_FACTORY.getVariable("b");
+
+    private static final ImmutableList<Template.Component> IRI_TEMPLATE = Template.of("http://example.org/item/", 0);
+    private static final IRI CLASS_A = RDF_FACTORY.createIRI("http://example.org/voc#A");
+    private static final IRI CLASS_B = RDF_FACTORY.createIRI("http://example.org/voc#B");
+    private static final IRI CLASS_C = RDF_FACTORY.createIRI("http://example.org/voc#C");
+    private static final IRI CLASS_D = RDF_FACTORY.createIRI("http://example.org/voc#D");
+
+    static {
+        OfflineMetadataProviderBuilder builder = createMetadataProviderBuilder();
+        DBTermType integerDBType = builder.getDBTypeFactory().getDBLargeIntegerType();
+        TABLE1 = builder.createDatabaseRelation("table1",
+                "id", integerDBType, false,
+                "value", integerDBType, true);
+        TABLE2 = builder.createDatabaseRelation("table2",
+                "id", integerDBType, false,
+                "value", integerDBType, true);
+        TABLE3 = builder.createDatabaseRelation("table3",
+                "id", integerDBType, false,
+                "value", integerDBType, true);
+    }
+
+    @Test
+    public void testParallelSaturation() throws Exception {
+        ImmutableList<MappingAssertion> mapping = ImmutableList.of(
+                classAssertion(CLASS_A, TABLE1),
+                classAssertion(CLASS_B, TABLE2),
+                classAssertion(CLASS_D, TABLE3));
+        ClassifiedTBox tbox = createTBox();
+
+        ImmutableMap<MappingAssertionIndex, String> expected = toMap(createSaturator(1).saturate(mapping, tbox));
+        // C gets the assertions of A and B
+        assertEquals(4, expected.size());
+        assertEquals(expected, toMap(createSaturator(4).saturate(mapping, tbox)));
+    }
+
+    private static MappingSaturator createSaturator(int parallelism) {
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSettings.TMAPPING_PARALLELISM, String.valueOf(parallelism));
+
+        OntopMappingConfiguration configuration = OntopMappingConfiguration.defaultBuilder()
+                .properties(properties)
+                .enableTestMode()
+                .build();
+        return configuration.getInjector().getInstance(MappingSaturator.class);
+    }
+
+    /**
+     * A < B < C, D independent
+     */
+    private static ClassifiedTBox createTBox() throws InconsistentOntologyException {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(RDF_FACTORY, TERM_FACTORY);
+        OClass a = builder.declareClass(CLASS_A);
+        OClass b = builder.declareClass(CLASS_B);
+        OClass c = builder.declareClass(CLASS_C);
+        builder.declareClass(CLASS_D);
+        builder.addSubClassOfAxiom(a, b);
+        builder.addSubClassOfAxiom(b, c);
+        return builder.build().tbox();
+    }
+
+    private static MappingAssertion classAssertion(IRI classIRI, RelationDefinition table) {
+        IQ iq = IQ_FACTORY.createIQ(
+                ATOM_FACTORY.getDistinctTripleAtom(S, P, O),
+                IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createConstructionNode(ImmutableSet.of(S, P, O),
+                        SUBSTITUTION_FACTORY.getSubstitution(S, TERM_FACTORY.getIRIFunctionalTerm(IRI_TEMPLATE, ImmutableList.of(A)),
+                                P, TERM_FACTORY.getConstantIRI(RDF.TYPE),
+                                O, TERM_FACTORY.getConstantIRI(classIRI))),
+                        IQ_FACTORY.createExtensionalDataNode(table, ImmutableMap.of(0, A, 1, B))));
+
+        RDFAtomPredicate tp = (RDFAtomPredicate) iq.getProjectionAtom().getPredicate();
+        return new MappingAssertion(MappingAssertionIndex.ofClass(tp, classIRI), iq, null);
+    }
+
+    private static ImmutableMap<MappingAssertionIndex, String> toMap(ImmutableList<MappingAssertion> mapping) {
+        return mapping.stream()
+                .collect(ImmutableCollectors.toMap(MappingAssertion::getIndex, a -> a.getQuery().toString()));
+    }
+}
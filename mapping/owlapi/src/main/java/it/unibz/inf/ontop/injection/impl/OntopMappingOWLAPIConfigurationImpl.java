@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.exception.OntologyException;
 import it.unibz.inf.ontop.injection.OntopMappingOWLAPIConfiguration;
@@ -91,6 +92,25 @@ public class OntopMappingOWLAPIConfigurationImpl extends OntopMappingConfigurati
         return owlOntology;
     }
 
+    /**
+     * Files or URLs the ontology is loaded from (empty if it is given as an OWLOntology object).
+     * The documents imported by the ontology are not included.
+     */
+    Optional<ImmutableMap<String, Optional<URL>>> getOntologyInputs() throws MalformedURLException {
+        if (options.ontology.isPresent())
+            return Optional.empty();
+
+        OntopMappingOntologyOptions ontologyOptions = options.mappingOntologyOptions;
+        Optional<URL> ontologyURL = ontologyOptions.ontologyFile.isPresent()
+                ? Optional.of(ontologyOptions.ontologyFile.get().toURI().toURL())
+                : ontologyOptions.ontologyURL;
+        Optional<URL> xmlCatalogURL = ontologyOptions.xmlCatalogFile.isPresent()
+                ? Optional.of(new File(ontologyOptions.xmlCatalogFile.get()).toURI().toURL())
+                : Optional.empty();
+
+        return Optional.of(ImmutableMap.of("ontology", ontologyURL, "xmlCatalog", xmlCatalogURL));
+    }
+
     Optional<Ontology> loadOntology() throws OntologyException {
         OWLAPITranslatorOWL2QL translator = getInjector().getInstance(OWLAPITranslatorOWL2QL.class);
         try {
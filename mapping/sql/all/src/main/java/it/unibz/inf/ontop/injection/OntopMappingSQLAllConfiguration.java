@@ -1,10 +1,12 @@
 package it.unibz.inf.ontop.injection;
 
+import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.injection.impl.OntopMappingSQLAllConfigurationImpl;
 import org.apache.commons.rdf.api.Graph;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 
 /**
@@ -19,6 +21,14 @@ public interface OntopMappingSQLAllConfiguration extends OntopMappingSQLConfigur
         return new OntopMappingSQLAllConfigurationImpl.BuilderImpl<>();
     }
 
+    /**
+     * Loads the specification (hence validates the inputs) and writes the compiled specification snapshot
+     * that can then be given to the builder (see compiledSpecificationFile()).
+     *
+     * The mapping (and the Ontop views, if any) must be given as files.
+     */
+    void writeCompiledSpecification(@Nonnull File snapshotFile) throws OBDASpecificationException, IOException;
+
     interface OntopMappingSQLAllBuilderFragment<B extends Builder<B>> {
 
         B nativeOntopMappingFile(@Nonnull File mappingFile);
@@ -50,6 +60,15 @@ public interface OntopMappingSQLAllConfiguration extends OntopMappingSQLConfigur
         B ontopViewFile(@Nonnull String ontopViewFilename);
 
         B ontopViewReader(@Nonnull Reader ontopViewReader);
+
+        /**
+         * Snapshot written by writeCompiledSpecification(), used instead of extracting the DB metadata.
+         *
+         * Ignored (with a warning) if it is stale, i.e. if it has been compiled from other inputs.
+         */
+        B compiledSpecificationFile(@Nonnull File snapshotFile);
+
+        B compiledSpecificationFile(@Nonnull String snapshotFilename);
     }
 
     interface Builder<B extends Builder<B>> extends OntopMappingSQLConfiguration.Builder<B>,
@@ -1,26 +1,41 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.exception.InvalidMappingException;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.exception.MappingIOException;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
 import it.unibz.inf.ontop.injection.OntopMappingSQLAllSettings;
+import it.unibz.inf.ontop.spec.dbschema.tools.DBMetadataExtractorAndSerializer;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
 import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.spec.snapshot.CompiledSpecificationSerializer;
+import it.unibz.inf.ontop.spec.snapshot.CompiledSpecificationSnapshot;
 import org.apache.commons.rdf.api.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Optional;
 import java.util.Properties;
 
 public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigurationImpl
         implements OntopMappingSQLAllConfiguration {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(OntopMappingSQLAllConfigurationImpl.class);
 
     private final OntopMappingSQLAllSettings settings;
     private final OntopMappingSQLAllOptions options;
@@ -44,17 +59,156 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
     OBDASpecification loadSpecification(OntologySupplier ontologySupplier)
             throws OBDASpecificationException {
 
+        Optional<CompiledSpecificationSnapshot> snapshot = loadCompiledSpecification();
+
+        if (snapshot.isPresent()) {
+            Optional<OBDASpecification> specification = deserializeSpecification(snapshot.get());
+            if (specification.isPresent())
+                return specification.get();
+        }
+
         return loadSpecification(ontologySupplier,
                 () -> options.mappingFile,
                 () -> options.mappingReader,
                 () -> options.mappingGraph,
                 () -> options.constraintFile,
                 () -> options.dbMetadataFile,
-                () -> options.dbMetadataReader,
+                () -> snapshot.isPresent()
+                        ? Optional.of(snapshot.get().getDBMetadataReader())
+                        : options.dbMetadataReader,
                 () -> options.ontopViewFile,
                 () -> options.ontopViewReader);
     }
 
+    /**
+     * Returns empty if no snapshot is given or if it cannot be used (e.g. stale)
+     */
+    private Optional<CompiledSpecificationSnapshot> loadCompiledSpecification() {
+        if (!options.compiledSpecificationFile.isPresent())
+            return Optional.empty();
+
+        File file = options.compiledSpecificationFile.get();
+        if (options.dbMetadataFile.isPresent() || options.dbMetadataReader.isPresent()) {
+            LOGGER.warn("The compiled specification {} is ignored as the DB metadata is provided", file);
+            return Optional.empty();
+        }
+
+        try {
+            Optional<String> checksum = computeInputChecksum();
+            if (!checksum.isPresent()) {
+                LOGGER.warn("The compiled specification {} is ignored as the mapping, the ontology " +
+                        "or the Ontop views are not provided as files", file);
+                return Optional.empty();
+            }
+
+            CompiledSpecificationSnapshot snapshot = CompiledSpecificationSnapshot.read(file);
+            if (!snapshot.getInputChecksum().equals(checksum.get())) {
+                LOGGER.warn("The compiled specification {} is stale (compiled from other inputs) and is ignored", file);
+                return Optional.empty();
+            }
+            LOGGER.info("Using the compiled specification {}", file);
+            return Optional.of(snapshot);
+        }
+        catch (IOException e) {
+            LOGGER.warn("The compiled specification {} is ignored: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns empty if the snapshot only contains the DB metadata or if the saturated mapping and TBox
+     * cannot be restored: they are then computed again (from the DB metadata of the snapshot).
+     */
+    private Optional<OBDASpecification> deserializeSpecification(CompiledSpecificationSnapshot snapshot) {
+        if (!snapshot.getSpecification().isPresent())
+            return Optional.empty();
+
+        CompiledSpecificationSerializer serializer = getInjector().getInstance(CompiledSpecificationSerializer.class);
+        try (Reader dbMetadataReader = snapshot.getDBMetadataReader()) {
+            Optional<Reader> ontopViewReader = options.ontopViewFile.isPresent()
+                    ? Optional.of(new FileReader(options.ontopViewFile.get()))
+                    : Optional.empty();
+            try {
+                return Optional.of(serializer.deserialize(snapshot.getSpecification().get(), dbMetadataReader,
+                        options.constraintFile, ontopViewReader));
+            }
+            finally {
+                if (ontopViewReader.isPresent())
+                    ontopViewReader.get().close();
+            }
+        }
+        catch (MetadataExtractionException | IOException e) {
+            LOGGER.warn("The saturated mapping and TBox of the compiled specification are computed again: {}",
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Empty if some inputs are not files (or URLs for the ontology)
+     */
+    private Optional<String> computeInputChecksum() throws IOException {
+        Optional<ImmutableMap<String, Optional<URL>>> ontologyInputs = getOntologyInputs();
+        if (!options.mappingFile.isPresent() || options.ontopViewReader.isPresent() || !ontologyInputs.isPresent())
+            return Optional.empty();
+
+        // The DB metadata is not an input: it is part of the snapshot
+        return Optional.of(CompiledSpecificationSnapshot.computeInputChecksum(
+                ImmutableMap.<String, Optional<URL>>builder()
+                        .put("mapping", toURL(options.mappingFile))
+                        .put("constraints", toURL(options.constraintFile))
+                        .put("ontopViews", toURL(options.ontopViewFile))
+                        .putAll(ontologyInputs.get())
+                        .build(),
+                settings));
+    }
+
+    /**
+     * Inputs of the ontology, to be overloaded by the configurations that load one.
+     * Empty if the ontology is not given by files or URLs (the compiled specification cannot be checked then).
+     */
+    Optional<ImmutableMap<String, Optional<URL>>> getOntologyInputs() throws MalformedURLException {
+        return Optional.of(ImmutableMap.of());
+    }
+
+    static Optional<URL> toURL(Optional<File> file) throws MalformedURLException {
+        return file.isPresent()
+                ? Optional.of(file.get().toURI().toURL())
+                : Optional.empty();
+    }
+
+    @Override
+    public void writeCompiledSpecification(@Nonnull File snapshotFile) throws OBDASpecificationException, IOException {
+        String checksum = computeInputChecksum()
+                .orElseThrow(() -> new InvalidOntopConfigurationException(
+                        "The mapping, the ontology and the Ontop views must be provided as files for compiling the specification"));
+
+        OBDASpecification specification = loadSpecification();
+
+        String dbMetadata;
+        if (options.dbMetadataFile.isPresent())
+            dbMetadata = new String(Files.readAllBytes(options.dbMetadataFile.get().toPath()), StandardCharsets.UTF_8);
+        else if (options.dbMetadataReader.isPresent())
+            throw new InvalidOntopConfigurationException("The DB metadata must be provided as a file for compiling the specification");
+        else {
+            DBMetadataExtractorAndSerializer serializer = getInjector().getInstance(DBMetadataExtractorAndSerializer.class);
+            try {
+                // The relations used by the Ontop views are not known: extracts all of them
+                dbMetadata = options.ontopViewFile.isPresent()
+                        ? serializer.extractAndSerialize()
+                        : serializer.extractAndSerialize(loadProvidedPPMapping());
+            }
+            catch (MetadataExtractionException e) {
+                throw new MappingIOException(e);
+            }
+        }
+
+        Optional<JsonNode> serializedSpecification = getInjector().getInstance(CompiledSpecificationSerializer.class)
+                .serialize(specification);
+
+        new CompiledSpecificationSnapshot(checksum, dbMetadata, serializedSpecification).write(snapshotFile);
+    }
+
     @Override
     public Optional<SQLPPMapping> loadPPMapping() throws MappingIOException, InvalidMappingException {
         return loadPPMapping(
@@ -84,6 +238,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
         private final Optional<Reader> dbMetadataReader;
         private final Optional<File> ontopViewFile;
         private final Optional<Reader> ontopViewReader;
+        private final Optional<File> compiledSpecificationFile;
         final OntopMappingSQLOptions mappingSQLOptions;
 
 
@@ -91,6 +246,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
                                   Optional<Graph> mappingGraph, Optional<File> constraintFile,
                                   Optional<File> dbMetadataFile, Optional<Reader> dbMetadataReader,
                                   Optional<File> ontopViewFile, Optional<Reader> ontopViewReader,
+                                  Optional<File> compiledSpecificationFile,
                                   OntopMappingSQLOptions mappingSQLOptions) {
             this.mappingFile = mappingFile;
             this.mappingReader = mappingReader;
@@ -100,6 +256,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
             this.dbMetadataReader = dbMetadataReader;
             this.ontopViewFile = ontopViewFile;
             this.ontopViewReader = ontopViewReader;
+            this.compiledSpecificationFile = compiledSpecificationFile;
             this.mappingSQLOptions = mappingSQLOptions;
         }
     }
@@ -121,6 +278,7 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
         private Optional<Reader> dbMetadataReader = Optional.empty();
         private Optional<File> ontopViewFile = Optional.empty();
         private Optional<Reader> ontopViewReader = Optional.empty();
+        private Optional<File> compiledSpecificationFile = Optional.empty();
         private boolean useR2rml = false;
 
 
@@ -308,6 +466,34 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
             return builder;
         }
 
+        @Override
+        public B compiledSpecificationFile(@Nonnull File snapshotFile) {
+            if (compiledSpecificationFile.isPresent())
+                throw new InvalidOntopConfigurationException("The compiled specification file is already defined");
+            this.compiledSpecificationFile = Optional.of(snapshotFile);
+            return builder;
+        }
+
+        @Override
+        public B compiledSpecificationFile(@Nonnull String snapshotFilename) {
+            try {
+                URI fileURI = new URI(snapshotFilename);
+                String scheme = fileURI.getScheme();
+                if (scheme == null) {
+                    return compiledSpecificationFile(new File(fileURI.getPath()));
+                }
+                else if (scheme.equals("file")) {
+                    return compiledSpecificationFile(new File(fileURI));
+                }
+                else {
+                    throw new InvalidOntopConfigurationException("Currently only local files are supported" +
+                            "as compiled specification files");
+                }
+            } catch (URISyntaxException e) {
+                throw new InvalidOntopConfigurationException("Invalid compiled specification file path: " + e.getMessage());
+            }
+        }
+
 
         protected Properties generateProperties() {
             Properties p = new Properties();
@@ -343,7 +529,8 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
 
         final OntopMappingSQLAllOptions generateMappingSQLAllOptions(OntopMappingSQLOptions mappingOptions) {
                 return new OntopMappingSQLAllOptions(mappingFile, mappingReader, mappingGraph, constraintFile,
-                        dbMetadataFile, dbMetadataReader, ontopViewFile, ontopViewReader, mappingOptions);
+                        dbMetadataFile, dbMetadataReader, ontopViewFile, ontopViewReader, compiledSpecificationFile,
+                        mappingOptions);
         }
 
     }
@@ -437,6 +624,16 @@ public class OntopMappingSQLAllConfigurationImpl extends OntopMappingSQLConfigur
             return localFragmentBuilder.ontopViewReader(ontopViewReader);
         }
 
+        @Override
+        public B compiledSpecificationFile(@Nonnull File snapshotFile) {
+            return localFragmentBuilder.compiledSpecificationFile(snapshotFile);
+        }
+
+        @Override
+        public B compiledSpecificationFile(@Nonnull String snapshotFilename) {
+            return localFragmentBuilder.compiledSpecificationFile(snapshotFilename);
+        }
+
         final OntopMappingSQLAllOptions generateMappingSQLAllOptions() {
             OntopMappingSQLOptions sqlMappingOptions = generateMappingSQLOptions();
             return localFragmentBuilder.generateMappingSQLAllOptions(sqlMappingOptions);
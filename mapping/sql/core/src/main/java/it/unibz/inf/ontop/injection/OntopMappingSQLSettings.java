@@ -3,4 +3,21 @@ package it.unibz.inf.ontop.injection;
 
 public interface OntopMappingSQLSettings extends OntopMappingSettings, OntopSQLCredentialSettings {
 
+    /**
+     * Number of threads used for converting and normalizing the mapping assertions at startup.
+     * 0 means the number of available processors. 1 disables the parallel conversion.
+     */
+    int getStartupParallelism();
+
+    /**
+     * Maximum number of JDBC connections used concurrently for extracting the DB metadata at startup.
+     */
+    int getMetadataConnectionCount();
+
+    //--------------------------
+    // Keys
+    //--------------------------
+
+    String STARTUP_PARALLELISM = "ontop.startup.parallelism";
+    String METADATA_CONNECTIONS = "ontop.startup.metadataConnections";
 }
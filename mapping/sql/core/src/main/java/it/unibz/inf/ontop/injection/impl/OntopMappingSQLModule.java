@@ -10,6 +10,7 @@ import it.unibz.inf.ontop.spec.mapping.SQLPPSourceQueryFactory;
 import it.unibz.inf.ontop.spec.mapping.parser.SQLMappingParser;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMappingConverter;
 import it.unibz.inf.ontop.spec.mapping.pp.impl.MetaMappingExpander;
+import it.unibz.inf.ontop.spec.snapshot.CompiledSpecificationSerializer;
 
 public class OntopMappingSQLModule extends OntopAbstractModule {
 
@@ -31,5 +32,6 @@ public class OntopMappingSQLModule extends OntopAbstractModule {
         bindFromSettings(MappingExtractor.class);
         bindFromSettings(MetaMappingExpander.class);
         bindFromSettings(SQLPPSourceQueryFactory.class);
+        bindFromSettings(CompiledSpecificationSerializer.class);
     }
 }
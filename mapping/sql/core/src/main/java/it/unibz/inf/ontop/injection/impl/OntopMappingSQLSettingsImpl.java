@@ -53,4 +53,15 @@ public class OntopMappingSQLSettingsImpl extends OntopMappingSettingsImpl implem
     public String getJdbcDriver() {
         return sqlSettings.getJdbcDriver();
     }
+
+    @Override
+    public int getStartupParallelism() {
+        int parallelism = getRequiredInteger(STARTUP_PARALLELISM);
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public int getMetadataConnectionCount() {
+        return Math.max(1, getRequiredInteger(METADATA_CONNECTIONS));
+    }
 }
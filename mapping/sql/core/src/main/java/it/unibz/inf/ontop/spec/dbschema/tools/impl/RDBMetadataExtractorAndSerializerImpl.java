@@ -5,11 +5,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.dbschema.ImmutableMetadata;
 import it.unibz.inf.ontop.dbschema.MetadataProvider;
+import it.unibz.inf.ontop.dbschema.impl.CachingMetadataLookup;
 import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
 import it.unibz.inf.ontop.dbschema.impl.json.JsonMetadata;
+import it.unibz.inf.ontop.exception.InvalidMappingSourceQueriesException;
 import it.unibz.inf.ontop.exception.MetadataExtractionException;
 import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
 import it.unibz.inf.ontop.spec.dbschema.tools.DBMetadataExtractorAndSerializer;
+import it.unibz.inf.ontop.spec.mapping.pp.PreProcessedMapping;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMappingConverter;
 import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 
 import java.sql.Connection;
@@ -19,12 +24,15 @@ public class RDBMetadataExtractorAndSerializerImpl implements DBMetadataExtracto
 
     private final OntopSQLCredentialSettings settings;
     private final JDBCMetadataProviderFactory metadataProviderFactory;
+    private final SQLPPMappingConverter ppMappingConverter;
 
     @Inject
     private RDBMetadataExtractorAndSerializerImpl(OntopSQLCredentialSettings settings,
-                                                  JDBCMetadataProviderFactory metadataProviderFactory) {
+                                                  JDBCMetadataProviderFactory metadataProviderFactory,
+                                                  SQLPPMappingConverter ppMappingConverter) {
         this.settings = settings;
         this.metadataProviderFactory = metadataProviderFactory;
+        this.ppMappingConverter = ppMappingConverter;
     }
 
     @Override
@@ -32,15 +40,41 @@ public class RDBMetadataExtractorAndSerializerImpl implements DBMetadataExtracto
 
         try (Connection localConnection = LocalJDBCConnectionUtils.createConnection(settings)) {
             MetadataProvider metadataProvider = metadataProviderFactory.getMetadataProvider(localConnection);
-            ImmutableMetadata metadata = ImmutableMetadata.extractImmutableMetadata(metadataProvider);
+            return serialize(ImmutableMetadata.extractImmutableMetadata(metadataProvider));
+        }
+        catch (SQLException e) {
+            throw new MetadataExtractionException("Connection problem while extracting the metadata.\n" + e);
+        }
+    }
 
-            ObjectMapper mapper = new ObjectMapper();
-            JsonMetadata jsonMetadata = new JsonMetadata(metadata);
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonMetadata);
+    /**
+     * The relations are the ones looked up when converting the source queries of the mapping
+     */
+    @Override
+    public String extractAndSerialize(PreProcessedMapping<?> ppMapping) throws MetadataExtractionException {
+        if (!(ppMapping instanceof SQLPPMapping))
+            throw new IllegalArgumentException("A SQLPPMapping was expected");
+
+        try (Connection localConnection = LocalJDBCConnectionUtils.createConnection(settings)) {
+            MetadataProvider metadataProvider = metadataProviderFactory.getMetadataProvider(localConnection);
+            CachingMetadataLookup metadataLookup = new CachingMetadataLookup(metadataProvider);
+            ppMappingConverter.convert(((SQLPPMapping) ppMapping).getTripleMaps(), metadataLookup);
+            return serialize(metadataLookup.extractImmutableMetadata());
         }
         catch (SQLException e) {
             throw new MetadataExtractionException("Connection problem while extracting the metadata.\n" + e);
         }
+        catch (InvalidMappingSourceQueriesException e) {
+            throw new MetadataExtractionException(e);
+        }
+    }
+
+    private static String serialize(ImmutableMetadata metadata) throws MetadataExtractionException {
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            JsonMetadata jsonMetadata = new JsonMetadata(metadata);
+            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonMetadata);
+        }
         catch (JsonProcessingException e) {
             throw new MetadataExtractionException("problem with JSON processing.\n" + e);
         }
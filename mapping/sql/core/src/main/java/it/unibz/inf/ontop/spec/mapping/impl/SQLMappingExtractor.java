@@ -5,6 +5,7 @@ import com.google.inject.Inject;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.dbschema.impl.CachingMetadataLookup;
 import it.unibz.inf.ontop.dbschema.impl.JDBCMetadataProviderFactory;
+import it.unibz.inf.ontop.dbschema.impl.PooledMetadataProvider;
 import it.unibz.inf.ontop.dbschema.SerializedMetadataProvider;
 import it.unibz.inf.ontop.exception.*;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
@@ -24,14 +25,19 @@ import it.unibz.inf.ontop.spec.mapping.transformer.MappingDatatypeFiller;
 import it.unibz.inf.ontop.iq.type.NotYetTypedEqualityTransformer;
 import it.unibz.inf.ontop.spec.mapping.validation.MappingOntologyComplianceValidator;
 import it.unibz.inf.ontop.spec.ontology.Ontology;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 import it.unibz.inf.ontop.dbschema.OntopViewMetadataProvider;
 import org.apache.commons.rdf.api.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.*;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -39,6 +45,8 @@ import java.util.Optional;
 @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
 public class SQLMappingExtractor implements MappingExtractor {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SQLMappingExtractor.class);
+
     private final SQLPPMappingConverter ppMappingConverter;
     private final OntopMappingSQLSettings settings;
     private final MappingDatatypeFiller mappingDatatypeFiller;
@@ -103,7 +111,11 @@ public class SQLMappingExtractor implements MappingExtractor {
                                           @Nonnull Optional<Ontology> ontology)
             throws MappingException, MetadataExtractionException {
 
-        return convertPPMapping(extractPPMapping(specInput), specInput, ontology);
+        long start = System.currentTimeMillis();
+        SQLPPMapping ppMapping = extractPPMapping(specInput);
+        LOGGER.debug("Mapping parsed in {} ms", System.currentTimeMillis() - start);
+
+        return convertPPMapping(ppMapping, specInput, ontology);
     }
 
     @Override
@@ -141,6 +153,10 @@ public class SQLMappingExtractor implements MappingExtractor {
      * Converts the PPMapping into a Mapping.
      * <p>
      * During the conversion, data types are inferred and mapping assertions are validated
+     * <p>
+     * The DB metadata is extracted over several connections and the mapping assertions are converted
+     * and normalized in parallel (see {@link OntopMappingSQLSettings#getStartupParallelism()}).
+     * The resulting mapping does not depend on the scheduling of the threads.
      */
     protected MappingAndDBParameters convertPPMapping(SQLPPMapping ppMapping,
                                                       OBDASpecInput specInput,
@@ -148,37 +164,53 @@ public class SQLMappingExtractor implements MappingExtractor {
             throws MetaMappingExpansionException, MetadataExtractionException, MappingOntologyMismatchException,
             InvalidMappingSourceQueriesException, UnknownDatatypeException {
 
+        long start = System.currentTimeMillis();
         MappingAndDBParameters mm = convert(ppMapping, specInput);
+        long converted = System.currentTimeMillis();
 
         ImmutableList<MappingAssertion> expMapping = metamappingExpander.transform(mm.getMapping(), mm.getDBParameters());
+        long expanded = System.currentTimeMillis();
 
-        ImmutableList.Builder<MappingAssertion> builder = ImmutableList.builder();
-        // no streams because of exception handling
-        for (MappingAssertion assertion : expMapping) {
-            IQTree tree = assertion.getQuery().getTree();
-            IQTree equalityTransformedTree = mappingEqualityTransformer.transform(tree);
-            IQTree normalizedTree = equalityTransformedTree.normalizeForOptimization(assertion.getQuery().getVariableGenerator());
-            IQTree noNullTree = noNullValueEnforcer.transform(normalizedTree);
-            if (noNullTree.isDeclaredAsEmpty())
-                continue;
-
-            MappingAssertion noNullAssertion = assertion.copyOf(noNullTree, iqFactory);
-            MappingAssertion filledProvAssertion = mappingDatatypeFiller.transform(noNullAssertion);
-            MappingAssertion castAssertion = mappingCaster.transform(filledProvAssertion);
-            builder.add(castAssertion);
-        }
+        ImmutableList<MappingAssertion> castMapping = new ParallelMappingTransformer(settings.getStartupParallelism())
+                .transform(expMapping, this::normalize, UnknownDatatypeException.class).stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(ImmutableCollectors.toList());
+        long normalized = System.currentTimeMillis();
 
-        ImmutableList<MappingAssertion> castMapping = builder.build();
         ImmutableList<MappingAssertion> canonizedMapping = canonicalTransformer.transform(castMapping);
+        long canonized = System.currentTimeMillis();
 
         // Validation: Mismatch between the ontology and the mapping
         if (optionalOntology.isPresent()) {
             ontologyComplianceValidator.validate(canonizedMapping, optionalOntology.get());
         }
+        long validated = System.currentTimeMillis();
+
+        LOGGER.info("Mapping of {} assertions processed in {} ms (DB metadata and conversion: {} ms, " +
+                        "meta-mapping expansion: {} ms, normalization: {} ms, canonicalization: {} ms, validation: {} ms)",
+                canonizedMapping.size(), validated - start, converted - start, expanded - converted,
+                normalized - expanded, canonized - normalized, validated - canonized);
 
         return new MappingAndDBParametersImpl(canonizedMapping, mm.getDBParameters());
     }
 
+    /**
+     * Returns empty if the assertion cannot produce any triple
+     */
+    private Optional<MappingAssertion> normalize(MappingAssertion assertion) throws UnknownDatatypeException {
+        IQTree tree = assertion.getQuery().getTree();
+        IQTree equalityTransformedTree = mappingEqualityTransformer.transform(tree);
+        IQTree normalizedTree = equalityTransformedTree.normalizeForOptimization(assertion.getQuery().getVariableGenerator());
+        IQTree noNullTree = noNullValueEnforcer.transform(normalizedTree);
+        if (noNullTree.isDeclaredAsEmpty())
+            return Optional.empty();
+
+        MappingAssertion noNullAssertion = assertion.copyOf(noNullTree, iqFactory);
+        MappingAssertion filledProvAssertion = mappingDatatypeFiller.transform(noNullAssertion);
+        return Optional.of(mappingCaster.transform(filledProvAssertion));
+    }
+
     private MappingAndDBParameters convert(SQLPPMapping ppMapping, OBDASpecInput specInput)
             throws MetaMappingExpansionException, MetadataExtractionException, InvalidMappingSourceQueriesException {
         try {
@@ -201,18 +233,58 @@ public class SQLMappingExtractor implements MappingExtractor {
                             serializedMetadataProviderFactory.getMetadataProvider(dbMetadataReader));
                 }
             }
-            else {
+            else if (ontopViewReader.isPresent()) {
                 try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings)) {
                     return convert(mapping, constraintFile, ontopViewReader,
                             metadataProviderFactory.getMetadataProvider(connection));
                 }
             }
+            else
+                return convertOverConnections(mapping, constraintFile);
         }
         catch (IOException | SQLException e) {
             throw new MetadataExtractionException(e);
         }
     }
 
+    /**
+     * The DB metadata is extracted concurrently over several connections,
+     * each of them having its own metadata provider.
+     */
+    private MappingAndDBParameters convertOverConnections(ImmutableList<SQLPPTriplesMap> mapping,
+                                                          Optional<File> constraintFile)
+            throws MetadataExtractionException, InvalidMappingSourceQueriesException, SQLException {
+
+        int connectionCount = Math.max(1, Math.min(mapping.size(),
+                Math.min(settings.getMetadataConnectionCount(), settings.getStartupParallelism())));
+
+        List<Connection> connections = new ArrayList<>(connectionCount);
+        try {
+            ImmutableList.Builder<MetadataProvider> providers = ImmutableList.builder();
+            for (int i = 0; i < connectionCount; i++) {
+                Connection connection = LocalJDBCConnectionUtils.createConnection(settings);
+                connections.add(connection);
+                providers.add(implicitDBConstraintExtractor.extract(constraintFile,
+                        metadataProviderFactory.getMetadataProvider(connection)));
+            }
+            PooledMetadataProvider metadataProvider = new PooledMetadataProvider(providers.build());
+            return convert(mapping, metadataProvider, metadataProvider.getDBParameters());
+        }
+        finally {
+            SQLException exception = null;
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                }
+                catch (SQLException e) {
+                    exception = e;
+                }
+            }
+            if (exception != null)
+                throw exception;
+        }
+    }
+
     private MappingAndDBParameters convert(ImmutableList<SQLPPTriplesMap> mapping, Optional<File> constraintFile, 
                                            Optional<Reader> ontopViewReader, MetadataProvider dbMetadataProvider) throws MetadataExtractionException, InvalidMappingSourceQueriesException {
         
@@ -231,12 +303,20 @@ public class SQLMappingExtractor implements MappingExtractor {
         MetadataProvider withImplicitConstraintsMetadataProvider =
                 implicitDBConstraintExtractor.extract(constraintFile, metadataProvider);
 
-        CachingMetadataLookup metadataLookup = new CachingMetadataLookup(withImplicitConstraintsMetadataProvider);
+        // The provider is not thread-safe: the calls are serialized
+        return convert(mapping, new PooledMetadataProvider(ImmutableList.of(withImplicitConstraintsMetadataProvider)),
+                metadataProvider.getDBParameters());
+    }
+
+    private MappingAndDBParameters convert(ImmutableList<SQLPPTriplesMap> mapping, MetadataProvider metadataProvider,
+                                           DBParameters dbParameters) throws MetadataExtractionException, InvalidMappingSourceQueriesException {
+
+        CachingMetadataLookup metadataLookup = new CachingMetadataLookup(metadataProvider);
         ImmutableList<MappingAssertion> provMapping = ppMappingConverter.convert(mapping, metadataLookup);
 
         metadataLookup.extractImmutableMetadata(); // inserts integrity constraints
 
-        return new MappingAndDBParametersImpl(provMapping, metadataProvider.getDBParameters());
+        return new MappingAndDBParametersImpl(provMapping, dbParameters);
     }
 
     private static class MappingAndDBParametersImpl implements MappingAndDBParameters {
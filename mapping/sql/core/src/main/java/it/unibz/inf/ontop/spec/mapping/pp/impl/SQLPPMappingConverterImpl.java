@@ -10,10 +10,12 @@ import it.unibz.inf.ontop.exception.InvalidMappingSourceQueriesException;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.spec.mapping.MappingAssertion;
 import it.unibz.inf.ontop.spec.mapping.TargetAtom;
+import it.unibz.inf.ontop.spec.mapping.impl.ParallelMappingTransformer;
 import it.unibz.inf.ontop.spec.sqlparser.*;
 import it.unibz.inf.ontop.spec.sqlparser.exception.InvalidSelectQueryException;
 import it.unibz.inf.ontop.spec.mapping.pp.PPMappingAssertionProvenance;
@@ -42,38 +44,51 @@ public class SQLPPMappingConverterImpl implements SQLPPMappingConverter {
     private final SubstitutionFactory substitutionFactory;
     private final SQLQueryParser sqlQueryParser;
     private final RAExpression2IQConverter raExpression2IQConverter;
+    private final OntopMappingSQLSettings settings;
 
     @Inject
     private SQLPPMappingConverterImpl(CoreSingletons coreSingletons, SQLQueryParser sqlQueryParser,
-                                      RAExpression2IQConverter raExpression2IQConverter) {
+                                      RAExpression2IQConverter raExpression2IQConverter,
+                                      OntopMappingSQLSettings settings) {
         this.iqFactory = coreSingletons.getIQFactory();
         this.substitutionFactory = coreSingletons.getSubstitutionFactory();
         this.sqlQueryParser = sqlQueryParser;
         this.raExpression2IQConverter = raExpression2IQConverter;
+        this.settings = settings;
     }
 
+    /**
+     * The triples maps are converted in parallel (the metadata lookup must be thread-safe),
+     * the result keeping the order of the mapping.
+     */
     @Override
     public ImmutableList<MappingAssertion> convert(ImmutableList<SQLPPTriplesMap> mapping, MetadataLookup metadataLookup) throws InvalidMappingSourceQueriesException {
 
-        ImmutableList.Builder<MappingAssertion> builder = ImmutableList.builder();
-        for (SQLPPTriplesMap assertion : mapping) {
-            RAExpression re = getRAExpression(assertion, metadataLookup);
-            IQTree tree = raExpression2IQConverter.convert(re);
-
-            Function<Variable, Optional<ImmutableTerm>> lookup = placeholderLookup(assertion, metadataLookup.getQuotedIDFactory(), re.getUnqualifiedAttributes());
+        ImmutableList<ImmutableList<MappingAssertion>> assertions = new ParallelMappingTransformer(settings.getStartupParallelism())
+                .transform(mapping, a -> convert(a, metadataLookup), InvalidMappingSourceQueriesException.class);
 
-            for (TargetAtom target : assertion.getTargetAtoms()) {
-                PPMappingAssertionProvenance provenance = assertion.getMappingAssertionProvenance(target);
-                builder.add(convert(target, lookup, provenance, tree));
-            }
-        }
-
-        ImmutableList<MappingAssertion> result = builder.build();
+        ImmutableList<MappingAssertion> result = assertions.stream()
+                .flatMap(Collection::stream)
+                .collect(ImmutableCollectors.toList());
         LOGGER.debug("Original mapping size: {}", result.size());
         return result;
     }
 
 
+    private ImmutableList<MappingAssertion> convert(SQLPPTriplesMap assertion, MetadataLookup metadataLookup) throws InvalidMappingSourceQueriesException {
+        RAExpression re = getRAExpression(assertion, metadataLookup);
+        IQTree tree = raExpression2IQConverter.convert(re);
+
+        Function<Variable, Optional<ImmutableTerm>> lookup = placeholderLookup(assertion, metadataLookup.getQuotedIDFactory(), re.getUnqualifiedAttributes());
+
+        ImmutableList.Builder<MappingAssertion> builder = ImmutableList.builder();
+        for (TargetAtom target : assertion.getTargetAtoms()) {
+            PPMappingAssertionProvenance provenance = assertion.getMappingAssertionProvenance(target);
+            builder.add(convert(target, lookup, provenance, tree));
+        }
+        return builder.build();
+    }
+
     private static <T> Function<Variable, Optional<T>> placeholderLookup(SQLPPTriplesMap mappingAssertion, QuotedIDFactory idFactory, ImmutableMap<QuotedID, T> lookup) {
         Function<Variable, Optional<T>> standard =
                 v -> Optional.ofNullable(lookup.get(idFactory.createAttributeID(v.getName())));
@@ -0,0 +1,34 @@
+package it.unibz.inf.ontop.spec.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Optional;
+
+/**
+ * Serializes the compiled artefacts of an OBDA specification (saturated mapping and classified TBox)
+ * so that they can be loaded without converting the mapping, classifying the ontology and saturating
+ * the mapping again.
+ *
+ * The DB metadata is serialized separately (see CompiledSpecificationSnapshot): the relations of the mapping
+ * are looked up in it when deserializing.
+ */
+public interface CompiledSpecificationSerializer {
+
+    /**
+     * Returns empty if the specification cannot be serialized faithfully
+     * (e.g. it uses function symbols that are specific to some optimizations)
+     */
+    Optional<JsonNode> serialize(OBDASpecification specification);
+
+    /**
+     * Throws an IOException if the serialized specification is invalid or does not match the DB metadata
+     */
+    OBDASpecification deserialize(JsonNode serializedSpecification, Reader dbMetadataReader,
+                                  Optional<File> constraintFile, Optional<Reader> ontopViewReader)
+            throws MetadataExtractionException, IOException;
+}
@@ -0,0 +1,195 @@
+package it.unibz.inf.ontop.spec.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import it.unibz.inf.ontop.injection.OntopSQLCoreSettings;
+import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot of the parts of the OBDA specification that require accessing the database,
+ * written by "ontop compile" and loaded instead of extracting them again at startup.
+ *
+ * It contains the DB metadata of the relations used by the mapping and, when it can be serialized
+ * (see CompiledSpecificationSerializer), the saturated mapping and the classified TBox.
+ *
+ * The snapshot is a gzipped JSON document carrying a format version and a checksum of the inputs
+ * it has been compiled from (mapping, ontology, implicit constraints, DB metadata and Ontop view files,
+ * all the settings but the JDBC password, and the version of Ontop), so that a stale snapshot can be detected.
+ * Note that changes of the DB schema and of the documents imported by the ontology are not detected:
+ * the snapshot must be compiled again.
+ */
+public class CompiledSpecificationSnapshot {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final String FORMAT_VERSION_KEY = "formatVersion";
+    private static final String INPUT_CHECKSUM_KEY = "inputChecksum";
+    private static final String CREATION_TIME_KEY = "creationTime";
+    private static final String DB_METADATA_KEY = "dbMetadata";
+    private static final String SPECIFICATION_KEY = "specification";
+
+    private static final String ONTOP_VERSION_RESOURCE = "ontop-version.properties";
+    private static final String UNKNOWN_ONTOP_VERSION = "unknown";
+
+    private final String inputChecksum;
+    private final String dbMetadata;
+    private final Optional<JsonNode> specification;
+
+    public CompiledSpecificationSnapshot(String inputChecksum, String dbMetadata, Optional<JsonNode> specification) {
+        this.inputChecksum = inputChecksum;
+        this.dbMetadata = dbMetadata;
+        this.specification = specification;
+    }
+
+    public String getInputChecksum() {
+        return inputChecksum;
+    }
+
+    /**
+     * DB metadata in the JSON format of the serialized metadata provider
+     */
+    public Reader getDBMetadataReader() {
+        return new StringReader(dbMetadata);
+    }
+
+    /**
+     * Serialized saturated mapping and classified TBox (see CompiledSpecificationSerializer)
+     */
+    public Optional<JsonNode> getSpecification() {
+        return specification;
+    }
+
+    public void write(File file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put(FORMAT_VERSION_KEY, FORMAT_VERSION);
+        root.put(INPUT_CHECKSUM_KEY, inputChecksum);
+        root.put(CREATION_TIME_KEY, Instant.now().toString());
+        root.set(DB_METADATA_KEY, mapper.readTree(dbMetadata));
+        specification.ifPresent(n -> root.set(SPECIFICATION_KEY, n));
+
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            mapper.writeValue(out, root);
+        }
+    }
+
+    /**
+     * Throws an IOException if the file is not a snapshot in the current format
+     */
+    public static CompiledSpecificationSnapshot read(File file) throws IOException {
+        JsonNode root;
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            root = new ObjectMapper().readTree(in);
+        }
+        catch (JsonProcessingException e) {
+            throw new IOException("Invalid compiled specification " + file + ": " + e.getMessage(), e);
+        }
+
+        JsonNode formatVersion = root.get(FORMAT_VERSION_KEY);
+        if (formatVersion == null || formatVersion.asInt() != FORMAT_VERSION)
+            throw new IOException("Unsupported format of the compiled specification " + file
+                    + " (expected version " + FORMAT_VERSION + ")");
+
+        JsonNode inputChecksum = root.get(INPUT_CHECKSUM_KEY);
+        JsonNode dbMetadata = root.get(DB_METADATA_KEY);
+        if (inputChecksum == null || dbMetadata == null)
+            throw new IOException("Incomplete compiled specification " + file);
+
+        return new CompiledSpecificationSnapshot(inputChecksum.asText(), dbMetadata.toString(),
+                Optional.ofNullable(root.get(SPECIFICATION_KEY)));
+    }
+
+    /**
+     * SHA-256 checksum of the given inputs (absent ones included), of the settings (but the JDBC password)
+     * and of the version of Ontop
+     */
+    public static String computeInputChecksum(ImmutableMap<String, Optional<URL>> inputs,
+                                              OntopSQLCoreSettings settings) throws IOException {
+        return computeInputChecksum(inputs, settings, getOntopVersion());
+    }
+
+    /**
+     * The saturated mapping and the TBox depend on the implementation, which may change from one version
+     * of Ontop to the next without the serialization format changing
+     */
+    static String computeInputChecksum(ImmutableMap<String, Optional<URL>> inputs,
+                                       OntopSQLCoreSettings settings, String ontopVersion) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, "format:" + FORMAT_VERSION);
+        update(digest, "ontop:" + ontopVersion);
+        for (Map.Entry<String, Optional<URL>> e : inputs.entrySet()) {
+            update(digest, e.getKey());
+            if (e.getValue().isPresent()) {
+                try (InputStream in = e.getValue().get().openStream()) {
+                    byte[] buffer = new byte[8192];
+                    int length;
+                    while ((length = in.read(buffer)) != -1)
+                        digest.update(buffer, 0, length);
+                }
+            }
+            else
+                update(digest, "-");
+        }
+        // Includes the default values, which may change with the version of Ontop
+        for (Map.Entry<String, String> e : ImmutableSortedMap.copyOf(settings.getPropertyMap()).entrySet()) {
+            if (e.getKey().equals(OntopSQLCredentialSettings.JDBC_PASSWORD))
+                continue;
+            update(digest, e.getKey());
+            update(digest, e.getValue());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest())
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * From the resource filtered by Maven, or from the manifest of the jar when the resource is not available
+     */
+    static String getOntopVersion() {
+        try (InputStream in = CompiledSpecificationSnapshot.class.getResourceAsStream(ONTOP_VERSION_RESOURCE)) {
+            if (in != null) {
+                Properties properties = new Properties();
+                properties.load(in);
+                String version = properties.getProperty("version");
+                if (version != null && !version.startsWith("${"))
+                    return version;
+            }
+        }
+        catch (IOException e) {
+            // falls back to the manifest
+        }
+        return Optional.ofNullable(CompiledSpecificationSnapshot.class.getPackage())
+                .map(Package::getImplementationVersion)
+                .orElse(UNKNOWN_ONTOP_VERSION);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
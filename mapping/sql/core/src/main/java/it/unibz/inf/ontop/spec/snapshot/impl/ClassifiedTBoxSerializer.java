@@ -0,0 +1,396 @@
+package it.unibz.inf.ontop.spec.snapshot.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.*;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.ClassifiedTBoxImpl;
+import it.unibz.inf.ontop.spec.ontology.impl.EquivalencesDAGImpl;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * JSON serialization of a classified TBox: its vocabulary, its four DAGs and the other axioms.
+ *
+ * The DAGs are restored as they are (no classification). The output is deterministic (sorted),
+ * so that the serializer can check a deserialized TBox by serializing it again.
+ *
+ * Ontology expressions are encoded as strings made of a kind letter followed by the IRIs:
+ *   C class, O object property, I inverse object property, D data property,
+ *   E (followed by O or I) object some-values-from, S data some-values-from (property and datatype),
+ *   T datatype and R range of a data property.
+ */
+class ClassifiedTBoxSerializer {
+
+    private static final String CLASSES = "classes";
+    private static final String OBJECT_PROPERTIES = "objectProperties";
+    private static final String AUXILIARY_OBJECT_PROPERTIES = "auxiliaryObjectProperties";
+    private static final String DATA_PROPERTIES = "dataProperties";
+    private static final String CLASS_DAG = "classDAG";
+    private static final String OBJECT_PROPERTY_DAG = "objectPropertyDAG";
+    private static final String DATA_PROPERTY_DAG = "dataPropertyDAG";
+    private static final String DATA_RANGE_DAG = "dataRangeDAG";
+    private static final String DISJOINT_CLASSES = "disjointClasses";
+    private static final String DISJOINT_OBJECT_PROPERTIES = "disjointObjectProperties";
+    private static final String DISJOINT_DATA_PROPERTIES = "disjointDataProperties";
+    private static final String REFLEXIVE_OBJECT_PROPERTIES = "reflexiveObjectProperties";
+    private static final String IRREFLEXIVE_OBJECT_PROPERTIES = "irreflexiveObjectProperties";
+    private static final String FUNCTIONAL_OBJECT_PROPERTIES = "functionalObjectProperties";
+    private static final String FUNCTIONAL_DATA_PROPERTIES = "functionalDataProperties";
+
+    private static final String VERTICES = "vertices";
+    private static final String EDGES = "edges";
+    private static final String MEMBERS = "members";
+    private static final String REPRESENTATIVE = "representative";
+    private static final String INDEXED = "indexed";
+
+    // see OntologyBuilderImpl
+    private static final String AUXILIARY_PROPERTY_PREFIX = "urn:AUX.ROLE";
+
+    private final RDF rdfFactory;
+    private final TermFactory termFactory;
+    private final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    ClassifiedTBoxSerializer(RDF rdfFactory, TermFactory termFactory) {
+        this.rdfFactory = rdfFactory;
+        this.termFactory = termFactory;
+    }
+
+    /**
+     * The annotation properties are not part of the classified TBox
+     */
+    ObjectNode serialize(ClassifiedTBox tbox) {
+        ObjectNode node = nodeFactory.objectNode();
+        node.set(CLASSES, toSortedArray(stream(tbox.classes()).map(c -> c.getIRI().getIRIString())));
+        node.set(OBJECT_PROPERTIES, toSortedArray(stream(tbox.objectProperties())
+                .map(p -> p.getIRI().getIRIString())));
+        node.set(DATA_PROPERTIES, toSortedArray(stream(tbox.dataProperties()).map(p -> p.getIRI().getIRIString())));
+
+        // Auxiliary properties only appear in the DAG
+        ImmutableList<String> auxiliaryProperties = tbox.objectPropertiesDAG().stream()
+                .flatMap(Equivalences::stream)
+                .filter(p -> !p.isInverse() && !tbox.objectProperties().contains(p.getIRI()))
+                .map(p -> p.getIRI().getIRIString())
+                .distinct()
+                .sorted(Comparator.comparing(ClassifiedTBoxSerializer::getAuxiliaryPropertyNumber))
+                .collect(ImmutableCollectors.toList());
+        node.set(AUXILIARY_OBJECT_PROPERTIES, toArray(auxiliaryProperties.stream()));
+
+        node.set(CLASS_DAG, serialize(tbox.classesDAG(), this::encode));
+        node.set(OBJECT_PROPERTY_DAG, serialize(tbox.objectPropertiesDAG(), this::encode));
+        node.set(DATA_PROPERTY_DAG, serialize(tbox.dataPropertiesDAG(), this::encode));
+        node.set(DATA_RANGE_DAG, serialize(tbox.dataRangesDAG(), this::encode));
+
+        node.set(DISJOINT_CLASSES, serializeAxioms(tbox.disjointClasses(), this::encode));
+        node.set(DISJOINT_OBJECT_PROPERTIES, serializeAxioms(tbox.disjointObjectProperties(), this::encode));
+        node.set(DISJOINT_DATA_PROPERTIES, serializeAxioms(tbox.disjointDataProperties(), this::encode));
+
+        node.set(REFLEXIVE_OBJECT_PROPERTIES, toSortedArray(tbox.reflexiveObjectProperties().stream()
+                .map(this::encode)));
+        node.set(IRREFLEXIVE_OBJECT_PROPERTIES, toSortedArray(tbox.irreflexiveObjectProperties().stream()
+                .map(this::encode)));
+        node.set(FUNCTIONAL_OBJECT_PROPERTIES, toSortedArray(tbox.functionalObjectProperties().stream()
+                .map(this::encode)));
+        node.set(FUNCTIONAL_DATA_PROPERTIES, toSortedArray(tbox.functionalDataProperties().stream()
+                .map(this::encode)));
+        return node;
+    }
+
+    ClassifiedTBox deserialize(JsonNode node) throws InvalidSnapshotException {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(rdfFactory, termFactory);
+
+        // the top and bottom entities are already declared by the builder
+        for (String iri : strings(node, CLASSES)) {
+            if (!builder.classes().contains(rdfFactory.createIRI(iri)))
+                builder.declareClass(rdfFactory.createIRI(iri));
+        }
+        for (String iri : strings(node, OBJECT_PROPERTIES)) {
+            if (!builder.objectProperties().contains(rdfFactory.createIRI(iri)))
+                builder.declareObjectProperty(rdfFactory.createIRI(iri));
+        }
+        for (String iri : strings(node, DATA_PROPERTIES)) {
+            if (!builder.dataProperties().contains(rdfFactory.createIRI(iri)))
+                builder.declareDataProperty(rdfFactory.createIRI(iri));
+        }
+
+        Map<String, ObjectPropertyExpression> auxiliaryProperties = new HashMap<>();
+        for (String iri : strings(node, AUXILIARY_OBJECT_PROPERTIES)) {
+            int number = getAuxiliaryPropertyNumber(iri);
+            ObjectPropertyExpression property;
+            // the builder numbers the auxiliary properties consecutively
+            do {
+                property = builder.createAuxiliaryObjectProperty();
+            } while (getAuxiliaryPropertyNumber(property.getIRI().getIRIString()) < number);
+            if (!property.getIRI().getIRIString().equals(iri))
+                throw new InvalidSnapshotException("Unexpected auxiliary property " + iri);
+            auxiliaryProperties.put(iri, property);
+        }
+
+        Decoder decoder = new Decoder(builder, auxiliaryProperties);
+        return ClassifiedTBoxImpl.create(
+                builder.classes(),
+                builder.objectProperties(),
+                builder.dataProperties(),
+                builder.annotationProperties(),
+                deserializeDAG(node.get(CLASS_DAG), decoder::decodeClassExpression),
+                deserializeDAG(node.get(OBJECT_PROPERTY_DAG), decoder::decodeObjectProperty),
+                deserializeDAG(node.get(DATA_PROPERTY_DAG), decoder::decodeDataProperty),
+                deserializeDAG(node.get(DATA_RANGE_DAG), decoder::decodeDataRange),
+                deserializeAxioms(node.get(DISJOINT_CLASSES), decoder::decodeClassExpression),
+                deserializeAxioms(node.get(DISJOINT_OBJECT_PROPERTIES), decoder::decodeObjectProperty),
+                deserializeAxioms(node.get(DISJOINT_DATA_PROPERTIES), decoder::decodeDataProperty),
+                decode(node.get(REFLEXIVE_OBJECT_PROPERTIES), decoder::decodeObjectProperty),
+                decode(node.get(IRREFLEXIVE_OBJECT_PROPERTIES), decoder::decodeObjectProperty),
+                decode(node.get(FUNCTIONAL_OBJECT_PROPERTIES), decoder::decodeObjectProperty),
+                decode(node.get(FUNCTIONAL_DATA_PROPERTIES), decoder::decodeDataProperty));
+    }
+
+    private static int getAuxiliaryPropertyNumber(String iri) {
+        try {
+            return Integer.parseInt(iri.substring(AUXILIARY_PROPERTY_PREFIX.length()));
+        }
+        catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new UnsupportedSpecificationException("Unexpected object property " + iri);
+        }
+    }
+
+    /*
+     * DAGs: the vertices are sorted by their smallest member, the edges lead to the direct super-vertices
+     */
+
+    private <T> ObjectNode serialize(EquivalencesDAG<T> dag, Function<T, String> encoder) {
+        ImmutableMap<Equivalences<T>, ImmutableList<String>> members = dag.stream()
+                .collect(ImmutableCollectors.toMap(v -> v, v -> v.stream()
+                        .map(encoder)
+                        .sorted()
+                        .collect(ImmutableCollectors.toList())));
+
+        ImmutableList<Equivalences<T>> vertices = members.entrySet().stream()
+                .sorted(Comparator.comparing(e -> e.getValue().get(0)))
+                .map(Map.Entry::getKey)
+                .collect(ImmutableCollectors.toList());
+
+        Map<Equivalences<T>, Integer> indexes = new HashMap<>();
+        ArrayNode vertexArray = nodeFactory.arrayNode();
+        for (Equivalences<T> vertex : vertices) {
+            indexes.put(vertex, indexes.size());
+            ObjectNode vertexNode = nodeFactory.objectNode();
+            vertexNode.set(MEMBERS, toArray(members.get(vertex).stream()));
+            if (vertex.getRepresentative() != null)
+                vertexNode.put(REPRESENTATIVE, encoder.apply(vertex.getRepresentative()));
+            vertexNode.put(INDEXED, vertex.isIndexed());
+            vertexArray.add(vertexNode);
+        }
+
+        ArrayNode edgeArray = nodeFactory.arrayNode();
+        for (Equivalences<T> vertex : vertices) {
+            dag.getDirectSuper(vertex).stream()
+                    .map(indexes::get)
+                    .sorted()
+                    .forEach(i -> edgeArray.add(nodeFactory.arrayNode()
+                            .add(indexes.get(vertex))
+                            .add(i)));
+        }
+
+        ObjectNode node = nodeFactory.objectNode();
+        node.set(VERTICES, vertexArray);
+        node.set(EDGES, edgeArray);
+        return node;
+    }
+
+    private <T> EquivalencesDAGImpl<T> deserializeDAG(JsonNode node, ExpressionDecoder<T> decoder)
+            throws InvalidSnapshotException {
+        ImmutableList.Builder<Equivalences<T>> vertexBuilder = ImmutableList.builder();
+        for (JsonNode vertexNode : array(node, VERTICES)) {
+            ImmutableSet.Builder<T> memberBuilder = ImmutableSet.builder();
+            for (JsonNode member : array(vertexNode, MEMBERS))
+                memberBuilder.add(decoder.decode(member.asText()));
+
+            JsonNode representative = vertexNode.get(REPRESENTATIVE);
+            vertexBuilder.add(new Equivalences<>(memberBuilder.build(),
+                    representative == null ? null : decoder.decode(representative.asText()),
+                    vertexNode.path(INDEXED).asBoolean()));
+        }
+        ImmutableList<Equivalences<T>> vertices = vertexBuilder.build();
+
+        ImmutableMultimap.Builder<Equivalences<T>, Equivalences<T>> edgeBuilder = ImmutableMultimap.builder();
+        for (JsonNode edge : array(node, EDGES)) {
+            int source = edge.path(0).asInt(-1), target = edge.path(1).asInt(-1);
+            if (source < 0 || source >= vertices.size() || target < 0 || target >= vertices.size())
+                throw new InvalidSnapshotException("Invalid DAG edge " + edge);
+            edgeBuilder.put(vertices.get(source), vertices.get(target));
+        }
+        return EquivalencesDAGImpl.create(vertices, edgeBuilder.build());
+    }
+
+    private <T> ArrayNode serializeAxioms(ImmutableList<NaryAxiom<T>> axioms, Function<T, String> encoder) {
+        ArrayNode array = nodeFactory.arrayNode();
+        for (NaryAxiom<T> axiom : axioms)
+            array.add(toArray(axiom.getComponents().stream().map(encoder)));
+        return array;
+    }
+
+    private <T> ImmutableList<ImmutableList<T>> deserializeAxioms(JsonNode node, ExpressionDecoder<T> decoder)
+            throws InvalidSnapshotException {
+        ImmutableList.Builder<ImmutableList<T>> builder = ImmutableList.builder();
+        for (JsonNode axiom : elements(node)) {
+            ImmutableList.Builder<T> componentBuilder = ImmutableList.builder();
+            for (JsonNode component : elements(axiom))
+                componentBuilder.add(decoder.decode(component.asText()));
+            builder.add(componentBuilder.build());
+        }
+        return builder.build();
+    }
+
+    private <T> ImmutableSet<T> decode(JsonNode node, ExpressionDecoder<T> decoder) throws InvalidSnapshotException {
+        ImmutableSet.Builder<T> builder = ImmutableSet.builder();
+        for (JsonNode element : elements(node))
+            builder.add(decoder.decode(element.asText()));
+        return builder.build();
+    }
+
+    /*
+     * Expressions
+     */
+
+    private String encode(ClassExpression expression) {
+        if (expression instanceof OClass)
+            return "C " + ((OClass) expression).getIRI().getIRIString();
+        if (expression instanceof ObjectSomeValuesFrom)
+            return "E" + encode(((ObjectSomeValuesFrom) expression).getProperty());
+        if (expression instanceof DataSomeValuesFrom) {
+            DataSomeValuesFrom some = (DataSomeValuesFrom) expression;
+            return "S " + some.getProperty().getIRI().getIRIString() + " " + some.getDatatype().getIRI().getIRIString();
+        }
+        throw new UnsupportedSpecificationException("Unsupported class expression " + expression);
+    }
+
+    private String encode(ObjectPropertyExpression property) {
+        return (property.isInverse() ? "I " : "O ") + property.getIRI().getIRIString();
+    }
+
+    private String encode(DataPropertyExpression property) {
+        return "D " + property.getIRI().getIRIString();
+    }
+
+    private String encode(DataRangeExpression expression) {
+        if (expression instanceof Datatype)
+            return "T " + ((Datatype) expression).getIRI().getIRIString();
+        if (expression instanceof DataPropertyRangeExpression)
+            return "R " + ((DataPropertyRangeExpression) expression).getProperty().getIRI().getIRIString();
+        throw new UnsupportedSpecificationException("Unsupported data range expression " + expression);
+    }
+
+    @FunctionalInterface
+    private interface ExpressionDecoder<T> {
+        T decode(String encoding) throws InvalidSnapshotException;
+    }
+
+    private class Decoder {
+        private final OntologyBuilder builder;
+        private final Map<String, ObjectPropertyExpression> auxiliaryProperties;
+
+        Decoder(OntologyBuilder builder, Map<String, ObjectPropertyExpression> auxiliaryProperties) {
+            this.builder = builder;
+            this.auxiliaryProperties = auxiliaryProperties;
+        }
+
+        ClassExpression decodeClassExpression(String encoding) throws InvalidSnapshotException {
+            switch (encoding.charAt(0)) {
+                case 'C':
+                    return builder.classes().get(getIRI(encoding, 2));
+                case 'E':
+                    return decodeObjectProperty(encoding.substring(1)).getDomain();
+                case 'S': {
+                    String[] components = encoding.split(" ");
+                    if (components.length != 3)
+                        throw new InvalidSnapshotException("Invalid expression " + encoding);
+                    return builder.dataProperties().get(rdfFactory.createIRI(components[1]))
+                            .getDomainRestriction(builder.getDatatype(components[2]));
+                }
+                default:
+                    throw new InvalidSnapshotException("Invalid class expression " + encoding);
+            }
+        }
+
+        ObjectPropertyExpression decodeObjectProperty(String encoding) throws InvalidSnapshotException {
+            if (encoding.length() < 2 || (encoding.charAt(0) != 'O' && encoding.charAt(0) != 'I'))
+                throw new InvalidSnapshotException("Invalid object property " + encoding);
+
+            String iri = encoding.substring(2);
+            ObjectPropertyExpression property = auxiliaryProperties.containsKey(iri)
+                    ? auxiliaryProperties.get(iri)
+                    : builder.objectProperties().get(rdfFactory.createIRI(iri));
+            return encoding.charAt(0) == 'I' ? property.getInverse() : property;
+        }
+
+        DataPropertyExpression decodeDataProperty(String encoding) throws InvalidSnapshotException {
+            if (encoding.charAt(0) != 'D')
+                throw new InvalidSnapshotException("Invalid data property " + encoding);
+            return builder.dataProperties().get(getIRI(encoding, 2));
+        }
+
+        DataRangeExpression decodeDataRange(String encoding) throws InvalidSnapshotException {
+            switch (encoding.charAt(0)) {
+                case 'T':
+                    return builder.getDatatype(encoding.substring(2));
+                case 'R':
+                    return builder.dataProperties().get(getIRI(encoding, 2)).getRange();
+                default:
+                    throw new InvalidSnapshotException("Invalid data range expression " + encoding);
+            }
+        }
+
+        private IRI getIRI(String encoding, int start) throws InvalidSnapshotException {
+            if (encoding.length() <= start)
+                throw new InvalidSnapshotException("Invalid expression " + encoding);
+            return rdfFactory.createIRI(encoding.substring(start));
+        }
+    }
+
+    /*
+     * JSON helpers
+     */
+
+    private static <T> Stream<T> stream(Iterable<T> iterable) {
+        return StreamSupport.stream(iterable.spliterator(), false);
+    }
+
+    private ArrayNode toArray(Stream<String> stream) {
+        ArrayNode array = nodeFactory.arrayNode();
+        stream.forEach(array::add);
+        return array;
+    }
+
+    private ArrayNode toSortedArray(Stream<String> stream) {
+        return toArray(stream.sorted());
+    }
+
+    private static ImmutableList<String> strings(JsonNode node, String key) throws InvalidSnapshotException {
+        return array(node, key).stream()
+                .map(JsonNode::asText)
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static ImmutableList<JsonNode> array(JsonNode node, String key) throws InvalidSnapshotException {
+        if (node == null)
+            throw new InvalidSnapshotException("Missing TBox component");
+        return elements(node.get(key));
+    }
+
+    private static ImmutableList<JsonNode> elements(JsonNode node) throws InvalidSnapshotException {
+        if (node == null || !node.isArray())
+            throw new InvalidSnapshotException("Invalid TBox component " + node);
+        return ImmutableList.copyOf(node.elements());
+    }
+}
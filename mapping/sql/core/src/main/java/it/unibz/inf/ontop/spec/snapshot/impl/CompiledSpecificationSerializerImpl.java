@@ -0,0 +1,132 @@
+package it.unibz.inf.ontop.spec.snapshot.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.dbschema.impl.CachingMetadataLookup;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonMetadata;
+import it.unibz.inf.ontop.exception.MetadataExtractionException;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.SpecificationFactory;
+import it.unibz.inf.ontop.model.type.DBTypeFactory;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.spec.dbschema.ImplicitDBConstraintsProviderFactory;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
+import it.unibz.inf.ontop.spec.snapshot.CompiledSpecificationSerializer;
+import it.unibz.inf.ontop.spec.sqlparser.ParserViewDefinition;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.RDF;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Optional;
+
+public class CompiledSpecificationSerializerImpl implements CompiledSpecificationSerializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompiledSpecificationSerializerImpl.class);
+
+    private static final String MAPPING_KEY = "saturatedMapping";
+    private static final String TBOX_KEY = "saturatedTBox";
+
+    private final CoreSingletons coreSingletons;
+    private final SpecificationFactory specificationFactory;
+    private final SerializedMetadataProvider.Factory serializedMetadataProviderFactory;
+    private final OntopViewMetadataProvider.Factory viewMetadataProviderFactory;
+    private final ImplicitDBConstraintsProviderFactory implicitDBConstraintExtractor;
+    private final MappingSerializer mappingSerializer;
+    private final ClassifiedTBoxSerializer tboxSerializer;
+
+    @Inject
+    private CompiledSpecificationSerializerImpl(CoreSingletons coreSingletons, RDF rdfFactory,
+                                                SpecificationFactory specificationFactory,
+                                                SerializedMetadataProvider.Factory serializedMetadataProviderFactory,
+                                                OntopViewMetadataProvider.Factory viewMetadataProviderFactory,
+                                                ImplicitDBConstraintsProviderFactory implicitDBConstraintExtractor) {
+        this.coreSingletons = coreSingletons;
+        this.specificationFactory = specificationFactory;
+        this.serializedMetadataProviderFactory = serializedMetadataProviderFactory;
+        this.viewMetadataProviderFactory = viewMetadataProviderFactory;
+        this.implicitDBConstraintExtractor = implicitDBConstraintExtractor;
+        this.mappingSerializer = new MappingSerializer(coreSingletons, rdfFactory);
+        this.tboxSerializer = new ClassifiedTBoxSerializer(rdfFactory, coreSingletons.getTermFactory());
+    }
+
+    @Override
+    public Optional<JsonNode> serialize(OBDASpecification specification) {
+        try {
+            ObjectNode node = JsonNodeFactory.instance.objectNode();
+            node.set(MAPPING_KEY, mappingSerializer.serialize(specification.getSaturatedMapping(),
+                    specification.getDBParameters().getQuotedIDFactory()));
+            node.set(TBOX_KEY, tboxSerializer.serialize(specification.getSaturatedTBox()));
+            return Optional.of(node);
+        }
+        catch (UnsupportedSpecificationException e) {
+            LOGGER.warn("The saturated mapping and TBox are not part of the compiled specification: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The metadata providers are combined as in the mapping extraction (DB metadata, Ontop views, implicit constraints)
+     * but only the relations used by the mapping are looked up.
+     */
+    @Override
+    public OBDASpecification deserialize(JsonNode serializedSpecification, Reader dbMetadataReader,
+                                         Optional<File> constraintFile, Optional<Reader> ontopViewReader)
+            throws MetadataExtractionException, IOException {
+
+        JsonNode mappingNode = serializedSpecification.get(MAPPING_KEY);
+        JsonNode tboxNode = serializedSpecification.get(TBOX_KEY);
+        if (mappingNode == null || tboxNode == null)
+            throw new IOException("Incomplete serialized specification");
+
+        MetadataProvider dbMetadataProvider = serializedMetadataProviderFactory.getMetadataProvider(dbMetadataReader);
+        MetadataProvider viewMetadataProvider = ontopViewReader.isPresent()
+                ? viewMetadataProviderFactory.getMetadataProvider(dbMetadataProvider, ontopViewReader.get())
+                : dbMetadataProvider;
+        MetadataProvider metadataProvider = implicitDBConstraintExtractor.extract(constraintFile, viewMetadataProvider);
+
+        CachingMetadataLookup metadataLookup = new CachingMetadataLookup(metadataProvider);
+        QuotedIDFactory idFactory = metadataLookup.getQuotedIDFactory();
+        DBTypeFactory dbTypeFactory = coreSingletons.getTypeFactory().getDBTypeFactory();
+
+        try {
+            ImmutableList<RelationDefinition> relations = mappingSerializer.deserializeRelations(mappingNode,
+                    new MappingSerializer.RelationResolver() {
+                        @Override
+                        public RelationDefinition getNamedRelation(ImmutableList<String> id) throws InvalidSnapshotException {
+                            try {
+                                return metadataLookup.getRelation(JsonMetadata.deserializeRelationID(idFactory, id));
+                            }
+                            catch (MetadataExtractionException e) {
+                                throw new InvalidSnapshotException("Unknown relation " + id + ": " + e.getMessage());
+                            }
+                        }
+
+                        @Override
+                        public RelationDefinition getParserView(String statement, ImmutableList<String> attributes) {
+                            return new ParserViewDefinition(attributes.stream()
+                                    .map(idFactory::createAttributeID)
+                                    .collect(ImmutableCollectors.toList()), statement, dbTypeFactory);
+                        }
+                    });
+
+            metadataLookup.extractImmutableMetadata(); // inserts integrity constraints
+            mappingSerializer.checkIntegrityConstraints(mappingNode, relations);
+
+            Mapping mapping = mappingSerializer.deserialize(mappingNode, relations);
+            ClassifiedTBox tbox = tboxSerializer.deserialize(tboxNode);
+            return specificationFactory.createSpecification(mapping, viewMetadataProvider.getDBParameters(), tbox);
+        }
+        catch (InvalidSnapshotException | RuntimeException e) {
+            throw new IOException("Invalid serialized specification: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package it.unibz.inf.ontop.spec.snapshot.impl;
+
+/**
+ * The serialized specification is malformed or does not match the DB metadata
+ */
+class InvalidSnapshotException extends Exception {
+
+    InvalidSnapshotException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,1135 @@
+package it.unibz.inf.ontop.spec.snapshot.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.*;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.dbschema.impl.json.JsonMetadata;
+import it.unibz.inf.ontop.injection.CoreSingletons;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.*;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.atom.*;
+import it.unibz.inf.ontop.model.template.Template;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.*;
+import it.unibz.inf.ontop.model.type.*;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.spec.mapping.impl.MappingImpl;
+import it.unibz.inf.ontop.spec.sqlparser.ParserViewDefinition;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.apache.commons.rdf.api.RDF;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * JSON serialization of a saturated mapping (the IQs of the classes and properties).
+ *
+ * The document has three tables:
+ *   - the relations used by the IQs (and the ones they depend upon through foreign keys or Ontop views),
+ *     identified by their IDs (looked up in the DB metadata when deserializing) or, for the sub-queries
+ *     created by the SQL parser, by their SQL string and attributes;
+ *   - the function symbols, each one described by a "recipe" (the factory method and its arguments);
+ *   - the definitions, whose IQs refer to the two other tables by index.
+ *
+ * A function symbol is only recorded if the recipe gives it back (the same instance or an equivalent one),
+ * and the whole mapping is checked by deserializing it against the original relations:
+ * if something cannot be serialized faithfully, an UnsupportedSpecificationException is thrown.
+ */
+class MappingSerializer {
+
+    private static final String RELATIONS = "relations";
+    private static final String SYMBOLS = "symbols";
+    private static final String DEFINITIONS = "definitions";
+
+    private static final String RELATION_ID = "id";
+    private static final String CONSTRAINTS = "constraints";
+    private static final String SQL = "sql";
+    private static final String ATTRIBUTES = "attributes";
+
+    private static final String CLASS = "class";
+    private static final String PROPERTY = "property";
+    private static final String IQ = "iq";
+    private static final String ATOM = "atom";
+    private static final String TRIPLE = "triple";
+    private static final String QUAD = "quad";
+    private static final String ARGUMENTS = "arguments";
+    private static final String TREE = "tree";
+
+    private static final String NODE = "node";
+    private static final String VARIABLES = "variables";
+    private static final String SUBSTITUTION = "substitution";
+    private static final String CONDITION = "condition";
+    private static final String CHILD = "child";
+    private static final String CHILDREN = "children";
+    private static final String LEFT = "left";
+    private static final String RIGHT = "right";
+    private static final String RELATION = "relation";
+    private static final String OFFSET = "offset";
+    private static final String LIMIT = "limit";
+
+    private static final String SYMBOL = "symbol";
+    private static final String NULL = "null";
+    private static final String DB = "db";
+    private static final String TYPE = "type";
+    private static final String IRI_KEY = "iri";
+    private static final String BNODE = "bnode";
+    private static final String LITERAL = "literal";
+    private static final String TERM_TYPE = "termType";
+
+    private static final String KIND = "kind";
+    private static final String NAME = "name";
+    private static final String ARITY = "arity";
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String RDF_TYPE = "rdfType";
+    private static final String LABEL = "label";
+    private static final String COMPONENTS = "components";
+    private static final String COLUMN = "column";
+    private static final String SEPARATOR = "separator";
+
+    /*
+     * Factory methods of the function symbols
+     */
+
+    private static final ImmutableMap<String, Function<DBFunctionSymbolFactory, FunctionSymbol>> DB_SYMBOLS =
+            ImmutableMap.<String, Function<DBFunctionSymbolFactory, FunctionSymbol>>builder()
+                    .put("temporaryConversionToDBString", DBFunctionSymbolFactory::getTemporaryConversionToDBStringFunctionSymbol)
+                    .put("ifElseNull", DBFunctionSymbolFactory::getDBIfElseNull)
+                    .put("booleanIfElseNull", DBFunctionSymbolFactory::getDBBooleanIfElseNull)
+                    .put("ifThenElse", DBFunctionSymbolFactory::getDBIfThenElse)
+                    .put("nullIf", DBFunctionSymbolFactory::getDBNullIf)
+                    .put("upper", DBFunctionSymbolFactory::getDBUpper)
+                    .put("lower", DBFunctionSymbolFactory::getDBLower)
+                    .put("replace", DBFunctionSymbolFactory::getDBReplace)
+                    .put("regexpReplace3", DBFunctionSymbolFactory::getDBRegexpReplace3)
+                    .put("regexpReplace4", DBFunctionSymbolFactory::getDBRegexpReplace4)
+                    .put("subString2", DBFunctionSymbolFactory::getDBSubString2)
+                    .put("subString3", DBFunctionSymbolFactory::getDBSubString3)
+                    .put("right", DBFunctionSymbolFactory::getDBRight)
+                    .put("charLength", DBFunctionSymbolFactory::getDBCharLength)
+                    .put("r2rmlIRISafeEncode", DBFunctionSymbolFactory::getR2RMLIRISafeEncode)
+                    .put("encodeForURI", DBFunctionSymbolFactory::getDBEncodeForURI)
+                    .put("not", DBFunctionSymbolFactory::getDBNot)
+                    .put("isNull", DBFunctionSymbolFactory::getDBIsNull)
+                    .put("isNotNull", DBFunctionSymbolFactory::getDBIsNotNull)
+                    .put("nonStrictNumericEquality", DBFunctionSymbolFactory::getDBNonStrictNumericEquality)
+                    .put("nonStrictStringEquality", DBFunctionSymbolFactory::getDBNonStrictStringEquality)
+                    .put("nonStrictDatetimeEquality", DBFunctionSymbolFactory::getDBNonStrictDatetimeEquality)
+                    .put("nonStrictDateEquality", DBFunctionSymbolFactory::getDBNonStrictDateEquality)
+                    .put("nonStrictDefaultEquality", DBFunctionSymbolFactory::getDBNonStrictDefaultEquality)
+                    .put("startsWith", DBFunctionSymbolFactory::getDBStartsWith)
+                    .put("endsWith", DBFunctionSymbolFactory::getDBEndsWith)
+                    .put("isStringEmpty", DBFunctionSymbolFactory::getDBIsStringEmpty)
+                    .put("isTrue", DBFunctionSymbolFactory::getIsTrue)
+                    .put("contains", DBFunctionSymbolFactory::getDBContains)
+                    .put("regexpMatches2", DBFunctionSymbolFactory::getDBRegexpMatches2)
+                    .put("regexpMatches3", DBFunctionSymbolFactory::getDBRegexpMatches3)
+                    .put("like", DBFunctionSymbolFactory::getDBLike)
+                    .put("similarTo", DBFunctionSymbolFactory::getDBSimilarTo)
+                    .put("strBefore", DBFunctionSymbolFactory::getDBStrBefore)
+                    .put("strAfter", DBFunctionSymbolFactory::getDBStrAfter)
+                    .put("md5", DBFunctionSymbolFactory::getDBMd5)
+                    .put("sha1", DBFunctionSymbolFactory::getDBSha1)
+                    .put("sha256", DBFunctionSymbolFactory::getDBSha256)
+                    .put("sha512", DBFunctionSymbolFactory::getDBSha512)
+                    .put("yearFromDatetime", DBFunctionSymbolFactory::getDBYearFromDatetime)
+                    .put("yearFromDate", DBFunctionSymbolFactory::getDBYearFromDate)
+                    .put("monthFromDatetime", DBFunctionSymbolFactory::getDBMonthFromDatetime)
+                    .put("monthFromDate", DBFunctionSymbolFactory::getDBMonthFromDate)
+                    .put("dayFromDatetime", DBFunctionSymbolFactory::getDBDayFromDatetime)
+                    .put("dayFromDate", DBFunctionSymbolFactory::getDBDayFromDate)
+                    .put("hours", DBFunctionSymbolFactory::getDBHours)
+                    .put("minutes", DBFunctionSymbolFactory::getDBMinutes)
+                    .put("seconds", DBFunctionSymbolFactory::getDBSeconds)
+                    .put("tz", DBFunctionSymbolFactory::getDBTz)
+                    .put("now", DBFunctionSymbolFactory::getDBNow)
+                    .put("rowUniqueStr", DBFunctionSymbolFactory::getDBRowUniqueStr)
+                    .put("rowNumber", DBFunctionSymbolFactory::getDBRowNumber)
+                    .build();
+
+    private static final ImmutableMap<String, Function<FunctionSymbolFactory, FunctionSymbol>> SYMBOLS_ =
+            ImmutableMap.<String, Function<FunctionSymbolFactory, FunctionSymbol>>builder()
+                    .put("rdf", FunctionSymbolFactory::getRDFTermFunctionSymbol)
+                    .put("areCompatibleRDFString", FunctionSymbolFactory::getAreCompatibleRDFStringFunctionSymbol)
+                    .put("lexicalNonStrictEquality", FunctionSymbolFactory::getLexicalNonStrictEqualityFunctionSymbol)
+                    .put("notYetTypedEquality", FunctionSymbolFactory::getNotYetTypedEquality)
+                    .put("lexicalEBV", FunctionSymbolFactory::getLexicalEBVFunctionSymbol)
+                    .put("rdf2DBBoolean", FunctionSymbolFactory::getRDF2DBBooleanFunctionSymbol)
+                    .put("sparqlEBV", FunctionSymbolFactory::getSPARQLEffectiveBooleanValueFunctionSymbol)
+                    .put("langTag", FunctionSymbolFactory::getLangTagFunctionSymbol)
+                    .put("rdfDatatypeString", FunctionSymbolFactory::getRDFDatatypeStringFunctionSymbol)
+                    .put("lexicalLangMatches", FunctionSymbolFactory::getLexicalLangMatches)
+                    .put("iriFunction", FunctionSymbolFactory::getIRIFunctionSymbol)
+                    .build();
+
+    private static final ImmutableMap<String, BiFunction<DBFunctionSymbolFactory, Integer, FunctionSymbol>> DB_NARY_SYMBOLS =
+            ImmutableMap.<String, BiFunction<DBFunctionSymbolFactory, Integer, FunctionSymbol>>builder()
+                    .put("nullRejectingConcat", DBFunctionSymbolFactory::getNullRejectingDBConcat)
+                    .put("concatOperator", DBFunctionSymbolFactory::getDBConcatOperator)
+                    .put("and", DBFunctionSymbolFactory::getDBAnd)
+                    .put("or", DBFunctionSymbolFactory::getDBOr)
+                    .put("coalesce", DBFunctionSymbolFactory::getDBCoalesce)
+                    .put("falseOrNull", DBFunctionSymbolFactory::getFalseOrNullFunctionSymbol)
+                    .put("trueOrNull", DBFunctionSymbolFactory::getTrueOrNullFunctionSymbol)
+                    .put("strictEquality", DBFunctionSymbolFactory::getDBStrictEquality)
+                    .put("strictNEquality", DBFunctionSymbolFactory::getDBStrictNEquality)
+                    .put("case", (f, n) -> f.getDBCase(n, true))
+                    .put("unorderedCase", (f, n) -> f.getDBCase(n, false))
+                    .put("booleanCase", (f, n) -> f.getDBBooleanCase(n, true))
+                    .put("unorderedBooleanCase", (f, n) -> f.getDBBooleanCase(n, false))
+                    .build();
+
+    private static final ImmutableMap<String, BiFunction<DBFunctionSymbolFactory, InequalityLabel, FunctionSymbol>> DB_INEQUALITY_SYMBOLS =
+            ImmutableMap.<String, BiFunction<DBFunctionSymbolFactory, InequalityLabel, FunctionSymbol>>builder()
+                    .put("numericInequality", DBFunctionSymbolFactory::getDBNumericInequality)
+                    .put("booleanInequality", DBFunctionSymbolFactory::getDBBooleanInequality)
+                    .put("stringInequality", DBFunctionSymbolFactory::getDBStringInequality)
+                    .put("datetimeInequality", DBFunctionSymbolFactory::getDBDatetimeInequality)
+                    .put("dateInequality", DBFunctionSymbolFactory::getDBDateInequality)
+                    .put("defaultInequality", DBFunctionSymbolFactory::getDBDefaultInequality)
+                    .build();
+
+    private static final ImmutableMap<String, BiFunction<DBFunctionSymbolFactory, DBTermType, FunctionSymbol>> DB_TYPED_SYMBOLS =
+            ImmutableMap.<String, BiFunction<DBFunctionSymbolFactory, DBTermType, FunctionSymbol>>builder()
+                    .put("castTo", DBFunctionSymbolFactory::getDBCastFunctionSymbol)
+                    .put("typedNull", DBFunctionSymbolFactory::getTypedNullFunctionSymbol)
+                    .put("abs", DBFunctionSymbolFactory::getAbs)
+                    .put("ceil", DBFunctionSymbolFactory::getCeil)
+                    .put("floor", DBFunctionSymbolFactory::getFloor)
+                    .put("round", DBFunctionSymbolFactory::getRound)
+                    .build();
+
+    private static final ImmutableList<String> MATH_OPERATORS = ImmutableList.of("+", "-", "*", "/");
+    private static final ImmutableList<String> EXTRACT_COMPONENTS = ImmutableList.of("YEAR", "MONTH", "DAY",
+            "HOUR", "MINUTE", "SECOND", "MILLISECOND", "MICROSECOND", "QUARTER", "WEEK", "DECADE", "CENTURY",
+            "MILLENNIUM");
+    private static final ImmutableList<String> CURRENT_DATETIME_TYPES = ImmutableList.of("TIMESTAMP", "TIME", "DATE");
+    private static final ImmutableList<IRI> DATATYPES = ImmutableList.of(XSD.STRING, XSD.BOOLEAN, XSD.INTEGER,
+            XSD.DECIMAL, XSD.DOUBLE, XSD.FLOAT, XSD.LONG, XSD.INT, XSD.SHORT, XSD.BYTE, XSD.DATETIME,
+            XSD.DATETIMESTAMP, XSD.DATE, XSD.TIME, XSD.ANYURI);
+
+    private final TermFactory termFactory;
+    private final TypeFactory typeFactory;
+    private final DBTypeFactory dbTypeFactory;
+    private final FunctionSymbolFactory functionSymbolFactory;
+    private final DBFunctionSymbolFactory dbFunctionSymbolFactory;
+    private final AtomFactory atomFactory;
+    private final SubstitutionFactory substitutionFactory;
+    private final IntermediateQueryFactory iqFactory;
+    private final RDF rdfFactory;
+    private final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    MappingSerializer(CoreSingletons coreSingletons, RDF rdfFactory) {
+        this.termFactory = coreSingletons.getTermFactory();
+        this.typeFactory = coreSingletons.getTypeFactory();
+        this.dbTypeFactory = typeFactory.getDBTypeFactory();
+        this.functionSymbolFactory = coreSingletons.getFunctionSymbolFactory();
+        this.dbFunctionSymbolFactory = coreSingletons.getDBFunctionsymbolFactory();
+        this.atomFactory = coreSingletons.getAtomFactory();
+        this.substitutionFactory = coreSingletons.getSubstitutionFactory();
+        this.iqFactory = coreSingletons.getIQFactory();
+        this.rdfFactory = rdfFactory;
+    }
+
+    /**
+     * Throws an UnsupportedSpecificationException if the mapping cannot be serialized faithfully
+     */
+    ObjectNode serialize(Mapping mapping, QuotedIDFactory idFactory) {
+        Encoder encoder = new Encoder(idFactory);
+
+        ImmutableList<Definition> definitions = mapping.getRDFAtomPredicates().stream()
+                .flatMap(p -> Stream.concat(
+                        mapping.getRDFClasses(p).stream()
+                                .map(i -> new Definition(p, CLASS, i, mapping.getRDFClassDefinition(p, i).get())),
+                        mapping.getRDFProperties(p).stream()
+                                .map(i -> new Definition(p, PROPERTY, i, mapping.getRDFPropertyDefinition(p, i).get()))))
+                .sorted(Comparator.comparing((Definition d) -> d.kind)
+                        .thenComparing(d -> d.iri.getIRIString())
+                        .thenComparing(d -> d.predicate instanceof QuadPredicate))
+                .collect(ImmutableCollectors.toList());
+
+        // Registers the relations first: their attribute types are used for rebuilding the function symbols
+        definitions.forEach(d -> encoder.registerRelations(d.iq.getTree()));
+
+        ArrayNode definitionArray = nodeFactory.arrayNode();
+        for (Definition definition : definitions) {
+            ObjectNode node = nodeFactory.objectNode();
+            node.put(definition.kind, definition.iri.getIRIString());
+            node.set(IQ, encoder.encode(definition.iq));
+            definitionArray.add(node);
+        }
+
+        ObjectNode node = nodeFactory.objectNode();
+        node.set(RELATIONS, encoder.getRelationArray());
+        node.set(SYMBOLS, encoder.symbolArray);
+        node.set(DEFINITIONS, definitionArray);
+
+        // Checks that the mapping is given back (with the original relations)
+        Mapping deserializedMapping;
+        try {
+            deserializedMapping = deserialize(node, ImmutableList.copyOf(encoder.relations));
+        }
+        catch (InvalidSnapshotException | RuntimeException e) {
+            throw new UnsupportedSpecificationException("The mapping cannot be deserialized: " + e.getMessage());
+        }
+        for (Definition definition : definitions) {
+            Optional<IQ> deserializedIQ = definition.kind.equals(CLASS)
+                    ? deserializedMapping.getRDFClassDefinition(definition.predicate, definition.iri)
+                    : deserializedMapping.getRDFPropertyDefinition(definition.predicate, definition.iri);
+            if (!deserializedIQ.filter(q -> q.equals(definition.iq)).isPresent())
+                throw new UnsupportedSpecificationException("The definition of " + definition.iri
+                        + " is not given back by the serialization");
+        }
+        return node;
+    }
+
+    /**
+     * The relations are resolved by the caller (DB metadata, SQL parser views)
+     */
+    ImmutableList<RelationDefinition> deserializeRelations(JsonNode node, RelationResolver resolver)
+            throws InvalidSnapshotException {
+        ImmutableList.Builder<RelationDefinition> builder = ImmutableList.builder();
+        for (JsonNode relationNode : elements(node.get(RELATIONS))) {
+            if (relationNode.has(RELATION_ID))
+                builder.add(resolver.getNamedRelation(strings(relationNode.get(RELATION_ID))));
+            else if (relationNode.has(SQL))
+                builder.add(resolver.getParserView(relationNode.get(SQL).asText(),
+                        strings(relationNode.get(ATTRIBUTES))));
+            else
+                throw new InvalidSnapshotException("Invalid relation " + relationNode);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Checks that the integrity constraints of the relations (after their insertion)
+     * are the ones the mapping has been compiled with
+     */
+    void checkIntegrityConstraints(JsonNode node, ImmutableList<RelationDefinition> relations)
+            throws InvalidSnapshotException {
+        ImmutableList<JsonNode> relationNodes = elements(node.get(RELATIONS));
+        for (int i = 0; i < relationNodes.size(); i++) {
+            JsonNode constraints = relationNodes.get(i).get(CONSTRAINTS);
+            if (constraints != null && !constraints.equals(getConstraintCounts(relations.get(i))))
+                throw new InvalidSnapshotException("The integrity constraints of " + relations.get(i)
+                        + " have changed");
+        }
+    }
+
+    Mapping deserialize(JsonNode node, ImmutableList<RelationDefinition> relations) throws InvalidSnapshotException {
+        Decoder decoder = new Decoder(elements(node.get(SYMBOLS)), relations);
+
+        ImmutableTable.Builder<RDFAtomPredicate, IRI, IQ> propertyTableBuilder = ImmutableTable.builder();
+        ImmutableTable.Builder<RDFAtomPredicate, IRI, IQ> classTableBuilder = ImmutableTable.builder();
+        for (JsonNode definition : elements(node.get(DEFINITIONS))) {
+            IQ iq = decoder.decodeIQ(definition.get(IQ));
+            RDFAtomPredicate predicate = (RDFAtomPredicate) iq.getProjectionAtom().getPredicate();
+            if (definition.has(CLASS))
+                classTableBuilder.put(predicate, rdfFactory.createIRI(definition.get(CLASS).asText()), iq);
+            else if (definition.has(PROPERTY))
+                propertyTableBuilder.put(predicate, rdfFactory.createIRI(definition.get(PROPERTY).asText()), iq);
+            else
+                throw new InvalidSnapshotException("Invalid definition " + definition);
+        }
+        return new MappingImpl(propertyTableBuilder.build(), classTableBuilder.build(), iqFactory);
+    }
+
+    private ArrayNode getConstraintCounts(RelationDefinition relation) {
+        return nodeFactory.arrayNode()
+                .add(relation.getUniqueConstraints().size())
+                .add(relation.getOtherFunctionalDependencies().size())
+                .add(relation.getForeignKeys().size());
+    }
+
+
+    interface RelationResolver {
+        RelationDefinition getNamedRelation(ImmutableList<String> id) throws InvalidSnapshotException;
+
+        RelationDefinition getParserView(String statement, ImmutableList<String> attributes)
+                throws InvalidSnapshotException;
+    }
+
+
+    private static class Definition {
+        private final RDFAtomPredicate predicate;
+        private final String kind;
+        private final IRI iri;
+        private final IQ iq;
+
+        Definition(RDFAtomPredicate predicate, String kind, IRI iri, IQ iq) {
+            this.predicate = predicate;
+            this.kind = kind;
+            this.iri = iri;
+            this.iq = iq;
+        }
+    }
+
+
+    private class Encoder {
+        private final QuotedIDFactory idFactory;
+
+        private final List<RelationDefinition> relations = new ArrayList<>();
+        private final Map<RelationDefinition, Integer> relationIndexes = new IdentityHashMap<>();
+
+        private final ArrayNode symbolArray = nodeFactory.arrayNode();
+        private final Map<FunctionSymbol, Integer> symbolIndexes = new IdentityHashMap<>();
+
+        // Candidate types of the typed function symbols
+        private final Set<DBTermType> dbTypes = new LinkedHashSet<>();
+        private final Set<RDFTermType> rdfTypes = new LinkedHashSet<>();
+
+        Encoder(QuotedIDFactory idFactory) {
+            this.idFactory = idFactory;
+            Stream.of(dbTypeFactory.getDBStringType(), dbTypeFactory.getDBLargeIntegerType(),
+                    dbTypeFactory.getDBDecimalType(), dbTypeFactory.getDBDoubleType(), dbTypeFactory.getDBBooleanType(),
+                    dbTypeFactory.getDBDateType(), dbTypeFactory.getDBTimeType(),
+                    dbTypeFactory.getDBDateTimestampType(), dbTypeFactory.getAbstractRootDBType())
+                    .forEach(dbTypes::add);
+            rdfTypes.add(typeFactory.getIRITermType());
+            rdfTypes.add(typeFactory.getBlankNodeType());
+            DATATYPES.forEach(i -> rdfTypes.add(typeFactory.getDatatype(i)));
+        }
+
+        /*
+         * Relations
+         */
+
+        void registerRelations(IQTree tree) {
+            QueryNode rootNode = tree.getRootNode();
+            if (rootNode instanceof ExtensionalDataNode)
+                registerRelation(((ExtensionalDataNode) rootNode).getRelationDefinition());
+            tree.getChildren().forEach(this::registerRelations);
+        }
+
+        private void registerRelation(RelationDefinition relation) {
+            if (relationIndexes.containsKey(relation))
+                return;
+
+            relationIndexes.put(relation, relations.size());
+            relations.add(relation);
+            relation.getAttributes().stream()
+                    .map(Attribute::getTermType)
+                    .filter(t -> isSameType(t, decodeDBType(t.getName())))
+                    .forEach(dbTypes::add);
+
+            // The integrity constraints refer to these relations
+            relation.getForeignKeys().forEach(fk -> registerRelation(fk.getReferencedRelation()));
+            if (relation instanceof OntopViewDefinition)
+                registerRelations(((OntopViewDefinition) relation).getIQ().getTree());
+        }
+
+        ArrayNode getRelationArray() {
+            ArrayNode array = nodeFactory.arrayNode();
+            for (RelationDefinition relation : relations) {
+                ObjectNode node = nodeFactory.objectNode();
+                if (relation instanceof NamedRelationDefinition) {
+                    RelationID id = ((NamedRelationDefinition) relation).getID();
+                    ImmutableList<String> serializedId = JsonMetadata.serializeRelationID(id);
+                    if (!JsonMetadata.deserializeRelationID(idFactory, serializedId).equals(id))
+                        throw new UnsupportedSpecificationException("Unsupported relation ID " + id);
+                    node.set(RELATION_ID, toArray(serializedId.stream()));
+                    node.set(CONSTRAINTS, getConstraintCounts(relation));
+                }
+                else if (relation instanceof ParserViewDefinition) {
+                    String name = relation.getAtomPredicate().getName();
+                    if (!name.startsWith("(") || !name.endsWith(")"))
+                        throw new UnsupportedSpecificationException("Unexpected parser view " + name);
+                    node.put(SQL, name.substring(1, name.length() - 1));
+                    node.set(ATTRIBUTES, toArray(relation.getAttributes().stream()
+                            .map(a -> {
+                                String rendering = a.getID().getSQLRendering();
+                                if (!idFactory.createAttributeID(rendering).equals(a.getID()))
+                                    throw new UnsupportedSpecificationException("Unsupported attribute ID " + a.getID());
+                                return rendering;
+                            })));
+                }
+                else
+                    throw new UnsupportedSpecificationException("Unsupported relation " + relation);
+                array.add(node);
+            }
+            return array;
+        }
+
+        /*
+         * IQs
+         */
+
+        ObjectNode encode(IQ iq) {
+            DistinctVariableOnlyDataAtom projectionAtom = iq.getProjectionAtom();
+            AtomPredicate predicate = projectionAtom.getPredicate();
+            if (!(predicate instanceof TriplePredicate) && !(predicate instanceof QuadPredicate))
+                throw new UnsupportedSpecificationException("Unsupported predicate " + predicate);
+
+            ObjectNode node = nodeFactory.objectNode();
+            node.put(ATOM, (predicate instanceof TriplePredicate) ? TRIPLE : QUAD);
+            node.set(ARGUMENTS, toArray(projectionAtom.getArguments().stream().map(Variable::getName)));
+            node.set(TREE, encode(iq.getTree()));
+            return node;
+        }
+
+        private ObjectNode encode(IQTree tree) {
+            QueryNode rootNode = tree.getRootNode();
+            ObjectNode node = nodeFactory.objectNode();
+
+            if (rootNode instanceof ConstructionNode) {
+                ConstructionNode constructionNode = (ConstructionNode) rootNode;
+                node.put(NODE, "construction");
+                node.set(VARIABLES, encode(constructionNode.getVariables()));
+                ObjectNode substitution = nodeFactory.objectNode();
+                constructionNode.getSubstitution().getImmutableMap()
+                        .forEach((v, t) -> substitution.set(v.getName(), encode(t)));
+                node.set(SUBSTITUTION, substitution);
+                node.set(CHILD, encode(tree.getChildren().get(0)));
+            }
+            else if (rootNode instanceof UnionNode) {
+                node.put(NODE, "union");
+                node.set(VARIABLES, encode(tree.getVariables()));
+                node.set(CHILDREN, encodeChildren(tree));
+            }
+            else if (rootNode instanceof InnerJoinNode) {
+                node.put(NODE, "join");
+                ((InnerJoinNode) rootNode).getOptionalFilterCondition()
+                        .ifPresent(c -> node.set(CONDITION, encode(c)));
+                node.set(CHILDREN, encodeChildren(tree));
+            }
+            else if (rootNode instanceof LeftJoinNode) {
+                node.put(NODE, "leftJoin");
+                ((LeftJoinNode) rootNode).getOptionalFilterCondition()
+                        .ifPresent(c -> node.set(CONDITION, encode(c)));
+                node.set(LEFT, encode(tree.getChildren().get(0)));
+                node.set(RIGHT, encode(tree.getChildren().get(1)));
+            }
+            else if (rootNode instanceof FilterNode) {
+                node.put(NODE, "filter");
+                node.set(CONDITION, encode(((FilterNode) rootNode).getFilterCondition()));
+                node.set(CHILD, encode(tree.getChildren().get(0)));
+            }
+            else if (rootNode instanceof DistinctNode) {
+                node.put(NODE, "distinct");
+                node.set(CHILD, encode(tree.getChildren().get(0)));
+            }
+            else if (rootNode instanceof SliceNode) {
+                SliceNode sliceNode = (SliceNode) rootNode;
+                node.put(NODE, "slice");
+                node.put(OFFSET, sliceNode.getOffset());
+                sliceNode.getLimit().ifPresent(l -> node.put(LIMIT, l));
+                node.set(CHILD, encode(tree.getChildren().get(0)));
+            }
+            else if (rootNode instanceof ExtensionalDataNode) {
+                ExtensionalDataNode dataNode = (ExtensionalDataNode) rootNode;
+                node.put(NODE, "extensional");
+                node.put(RELATION, relationIndexes.get(dataNode.getRelationDefinition()));
+                ObjectNode arguments = nodeFactory.objectNode();
+                dataNode.getArgumentMap().entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .forEach(e -> arguments.set(e.getKey().toString(), encode(e.getValue())));
+                node.set(ARGUMENTS, arguments);
+            }
+            else if (rootNode instanceof EmptyNode) {
+                node.put(NODE, "empty");
+                node.set(VARIABLES, encode(tree.getVariables()));
+            }
+            else if (rootNode instanceof TrueNode) {
+                node.put(NODE, "true");
+            }
+            else
+                throw new UnsupportedSpecificationException("Unsupported node " + rootNode);
+
+            return node;
+        }
+
+        private ArrayNode encodeChildren(IQTree tree) {
+            ArrayNode array = nodeFactory.arrayNode();
+            tree.getChildren().forEach(c -> array.add(encode(c)));
+            return array;
+        }
+
+        private ArrayNode encode(ImmutableSet<Variable> variables) {
+            return toArray(variables.stream().map(Variable::getName));
+        }
+
+        /*
+         * Terms
+         */
+
+        private JsonNode encode(ImmutableTerm term) {
+            if (term instanceof Variable)
+                return nodeFactory.textNode(((Variable) term).getName());
+
+            ObjectNode node = nodeFactory.objectNode();
+            if (term instanceof ImmutableFunctionalTerm) {
+                ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+                node.put(SYMBOL, encode(functionalTerm.getFunctionSymbol()));
+                ArrayNode arguments = nodeFactory.arrayNode();
+                functionalTerm.getTerms().forEach(t -> arguments.add(encode(t)));
+                node.set(ARGUMENTS, arguments);
+            }
+            else if (term.isNull())
+                node.put(NULL, true);
+            else if (term instanceof DBConstant) {
+                DBConstant constant = (DBConstant) term;
+                node.put(DB, constant.getValue());
+                node.put(TYPE, encode(constant.getType()));
+            }
+            else if (term instanceof IRIConstant)
+                node.put(IRI_KEY, ((IRIConstant) term).getIRI().getIRIString());
+            else if (term instanceof BNode)
+                node.put(BNODE, ((BNode) term).getInternalLabel());
+            else if (term instanceof RDFLiteralConstant) {
+                RDFLiteralConstant constant = (RDFLiteralConstant) term;
+                node.put(LITERAL, constant.getValue());
+                node.put(TYPE, encode(constant.getType()));
+            }
+            else if (term instanceof RDFTermTypeConstant)
+                node.put(TERM_TYPE, encode(((RDFTermTypeConstant) term).getRDFTermType()));
+            else
+                throw new UnsupportedSpecificationException("Unsupported term " + term);
+            return node;
+        }
+
+        private String encode(DBTermType type) {
+            String name = type.getName();
+            DBTermType decodedType = decodeDBType(name);
+            if (!isSameType(type, decodedType))
+                throw new UnsupportedSpecificationException("Unsupported DB type " + type);
+            dbTypes.add(type);
+            return name;
+        }
+
+        private String encode(RDFTermType type) {
+            String encoding = encodeRDFType(type);
+            try {
+                if (!isSameType(type, decodeRDFType(encoding)))
+                    throw new UnsupportedSpecificationException("Unsupported RDF type " + type);
+            }
+            catch (InvalidSnapshotException e) {
+                throw new UnsupportedSpecificationException("Unsupported RDF type " + type);
+            }
+            rdfTypes.add(type);
+            return encoding;
+        }
+
+        private String encodeRDFType(RDFTermType type) {
+            if (isSameType(type, typeFactory.getIRITermType()))
+                return "IRI";
+            if (isSameType(type, typeFactory.getBlankNodeType()))
+                return "BNODE";
+            if (isSameType(type, typeFactory.getAbstractObjectRDFType()))
+                return "OBJECT";
+            if (isSameType(type, typeFactory.getAbstractRDFTermType()))
+                return "TERM";
+            if (isSameType(type, typeFactory.getAbstractRDFSLiteral()))
+                return "LITERAL";
+            if (isSameType(type, typeFactory.getAbstractOntopNumericDatatype()))
+                return "NUMERIC";
+            if (isSameType(type, typeFactory.getAbstractOntopDateOrDatetimeDatatype()))
+                return "DATE_OR_DATETIME";
+            if (isSameType(type, typeFactory.getUnsupportedDatatype()))
+                return "UNSUPPORTED";
+            if (type instanceof RDFDatatype) {
+                RDFDatatype datatype = (RDFDatatype) type;
+                return datatype.getLanguageTag()
+                        .map(t -> "@" + t.getFullString())
+                        .orElseGet(() -> "<" + datatype.getIRI().getIRIString() + ">");
+            }
+            throw new UnsupportedSpecificationException("Unsupported RDF type " + type);
+        }
+
+        /*
+         * Function symbols
+         */
+
+        private int encode(FunctionSymbol functionSymbol) {
+            Integer index = symbolIndexes.get(functionSymbol);
+            if (index != null)
+                return index;
+
+            ObjectNode recipe = getCandidateRecipes(functionSymbol)
+                    .filter(r -> tryDecodeSymbol(r)
+                            .filter(s -> isSameSymbol(functionSymbol, s))
+                            .isPresent())
+                    .findFirst()
+                    .orElseThrow(() -> new UnsupportedSpecificationException(
+                            "Unsupported function symbol " + functionSymbol));
+
+            index = symbolArray.size();
+            symbolArray.add(recipe);
+            symbolIndexes.put(functionSymbol, index);
+            return index;
+        }
+
+        private Optional<FunctionSymbol> tryDecodeSymbol(JsonNode recipe) {
+            try {
+                return Optional.of(decodeSymbol(recipe));
+            }
+            // E.g. not supported by the DB dialect
+            catch (InvalidSnapshotException | RuntimeException e) {
+                return Optional.empty();
+            }
+        }
+
+        /**
+         * Lazy stream: the recipes are only built until one matches
+         */
+        private Stream<ObjectNode> getCandidateRecipes(FunctionSymbol functionSymbol) {
+            if (functionSymbol instanceof ObjectStringTemplateFunctionSymbol) {
+                ArrayNode components = nodeFactory.arrayNode();
+                for (Template.Component component : ((ObjectStringTemplateFunctionSymbol) functionSymbol)
+                        .getTemplateComponents()) {
+                    components.add(component.isColumnNameReference()
+                            ? nodeFactory.objectNode().put(COLUMN, Optional.ofNullable(component.getComponent()).orElse(""))
+                            : nodeFactory.objectNode().put(SEPARATOR, component.getComponent()));
+                }
+                String kind = (functionSymbol instanceof IRIStringTemplateFunctionSymbol) ? "iriTemplate" : "bnodeTemplate";
+                ObjectNode recipe = recipe(kind);
+                recipe.set(COMPONENTS, components);
+                return Stream.of(recipe);
+            }
+
+            if (functionSymbol instanceof DBTypeConversionFunctionSymbol) {
+                DBTypeConversionFunctionSymbol conversion = (DBTypeConversionFunctionSymbol) functionSymbol;
+                DBTermType targetType = conversion.getTargetType();
+                Optional<DBTermType> inputType = conversion.getInputType();
+                return Stream.of(
+                        Stream.of(recipe("db").put(NAME, "temporaryConversionToDBString")),
+                        Stream.of(recipe("typed").put(NAME, "castTo").put(TYPE, encode(targetType))),
+                        inputType.map(i -> Stream.of(recipe("cast")
+                                .put(FROM, encode(i))
+                                .put(TO, encode(targetType))))
+                                .orElseGet(Stream::empty),
+                        inputType.map(i -> getCandidateRDFTypes(i)
+                                .map(t -> recipe("toLexical")
+                                        .put(FROM, encode(i))
+                                        .put(RDF_TYPE, encode(t))))
+                                .orElseGet(Stream::empty),
+                        getCandidateRDFTypes(targetType)
+                                .map(t -> recipe("fromLexical")
+                                        .put(TO, encode(targetType))
+                                        .put(RDF_TYPE, encode(t))))
+                        .flatMap(s -> s);
+            }
+
+            int arity = functionSymbol.getArity();
+            String name = functionSymbol.getName();
+            return Stream.of(
+                    DB_SYMBOLS.keySet().stream()
+                            .map(n -> recipe("db").put(NAME, n)),
+                    SYMBOLS_.keySet().stream()
+                            .map(n -> recipe("function").put(NAME, n)),
+                    DB_NARY_SYMBOLS.keySet().stream()
+                            .map(n -> recipe("nary").put(NAME, n).put(ARITY, arity)),
+                    DB_INEQUALITY_SYMBOLS.keySet().stream()
+                            .flatMap(n -> Stream.of(InequalityLabel.values())
+                                    .map(l -> recipe("inequality").put(NAME, n).put(LABEL, l.name()))),
+                    Stream.of(InequalityLabel.values())
+                            .map(l -> recipe("lexicalInequality").put(LABEL, l.name())),
+                    Stream.of(recipe("regular").put(NAME, name).put(ARITY, arity),
+                            recipe("regularBoolean").put(NAME, name).put(ARITY, arity)),
+                    Stream.concat(MATH_OPERATORS.stream(), Stream.of(name))
+                            .map(o -> recipe("math").put(NAME, o)),
+                    EXTRACT_COMPONENTS.stream()
+                            .map(c -> recipe("extract").put(NAME, c)),
+                    CURRENT_DATETIME_TYPES.stream()
+                            .map(t -> recipe("currentDateTime").put(NAME, t)),
+                    (functionSymbol instanceof SPARQLFunctionSymbol)
+                            ? Stream.of(recipe("sparql")
+                                    .put(NAME, ((SPARQLFunctionSymbol) functionSymbol).getOfficialName())
+                                    .put(ARITY, arity))
+                            : Stream.<ObjectNode>empty(),
+                    // Copies: the candidate types may be extended while encoding
+                    ImmutableList.copyOf(dbTypes).stream()
+                            .flatMap(t -> Stream.concat(
+                                    DB_TYPED_SYMBOLS.keySet().stream()
+                                            .map(n -> recipe("typed").put(NAME, n).put(TYPE, encode(t))),
+                                    Stream.concat(MATH_OPERATORS.stream(), Stream.of(name))
+                                            .map(o -> recipe("typedMath").put(NAME, o).put(TYPE, encode(t))))),
+                    ImmutableList.copyOf(rdfTypes).stream()
+                            .map(t -> recipe("isARDFTermType").put(RDF_TYPE, encode(t))))
+                    .flatMap(s -> s);
+        }
+
+        /**
+         * Natural datatype of the DB type and common datatypes
+         */
+        private Stream<RDFTermType> getCandidateRDFTypes(DBTermType dbType) {
+            return Stream.concat(
+                    dbType.getNaturalRDFDatatype()
+                            .map(d -> Stream.<RDFTermType>of(d))
+                            .orElseGet(Stream::empty),
+                    ImmutableList.copyOf(rdfTypes).stream())
+                    .distinct();
+        }
+
+        private ObjectNode recipe(String kind) {
+            return nodeFactory.objectNode().put(KIND, kind);
+        }
+    }
+
+    /**
+     * Same instance, or an instance of the same class with the same name, arity, argument types
+     * and (for conversions and templates) parameters.
+     */
+    private static boolean isSameSymbol(FunctionSymbol original, FunctionSymbol candidate) {
+        if (original == candidate)
+            return true;
+        if (original.getClass() != candidate.getClass()
+                || !original.equals(candidate)
+                || original.getArity() != candidate.getArity())
+            return false;
+
+        for (int i = 0; i < original.getArity(); i++) {
+            if (!original.getExpectedBaseType(i).equals(candidate.getExpectedBaseType(i)))
+                return false;
+        }
+
+        if (original instanceof DBTypeConversionFunctionSymbol) {
+            DBTypeConversionFunctionSymbol originalConversion = (DBTypeConversionFunctionSymbol) original;
+            DBTypeConversionFunctionSymbol candidateConversion = (DBTypeConversionFunctionSymbol) candidate;
+            return originalConversion.getTargetType().equals(candidateConversion.getTargetType())
+                    && originalConversion.getInputType().equals(candidateConversion.getInputType());
+        }
+        if (original instanceof ObjectStringTemplateFunctionSymbol)
+            return ((ObjectStringTemplateFunctionSymbol) original).getTemplateComponents()
+                    .equals(((ObjectStringTemplateFunctionSymbol) candidate).getTemplateComponents());
+        return true;
+    }
+
+    private static boolean isSameType(TermType original, TermType candidate) {
+        return original == candidate
+                || (original.getClass() == candidate.getClass() && original.equals(candidate));
+    }
+
+
+    private class Decoder {
+        private final ImmutableList<JsonNode> symbolRecipes;
+        private final ImmutableList<RelationDefinition> relations;
+        private final Map<Integer, FunctionSymbol> symbols = new HashMap<>();
+
+        Decoder(ImmutableList<JsonNode> symbolRecipes, ImmutableList<RelationDefinition> relations) {
+            this.symbolRecipes = symbolRecipes;
+            this.relations = relations;
+        }
+
+        IQ decodeIQ(JsonNode node) throws InvalidSnapshotException {
+            ImmutableList<Variable> arguments = strings(node.get(ARGUMENTS)).stream()
+                    .map(termFactory::getVariable)
+                    .collect(ImmutableCollectors.toList());
+
+            DistinctVariableOnlyDataAtom projectionAtom;
+            String atom = text(node, ATOM);
+            if (atom.equals(TRIPLE) && arguments.size() == 3)
+                projectionAtom = atomFactory.getDistinctTripleAtom(arguments.get(0), arguments.get(1), arguments.get(2));
+            else if (atom.equals(QUAD) && arguments.size() == 4)
+                projectionAtom = atomFactory.getDistinctQuadAtom(arguments.get(0), arguments.get(1), arguments.get(2),
+                        arguments.get(3));
+            else
+                throw new InvalidSnapshotException("Invalid projection atom " + node);
+
+            return iqFactory.createIQ(projectionAtom, decodeTree(node.get(TREE)));
+        }
+
+        private IQTree decodeTree(JsonNode node) throws InvalidSnapshotException {
+            switch (text(node, NODE)) {
+                case "construction": {
+                    ImmutableMap.Builder<Variable, ImmutableTerm> substitutionBuilder = ImmutableMap.builder();
+                    JsonNode substitution = node.get(SUBSTITUTION);
+                    if (substitution == null || !substitution.isObject())
+                        throw new InvalidSnapshotException("Invalid construction node " + node);
+                    Iterator<Map.Entry<String, JsonNode>> it = substitution.fields();
+                    while (it.hasNext()) {
+                        Map.Entry<String, JsonNode> e = it.next();
+                        substitutionBuilder.put(termFactory.getVariable(e.getKey()), decodeTerm(e.getValue()));
+                    }
+                    return iqFactory.createUnaryIQTree(
+                            iqFactory.createConstructionNode(decodeVariables(node.get(VARIABLES)),
+                                    substitutionFactory.getSubstitution(substitutionBuilder.build())),
+                            decodeTree(node.get(CHILD)));
+                }
+                case "union":
+                    return iqFactory.createNaryIQTree(
+                            iqFactory.createUnionNode(decodeVariables(node.get(VARIABLES))),
+                            decodeChildren(node));
+                case "join":
+                    return iqFactory.createNaryIQTree(
+                            iqFactory.createInnerJoinNode(decodeCondition(node.get(CONDITION))),
+                            decodeChildren(node));
+                case "leftJoin":
+                    return iqFactory.createBinaryNonCommutativeIQTree(
+                            iqFactory.createLeftJoinNode(decodeCondition(node.get(CONDITION))),
+                            decodeTree(node.get(LEFT)),
+                            decodeTree(node.get(RIGHT)));
+                case "filter":
+                    return iqFactory.createUnaryIQTree(
+                            iqFactory.createFilterNode(decodeCondition(node.get(CONDITION))
+                                    .orElseThrow(() -> new InvalidSnapshotException("Invalid filter node " + node))),
+                            decodeTree(node.get(CHILD)));
+                case "distinct":
+                    return iqFactory.createUnaryIQTree(iqFactory.createDistinctNode(), decodeTree(node.get(CHILD)));
+                case "slice": {
+                    long offset = node.path(OFFSET).asLong();
+                    SliceNode sliceNode = node.has(LIMIT)
+                            ? iqFactory.createSliceNode(offset, node.get(LIMIT).asLong())
+                            : iqFactory.createSliceNode(offset);
+                    return iqFactory.createUnaryIQTree(sliceNode, decodeTree(node.get(CHILD)));
+                }
+                case "extensional": {
+                    int relationIndex = node.path(RELATION).asInt(-1);
+                    if (relationIndex < 0 || relationIndex >= relations.size())
+                        throw new InvalidSnapshotException("Invalid relation index " + node);
+                    JsonNode arguments = node.get(ARGUMENTS);
+                    if (arguments == null || !arguments.isObject())
+                        throw new InvalidSnapshotException("Invalid extensional node " + node);
+
+                    ImmutableMap.Builder<Integer, VariableOrGroundTerm> argumentBuilder = ImmutableMap.builder();
+                    Iterator<Map.Entry<String, JsonNode>> it = arguments.fields();
+                    while (it.hasNext()) {
+                        Map.Entry<String, JsonNode> e = it.next();
+                        ImmutableTerm term = decodeTerm(e.getValue());
+                        if (!(term instanceof VariableOrGroundTerm))
+                            throw new InvalidSnapshotException("Invalid extensional node " + node);
+                        try {
+                            argumentBuilder.put(Integer.parseInt(e.getKey()), (VariableOrGroundTerm) term);
+                        }
+                        catch (NumberFormatException ex) {
+                            throw new InvalidSnapshotException("Invalid extensional node " + node);
+                        }
+                    }
+                    return iqFactory.createExtensionalDataNode(relations.get(relationIndex), argumentBuilder.build());
+                }
+                case "empty":
+                    return iqFactory.createEmptyNode(decodeVariables(node.get(VARIABLES)));
+                case "true":
+                    return iqFactory.createTrueNode();
+                default:
+                    throw new InvalidSnapshotException("Invalid node " + node);
+            }
+        }
+
+        private ImmutableList<IQTree> decodeChildren(JsonNode node) throws InvalidSnapshotException {
+            ImmutableList.Builder<IQTree> builder = ImmutableList.builder();
+            for (JsonNode child : elements(node.get(CHILDREN)))
+                builder.add(decodeTree(child));
+            return builder.build();
+        }
+
+        private ImmutableSet<Variable> decodeVariables(JsonNode node) throws InvalidSnapshotException {
+            return strings(node).stream()
+                    .map(termFactory::getVariable)
+                    .collect(ImmutableCollectors.toSet());
+        }
+
+        private Optional<ImmutableExpression> decodeCondition(JsonNode node) throws InvalidSnapshotException {
+            if (node == null)
+                return Optional.empty();
+            ImmutableTerm term = decodeTerm(node);
+            if (!(term instanceof ImmutableExpression))
+                throw new InvalidSnapshotException("Invalid condition " + node);
+            return Optional.of((ImmutableExpression) term);
+        }
+
+        private ImmutableTerm decodeTerm(JsonNode node) throws InvalidSnapshotException {
+            if (node == null)
+                throw new InvalidSnapshotException("Missing term");
+            if (node.isTextual())
+                return termFactory.getVariable(node.asText());
+
+            if (node.has(SYMBOL)) {
+                ImmutableList.Builder<ImmutableTerm> argumentBuilder = ImmutableList.builder();
+                for (JsonNode argument : elements(node.get(ARGUMENTS)))
+                    argumentBuilder.add(decodeTerm(argument));
+                return termFactory.getImmutableFunctionalTerm(getSymbol(node.get(SYMBOL).asInt(-1)),
+                        argumentBuilder.build());
+            }
+            if (node.has(NULL))
+                return termFactory.getNullConstant();
+            if (node.has(DB))
+                return termFactory.getDBConstant(node.get(DB).asText(), decodeDBType(text(node, TYPE)));
+            if (node.has(IRI_KEY))
+                return termFactory.getConstantIRI(rdfFactory.createIRI(node.get(IRI_KEY).asText()));
+            if (node.has(BNODE))
+                return termFactory.getConstantBNode(node.get(BNODE).asText());
+            if (node.has(LITERAL)) {
+                RDFTermType type = decodeRDFType(text(node, TYPE));
+                if (!(type instanceof RDFDatatype))
+                    throw new InvalidSnapshotException("Invalid literal " + node);
+                return termFactory.getRDFLiteralConstant(node.get(LITERAL).asText(), (RDFDatatype) type);
+            }
+            if (node.has(TERM_TYPE))
+                return termFactory.getRDFTermTypeConstant(decodeRDFType(text(node, TERM_TYPE)));
+
+            throw new InvalidSnapshotException("Invalid term " + node);
+        }
+
+        private FunctionSymbol getSymbol(int index) throws InvalidSnapshotException {
+            if (index < 0 || index >= symbolRecipes.size())
+                throw new InvalidSnapshotException("Invalid function symbol index " + index);
+
+            FunctionSymbol symbol = symbols.get(index);
+            if (symbol == null) {
+                symbol = decodeSymbol(symbolRecipes.get(index));
+                symbols.put(index, symbol);
+            }
+            return symbol;
+        }
+    }
+
+    private FunctionSymbol decodeSymbol(JsonNode recipe) throws InvalidSnapshotException {
+        String kind = text(recipe, KIND);
+        switch (kind) {
+            case "iriTemplate":
+                return dbFunctionSymbolFactory.getIRIStringTemplateFunctionSymbol(
+                        decodeTemplate(recipe.get(COMPONENTS)));
+            case "bnodeTemplate":
+                return dbFunctionSymbolFactory.getBnodeStringTemplateFunctionSymbol(
+                        decodeTemplate(recipe.get(COMPONENTS)));
+            case "db":
+                return get(DB_SYMBOLS, recipe).apply(dbFunctionSymbolFactory);
+            case "function":
+                return get(SYMBOLS_, recipe).apply(functionSymbolFactory);
+            case "nary":
+                return get(DB_NARY_SYMBOLS, recipe).apply(dbFunctionSymbolFactory, getArity(recipe));
+            case "inequality":
+                return get(DB_INEQUALITY_SYMBOLS, recipe).apply(dbFunctionSymbolFactory, getLabel(recipe));
+            case "lexicalInequality":
+                return functionSymbolFactory.getLexicalInequalityFunctionSymbol(getLabel(recipe));
+            case "typed":
+                return get(DB_TYPED_SYMBOLS, recipe).apply(dbFunctionSymbolFactory, decodeDBType(text(recipe, TYPE)));
+            case "cast":
+                return dbFunctionSymbolFactory.getDBCastFunctionSymbol(decodeDBType(text(recipe, FROM)),
+                        decodeDBType(text(recipe, TO)));
+            case "toLexical":
+                return dbFunctionSymbolFactory.getConversion2RDFLexicalFunctionSymbol(decodeDBType(text(recipe, FROM)),
+                        decodeRDFType(text(recipe, RDF_TYPE)));
+            case "fromLexical":
+                return dbFunctionSymbolFactory.getConversionFromRDFLexical2DBFunctionSymbol(
+                        decodeDBType(text(recipe, TO)), decodeRDFType(text(recipe, RDF_TYPE)));
+            case "regular":
+                return dbFunctionSymbolFactory.getRegularDBFunctionSymbol(text(recipe, NAME), getArity(recipe));
+            case "regularBoolean":
+                return dbFunctionSymbolFactory.getRegularDBBooleanFunctionSymbol(text(recipe, NAME), getArity(recipe));
+            case "math":
+                return dbFunctionSymbolFactory.getUntypedDBMathBinaryOperator(text(recipe, NAME));
+            case "typedMath":
+                return dbFunctionSymbolFactory.getDBMathBinaryOperator(text(recipe, NAME),
+                        decodeDBType(text(recipe, TYPE)));
+            case "extract":
+                return dbFunctionSymbolFactory.getExtractFunctionSymbol(text(recipe, NAME));
+            case "currentDateTime":
+                return dbFunctionSymbolFactory.getCurrentDateTimeSymbol(text(recipe, NAME));
+            case "sparql":
+                return functionSymbolFactory.getSPARQLFunctionSymbol(text(recipe, NAME), getArity(recipe))
+                        .orElseThrow(() -> new InvalidSnapshotException("Unknown SPARQL function " + recipe));
+            case "isARDFTermType":
+                return functionSymbolFactory.getIsARDFTermTypeFunctionSymbol(decodeRDFType(text(recipe, RDF_TYPE)));
+            default:
+                throw new InvalidSnapshotException("Invalid function symbol " + recipe);
+        }
+    }
+
+    private ImmutableList<Template.Component> decodeTemplate(JsonNode node) throws InvalidSnapshotException {
+        Template.Builder builder = Template.builder();
+        for (JsonNode component : elements(node)) {
+            if (component.has(COLUMN))
+                builder.addColumn(component.get(COLUMN).asText());
+            else if (component.has(SEPARATOR))
+                builder.addSeparator(component.get(SEPARATOR).asText());
+            else
+                throw new InvalidSnapshotException("Invalid template component " + component);
+        }
+        return builder.build();
+    }
+
+    private DBTermType decodeDBType(String name) {
+        return dbTypeFactory.getDBTermType(name);
+    }
+
+    private RDFTermType decodeRDFType(String encoding) throws InvalidSnapshotException {
+        switch (encoding) {
+            case "IRI":
+                return typeFactory.getIRITermType();
+            case "BNODE":
+                return typeFactory.getBlankNodeType();
+            case "OBJECT":
+                return typeFactory.getAbstractObjectRDFType();
+            case "TERM":
+                return typeFactory.getAbstractRDFTermType();
+            case "LITERAL":
+                return typeFactory.getAbstractRDFSLiteral();
+            case "NUMERIC":
+                return typeFactory.getAbstractOntopNumericDatatype();
+            case "DATE_OR_DATETIME":
+                return typeFactory.getAbstractOntopDateOrDatetimeDatatype();
+            case "UNSUPPORTED":
+                return typeFactory.getUnsupportedDatatype();
+            default:
+                if (encoding.startsWith("@") && encoding.length() > 1)
+                    return typeFactory.getLangTermType(encoding.substring(1));
+                if (encoding.startsWith("<") && encoding.endsWith(">") && encoding.length() > 2)
+                    return typeFactory.getDatatype(rdfFactory.createIRI(encoding.substring(1, encoding.length() - 1)));
+                throw new InvalidSnapshotException("Invalid RDF type " + encoding);
+        }
+    }
+
+    private static <T> T get(ImmutableMap<String, T> map, JsonNode recipe) throws InvalidSnapshotException {
+        T value = map.get(text(recipe, NAME));
+        if (value == null)
+            throw new InvalidSnapshotException("Unknown function symbol " + recipe);
+        return value;
+    }
+
+    private static int getArity(JsonNode recipe) throws InvalidSnapshotException {
+        int arity = recipe.path(ARITY).asInt(-1);
+        if (arity < 0)
+            throw new InvalidSnapshotException("Invalid arity " + recipe);
+        return arity;
+    }
+
+    private static InequalityLabel getLabel(JsonNode recipe) throws InvalidSnapshotException {
+        try {
+            return InequalityLabel.valueOf(text(recipe, LABEL));
+        }
+        catch (IllegalArgumentException e) {
+            throw new InvalidSnapshotException("Invalid inequality label " + recipe);
+        }
+    }
+
+    /*
+     * JSON helpers
+     */
+
+    private ArrayNode toArray(Stream<String> stream) {
+        ArrayNode array = nodeFactory.arrayNode();
+        stream.forEach(array::add);
+        return array;
+    }
+
+    private static String text(JsonNode node, String key) throws InvalidSnapshotException {
+        JsonNode value = node.get(key);
+        if (value == null || !value.isTextual())
+            throw new InvalidSnapshotException("Missing " + key + " in " + node);
+        return value.asText();
+    }
+
+    private static ImmutableList<String> strings(JsonNode node) throws InvalidSnapshotException {
+        return elements(node).stream()
+                .map(JsonNode::asText)
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static ImmutableList<JsonNode> elements(JsonNode node) throws InvalidSnapshotException {
+        if (node == null || !node.isArray())
+            throw new InvalidSnapshotException("Array expected instead of " + node);
+        return ImmutableList.copyOf(node.elements());
+    }
+}
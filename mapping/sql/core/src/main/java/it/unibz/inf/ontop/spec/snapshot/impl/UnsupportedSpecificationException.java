@@ -0,0 +1,12 @@
+package it.unibz.inf.ontop.spec.snapshot.impl;
+
+/**
+ * The specification contains a component that cannot be serialized faithfully
+ * (e.g. a function symbol that cannot be rebuilt from the factories)
+ */
+class UnsupportedSpecificationException extends RuntimeException {
+
+    UnsupportedSpecificationException(String message) {
+        super(message);
+    }
+}
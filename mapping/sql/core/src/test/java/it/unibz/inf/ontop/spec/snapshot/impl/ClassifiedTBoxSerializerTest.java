@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.spec.snapshot.impl;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+
+import static it.unibz.inf.ontop.utils.SQLMappingTestingTools.RDF_FACTORY;
+import static it.unibz.inf.ontop.utils.SQLMappingTestingTools.TERM_FACTORY;
+import static org.junit.Assert.*;
+
+public class ClassifiedTBoxSerializerTest {
+
+    private static final String NS = "http://example.org/voc#";
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(RDF_FACTORY, TERM_FACTORY);
+        OClass person = builder.declareClass(RDF_FACTORY.createIRI(NS + "Person"));
+        OClass human = builder.declareClass(RDF_FACTORY.createIRI(NS + "Human"));
+        OClass teacher = builder.declareClass(RDF_FACTORY.createIRI(NS + "Teacher"));
+        OClass course = builder.declareClass(RDF_FACTORY.createIRI(NS + "Course"));
+        ObjectPropertyExpression teaches = builder.declareObjectProperty(RDF_FACTORY.createIRI(NS + "teaches"));
+        ObjectPropertyExpression givesLecture = builder.declareObjectProperty(RDF_FACTORY.createIRI(NS + "givesLecture"));
+        ObjectPropertyExpression isTaughtBy = builder.declareObjectProperty(RDF_FACTORY.createIRI(NS + "isTaughtBy"));
+        DataPropertyExpression name = builder.declareDataProperty(RDF_FACTORY.createIRI(NS + "name"));
+        DataPropertyExpression title = builder.declareDataProperty(RDF_FACTORY.createIRI(NS + "title"));
+        Datatype string = builder.getDatatype(XSD.STRING.getIRIString());
+
+        builder.addSubClassOfAxiom(person, human);
+        builder.addSubClassOfAxiom(human, person);
+        builder.addSubClassOfAxiom(teacher, person);
+        builder.addSubClassOfAxiom(teaches.getDomain(), teacher);
+        builder.addSubClassOfAxiom(teaches.getRange(), course);
+        builder.addSubClassOfAxiom(name.getDomainRestriction(string), person);
+        builder.addSubPropertyOfAxiom(givesLecture, teaches);
+        builder.addSubPropertyOfAxiom(isTaughtBy, teaches.getInverse());
+        builder.addSubPropertyOfAxiom(teaches.getInverse(), isTaughtBy);
+        builder.addSubPropertyOfAxiom(title, name);
+        builder.addDataPropertyRangeAxiom(name.getRange(), string);
+        builder.addDisjointClassesAxiom(person, course);
+        builder.addDisjointObjectPropertiesAxiom(teaches, isTaughtBy);
+        builder.addFunctionalObjectPropertyAxiom(isTaughtBy);
+        builder.addFunctionalDataPropertyAxiom(name);
+        builder.addIrreflexiveObjectPropertyAxiom(teaches);
+
+        // Teacher subClassOf teaches some Course
+        ObjectPropertyExpression auxiliary = builder.createAuxiliaryObjectProperty();
+        builder.addSubPropertyOfAxiom(auxiliary, teaches);
+        builder.addSubClassOfAxiom(auxiliary.getRange(), course);
+        builder.addSubClassOfAxiom(teacher, auxiliary.getDomain());
+
+        ClassifiedTBox tbox = builder.build().tbox();
+
+        ClassifiedTBoxSerializer serializer = new ClassifiedTBoxSerializer(RDF_FACTORY, TERM_FACTORY);
+        ObjectNode node = serializer.serialize(tbox);
+        ClassifiedTBox deserializedTBox = serializer.deserialize(node);
+
+        assertEquals(node, serializer.serialize(deserializedTBox));
+
+        assertEquals(describe(tbox.classesDAG()), describe(deserializedTBox.classesDAG()));
+        assertEquals(describe(tbox.objectPropertiesDAG()), describe(deserializedTBox.objectPropertiesDAG()));
+        assertEquals(describe(tbox.dataPropertiesDAG()), describe(deserializedTBox.dataPropertiesDAG()));
+        assertEquals(describe(tbox.dataRangesDAG()), describe(deserializedTBox.dataRangesDAG()));
+        assertEquals(tbox.disjointClasses().toString(), deserializedTBox.disjointClasses().toString());
+        assertEquals(tbox.functionalObjectProperties(), deserializedTBox.functionalObjectProperties());
+        assertEquals(tbox.functionalDataProperties(), deserializedTBox.functionalDataProperties());
+        assertEquals(tbox.irreflexiveObjectProperties(), deserializedTBox.irreflexiveObjectProperties());
+
+        // The reachability is computed from the restored DAG
+        EquivalencesDAG<ClassExpression> classes = deserializedTBox.classesDAG();
+        assertTrue(classes.getSub(classes.getVertex(person)).contains(classes.getVertex(teaches.getDomain())));
+        assertTrue(deserializedTBox.objectProperties().contains(RDF_FACTORY.createIRI(NS + "teaches")));
+    }
+
+    private static <T> ImmutableSet<String> describe(EquivalencesDAG<T> dag) {
+        return dag.stream()
+                .map(v -> describe(v) + " < " + dag.getDirectSuper(v).stream()
+                        .map(ClassifiedTBoxSerializerTest::describe)
+                        .sorted()
+                        .collect(Collectors.joining(", ")))
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    private static String describe(Equivalences<?> vertex) {
+        return vertex.getRepresentative() + " " + vertex.isIndexed() + " " + vertex.stream()
+                .map(Object::toString)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,144 @@
+package it.unibz.inf.ontop.benchmarks;
+
+import com.google.common.io.CharStreams;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * In-memory H2 database following the BSBM schema, populated with synthetic data,
+ * together with the BSBM mapping and queries.
+ *
+ * The database lives as long as the connection is open.
+ */
+class BSBMDatabase implements AutoCloseable {
+
+    private static final String URL_PREFIX = "jdbc:h2:mem:";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final int PRODUCT_TYPE_COUNT = 20;
+    private static final int PRODUCT_FEATURE_COUNT = 200;
+    private static final String DATE = "DATE '2008-01-01'";
+    private static final String TIMESTAMP = "TIMESTAMP '2008-01-01 00:00:00'";
+
+    private final String jdbcUrl;
+    private final Connection connection;
+
+    private BSBMDatabase(String jdbcUrl, Connection connection) {
+        this.jdbcUrl = jdbcUrl;
+        this.connection = connection;
+    }
+
+    /**
+     * Creates the schema and inserts productCount products (and proportionally many offers, reviews, etc.)
+     */
+    static BSBMDatabase create(int productCount) throws SQLException, IOException {
+        String jdbcUrl = URL_PREFIX + UUID.randomUUID().toString();
+        Connection connection = DriverManager.getConnection(jdbcUrl, USER, PASSWORD);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute(readResource("/bsbm/bsbm-schema.sql"));
+
+            int producerCount = productCount / 20 + 1;
+            int vendorCount = productCount / 50 + 1;
+            int personCount = productCount / 10 + 1;
+
+            st.executeUpdate("INSERT INTO producttype SELECT X, 'ProductType' || X, 'Comment of product type ' || X, " +
+                    "CASE WHEN X = 1 THEN NULL ELSE X / 2 END, 1, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + PRODUCT_TYPE_COUNT + ")");
+            st.executeUpdate("INSERT INTO productfeature SELECT X, 'ProductFeature' || X, 'Comment of feature ' || X, 1, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + PRODUCT_FEATURE_COUNT + ")");
+            st.executeUpdate("INSERT INTO producer SELECT X, 'Producer' || X, 'Comment of producer ' || X, " +
+                    "'http://www.producer' || X || '.com/', CASEWHEN(MOD(X, 2) = 0, 'DE', 'US'), X, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + producerCount + ")");
+            st.executeUpdate("INSERT INTO product SELECT X, 'Product' || X, 'Comment of product ' || X, " +
+                    "MOD(X, " + producerCount + ") + 1, " +
+                    "MOD(X * 7, 2000), MOD(X * 11, 2000), MOD(X * 13, 2000), MOD(X * 17, 2000), MOD(X * 19, 2000), MOD(X * 23, 2000), " +
+                    "'textual1 ' || X, 'textual2 ' || X, 'textual3 ' || X, " +
+                    "CASEWHEN(MOD(X, 3) = 0, NULL, 'textual4 ' || X), CASEWHEN(MOD(X, 5) = 0, NULL, 'textual5 ' || X), 'textual6 ' || X, " +
+                    "MOD(X, " + producerCount + ") + 1, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + productCount + ")");
+            st.executeUpdate("INSERT INTO producttypeproduct SELECT X, MOD(X, " + PRODUCT_TYPE_COUNT + ") + 1" +
+                    " FROM SYSTEM_RANGE(1, " + productCount + ")");
+            // Two distinct features per product (X and 3X + 1 never have the same parity)
+            st.executeUpdate("INSERT INTO productfeatureproduct SELECT X, MOD(X, " + PRODUCT_FEATURE_COUNT + ") + 1" +
+                    " FROM SYSTEM_RANGE(1, " + productCount + ")");
+            st.executeUpdate("INSERT INTO productfeatureproduct SELECT X, MOD(3 * X + 1, " + PRODUCT_FEATURE_COUNT + ") + 1" +
+                    " FROM SYSTEM_RANGE(1, " + productCount + ")");
+            st.executeUpdate("INSERT INTO vendor SELECT X, 'Vendor' || X, 'Comment of vendor ' || X, " +
+                    "'http://www.vendor' || X || '.com/', CASEWHEN(MOD(X, 2) = 0, 'DE', 'US'), X, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + vendorCount + ")");
+            st.executeUpdate("INSERT INTO offer SELECT X, MOD(X, " + productCount + ") + 1, " +
+                    "MOD(MOD(X, " + productCount + ") + 1, " + producerCount + ") + 1, " +
+                    "MOD(X, " + vendorCount + ") + 1, MOD(X * 31, 10000) / 10.0, " + TIMESTAMP + ", " +
+                    "DATEADD('DAY', MOD(X, 365), " + TIMESTAMP + "), MOD(X, 7) + 1, " +
+                    "'http://www.vendor.com/offer' || X, MOD(X, " + vendorCount + ") + 1, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + (2 * productCount) + ")");
+            st.executeUpdate("INSERT INTO person SELECT X, 'Person' || X, RPAD('' || X, 40, '0'), " +
+                    "CASEWHEN(MOD(X, 2) = 0, 'DE', 'US'), MOD(X, 5) + 1, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + personCount + ")");
+            st.executeUpdate("INSERT INTO review SELECT X, X, MOD(X, " + producerCount + ") + 1, " +
+                    "MOD(X, " + personCount + ") + 1, DATEADD('DAY', MOD(X, 365), " + TIMESTAMP + "), " +
+                    "'Review' || X, 'Text of review ' || X, 'en', " +
+                    "MOD(X, 10) + 1, CASEWHEN(MOD(X, 4) = 0, NULL, MOD(X, 9) + 1), MOD(X, 8) + 1, MOD(X, 7) + 1, " +
+                    "MOD(X, 5) + 1, " + DATE +
+                    " FROM SYSTEM_RANGE(1, " + productCount + ")");
+        }
+        return new BSBMDatabase(jdbcUrl, connection);
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    OntopSQLOWLAPIConfiguration createConfiguration(Properties properties) {
+        return createConfigurationBuilder(properties).build();
+    }
+
+    OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder<?>> createConfigurationBuilder(
+            Properties properties) {
+        Reader mappingReader = new InputStreamReader(getResource("/bsbm/bsbm.obda"), StandardCharsets.UTF_8);
+        return OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingReader(mappingReader)
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .properties(properties);
+    }
+
+    /**
+     * name: q1, q2, q3, etc.
+     */
+    static String loadQuery(String name) throws IOException {
+        return readResource("/bsbm/queries/" + name + ".rq");
+    }
+
+    private static String readResource(String path) throws IOException {
+        try (Reader reader = new InputStreamReader(getResource(path), StandardCharsets.UTF_8)) {
+            return CharStreams.toString(reader);
+        }
+    }
+
+    private static InputStream getResource(String path) {
+        InputStream stream = BSBMDatabase.class.getResourceAsStream(path);
+        if (stream == null)
+            throw new IllegalArgumentException("Missing resource: " + path);
+        return stream;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,128 @@
+package it.unibz.inf.ontop.benchmarks;
+
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.TranslationFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.optimizer.*;
+import it.unibz.inf.ontop.iq.planner.QueryPlanner;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.iq.view.OntopViewUnfolder;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each stage of GeneralStructuralAndSemanticIQOptimizer (plus the planner) applied to the unfolded BSBM queries.
+ *
+ * The input of each stage is the output of the previous one, computed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizationStagesBenchmark {
+
+    @Param({"q1", "q2", "q3", "q4", "q5", "q7", "q8", "q10"})
+    public String query;
+
+    private BSBMDatabase database;
+    private ExecutorRegistry executorRegistry;
+
+    private UnionAndBindingLiftOptimizer bindingLiftOptimizer;
+    private JoinLikeOptimizer joinLikeOptimizer;
+    private OntopViewUnfolder viewUnfolder;
+    private AggregationSimplifier aggregationSimplifier;
+    private OrderBySimplifier orderBySimplifier;
+    private GeneralStructuralAndSemanticIQOptimizer generalOptimizer;
+    private QueryPlanner queryPlanner;
+
+    private IQ unfoldedQuery;
+    private IQ liftedQuery;
+    private IQ joinOptimizedQuery;
+    private IQ viewUnfoldedQuery;
+    private IQ aggregationSimplifiedQuery;
+    private IQ optimizedQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BSBMDatabase.create(100);
+        OntopSQLOWLAPIConfiguration configuration = database.createConfiguration(new Properties());
+        OBDASpecification specification = configuration.loadSpecification();
+        Injector injector = configuration.getInjector();
+        executorRegistry = configuration.getExecutorRegistry();
+
+        QueryRewriter rewriter = injector.getInstance(QueryRewriter.class);
+        rewriter.setTBox(specification.getSaturatedTBox());
+        IQ rewrittenQuery = rewriter.rewrite(injector.getInstance(InputQueryFactory.class)
+                .createSelectQuery(BSBMDatabase.loadQuery(query))
+                .translate(injector.getInstance(InputQueryTranslator.class)));
+        unfoldedQuery = injector.getInstance(TranslationFactory.class)
+                .create(specification.getSaturatedMapping())
+                .optimize(rewrittenQuery);
+
+        bindingLiftOptimizer = injector.getInstance(UnionAndBindingLiftOptimizer.class);
+        joinLikeOptimizer = injector.getInstance(JoinLikeOptimizer.class);
+        viewUnfolder = injector.getInstance(OntopViewUnfolder.class);
+        aggregationSimplifier = injector.getInstance(AggregationSimplifier.class);
+        orderBySimplifier = injector.getInstance(OrderBySimplifier.class);
+        generalOptimizer = injector.getInstance(GeneralStructuralAndSemanticIQOptimizer.class);
+        queryPlanner = injector.getInstance(QueryPlanner.class);
+
+        liftedQuery = liftBindingsAndUnions();
+        joinOptimizedQuery = optimizeJoins();
+        viewUnfoldedQuery = unfoldViews();
+        aggregationSimplifiedQuery = simplifyAggregations();
+        optimizedQuery = generalOptimizer.optimize(unfoldedQuery, executorRegistry);
+    }
+
+    @Benchmark
+    public IQ liftBindingsAndUnions() {
+        return bindingLiftOptimizer.optimize(unfoldedQuery);
+    }
+
+    @Benchmark
+    public IQ optimizeJoins() {
+        return joinLikeOptimizer.optimize(liftedQuery, executorRegistry);
+    }
+
+    @Benchmark
+    public IQ unfoldViews() {
+        return viewUnfolder.optimize(joinOptimizedQuery);
+    }
+
+    @Benchmark
+    public IQ simplifyAggregations() {
+        return aggregationSimplifier.optimize(viewUnfoldedQuery);
+    }
+
+    @Benchmark
+    public IQ simplifyOrderBy() {
+        return orderBySimplifier.optimize(aggregationSimplifiedQuery);
+    }
+
+    /**
+     * All the stages above, including the fixed point between join optimization and view unfolding
+     */
+    @Benchmark
+    public IQ optimizeAll() {
+        return generalOptimizer.optimize(unfoldedQuery, executorRegistry);
+    }
+
+    @Benchmark
+    public IQ plan() {
+        return queryPlanner.optimize(optimizedQuery, executorRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+}
@@ -0,0 +1,71 @@
+package it.unibz.inf.ontop.benchmarks;
+
+import com.google.common.collect.ImmutableMultimap;
+import it.unibz.inf.ontop.answering.logging.QueryLogger;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reformulation of BSBM queries into native queries (QueryReformulator.reformulateIntoNativeQuery).
+ *
+ * COLD: the query cache is disabled, so each invocation goes through the whole pipeline
+ * (translation, rewriting, unfolding, optimization, planning and SQL generation).
+ * WARM: the query is already in the query cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReformulationBenchmark {
+
+    public enum QueryCacheState {
+        COLD,
+        WARM
+    }
+
+    @Param({"q1", "q2", "q3", "q4", "q5", "q7", "q8", "q10"})
+    public String query;
+
+    @Param({"COLD", "WARM"})
+    public QueryCacheState queryCache;
+
+    private BSBMDatabase database;
+    private QueryReformulator reformulator;
+    private QueryLogger.Factory queryLoggerFactory;
+    private SelectQuery inputQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BSBMDatabase.create(100);
+
+        Properties properties = new Properties();
+        if (queryCache == QueryCacheState.COLD)
+            properties.setProperty(OntopReformulationSettings.QUERY_CACHE_MAX_SIZE, "0");
+
+        reformulator = database.createConfiguration(properties).loadQueryReformulator();
+        queryLoggerFactory = reformulator.getQueryLoggerFactory();
+        inputQuery = reformulator.getInputQueryFactory().createSelectQuery(BSBMDatabase.loadQuery(query));
+
+        if (queryCache == QueryCacheState.WARM)
+            reformulate();
+    }
+
+    @Benchmark
+    public IQ reformulate() throws OntopReformulationException {
+        return reformulator.reformulateIntoNativeQuery(inputQuery, queryLoggerFactory.create(ImmutableMultimap.of()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+}
@@ -0,0 +1,109 @@
+package it.unibz.inf.ontop.benchmarks;
+
+import com.google.common.collect.ImmutableMultimap;
+import it.unibz.inf.ontop.answering.logging.QueryLogger;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.answering.resultset.impl.JDBCRowDecoder;
+import it.unibz.inf.ontop.answering.resultset.impl.JDBCTupleResultSet;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of JDBC rows into bindings by JDBCTupleResultSet, for a query returning one row per product.
+ *
+ * The baseline only reads the same columns from the JDBC result set (as strings),
+ * so the difference between the two benchmarks is the cost of the conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowConversionBenchmark {
+
+    private static final String QUERY = "PREFIX bsbm: <http://www4.wiwiss.fu-berlin.de/bizer/bsbm/v01/vocabulary/>\n" +
+            "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>\n" +
+            "SELECT ?product ?label ?producer ?numeric1 ?textual1 WHERE {\n" +
+            "  ?product a bsbm:Product ; rdfs:label ?label ; bsbm:producer ?producer ;\n" +
+            "           bsbm:productPropertyNumeric1 ?numeric1 ; bsbm:productPropertyTextual1 ?textual1 .\n" +
+            "}";
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private BSBMDatabase database;
+    private Statement statement;
+    private String sqlQuery;
+    private int columnCount;
+    private IQ executableQuery;
+    private JDBCRowDecoder rowDecoder;
+    private QueryLogger.Factory queryLoggerFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = BSBMDatabase.create(rows);
+        OntopSQLOWLAPIConfiguration configuration = database.createConfiguration(new Properties());
+        QueryReformulator reformulator = configuration.loadQueryReformulator();
+        queryLoggerFactory = reformulator.getQueryLoggerFactory();
+
+        executableQuery = reformulator.reformulateIntoNativeQuery(
+                reformulator.getInputQueryFactory().createSelectQuery(QUERY),
+                queryLoggerFactory.create(ImmutableMultimap.of()));
+
+        ConstructionNode constructionNode = (ConstructionNode) executableQuery.getTree().getRootNode();
+        NativeNode nativeNode = (NativeNode) ((UnaryIQTree) executableQuery.getTree()).getChild().getRootNode();
+        sqlQuery = nativeNode.getNativeQueryString();
+        columnCount = nativeNode.getVariables().size();
+        rowDecoder = new JDBCRowDecoder(executableQuery.getProjectionAtom().getArguments(), nativeNode.getVariables(),
+                nativeNode.getTypeMap(), constructionNode.getSubstitution(),
+                configuration.getTermFactory(), configuration.getInjector().getInstance(SubstitutionFactory.class));
+
+        statement = database.getConnection().createStatement();
+    }
+
+    @Benchmark
+    public int jdbcBaseline(Blackhole blackhole) throws Exception {
+        int count = 0;
+        try (ResultSet rs = statement.executeQuery(sqlQuery)) {
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++)
+                    blackhole.consume(rs.getString(i));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int convertRows(Blackhole blackhole) throws Exception {
+        int count = 0;
+        try (TupleResultSet resultSet = new JDBCTupleResultSet(statement.executeQuery(sqlQuery), rowDecoder,
+                executableQuery.getProjectionAtom(), queryLoggerFactory.create(ImmutableMultimap.of()), null)) {
+            while (resultSet.hasNext()) {
+                blackhole.consume(resultSet.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        statement.close();
+        database.close();
+    }
+}
@@ -0,0 +1,104 @@
+package it.unibz.inf.ontop.benchmarks;
+
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+import org.apache.commons.rdf.api.RDF;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree-witness rewriting (existential reasoning) over a deep class and property hierarchy.
+ *
+ * For i in 1..depth: C_i subClassOf C_{i-1}, R_i subPropertyOf R_{i-1},
+ * C_i subClassOf exists R_i and exists inverse(R_i) subClassOf C_i.
+ *
+ * The query is a chain ?x R_0 ?y1 . ?y1 a C_0 . ?y1 R_0 ?y2 ... of the given length,
+ * where only ?x is projected, so that every suffix of the chain can be witnessed by the TBox.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeWitnessRewritingBenchmark {
+
+    private static final String NAMESPACE = "http://example.org/tw#";
+
+    @Param({"5", "10", "20"})
+    public int depth;
+
+    @Param({"2", "4"})
+    public int chainLength;
+
+    private BSBMDatabase database;
+    private QueryRewriter rewriter;
+    private IQ query;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Only the injector is used (no data is queried)
+        database = BSBMDatabase.create(1);
+        Injector injector = database.createConfigurationBuilder(new Properties())
+                .enableExistentialReasoning(true)
+                .build()
+                .getInjector();
+
+        rewriter = injector.getInstance(QueryRewriter.class);
+        rewriter.setTBox(createTBox(injector.getInstance(RDF.class), injector.getInstance(TermFactory.class)));
+
+        query = injector.getInstance(InputQueryFactory.class)
+                .createSelectQuery(createChainQuery())
+                .translate(injector.getInstance(InputQueryTranslator.class));
+    }
+
+    private ClassifiedTBox createTBox(RDF rdfFactory, TermFactory termFactory) throws InconsistentOntologyException {
+        OntologyBuilder builder = OntologyBuilderImpl.builder(rdfFactory, termFactory);
+
+        OClass previousClass = builder.declareClass(rdfFactory.createIRI(NAMESPACE + "C0"));
+        ObjectPropertyExpression previousProperty = builder.declareObjectProperty(rdfFactory.createIRI(NAMESPACE + "R0"));
+        for (int i = 1; i <= depth; i++) {
+            OClass c = builder.declareClass(rdfFactory.createIRI(NAMESPACE + "C" + i));
+            ObjectPropertyExpression r = builder.declareObjectProperty(rdfFactory.createIRI(NAMESPACE + "R" + i));
+            builder.addSubClassOfAxiom(c, previousClass);
+            builder.addSubPropertyOfAxiom(r, previousProperty);
+            builder.addSubClassOfAxiom(c, r.getDomain());
+            builder.addSubClassOfAxiom(r.getRange(), c);
+            previousClass = c;
+            previousProperty = r;
+        }
+        return builder.build().tbox();
+    }
+
+    private String createChainQuery() {
+        StringBuilder sb = new StringBuilder("PREFIX : <" + NAMESPACE + ">\nSELECT ?x WHERE {\n");
+        String previousVariable = "?x";
+        for (int i = 1; i <= chainLength; i++) {
+            String variable = "?y" + i;
+            sb.append("  ").append(previousVariable).append(" :R0 ").append(variable).append(" .\n")
+                    .append("  ").append(variable).append(" a :C0 .\n");
+            previousVariable = variable;
+        }
+        return sb.append("}").toString();
+    }
+
+    @Benchmark
+    public IQ rewrite() throws OntopReformulationException, EmptyQueryException {
+        return rewriter.rewrite(query);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+}
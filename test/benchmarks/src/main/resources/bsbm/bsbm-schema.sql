@@ -0,0 +1,118 @@
+CREATE TABLE producttype (
+  nr INT PRIMARY KEY,
+  label VARCHAR(100),
+  comment VARCHAR(2000),
+  parent INT,
+  publisher INT,
+  publishDate DATE
+);
+
+CREATE TABLE productfeature (
+  nr INT PRIMARY KEY,
+  label VARCHAR(100),
+  comment VARCHAR(2000),
+  publisher INT,
+  publishDate DATE
+);
+
+CREATE TABLE producer (
+  nr INT PRIMARY KEY,
+  label VARCHAR(100),
+  comment VARCHAR(2000),
+  homepage VARCHAR(100),
+  country CHAR(2),
+  publisher INT,
+  publishDate DATE
+);
+
+CREATE TABLE product (
+  nr INT PRIMARY KEY,
+  label VARCHAR(100),
+  comment VARCHAR(2000),
+  producer INT NOT NULL,
+  propertyNum1 INT,
+  propertyNum2 INT,
+  propertyNum3 INT,
+  propertyNum4 INT,
+  propertyNum5 INT,
+  propertyNum6 INT,
+  propertyTex1 VARCHAR(250),
+  propertyTex2 VARCHAR(250),
+  propertyTex3 VARCHAR(250),
+  propertyTex4 VARCHAR(250),
+  propertyTex5 VARCHAR(250),
+  propertyTex6 VARCHAR(250),
+  publisher INT,
+  publishDate DATE,
+  FOREIGN KEY (producer) REFERENCES producer(nr)
+);
+
+CREATE TABLE producttypeproduct (
+  product INT NOT NULL,
+  productType INT NOT NULL,
+  PRIMARY KEY (product, productType),
+  FOREIGN KEY (product) REFERENCES product(nr),
+  FOREIGN KEY (productType) REFERENCES producttype(nr)
+);
+
+CREATE TABLE productfeatureproduct (
+  product INT NOT NULL,
+  productFeature INT NOT NULL,
+  PRIMARY KEY (product, productFeature),
+  FOREIGN KEY (product) REFERENCES product(nr),
+  FOREIGN KEY (productFeature) REFERENCES productfeature(nr)
+);
+
+CREATE TABLE vendor (
+  nr INT PRIMARY KEY,
+  label VARCHAR(100),
+  comment VARCHAR(2000),
+  homepage VARCHAR(100),
+  country CHAR(2),
+  publisher INT,
+  publishDate DATE
+);
+
+CREATE TABLE offer (
+  nr INT PRIMARY KEY,
+  product INT NOT NULL,
+  producer INT,
+  vendor INT NOT NULL,
+  price DOUBLE,
+  validFrom TIMESTAMP,
+  validTo TIMESTAMP,
+  deliveryDays INT,
+  offerWebpage VARCHAR(100),
+  publisher INT,
+  publishDate DATE,
+  FOREIGN KEY (product) REFERENCES product(nr),
+  FOREIGN KEY (vendor) REFERENCES vendor(nr)
+);
+
+CREATE TABLE person (
+  nr INT PRIMARY KEY,
+  name VARCHAR(30),
+  mbox_sha1sum CHAR(40),
+  country CHAR(2),
+  publisher INT,
+  publishDate DATE
+);
+
+CREATE TABLE review (
+  nr INT PRIMARY KEY,
+  product INT NOT NULL,
+  producer INT,
+  person INT NOT NULL,
+  reviewDate TIMESTAMP,
+  title VARCHAR(200),
+  text VARCHAR(2000),
+  language CHAR(2),
+  rating1 INT,
+  rating2 INT,
+  rating3 INT,
+  rating4 INT,
+  publisher INT,
+  publishDate DATE,
+  FOREIGN KEY (product) REFERENCES product(nr),
+  FOREIGN KEY (person) REFERENCES person(nr)
+);
@@ -70,6 +70,7 @@ public class OntopRDFMaterializerLoading {
                                 }
                             }
                         });
+                repo.createIndexes(connection);
                 LOG.debug("Inserted {} triples from the mappings.", count);
                 return new OntopSemanticIndexLoaderImpl(repo, connection, properties,
                         Optional.of(extractTBox(inputOntology)));
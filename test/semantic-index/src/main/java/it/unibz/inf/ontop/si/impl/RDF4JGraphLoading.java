@@ -24,7 +24,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 public class RDF4JGraphLoading {
 
@@ -50,15 +53,41 @@ public class RDF4JGraphLoading {
         SIRepository repo = new SIRepository(vocabulary.tbox(), loadingConfiguration);
         Connection connection = repo.createConnection();
 
-        //  Load the data
-        SemanticIndexRDFHandler insertData = new SemanticIndexRDFHandler(repo, connection,
+        //  Load the data: the graphs are parsed by a producer thread while the facts are inserted
+        SemanticIndexRDFHandler insertData = new SemanticIndexRDFHandler(
                 loadingConfiguration.getTypeFactory(), loadingConfiguration.getTermFactory(),
                 rdfFactory);
 
-        for (IRI graphURL : graphURLs) {
-            processRDF(insertData, graphURL);
+        Thread parser = new Thread(() -> {
+            try {
+                for (IRI graphURL : graphURLs) {
+                    processRDF(insertData, graphURL);
+                }
+            }
+            catch (Exception e) {
+                insertData.failure = e;
+            }
+            finally {
+                insertData.end();
+            }
+        }, "si-rdf-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            int count = repo.insertData(connection, insertData.iterator());
+            if (insertData.failure != null)
+                throw new SemanticIndexException(insertData.failure.getMessage());
+            repo.createIndexes(connection);
+            LOG.debug("Inserted {} triples from the graphs.", count);
+        }
+        catch (SQLException | RuntimeException e) {
+            throw new SemanticIndexException(e.getMessage());
+        }
+        finally {
+            // stops the parser if the insertion has failed
+            parser.interrupt();
         }
-        LOG.info("Inserted {} triples", insertData.count);
 
         return new OntopSemanticIndexLoaderImpl(repo, connection, properties, Optional.empty() /* no tbox */);
     }
@@ -89,56 +118,78 @@ public class RDF4JGraphLoading {
         }
     }
 
+    /**
+     * Converts the statements into facts and puts them into a bounded queue,
+     * which is consumed through iterator() by another thread
+     */
     private static final class SemanticIndexRDFHandler extends AbstractRDFHandler {
 
-        private final SIRepository repository;
-        private final Connection connection;
         private final TypeFactory typeFactory;
         private final TermFactory termFactory;
 
         private static final int MAX_BUFFER_SIZE = 5000;
+        private static final Optional<RDFFact> END = Optional.empty();
 
-        private List<Statement> buffer = new ArrayList<>(MAX_BUFFER_SIZE);
-        private int count = 0;
+        private final BlockingQueue<Optional<RDFFact>> queue = new ArrayBlockingQueue<>(MAX_BUFFER_SIZE);
         private final RDF rdfFactory;
+        private volatile Exception failure;
 
-        public SemanticIndexRDFHandler(SIRepository repository, Connection connection,
-                                       TypeFactory typeFactory, TermFactory termFactory,
+        public SemanticIndexRDFHandler(TypeFactory typeFactory, TermFactory termFactory,
                                        RDF rdfFactory) {
-            this.repository = repository;
             this.typeFactory = typeFactory;
             this.termFactory = termFactory;
-            this.connection = connection;
             this.rdfFactory = rdfFactory;
         }
 
-        @Override
-        public void endRDF() throws RDFHandlerException {
-            loadBuffer();
-        }
-
         @Override
         public void handleStatement(Statement st) throws RDFHandlerException {
-            // Add statement to buffer
-            buffer.add(st);
-            if (buffer.size() == MAX_BUFFER_SIZE) {
-                loadBuffer();
+            try {
+                queue.put(Optional.of(constructAssertion(st)));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RDFHandlerException(e);
             }
         }
 
-        private void loadBuffer() throws RDFHandlerException {
+        void end() {
             try {
-                Iterator<RDFFact> assertionIterator = buffer.stream()
-                        .map(st -> constructAssertion(st))
-                        .iterator();
-                count += repository.insertData(connection, assertionIterator);
-                buffer.clear();
+                queue.put(END);
             }
-            catch (Exception e) {
-                throw new RDFHandlerException(e);
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
 
+        Iterator<RDFFact> iterator() {
+            return new Iterator<RDFFact>() {
+                private Optional<RDFFact> next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        try {
+                            next = queue.take();
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return next.isPresent();
+                }
+
+                @Override
+                public RDFFact next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    RDFFact fact = next.get();
+                    next = null;
+                    return fact;
+                }
+            };
+        }
+
         /***
          * Constructs an ABox assertion with the data from the current result set.
          * This can be a Class, Object or Data Property assertion. It is a class
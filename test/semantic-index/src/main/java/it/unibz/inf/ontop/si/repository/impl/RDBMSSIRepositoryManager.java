@@ -46,6 +46,7 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 
 /**
  * Store ABox assertions in the DB
@@ -91,7 +92,7 @@ public class RDBMSSIRepositoryManager {
 		}
 		
 		void indexOn(String indexName, String columns) {
-			createIndexCommands.add("CREATE INDEX " + indexName + " ON " + tableName + " (" + columns + ")");
+			createIndexCommands.add("CREATE INDEX IF NOT EXISTS " + indexName + " ON " + tableName + " (" + columns + ")");
 			dropIndexCommands.add("DROP INDEX " + indexName);
 		}
 	}
@@ -350,35 +351,31 @@ public class RDBMSSIRepositoryManager {
 */
 
 	public int insertData(Connection conn, Iterator<RDFFact> data, int commitLimit, int batchLimit) throws SQLException {
-		log.debug("Inserting data into DB");
-
-		// The precondition for the limit number must be greater or equal to one.
-		commitLimit = (commitLimit < 1) ? 1 : commitLimit;
-		batchLimit = (batchLimit < 1) ? 1 : batchLimit;
+		return insertData(conn, null, 1, data, commitLimit, batchLimit);
+	}
 
-		boolean oldAutoCommit = conn.getAutoCommit();
-		conn.setAutoCommit(false);
+	/**
+	 * The facts are converted into rows by the calling thread and written by workerCount threads,
+	 * partitioned by table, each with its own connection (see SIDataLoader)
+	 */
+	int insertData(Connection conn, SIDataLoader.ConnectionFactory connectionFactory, int workerCount,
+				   Iterator<RDFFact> data, int commitLimit, int batchLimit) throws SQLException {
+		log.debug("Inserting data into DB");
+		long startTime = System.currentTimeMillis();
 
-		PreparedStatement uriidStm = conn.prepareStatement(uriIdTable.getINSERT("?, ?"));
-		Map<SemanticIndexViewID, PreparedStatement> stmMap = new HashMap<>();
-		
 		// For counting the insertion
 		int success = 0;
 		Map<IRI, Integer> failures = new HashMap<>();
 
-		int batchCount = 0;
-		int commitCount = 0;
-
-		try {
+		try (SIDataLoader loader = new SIDataLoader(conn, connectionFactory, workerCount, commitLimit, batchLimit)) {
+			List<SIDataLoader.Row> rows = new ArrayList<>();
+			int count = 0;
 			while (data.hasNext()) {
 				RDFFact ax = data.next();
 
 				// log.debug("Inserting statement: {}", ax);
-				batchCount++;
-				commitCount++;
-
 				try {
-					process(conn, ax, uriidStm, stmMap);
+					process(ax, rows::add);
 					success++;
 				}
 				catch (Exception e) {
@@ -393,45 +390,21 @@ public class RDBMSSIRepositoryManager {
 					failures.put(iri, counter + 1);
 				}
 
-				// Check if the batch count is already in the batch limit
-				if (batchCount == batchLimit) {
-					uriidStm.executeBatch();
-					uriidStm.clearBatch();
-					for (PreparedStatement stm : stmMap.values()) {
-						stm.executeBatch();
-						stm.clearBatch();
-					}
-					batchCount = 0; // reset the counter
-				}
-
-				// Check if the commit count is already in the commit limit
-				if (commitCount == commitLimit) {
-					conn.commit();
-					commitCount = 0; // reset the counter
-				}
-			}
+				// the new IRIs are inserted even if the fact itself could not be converted
+				for (SIDataLoader.Row row : rows)
+					loader.add(row);
+				rows.clear();
 
-			// Execute the rest of the batch
-			uriidStm.executeBatch();
-			uriidStm.clearBatch();
-			for (PreparedStatement stm : stmMap.values()) {
-				stm.executeBatch();
-				stm.clearBatch();
+				if (++count % PROGRESS_INTERVAL == 0)
+					log.debug("Processed {} facts ({} facts/s)", count, throughput(count, startTime));
 			}
-			// Commit the rest of the batch insert
-			conn.commit();
-		}
-		finally {
-			// Close all open statements
-			uriidStm.close();
-			for (PreparedStatement stm : stmMap.values()) 
-				stm.close();
+			loader.finish();
 		}
 
-		conn.setAutoCommit(oldAutoCommit);
-
 		// Print the monitoring log
 		log.debug("Total successful insertions: " + success + ".");
+		log.debug("Inserted {} facts in {} ms ({} facts/s, {} writer(s))", success,
+				System.currentTimeMillis() - startTime, throughput(success, startTime), workerCount);
 		int totalFailures = 0;
 		for (Map.Entry<IRI, Integer> entry : failures.entrySet()) {
 			log.warn("Failed to insert data for predicate {} ({} tuples).", entry.getKey(), entry.getValue());
@@ -444,12 +417,17 @@ public class RDBMSSIRepositoryManager {
 		return success;
 	}
 
-	private void process(Connection conn, RDFFact ax, PreparedStatement uriidStm,
-						 Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+	private static final int PROGRESS_INTERVAL = 100_000;
+
+	private static long throughput(int count, long startTime) {
+		return count * 1000L / Math.max(1, System.currentTimeMillis() - startTime);
+	}
+
+	private void process(RDFFact ax, Consumer<SIDataLoader.Row> rows) {
 		if (ax.isClassAssertion() && (ax.getObject() instanceof IRIConstant)) {
 			IRI classIRI = ((IRIConstant) ax.getObject()).getIRI();
 			OClass cls = reasonerDag.classes().get(classIRI);
-			process(conn, ax, cls, uriidStm, stmMap);
+			process(ax, cls, rows);
 		}
 		else {
 			RDFConstant object = ax.getObject();
@@ -457,17 +435,16 @@ public class RDBMSSIRepositoryManager {
 
 			if (object instanceof ObjectConstant) {
 				ObjectPropertyExpression ope = reasonerDag.objectProperties().get(propertyIri);
-				process(conn, ax, ope, uriidStm, stmMap);
+				process(ax, ope, rows);
 			}
 			else if (object instanceof RDFLiteralConstant) {
 				DataPropertyExpression dpe = reasonerDag.dataProperties().get(propertyIri);
-				process(conn, ax, dpe, uriidStm, stmMap);
+				process(ax, dpe, rows);
 			}
 		}
 	}
 
-	private void process(Connection conn, RDFFact assertion, ObjectPropertyExpression ope0, PreparedStatement uriidStm,
-						 Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+	private void process(RDFFact assertion, ObjectPropertyExpression ope0, Consumer<SIDataLoader.Row> rows) {
 
 		if (ope0.isInverse()) 
 			throw new RuntimeException("INVERSE PROPERTIES ARE NOT SUPPORTED IN ABOX:" + assertion);
@@ -494,64 +471,56 @@ public class RDBMSSIRepositoryManager {
 
 		SemanticIndexView view = views.getView(o1.getType(), o2.getType());
 		
-		PreparedStatement stm = stmMap.get(view.getId());
-		if (stm == null) {
-			stm = conn.prepareStatement(view.getINSERT());
-			stmMap.put(view.getId(), stm);
-		}
-		
-		int uri_id = getObjectConstantUriId(o1, uriidStm);
-		int uri2_id = getObjectConstantUriId(o2, uriidStm);
+		int uri_id = getObjectConstantUriId(o1, rows);
+		int uri2_id = getObjectConstantUriId(o2, rows);
 		
 		// Construct the database INSERT statements		
-		stm.setInt(1, uri_id);
-		stm.setInt(2, uri2_id);		
-		stm.setInt(3, idx);
-		stm.addBatch();
+		rows.accept(new SIDataLoader.Row(view.getTableName(), view.getINSERT(), stm -> {
+			stm.setInt(1, uri_id);
+			stm.setInt(2, uri2_id);
+			stm.setInt(3, idx);
+		}));
 		
 		// Register non emptiness
 		view.addIndex(idx);
 	} 
 
-	private void process(Connection conn, RDFFact assertion, DataPropertyExpression dpe0, PreparedStatement uriidStm, Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+	private void process(RDFFact assertion, DataPropertyExpression dpe0, Consumer<SIDataLoader.Row> rows) {
 
 		// replace the property by its canonical representative
 		DataPropertyExpression dpe = reasonerDag.dataPropertiesDAG().getCanonicalForm(dpe0);
 		int idx = cacheSI.getEntry(dpe).getIndex();
 		
 		ObjectConstant subject = assertion.getSubject();
-		int uri_id = getObjectConstantUriId(subject, uriidStm);
+		int uri_id = getObjectConstantUriId(subject, rows);
 
 		RDFLiteralConstant object = (RDFLiteralConstant) assertion.getObject();
 
 		// ROMAN (28 June 2016): quite fragile because objectType is UNSUPPORTED for SHORT, BYTE, etc.
 		//                       a a workaround, obtain the URI ID first, without triggering an exception here
 		SemanticIndexView view =  views.getView(subject.getType(), object.getType());
-		PreparedStatement stm = stmMap.get(view.getId());
-		if (stm == null) {
-			stm = conn.prepareStatement(view.getINSERT());
-			stmMap.put(view.getId(), stm);
-		}
 
-		stm.setInt(1, uri_id);
-		
 		String value = object.getValue();
-		
+
+		// the value is parsed here so that a datatype mismatch is reported for this fact
+		SIDataLoader.RowWriter valueWriter;
 		switch (COL_TYPE.getColType(object.getType().getIRI())) {
 			case LANG_STRING:  // -3
-				stm.setString(2, value);
-				stm.setString(4, object.getType().getLanguageTag().get().getFullString());
+				String languageTag = object.getType().getLanguageTag().get().getFullString();
+				valueWriter = stm -> {
+					stm.setString(2, value);
+					stm.setString(4, languageTag);
+				};
 				break;  
 			case STRING:   // 1
-				stm.setString(2, value);
+				valueWriter = stm -> stm.setString(2, value);
 				break;
 	        case INT:   // 3
 	            //if (value.charAt(0) == '+') // ROMAN: not needed in Java 7
 	            //    value = value.substring(1, value.length());
-	        	stm.setInt(2, Integer.parseInt(value));
-	            break;
 	        case UNSIGNED_INT:  // 4
-	        	stm.setInt(2, Integer.parseInt(value));
+				int intValue = Integer.parseInt(value);
+				valueWriter = stm -> stm.setInt(2, intValue);
 	            break;
 	        case INTEGER:  // 2
 	        case NEGATIVE_INTEGER:   // 5
@@ -561,40 +530,48 @@ public class RDBMSSIRepositoryManager {
 	        case LONG: // 10
 	            //if (value.charAt(0) == '+')  // ROMAN: not needed in Java 7
 	            //    value = value.substring(1, value.length());
-	            stm.setLong(2, Long.parseLong(value));
+				long longValue = Long.parseLong(value);
+				valueWriter = stm -> stm.setLong(2, longValue);
 	            break;
 	        case FLOAT: // 9
-				stm.setDouble(2, Float.parseFloat(value));
+				double floatValue = Float.parseFloat(value);
+				valueWriter = stm -> stm.setDouble(2, floatValue);
 	            break;
 			case DOUBLE: // 12
-				stm.setDouble(2, Double.parseDouble(value));
+				double doubleValue = Double.parseDouble(value);
+				valueWriter = stm -> stm.setDouble(2, doubleValue);
 				break;
 			case DECIMAL: // 11
-				stm.setBigDecimal(2, new BigDecimal(value));
+				BigDecimal decimalValue = new BigDecimal(value);
+				valueWriter = stm -> stm.setBigDecimal(2, decimalValue);
 				break;
 			case DATETIME_STAMP: // 15
 			case DATETIME: // 13
 				Timestamp timestamp = XsdDatatypeConverter.parseXsdDateTime(value);
-				stm.setTimestamp(2, timestamp);
+				valueWriter = stm -> stm.setTimestamp(2, timestamp);
 				break;
 			case BOOLEAN: // 14				
-				stm.setBoolean(2, XsdDatatypeConverter.parseXsdBoolean(value));
+				boolean booleanValue = XsdDatatypeConverter.parseXsdBoolean(value);
+				valueWriter = stm -> stm.setBoolean(2, booleanValue);
 				break;
 			default:
 				// UNSUPPORTED DATATYPE
 				log.warn("Ignoring assertion: {}", assertion);
 				return;				
 		}
-		
-		stm.setInt(3, idx);
-		stm.addBatch();
+
+		rows.accept(new SIDataLoader.Row(view.getTableName(), view.getINSERT(), stm -> {
+			stm.setInt(1, uri_id);
+			valueWriter.write(stm);
+			stm.setInt(3, idx);
+		}));
 		
 		// register non-emptiness
 		view.addIndex(idx);
 	}
 	
 		
-	private void process(Connection conn, RDFFact assertion, OClass concept0, PreparedStatement uriidStm, Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+	private void process(RDFFact assertion, OClass concept0, Consumer<SIDataLoader.Row> rows) {
 		
 		// replace concept by the canonical representative (which must be a concept name)
 		OClass concept = (OClass)reasonerDag.classesDAG().getCanonicalForm(concept0);
@@ -603,19 +580,14 @@ public class RDBMSSIRepositoryManager {
 		ObjectConstant c1 = assertion.getSubject();
 
 		SemanticIndexView view =  views.getView(c1.getType());
-	
-		PreparedStatement stm = stmMap.get(view.getId());
-		if (stm == null) {
-			stm = conn.prepareStatement(view.getINSERT());
-			stmMap.put(view.getId(), stm);
-		}
 
-		int uri_id = getObjectConstantUriId(c1, uriidStm); 
+		int uri_id = getObjectConstantUriId(c1, rows); 
 		
 		// Construct the database INSERT statements
-		stm.setInt(1, uri_id);
-		stm.setInt(2, conceptIndex);
-		stm.addBatch();
+		rows.accept(new SIDataLoader.Row(view.getTableName(), view.getINSERT(), stm -> {
+			stm.setInt(1, uri_id);
+			stm.setInt(2, conceptIndex);
+		}));
 	
 		// Register non emptiness
 		view.addIndex(conceptIndex);
@@ -626,22 +598,24 @@ public class RDBMSSIRepositoryManager {
 	// TODO: use database to get the maximum URIId
 	private int maxURIId = -1;
 	
-	private int getObjectConstantUriId(ObjectConstant c, PreparedStatement uriidStm) throws SQLException {
+	private int getObjectConstantUriId(ObjectConstant c, Consumer<SIDataLoader.Row> rows) {
 		
 		// TODO (ROMAN): I am not sure this is entirely correct for blank nodes
 		String uri = (c instanceof BNode) ? ((BNode) c).getInternalLabel() : ((IRIConstant) c).getIRI().getIRIString();
 
 		int uri_id = uriMap.getId(uri);
 		if (uri_id < 0) {
-			uri_id = maxURIId + 1;
+			int new_uri_id = maxURIId + 1;
 
-			uriMap.set(uri, uri_id);
+			uriMap.set(uri, new_uri_id);
 			maxURIId++;
 			
 			// Construct the database INSERT statement
-			uriidStm.setInt(1, uri_id);
-			uriidStm.setString(2, uri);
-			uriidStm.addBatch();								
+			rows.accept(new SIDataLoader.Row(uriIdTable.tableName, uriIdTable.getINSERT("?, ?"), stm -> {
+				stm.setInt(1, new_uri_id);
+				stm.setString(2, uri);
+			}));
+			return new_uri_id;
 		}
 			
 		return uri_id;
@@ -1099,9 +1073,13 @@ public class RDBMSSIRepositoryManager {
 	
 	
 	
-/* dead code
+	/**
+	 * Creates the indexes of the data tables (if they do not exist yet).
+	 * To be called after loading the data, so that the indexes are not maintained during the load.
+	 */
 	public void createIndexes(Connection conn) throws SQLException {
 		log.debug("Creating indexes");
+		long startTime = System.currentTimeMillis();
 		try (Statement st = conn.createStatement()) {
 			for (TableDescription table : attributeTables)
 				for (String s : table.createIndexCommands)
@@ -1117,8 +1095,10 @@ public class RDBMSSIRepositoryManager {
 			st.addBatch("ANALYZE");
 			st.executeBatch();
 		}
+		log.debug("Indexes created in {} ms", System.currentTimeMillis() - startTime);
 	}
 
+/* dead code
 	public void dropIndexes(Connection conn) throws SQLException {
 		log.debug("Dropping indexes");
 
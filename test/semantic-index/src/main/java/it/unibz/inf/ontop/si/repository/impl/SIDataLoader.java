@@ -0,0 +1,261 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the rows of the Semantic Index tables in JDBC batches.
+ *
+ * The rows are partitioned by table between the workers: each worker has its own connection
+ * and thread, and receives the rows of its tables by chunks of batchLimit rows.
+ * With a single worker, the rows are written by the calling thread on the given connection.
+ *
+ * Each worker commits every commitLimit rows.
+ */
+class SIDataLoader implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(SIDataLoader.class);
+
+	private static final int QUEUE_CAPACITY = 8;
+	private static final List<Row> END = Collections.emptyList();
+
+	@FunctionalInterface
+	interface ConnectionFactory {
+		Connection getConnection() throws SQLException;
+	}
+
+	@FunctionalInterface
+	interface RowWriter {
+		void write(PreparedStatement stm) throws SQLException;
+	}
+
+	static final class Row {
+		private final String tableName;
+		private final String insertCommand;
+		private final RowWriter writer;
+
+		Row(String tableName, String insertCommand, RowWriter writer) {
+			this.tableName = tableName;
+			this.insertCommand = insertCommand;
+			this.writer = writer;
+		}
+	}
+
+	private final int commitLimit;
+	private final int batchLimit;
+	private final List<Worker> workers;
+	private final Map<String, Worker> tableWorkers = new HashMap<>();
+	private final List<Thread> threads = new ArrayList<>();
+	private boolean isClosed = false;
+
+	/**
+	 * The given connection is used by the calling thread when there is a single worker,
+	 * otherwise each worker opens its own connection
+	 */
+	SIDataLoader(Connection connection, ConnectionFactory connectionFactory, int workerCount,
+				 int commitLimit, int batchLimit) throws SQLException {
+		// The precondition for the limit number must be greater or equal to one.
+		this.commitLimit = Math.max(1, commitLimit);
+		this.batchLimit = Math.max(1, batchLimit);
+
+		List<Worker> workers = new ArrayList<>();
+		try {
+			if (workerCount <= 1)
+				workers.add(new Worker(connection, false));
+			else
+				for (int i = 0; i < workerCount; i++)
+					workers.add(new Worker(connectionFactory.getConnection(), true));
+		}
+		catch (SQLException e) {
+			for (Worker worker : workers)
+				worker.close();
+			throw e;
+		}
+		this.workers = Collections.unmodifiableList(workers);
+
+		if (workerCount > 1)
+			for (int i = 0; i < workers.size(); i++) {
+				Thread thread = new Thread(workers.get(i), "si-loader-" + i);
+				thread.setDaemon(true);
+				thread.start();
+				threads.add(thread);
+			}
+	}
+
+	void add(Row row) throws SQLException {
+		Worker worker = tableWorkers.computeIfAbsent(row.tableName,
+				t -> workers.get(tableWorkers.size() % workers.size()));
+		worker.pending.add(row);
+		if (worker.pending.size() >= batchLimit)
+			worker.flush();
+	}
+
+	/**
+	 * Writes the remaining rows, commits and waits for the workers
+	 */
+	void finish() throws SQLException {
+		try {
+			for (Worker worker : workers)
+				worker.flush();
+
+			if (threads.isEmpty())
+				workers.get(0).commit();
+		}
+		finally {
+			close();
+		}
+		for (Worker worker : workers)
+			worker.checkFailure();
+	}
+
+	/**
+	 * Stops the workers and releases the connections (without writing the pending rows)
+	 */
+	@Override
+	public void close() {
+		if (isClosed)
+			return;
+		isClosed = true;
+
+		try {
+			for (Worker worker : workers)
+				if (!threads.isEmpty())
+					worker.queue.put(END);
+			for (Thread thread : threads)
+				thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			for (Worker worker : workers)
+				worker.close();
+		}
+	}
+
+	private final class Worker implements Runnable {
+		private final Connection connection;
+		private final boolean isOwnConnection;
+		private final boolean oldAutoCommit;
+		private final Map<String, PreparedStatement> statements = new HashMap<>();
+		private final BlockingQueue<List<Row>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		private List<Row> pending = new ArrayList<>();
+		private int uncommitted = 0;
+		private volatile SQLException failure;
+
+		Worker(Connection connection, boolean isOwnConnection) throws SQLException {
+			this.connection = connection;
+			this.isOwnConnection = isOwnConnection;
+			this.oldAutoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+		}
+
+		void flush() throws SQLException {
+			if (pending.isEmpty())
+				return;
+			List<Row> rows = pending;
+			pending = new ArrayList<>(batchLimit);
+			if (threads.isEmpty())
+				write(rows);
+			else {
+				try {
+					submit(rows);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while loading the data", e);
+				}
+			}
+		}
+
+		void submit(List<Row> rows) throws SQLException, InterruptedException {
+			checkFailure();
+			queue.put(rows);
+		}
+
+		void checkFailure() throws SQLException {
+			if (failure != null)
+				throw failure;
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<Row> rows;
+				while ((rows = queue.take()) != END) {
+					// after a failure, the rows are discarded so that the producer is not blocked
+					if (failure == null) {
+						try {
+							write(rows);
+						}
+						catch (SQLException e) {
+							failure = e;
+						}
+					}
+				}
+				if (failure == null)
+					commit();
+			}
+			catch (SQLException e) {
+				failure = e;
+			}
+			catch (InterruptedException e) {
+				failure = new SQLException("Interrupted while loading the data", e);
+			}
+		}
+
+		private void write(List<Row> rows) throws SQLException {
+			Set<PreparedStatement> used = new HashSet<>();
+			for (Row row : rows) {
+				PreparedStatement stm = statements.get(row.insertCommand);
+				if (stm == null) {
+					stm = connection.prepareStatement(row.insertCommand);
+					statements.put(row.insertCommand, stm);
+				}
+				row.writer.write(stm);
+				stm.addBatch();
+				used.add(stm);
+			}
+			for (PreparedStatement stm : used) {
+				stm.executeBatch();
+				stm.clearBatch();
+			}
+
+			uncommitted += rows.size();
+			if (uncommitted >= commitLimit)
+				commit();
+		}
+
+		private void commit() throws SQLException {
+			connection.commit();
+			uncommitted = 0;
+		}
+
+		private void close() {
+			for (PreparedStatement stm : statements.values()) {
+				try {
+					stm.close();
+				}
+				catch (SQLException e) {
+					log.debug("Cannot close a statement: {}", e.getMessage());
+				}
+			}
+			try {
+				if (isOwnConnection)
+					connection.close();
+				else
+					connection.setAutoCommit(oldAutoCommit);
+			}
+			catch (SQLException e) {
+				log.debug("Cannot release the connection: {}", e.getMessage());
+			}
+		}
+	}
+}
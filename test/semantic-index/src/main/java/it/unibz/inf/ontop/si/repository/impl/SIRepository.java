@@ -32,6 +32,8 @@ public class SIRepository {
     private static final Logger LOG = LoggerFactory.getLogger(SIRepository.class);
     private static final String DEFAULT_USER = "sa";
     private static final String DEFAULT_PASSWORD = "";
+    // each writer has its own connection to the in-memory DB
+    private static final int MAX_WRITER_THREADS = 4;
 
     private final RDBMSSIRepositoryManager dataRepository;
     private final LoadingConfiguration loadingConfiguration;
@@ -58,7 +60,17 @@ public class SIRepository {
     }
 
     public int insertData(Connection connection, Iterator<RDFFact> iterator) throws SQLException {
-        return dataRepository.insertData(connection, iterator, 5000, 500);
+        int writerThreads = Math.min(MAX_WRITER_THREADS, Runtime.getRuntime().availableProcessors());
+        return dataRepository.insertData(connection,
+                () -> DriverManager.getConnection(getJdbcUrl(), getUser(), getPassword()),
+                writerThreads, iterator, 5000, 500);
+    }
+
+    /**
+     * To be called once the data has been inserted (bulk loading is faster without the indexes)
+     */
+    public void createIndexes(Connection connection) throws SQLException {
+        dataRepository.createIndexes(connection);
     }
 
     public Connection createConnection() throws SemanticIndexException {
@@ -2,22 +2,76 @@ package it.unibz.inf.ontop.si.repository.impl;
 
 import it.unibz.inf.ontop.model.term.functionsymbol.IRIDictionary;
 
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * Compact dictionary of the IRIs (and blank node labels) of the Semantic Index.
+ *
+ * The IRIs are stored in insertion order (their IDs are consecutive, starting from 0) as UTF-8 bytes
+ * in large pages, front-coded: each IRI only keeps the suffix that differs from the previous one,
+ * except every RESTART_INTERVAL IRIs, which are stored in full.
+ * The IDs are indexed by an open-addressing hash table of primitive ints.
+ *
+ * Lookups can be performed concurrently, insertions cannot.
+ */
 public class SemanticIndexURIMap implements IRIDictionary {
-	
-	// Semantic Index URI reference structures
-	private final HashMap<String, Integer> uriIds = new HashMap<> (100000);
-	private final HashMap <Integer, String> uriMap2 = new HashMap<> (100000);
-	
-	
+
+	private static final int RESTART_INTERVAL = 16;
+	private static final int PAGE_SIZE = 1 << 22;
+	private static final int INITIAL_CAPACITY = 1 << 16;
+	private static final int EMPTY = -1;
+
+	// IRIs
+	private final List<ByteBuffer> pages = new ArrayList<>();
+	private int[] pageUsed = new int[16];
+	private ByteBuffer currentPage;
+	private long[] restartAddresses = new long[INITIAL_CAPACITY / RESTART_INTERVAL];
+	private byte[] lastIRI = new byte[0];
+
+	// hash index
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int[] table = newTable(INITIAL_CAPACITY * 2);
+
+	private int size = 0;
+
 	/**
 	 * set(uri, id) is used only by RDBMSSIRepository
-	 * 
+	 *
+	 * The IDs must be consecutive: id is the number of IRIs already in the dictionary.
 	 */
 	void set(String uri, int id) {
-		uriIds.put(uri, id);
-		uriMap2.put(id, uri);
+		if (id != size)
+			throw new IllegalArgumentException("Non-consecutive IRI ID " + id + " (expected " + size + ")");
+
+		byte[] bytes = uri.getBytes(StandardCharsets.UTF_8);
+		int shared = (size % RESTART_INTERVAL == 0) ? 0 : commonPrefixLength(lastIRI, bytes);
+		int suffixLength = bytes.length - shared;
+
+		ByteBuffer page = getPageFor(varIntSize(shared) + varIntSize(suffixLength) + suffixLength);
+		if (size % RESTART_INTERVAL == 0) {
+			int restart = size / RESTART_INTERVAL;
+			if (restart == restartAddresses.length)
+				restartAddresses = Arrays.copyOf(restartAddresses, restartAddresses.length * 2);
+			restartAddresses[restart] = ((long) (pages.size() - 1) << 32) | page.position();
+		}
+		writeVarInt(page, shared);
+		writeVarInt(page, suffixLength);
+		page.put(bytes, shared, suffixLength);
+		pageUsed[pages.size() - 1] = page.position();
+		lastIRI = bytes;
+
+		if (size == hashes.length)
+			hashes = Arrays.copyOf(hashes, hashes.length * 2);
+		hashes[size] = hash(uri);
+		insertIntoTable(table, size);
+		size++;
+
+		if (size > table.length / 4 * 3)
+			table = rehash(table.length * 2);
 	}
 
 	/***
@@ -29,15 +83,179 @@ public class SemanticIndexURIMap implements IRIDictionary {
 	 */
 	@Override
 	public int getId(String uri) {
-		Integer index =  uriIds.get(uri);
-		if (index != null)
-			return index;
+		int[] table = this.table;
+		int h = hash(uri);
+		int mask = table.length - 1;
+		byte[] key = null;
+		for (int slot = h & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+			int id = table[slot];
+			if (hashes[id] == h) {
+				if (key == null)
+					key = uri.getBytes(StandardCharsets.UTF_8);
+				if (isStoredAs(id, key))
+					return id;
+			}
+		}
 		return -2;
 	}
 
+	/**
+	 * Compares the stored bytes of the IRI with the given ID in place, without decoding the IRI.
+	 *
+	 * Walks the front-coded entries from the restart point, keeping the length of the common prefix
+	 * of the key and the current IRI: only the suffixes that extend this common prefix are compared.
+	 */
+	private boolean isStoredAs(int id, byte[] key) {
+		int restart = id / RESTART_INTERVAL;
+		long address = restartAddresses[restart];
+		int pageIndex = (int) (address >>> 32);
+		ByteBuffer page = pages.get(pageIndex);
+		int position = (int) address;
+
+		int matched = 0;
+		int length = 0;
+		for (int i = restart * RESTART_INTERVAL; i <= id; i++) {
+			if (position >= pageUsed[pageIndex]) {
+				pageIndex++;
+				page = pages.get(pageIndex);
+				position = 0;
+			}
+			int shared = getVarInt(page, position);
+			position += varIntSize(shared);
+			int suffixLength = getVarInt(page, position);
+			position += varIntSize(suffixLength);
+			length = shared + suffixLength;
+
+			// Otherwise, the byte at the position "matched" is inherited from the previous IRI, which differs from the key
+			if (shared <= matched) {
+				int max = Math.min(suffixLength, key.length - shared);
+				int j = 0;
+				while (j < max && page.get(position + j) == key[shared + j])
+					j++;
+				matched = shared + j;
+			}
+			position += suffixLength;
+		}
+		return matched == key.length && length == key.length;
+	}
+
 	@Override
 	public String getURI(Integer id) {
-		return uriMap2.get(id);
+		if (id == null || id < 0 || id >= size)
+			return null;
+
+		int restart = id / RESTART_INTERVAL;
+		long address = restartAddresses[restart];
+		int pageIndex = (int) (address >>> 32);
+		ByteBuffer page = pages.get(pageIndex).duplicate();
+		page.position((int) address);
+
+		byte[] buffer = new byte[64];
+		int length = 0;
+		for (int i = restart * RESTART_INTERVAL; i <= id; i++) {
+			if (page.position() >= pageUsed[pageIndex]) {
+				pageIndex++;
+				page = pages.get(pageIndex).duplicate();
+				page.position(0);
+			}
+			int shared = readVarInt(page);
+			int suffixLength = readVarInt(page);
+			length = shared + suffixLength;
+			if (length > buffer.length)
+				buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+			page.get(buffer, shared, suffixLength);
+		}
+		return new String(buffer, 0, length, StandardCharsets.UTF_8);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private ByteBuffer getPageFor(int entrySize) {
+		if (currentPage == null || currentPage.remaining() < entrySize) {
+			currentPage = ByteBuffer.allocate(Math.max(PAGE_SIZE, entrySize));
+			pages.add(currentPage);
+			if (pages.size() > pageUsed.length)
+				pageUsed = Arrays.copyOf(pageUsed, pageUsed.length * 2);
+		}
+		return currentPage;
+	}
+
+	private int[] rehash(int capacity) {
+		int[] newTable = newTable(capacity);
+		for (int id = 0; id < size; id++)
+			insertIntoTable(newTable, id);
+		return newTable;
+	}
+
+	private void insertIntoTable(int[] table, int id) {
+		int mask = table.length - 1;
+		int slot = hashes[id] & mask;
+		while (table[slot] != EMPTY)
+			slot = (slot + 1) & mask;
+		table[slot] = id;
+	}
+
+	private static int[] newTable(int capacity) {
+		int[] table = new int[capacity];
+		Arrays.fill(table, EMPTY);
+		return table;
+	}
+
+	private static int hash(String uri) {
+		int h = uri.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static int commonPrefixLength(byte[] b1, byte[] b2) {
+		int max = Math.min(b1.length, b2.length);
+		int i = 0;
+		while (i < max && b1[i] == b2[i])
+			i++;
+		return i;
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value >>>= 7) != 0)
+			size++;
+		return size;
+	}
+
+	private static void writeVarInt(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private static int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Absolute read: does not change the position of the (shared) buffer
+	 */
+	private static int getVarInt(ByteBuffer buffer, int position) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get(position++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
 	}
 
 	@Override
@@ -8,12 +8,14 @@ import java.util.Set;
 public class SemanticIndexView {
 	
 	private final SemanticIndexViewID id;
+	private final String tableName;
 	private final String selectCommand;
 	private final String insertCommand;
 	private final Set<Integer> indexes = new HashSet<>();
 	
-	public SemanticIndexView(SemanticIndexViewID id, String selectCommand, String insertCommand) {
+	public SemanticIndexView(SemanticIndexViewID id, String tableName, String selectCommand, String insertCommand) {
 		this.id = id;
+		this.tableName = tableName;
 		this.selectCommand = selectCommand;
 		this.insertCommand = insertCommand;
 	}
@@ -22,6 +24,10 @@ public class SemanticIndexView {
 		return id;
 	}
 	
+	public String getTableName() {
+		return tableName;
+	}
+
 	public String getSELECT(String filter) {
 		return selectCommand + filter;
 	}
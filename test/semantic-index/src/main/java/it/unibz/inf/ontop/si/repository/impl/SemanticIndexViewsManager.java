@@ -97,7 +97,8 @@ public class SemanticIndexViewsManager {
 				String insert = RDBMSSIRepositoryManager.classTable.getINSERT("?, ?, " + value);
 				
 				SemanticIndexViewID viewId = new SemanticIndexViewID(type1);
-				SemanticIndexView view = new SemanticIndexView(viewId, select, insert);
+				SemanticIndexView view = new SemanticIndexView(viewId,
+						RDBMSSIRepositoryManager.classTable.tableName, select, insert);
 				views.put(view.getId(), view);		
 				classViews.add(view);
 			}
@@ -116,7 +117,7 @@ public class SemanticIndexViewsManager {
 		String value =  type1.isBlankNode() ? "TRUE" : "FALSE";
 		String filter = "ISBNODE = " + value + " AND ";
 
-		String select, insert;
+		String tableName, select, insert;
 
 		if (type2.getLanguageTag().isPresent()) {
 			/*
@@ -130,6 +131,7 @@ public class SemanticIndexViewsManager {
 			RDBMSSIRepositoryManager.TableDescription tableDescription = RDBMSSIRepositoryManager.ATTRIBUTE_TABLE_MAP
 					.get(RDF.LANGSTRING);
 
+			tableName = tableDescription.tableName;
 			select = tableDescription.getSELECT("LANG = '" + languageTag.getFullString() +  "' AND " + filter);
 			insert = tableDescription.getINSERT("?, ?, ?, ?, " + value);
 		}
@@ -137,11 +139,12 @@ public class SemanticIndexViewsManager {
 			RDBMSSIRepositoryManager.TableDescription tableDescription = RDBMSSIRepositoryManager.ATTRIBUTE_TABLE_MAP
 					.get(type2.getIRI());
 
+			tableName = tableDescription.tableName;
 			select = tableDescription.getSELECT(filter);
 			insert = tableDescription.getINSERT("?, ?, ?, " + value);
 		}
 
-		createViews(type1, type2, select, insert);
+		createViews(type1, type2, tableName, select, insert);
 	}
 
 	private void initObjectProperty(ObjectRDFType type1, ObjectRDFType type2) {
@@ -154,12 +157,12 @@ public class SemanticIndexViewsManager {
 		String select = tableDescription.getSELECT(filter + "ISBNODE2 = " + value2 + " AND ");
 		String insert = tableDescription.getINSERT("?, ?, ?, " + value1 + ", " + value2);
 
-		createViews(type1, type2, select, insert);
+		createViews(type1, type2, tableDescription.tableName, select, insert);
 	}
 
-	private void createViews(ObjectRDFType type1, RDFTermType type2, String select, String insert) {
+	private void createViews(ObjectRDFType type1, RDFTermType type2, String tableName, String select, String insert) {
 		SemanticIndexViewID viewId = new SemanticIndexViewID(type1, type2);
-		SemanticIndexView view = new SemanticIndexView(viewId, select, insert);
+		SemanticIndexView view = new SemanticIndexView(viewId, tableName, select, insert);
 		views.put(view.getId(), view);
 		propertyViews.add(view);
 	}
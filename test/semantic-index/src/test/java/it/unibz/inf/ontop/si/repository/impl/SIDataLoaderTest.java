@@ -0,0 +1,82 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+public class SIDataLoaderTest {
+
+    private static final int COUNT = 10_000;
+    private static final String[] TABLES = { "T1", "T2", "T3" };
+
+    @Test
+    public void testSingleWriter() throws SQLException {
+        checkLoad("sidataloader1", 1);
+    }
+
+    @Test
+    public void testParallelWriters() throws SQLException {
+        checkLoad("sidataloader3", 3);
+    }
+
+    @Test
+    public void testFailure() throws SQLException {
+        String url = "jdbc:h2:mem:sidataloaderfailure";
+        try (Connection conn = createDB(url)) {
+            SIDataLoader loader = new SIDataLoader(conn, () -> DriverManager.getConnection(url, "sa", ""), 2, 100, 10);
+            try {
+                for (int i = 0; i < COUNT; i++)
+                    loader.add(new SIDataLoader.Row("T1", "INSERT INTO T1 VALUES (?)", stm -> stm.setInt(1, 0)));
+                loader.finish();
+                fail("The primary key violation should have been reported");
+            }
+            catch (SQLException expected) {
+            }
+            finally {
+                loader.close();
+            }
+        }
+    }
+
+    private static void checkLoad(String dbName, int workerCount) throws SQLException {
+        String url = "jdbc:h2:mem:" + dbName;
+        try (Connection conn = createDB(url)) {
+            SIDataLoader loader = new SIDataLoader(conn, () -> DriverManager.getConnection(url, "sa", ""),
+                    workerCount, 1000, 100);
+            for (int i = 0; i < COUNT; i++) {
+                String table = TABLES[i % TABLES.length];
+                int value = i;
+                loader.add(new SIDataLoader.Row(table, "INSERT INTO " + table + " VALUES (?)",
+                        stm -> stm.setInt(1, value)));
+            }
+            loader.finish();
+
+            try (Statement st = conn.createStatement()) {
+                long total = 0;
+                for (String table : TABLES) {
+                    try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                        assertTrue(rs.next());
+                        total += rs.getLong(1);
+                    }
+                }
+                assertEquals(COUNT, total);
+            }
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    private static Connection createDB(String url) throws SQLException {
+        Connection conn = DriverManager.getConnection(url, "sa", "");
+        try (Statement st = conn.createStatement()) {
+            for (String table : TABLES)
+                st.executeUpdate("CREATE TABLE " + table + " (V INTEGER PRIMARY KEY)");
+        }
+        return conn;
+    }
+}
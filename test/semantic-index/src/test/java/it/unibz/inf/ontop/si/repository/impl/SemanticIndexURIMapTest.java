@@ -0,0 +1,68 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SemanticIndexURIMapTest {
+
+    private static final int COUNT = 200_000;
+
+    private static String iri(int i) {
+        return (i % 3 == 0)
+                ? "http://example.org/person/" + i
+                : "http://example.org/résumé/" + i + "/" + (i % 7);
+    }
+
+    @Test
+    public void testLookups() {
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        for (int i = 0; i < COUNT; i++)
+            map.set(iri(i), i);
+
+        assertEquals(COUNT, map.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(i, map.getId(iri(i)));
+            assertEquals(iri(i), map.getURI(i));
+        }
+        assertEquals(-2, map.getId("http://example.org/person/unknown"));
+        assertNull(map.getURI(COUNT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonConsecutiveIds() {
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        map.set(iri(0), 0);
+        map.set(iri(1), 2);
+    }
+
+    @Test
+    public void testEqualHashes() {
+        // "Aa" and "BB" have the same hash code, and so do all the strings built from these two blocks
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        map.set("http://example.org/AaAa", 0);
+        map.set("http://example.org/AaBB", 1);
+        map.set("http://example.org/BBAa", 2);
+
+        assertEquals(0, map.getId("http://example.org/AaAa"));
+        assertEquals(1, map.getId("http://example.org/AaBB"));
+        assertEquals(2, map.getId("http://example.org/BBAa"));
+        assertEquals(-2, map.getId("http://example.org/BBBB"));
+    }
+
+    @Test
+    public void testPrefixes() {
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        map.set("http://example.org/a/b", 0);
+        map.set("http://example.org/a", 1);
+        map.set("http://example.org/a/bc", 2);
+        map.set("http://example.org/", 3);
+
+        assertEquals(0, map.getId("http://example.org/a/b"));
+        assertEquals(1, map.getId("http://example.org/a"));
+        assertEquals(2, map.getId("http://example.org/a/bc"));
+        assertEquals(3, map.getId("http://example.org/"));
+        assertEquals(-2, map.getId("http://example.org/a/"));
+        assertEquals(-2, map.getId("http://example.org/a/bcd"));
+    }
+}